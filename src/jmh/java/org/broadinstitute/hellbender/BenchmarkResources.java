@@ -0,0 +1,80 @@
+package org.broadinstitute.hellbender;
+
+import htsjdk.samtools.SAMFileHeader;
+import org.broadinstitute.hellbender.engine.ReadsPathDataSource;
+import org.broadinstitute.hellbender.engine.ReferenceDataSource;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Locations of, and loaders for, the small test resources that drive the JMH benchmarks. As for the tests, the
+ * resources are found relative to the GATK directory, which is the current directory unless the "gatkdir" system
+ * property is set.
+ */
+public final class BenchmarkResources {
+    private BenchmarkResources() {}
+
+    private static final String CURRENT_DIRECTORY = System.getProperty("user.dir");
+    public static final String gatkDirectory = System.getProperty("gatkdir", CURRENT_DIRECTORY) + "/";
+    public static final String publicTestDir = new File(gatkDirectory, "src/test/resources/").getAbsolutePath() + "/";
+
+    /**
+     * 1Mb of chromosome 17 of the b37 reference, and a small bam of NA12878 reads aligned to it
+     */
+    public static final String b37_chr17_1Mb_reference = publicTestDir + "human_g1k_v37.chr17_1Mb.fasta";
+    public static final String NA12878_chr17_bam = publicTestDir + "NA12878.chr17_69k_70k.dictFix.bam";
+    public static final SimpleInterval NA12878_chr17_interval = new SimpleInterval("17", 69_000, 70_000);
+
+    /**
+     * Whole genome calling regions of the b37 reference
+     */
+    public static final String b37_wgs_calling_regions = publicTestDir + "wgs_calling_regions.v1.interval_list";
+
+    public static Path getPath(final String resource) {
+        return Paths.get(resource);
+    }
+
+    /**
+     * @return the reads of the bam that overlap the interval and that would pass the standard filters of the tools
+     * (mapped, primary, non-duplicate, non-zero mapping quality), in coordinate order
+     */
+    public static List<GATKRead> loadMappedReads(final String bam, final SimpleInterval interval) {
+        final List<GATKRead> reads = new ArrayList<>();
+        try ( final ReadsPathDataSource readsSource = new ReadsPathDataSource(getPath(bam)) ) {
+            final Iterator<GATKRead> iterator = readsSource.query(interval);
+            while ( iterator.hasNext() ) {
+                final GATKRead read = iterator.next();
+                if ( ! read.isUnmapped() && read.getMappingQuality() > 0 && ! read.isDuplicate() && ! read.isSecondaryAlignment()
+                        && ! read.isSupplementaryAlignment() && ! read.failsVendorQualityCheck() && read.getLength() > 0 ) {
+                    reads.add(read);
+                }
+            }
+        }
+        return reads;
+    }
+
+    /**
+     * @return the reference bases of the interval
+     */
+    public static byte[] loadReferenceBases(final String fasta, final SimpleInterval interval) {
+        try ( final ReferenceDataSource reference = ReferenceDataSource.of(getPath(fasta)) ) {
+            return reference.queryAndPrefetch(interval).getBases();
+        }
+    }
+
+    /**
+     * @return the header of the bam
+     */
+    public static SAMFileHeader loadHeader(final String bam) {
+        try ( final ReadsPathDataSource readsSource = new ReadsPathDataSource(getPath(bam)) ) {
+            return readsSource.getHeader();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.broadinstitute.hellbender.tools.walkers.genotyper;
+
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.GenotypeLikelihoods;
+import org.broadinstitute.hellbender.utils.genotyper.AlleleLikelihoods;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedAlleleList;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedSampleList;
+import org.broadinstitute.hellbender.utils.genotyper.LikelihoodMatrix;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Genotype likelihoods of a single sample from random read-allele likelihoods, for diploid and polyploid samples
+ * and bi- and multi-allelic sites.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class GenotypeLikelihoodCalculatorBenchmark {
+
+    private static final String SAMPLE = "sample";
+    private static final String[] BASES = {"A", "C", "G", "T", "AC", "AG"};
+
+    @Param({"2", "4"})
+    public int ploidy;
+
+    @Param({"2", "4", "6"})
+    public int alleleCount;
+
+    @Param({"50", "500"})
+    public int readCount;
+
+    private LikelihoodMatrix<GATKRead, Allele> likelihoods;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final List<Allele> alleles = new ArrayList<>(alleleCount);
+        for ( int a = 0; a < alleleCount; a++ ) {
+            alleles.add(Allele.create(BASES[a], a == 0));
+        }
+        final List<GATKRead> reads = new ArrayList<>(readCount);
+        for ( int r = 0; r < readCount; r++ ) {
+            reads.add(ArtificialReadUtils.createArtificialRead("100M"));
+        }
+
+        final AlleleLikelihoods<GATKRead, Allele> readLikelihoods = new AlleleLikelihoods<>(new IndexedSampleList(SAMPLE),
+                new IndexedAlleleList<>(alleles), Collections.singletonMap(SAMPLE, reads));
+        likelihoods = readLikelihoods.sampleMatrix(0);
+        final Random random = new Random(13);
+        for ( int a = 0; a < alleleCount; a++ ) {
+            for ( int r = 0; r < readCount; r++ ) {
+                likelihoods.set(a, r, -random.nextDouble() * 10);
+            }
+        }
+    }
+
+    @Benchmark
+    public GenotypeLikelihoods log10GenotypeLikelihoods() {
+        return GenotypeLikelihoodCalculator.log10GenotypeLikelihoods(ploidy, likelihoods);
+    }
+}
@@ -0,0 +1,71 @@
+package org.broadinstitute.hellbender.utils;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.util.IntervalList;
+import org.broadinstitute.hellbender.BenchmarkResources;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing, sorting and merging, and sharding of the b37 whole genome calling regions, as done by the engine for
+ * the -L argument of every tool.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class IntervalUtilsBenchmark {
+
+    @Param({"16", "256"})
+    public int numShards;
+
+    private GenomeLocParser parser;
+    private List<GenomeLoc> shuffledIntervals;
+    private List<SimpleInterval> sortedIntervals;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final SAMSequenceDictionary dictionary = IntervalList.fromFile(
+                BenchmarkResources.getPath(BenchmarkResources.b37_wgs_calling_regions).toFile()).getHeader().getSequenceDictionary();
+        parser = new GenomeLocParser(dictionary);
+
+        final List<GenomeLoc> intervals = IntervalUtils.parseIntervalArguments(parser, BenchmarkResources.b37_wgs_calling_regions);
+        shuffledIntervals = new ArrayList<>(intervals);
+        Collections.shuffle(shuffledIntervals, new Random(7));
+        sortedIntervals = IntervalUtils.convertGenomeLocsToSimpleIntervals(
+                IntervalUtils.sortAndMergeIntervals(parser, intervals, IntervalMergingRule.ALL).toList());
+    }
+
+    @Benchmark
+    public List<GenomeLoc> parseIntervals() {
+        return IntervalUtils.parseIntervalArguments(parser, BenchmarkResources.b37_wgs_calling_regions);
+    }
+
+    @Benchmark
+    public GenomeLocSortedSet sortAndMergeIntervals() {
+        return IntervalUtils.sortAndMergeIntervals(parser, shuffledIntervals, IntervalMergingRule.ALL);
+    }
+
+    @Benchmark
+    public List<List<SimpleInterval>> divideIntervalsIntoShards() {
+        return IntervalUtils.divideIntervalsIntoShards(sortedIntervals, numShards);
+    }
+}
@@ -0,0 +1,95 @@
+package org.broadinstitute.hellbender.utils.locusiterator;
+
+import htsjdk.samtools.SAMFileHeader;
+import org.broadinstitute.hellbender.BenchmarkResources;
+import org.broadinstitute.hellbender.engine.AlignmentContext;
+import org.broadinstitute.hellbender.utils.pileup.PileupColumn;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Base counts at every covered locus of a 1kb interval, as computed by GetPileupSummaries, with the columnar pileup
+ * engine and with LocusIteratorByState. High depths are simulated by replicating each of the NA12878 reads.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class ColumnarLocusIteratorBenchmark {
+
+    @Param({"1", "20", "100"})
+    public int depthMultiplier;
+
+    private SAMFileHeader header;
+    private Set<String> samples;
+    private List<GATKRead> reads;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        header = BenchmarkResources.loadHeader(BenchmarkResources.NA12878_chr17_bam);
+        samples = ReadUtils.getSamplesFromHeader(header);
+        final List<GATKRead> originalReads = BenchmarkResources.loadMappedReads(BenchmarkResources.NA12878_chr17_bam, BenchmarkResources.NA12878_chr17_interval);
+        // the copies of a read are adjacent, so the reads stay in coordinate order
+        reads = new ArrayList<>(originalReads.size() * depthMultiplier);
+        for ( final GATKRead read : originalReads ) {
+            reads.add(read);
+            for ( int i = 1; i < depthMultiplier; i++ ) {
+                final GATKRead copy = read.copy();
+                copy.setName(read.getName() + "." + i);
+                reads.add(copy);
+            }
+        }
+    }
+
+    /**
+     * @return the total of the base counts, so that they are not optimized away
+     */
+    @Benchmark
+    public long locusIteratorByStateBaseCounts() {
+        final LocusIteratorByState libs = new LocusIteratorByState(reads.iterator(), LocusIteratorByState.NO_DOWNSAMPLING,
+                samples, header, true);
+        long totalBaseCount = 0;
+        while ( libs.hasNext() ) {
+            final AlignmentContext context = libs.next();
+            for ( final int count : context.getBasePileup().getBaseCounts() ) {
+                totalBaseCount += count;
+            }
+        }
+        return totalBaseCount;
+    }
+
+    /**
+     * @return the total of the base counts, so that they are not optimized away
+     */
+    @Benchmark
+    public long columnarBaseCounts() {
+        final ColumnarLocusIterator columns = new ColumnarLocusIterator(reads.iterator(), samples, header, true, false);
+        long totalBaseCount = 0;
+        while ( columns.advance() ) {
+            final PileupColumn column = columns.getColumn();
+            for ( final int count : column.getBaseCounts() ) {
+                totalBaseCount += count;
+            }
+        }
+        return totalBaseCount;
+    }
+}
@@ -0,0 +1,64 @@
+package org.broadinstitute.hellbender.utils.locusiterator;
+
+import htsjdk.samtools.SAMFileHeader;
+import org.broadinstitute.hellbender.BenchmarkResources;
+import org.broadinstitute.hellbender.engine.AlignmentContext;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pileups of the NA12878 reads of a 1kb interval at every covered locus, as produced for a locus walker.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class LocusIteratorByStateBenchmark {
+
+    @Param({"false", "true"})
+    public boolean includeDeletions;
+
+    private SAMFileHeader header;
+    private Set<String> samples;
+    private List<GATKRead> reads;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        header = BenchmarkResources.loadHeader(BenchmarkResources.NA12878_chr17_bam);
+        samples = ReadUtils.getSamplesFromHeader(header);
+        reads = BenchmarkResources.loadMappedReads(BenchmarkResources.NA12878_chr17_bam, BenchmarkResources.NA12878_chr17_interval);
+    }
+
+    /**
+     * @return the total size of the pileups, so that they are not optimized away
+     */
+    @Benchmark
+    public long iteratePileups() {
+        final LocusIteratorByState libs = new LocusIteratorByState(reads.iterator(), LocusIteratorByState.NO_DOWNSAMPLING,
+                samples, header, includeDeletions);
+        long totalPileupSize = 0;
+        while ( libs.hasNext() ) {
+            final AlignmentContext context = libs.next();
+            totalPileupSize += context.getBasePileup().size();
+        }
+        return totalPileupSize;
+    }
+}
@@ -0,0 +1,117 @@
+package org.broadinstitute.hellbender.utils.pairhmm;
+
+import org.broadinstitute.gatk.nativebindings.pairhmm.PairHMMNativeArguments;
+import org.broadinstitute.hellbender.BenchmarkResources;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.StandardPairHMMInputScoreImputator;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.genotyper.AlleleLikelihoods;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedAlleleList;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedSampleList;
+import org.broadinstitute.hellbender.utils.genotyper.LikelihoodMatrix;
+import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Likelihoods of the NA12878 reads overlapping a small region against the reference haplotype of the region and three
+ * alternate haplotypes, as computed for a HaplotypeCaller active region. The native implementations throw from the
+ * setup (failing only their own benchmarks) on machines where they are not supported.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class PairHMMBenchmark {
+
+    private static final String SAMPLE = "sample";
+    private static final SimpleInterval REGION = new SimpleInterval("17", 69_500, 69_600);
+    private static final int HAPLOTYPE_PADDING = 150;
+
+    @Param({"LOGLESS_CACHING", "JAVA_VECTORIZED_LOGLESS_CACHING", "AVX_LOGLESS_CACHING"})
+    public String implementation;
+
+    private PairHMM pairHMM;
+    private List<GATKRead> reads;
+    private LikelihoodMatrix<GATKRead, Haplotype> likelihoods;
+    private PairHMMInputScoreImputator inputScoreImputator;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        reads = BenchmarkResources.loadMappedReads(BenchmarkResources.NA12878_chr17_bam, REGION);
+        final List<Haplotype> haplotypes = makeHaplotypes(BenchmarkResources.loadReferenceBases(BenchmarkResources.b37_chr17_1Mb_reference,
+                new SimpleInterval(REGION.getContig(), REGION.getStart() - HAPLOTYPE_PADDING, REGION.getEnd() + HAPLOTYPE_PADDING)));
+
+        final AlleleLikelihoods<GATKRead, Haplotype> readLikelihoods = new AlleleLikelihoods<>(new IndexedSampleList(SAMPLE),
+                new IndexedAlleleList<>(haplotypes), Collections.singletonMap(SAMPLE, reads));
+        likelihoods = readLikelihoods.sampleMatrix(0);
+        inputScoreImputator = StandardPairHMMInputScoreImputator.newInstance((byte) 10);
+
+        final PairHMMNativeArguments args = new PairHMMNativeArguments();
+        args.maxNumberOfThreads = 1;
+        args.useDoublePrecision = false;
+        pairHMM = PairHMM.Implementation.valueOf(implementation).makeNewHMM(args);
+        final int maxReadLength = reads.stream().mapToInt(GATKRead::getLength).max().orElse(1);
+        final int maxHaplotypeLength = haplotypes.stream().mapToInt(Haplotype::length).max().orElse(1);
+        final Map<String, List<GATKRead>> perSampleReads = Collections.singletonMap(SAMPLE, reads);
+        pairHMM.initialize(haplotypes, perSampleReads, maxReadLength, maxHaplotypeLength);
+    }
+
+    /**
+     * @return the reference haplotype, and haplotypes with a SNP, a deletion and an insertion in the middle
+     */
+    private static List<Haplotype> makeHaplotypes(final byte[] referenceBases) {
+        final int middle = referenceBases.length / 2;
+        final List<Haplotype> haplotypes = new ArrayList<>();
+        haplotypes.add(new Haplotype(referenceBases, true));
+
+        final byte[] snp = referenceBases.clone();
+        snp[middle] = (byte) (snp[middle] == 'A' ? 'C' : 'A');
+        haplotypes.add(new Haplotype(snp, false));
+
+        final byte[] deletion = new byte[referenceBases.length - 1];
+        System.arraycopy(referenceBases, 0, deletion, 0, middle);
+        System.arraycopy(referenceBases, middle + 1, deletion, middle, referenceBases.length - middle - 1);
+        haplotypes.add(new Haplotype(deletion, false));
+
+        final byte[] insertion = Arrays.copyOf(referenceBases, referenceBases.length + 2);
+        System.arraycopy(referenceBases, middle, insertion, middle + 2, referenceBases.length - middle);
+        insertion[middle] = 'G';
+        insertion[middle + 1] = 'T';
+        haplotypes.add(new Haplotype(insertion, false));
+        return haplotypes;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if ( pairHMM != null ) {
+            pairHMM.close();
+        }
+    }
+
+    @Benchmark
+    public double[] computeLog10Likelihoods() {
+        pairHMM.computeLog10Likelihoods(likelihoods, reads, inputScoreImputator);
+        return pairHMM.getLogLikelihoodArray();
+    }
+}
@@ -0,0 +1,65 @@
+package org.broadinstitute.hellbender.utils.recalibration;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.util.Locatable;
+import org.broadinstitute.hellbender.BenchmarkResources;
+import org.broadinstitute.hellbender.engine.ReferenceDataSource;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accumulation of the BQSR covariate tables over the NA12878 reads of a 1kb interval, with the default covariates
+ * and no known sites, as done by BaseRecalibrator.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class BaseRecalibrationEngineBenchmark {
+
+    private static final List<Locatable> NO_KNOWN_SITES = Collections.emptyList();
+
+    private SAMFileHeader header;
+    private List<GATKRead> reads;
+    private ReferenceDataSource reference;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        header = BenchmarkResources.loadHeader(BenchmarkResources.NA12878_chr17_bam);
+        reads = BenchmarkResources.loadMappedReads(BenchmarkResources.NA12878_chr17_bam, BenchmarkResources.NA12878_chr17_interval);
+        reference = ReferenceDataSource.of(BenchmarkResources.getPath(BenchmarkResources.b37_chr17_1Mb_reference));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        reference.close();
+    }
+
+    @Benchmark
+    public RecalibrationTables processReads() {
+        final BaseRecalibrationEngine engine = new BaseRecalibrationEngine(new RecalibrationArgumentCollection(), header);
+        for ( final GATKRead read : reads ) {
+            // processRead may modify the read, so that each invocation starts from the original reads
+            engine.processRead(read.copy(), reference, NO_KNOWN_SITES);
+        }
+        engine.finalizeData();
+        return engine.getFinalRecalibrationTables();
+    }
+}
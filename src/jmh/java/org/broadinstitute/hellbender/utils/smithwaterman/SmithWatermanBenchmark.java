@@ -0,0 +1,85 @@
+package org.broadinstitute.hellbender.utils.smithwaterman;
+
+import org.broadinstitute.gatk.nativebindings.smithwaterman.SWOverhangStrategy;
+import org.broadinstitute.hellbender.BenchmarkResources;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Haplotype-to-reference alignment, as done for every haplotype assembled by the HaplotypeCaller, of a haplotype with a
+ * few SNPs and indels against the reference of the region. The AVX aligner throws from the setup (failing only its own
+ * benchmarks) on machines where it is not supported.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class SmithWatermanBenchmark {
+
+    @Param({"JAVA", "JAVA_VECTORIZED", "AVX_ENABLED"})
+    public String implementation;
+
+    @Param({"300", "1000"})
+    public int referenceLength;
+
+    @Param({"INDEL", "SOFTCLIP"})
+    public String overhangStrategy;
+
+    private SmithWatermanAligner aligner;
+    private byte[] reference;
+    private byte[] haplotype;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        reference = BenchmarkResources.loadReferenceBases(BenchmarkResources.b37_chr17_1Mb_reference,
+                new SimpleInterval("17", 69_000, 69_000 + referenceLength - 1));
+
+        // one variant every 100 bases or so, alternating between SNPs, deletions and insertions
+        final Random random = new Random(1);
+        final StringBuilder builder = new StringBuilder();
+        for ( int i = 0; i < reference.length; i++ ) {
+            final char base = (char) reference[i];
+            if ( i % 100 != 50 ) {
+                builder.append(base);
+            } else if ( i % 300 == 50 ) {
+                builder.append(base == 'A' ? 'C' : 'A');
+            } else if ( i % 300 == 150 ) {
+                i += random.nextInt(3);
+            } else {
+                builder.append(base).append("ACGT".charAt(random.nextInt(4)));
+            }
+        }
+        haplotype = builder.toString().getBytes();
+
+        aligner = SmithWatermanAligner.getAligner(SmithWatermanAligner.Implementation.valueOf(implementation));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if ( aligner != null ) {
+            aligner.close();
+        }
+    }
+
+    @Benchmark
+    public SmithWatermanAlignment align() {
+        return aligner.align(reference, haplotype, SmithWatermanAlignmentConstants.NEW_SW_PARAMETERS, SWOverhangStrategy.valueOf(overhangStrategy));
+    }
+}
@@ -23,6 +23,7 @@ import org.broadinstitute.hellbender.utils.config.ConfigFactory;
 import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
 import org.broadinstitute.hellbender.utils.help.HelpConstants;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.broadinstitute.hellbender.utils.io.ParallelBlockCompressedOutputStream;
 import org.broadinstitute.hellbender.utils.runtime.RuntimeUtils;
 
 import java.io.IOException;
@@ -80,6 +81,12 @@ public abstract class CommandLineProgram implements CommandLinePluginProvider {
     @Argument(fullName = StandardArgumentDefinitions.USE_JDK_INFLATER_LONG_NAME, shortName = StandardArgumentDefinitions.USE_JDK_INFLATER_SHORT_NAME, doc = "Whether to use the JdkInflater (as opposed to IntelInflater)", common=true)
     public boolean useJdkInflater = false;
 
+    @Argument(fullName = StandardArgumentDefinitions.COMPRESSION_THREADS_LONG_NAME, doc = "Number of threads with which to compress " +
+            "block-compressed BCI outputs. If greater than 1, the BAM and VCF outputs created by the tool's standard writers " +
+            "are also encoded and written on a separate writer thread, but their block compression stays on a single thread. " +
+            "Other outputs are not affected.", common = true, optional = true, minValue = 1)
+    public int compressionThreads = 1;
+
     @Argument(fullName = StandardArgumentDefinitions.NIO_MAX_REOPENS_LONG_NAME, shortName = StandardArgumentDefinitions.NIO_MAX_REOPENS_SHORT_NAME, doc = "If the GCS bucket channel errors out, how many times it will attempt to re-initiate the connection", optional = true)
     public int NIO_MAX_REOPENS = ConfigFactory.getInstance().getGATKConfig().gcsMaxRetries();
 
@@ -185,6 +192,7 @@ public abstract class CommandLineProgram implements CommandLinePluginProvider {
         if (! useJdkInflater) {
             BlockGunzipper.setDefaultInflaterFactory(new IntelInflaterFactory());
         }
+        ParallelBlockCompressedOutputStream.setDefaultCompressionThreads(compressionThreads);
 
         BucketUtils.setGlobalNIODefaultOptions(NIO_MAX_REOPENS, NIO_PROJECT_FOR_REQUESTER_PAYS);
 
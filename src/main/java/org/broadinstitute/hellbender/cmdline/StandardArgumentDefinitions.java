@@ -107,6 +107,7 @@ public final class StandardArgumentDefinitions {
     public static final String USE_JDK_DEFLATER_SHORT_NAME = "jdk-deflater";
     public static final String USE_JDK_INFLATER_LONG_NAME = "use-jdk-inflater";
     public static final String USE_JDK_INFLATER_SHORT_NAME = "jdk-inflater";
+    public static final String COMPRESSION_THREADS_LONG_NAME = "compression-threads";
     public static final String NIO_MAX_REOPENS_LONG_NAME = "gcs-max-retries";
     public static final String NIO_MAX_REOPENS_SHORT_NAME = "gcs-retries";
     public static final String NIO_PROJECT_FOR_REQUESTER_PAYS_LONG_NAME = "gcs-project-for-requester-pays";
@@ -2,6 +2,7 @@ package org.broadinstitute.hellbender.engine;
 
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.ArgumentCollection;
+import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.hellbender.engine.filters.CountingReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilterLibrary;
@@ -10,15 +11,20 @@ import org.broadinstitute.hellbender.engine.spark.AssemblyRegionArgumentCollecti
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.IGVUtils;
 import org.broadinstitute.hellbender.utils.IntervalUtils;
+import org.broadinstitute.hellbender.utils.OrderedParallelExecutor;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.downsampling.PositionalDownsampler;
 import org.broadinstitute.hellbender.utils.downsampling.ReadsDownsampler;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
 
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Collectors;
 
 /**
  * An AssemblyRegionWalker is a tool that processes an entire region of reads at a time, each marked as either "active"
@@ -37,9 +43,25 @@ import java.util.List;
  *
  * Internally, the reads are loaded in chunks called read shards, which are then subdivided into active/inactive regions
  * for processing by the tool implementation. One read shard is created per contig.
+ *
+ * Tools that implement {@link #makeAssemblyRegionWorker} can also be run with {@code --assembly-region-threads N}. In that
+ * mode activity detection still runs serially on the traversal thread, but each region is then handed to a bounded queue
+ * serviced by N worker threads, each with its own {@link AssemblyRegionWorker} and its own reference and feature readers.
+ * The output step returned by the worker for each region is run back on the traversal thread in region order, so output
+ * is written in coordinate order exactly as in single-threaded mode. A region whose output step finds that the worker's
+ * results depend on state left by the preceding regions (see {@link AssemblyRegionWorker.RegionOutput}) is processed
+ * again through {@link #apply} on the traversal thread, at that point in the order.
  */
 public abstract class AssemblyRegionWalker extends WalkerBase {
 
+    public static final String ASSEMBLY_REGION_THREADS_LONG_NAME = "assembly-region-threads";
+
+    /**
+     * The number of regions queued or being processed per worker thread in multi-threaded mode. Bounds the memory
+     * used by regions awaiting processing or output.
+     */
+    private static final int REGIONS_IN_FLIGHT_PER_THREAD = 4;
+
     @ArgumentCollection
     public final AssemblyRegionArgumentCollection assemblyRegionArgs = new AssemblyRegionArgumentCollection();
 
@@ -56,6 +78,14 @@ public abstract class AssemblyRegionWalker extends WalkerBase {
 
     private PrintStream assemblyRegionOutStream;
 
+    /**
+     * If greater than 1, assembly regions are processed concurrently by this many worker threads, with output still
+     * written in coordinate order. Only supported by tools that implement {@link #makeAssemblyRegionWorker}.
+     */
+    @Argument(fullName = ASSEMBLY_REGION_THREADS_LONG_NAME, doc = "Number of threads with which to process assembly regions concurrently. " +
+            "Activity detection and output remain single-threaded.", optional = true, minValue = 1)
+    public int assemblyRegionThreads = 1;
+
     @Override
     public final boolean requiresReads() { return true; }
 
@@ -79,6 +109,9 @@ public abstract class AssemblyRegionWalker extends WalkerBase {
         super.onStartup();
 
         assemblyRegionArgs.validate();
+        if ( assemblyRegionThreads < 1 ) {
+            throw new CommandLineException.BadArgumentValue(ASSEMBLY_REGION_THREADS_LONG_NAME, String.valueOf(assemblyRegionThreads), "should be a positive number");
+        }
 
         final List<SimpleInterval> intervals = hasUserSuppliedIntervals() ? userIntervals : IntervalUtils.getAllIntervalsForReference(getHeaderForReads().getSequenceDictionary());
         readShards = makeReadShards(intervals);
@@ -162,20 +195,57 @@ public abstract class AssemblyRegionWalker extends WalkerBase {
         // meter to check the time more frequently (every 10 regions instead of every 1000 regions).
         progressMeter.setRecordsBetweenTimeChecks(10L);
 
-        for ( final MultiIntervalLocalReadShard readShard : readShards ) {
-            // Since reads in each shard are lazily fetched, we need to pass the filter and transformers to the window
-            // instead of filtering the reads directly here
-            readShard.setPreReadFilterTransformer(makePreReadFilterTransformer());
-            readShard.setReadFilter(countedFilter);
-            readShard.setDownsampler(createDownsampler());
-            readShard.setPostReadFilterTransformer(makePostReadFilterTransformer());
+        final List<RegionWorkerContext> workerContexts = assemblyRegionThreads > 1 ? makeWorkerContexts() : null;
+        try ( final OrderedParallelExecutor<Runnable> regionExecutor = workerContexts == null ? null :
+                new OrderedParallelExecutor<>(assemblyRegionThreads, assemblyRegionThreads * REGIONS_IN_FLIGHT_PER_THREAD, "assemblyRegion", Runnable::run) ) {
+            final BlockingQueue<RegionWorkerContext> idleWorkers = workerContexts == null ? null : new LinkedBlockingQueue<>(workerContexts);
+
+            for ( final MultiIntervalLocalReadShard readShard : readShards ) {
+                // Since reads in each shard are lazily fetched, we need to pass the filter and transformers to the window
+                // instead of filtering the reads directly here
+                readShard.setPreReadFilterTransformer(makePreReadFilterTransformer());
+                readShard.setReadFilter(countedFilter);
+                readShard.setDownsampler(createDownsampler());
+                readShard.setPostReadFilterTransformer(makePostReadFilterTransformer());
+
+                if ( regionExecutor == null ) {
+                    processReadShard(readShard, reference, features);
+                } else {
+                    processReadShardInParallel(readShard, regionExecutor, idleWorkers);
+                }
+            }
 
-            processReadShard(readShard, reference, features);
+            if ( regionExecutor != null ) {
+                regionExecutor.finish();
+            }
+        } finally {
+            if ( workerContexts != null ) {
+                workerContexts.forEach(RegionWorkerContext::close);
+            }
         }
 
         logger.info(countedFilter.getSummaryLine());
     }
 
+    /**
+     * Create one {@link RegionWorkerContext} per worker thread. The tool's workers are created here, on the traversal
+     * thread, so that tools don't need to make {@link #makeAssemblyRegionWorker} itself thread-safe.
+     */
+    private List<RegionWorkerContext> makeWorkerContexts() {
+        logger.info("Processing assembly regions with " + assemblyRegionThreads + " threads");
+        final List<RegionWorkerContext> contexts = new ArrayList<>(assemblyRegionThreads);
+        for ( int i = 0; i < assemblyRegionThreads; i++ ) {
+            final AssemblyRegionWorker worker = makeAssemblyRegionWorker();
+            if ( worker == null ) {
+                contexts.forEach(RegionWorkerContext::close);
+                throw new CommandLineException.BadArgumentValue(ASSEMBLY_REGION_THREADS_LONG_NAME, String.valueOf(assemblyRegionThreads),
+                        getToolName() + " does not support multi-threaded assembly region processing");
+            }
+            contexts.add(new RegionWorkerContext(worker, createWorkerReferenceDataSource(), createWorkerFeatureManager()));
+        }
+        return contexts;
+    }
+
     /**
      * Divide the given Shard up into active/inactive AssemblyRegions using the {@link #assemblyRegionEvaluator},
      * and send each region to the tool implementation for processing.
@@ -206,6 +276,65 @@ public abstract class AssemblyRegionWalker extends WalkerBase {
         }
     }
 
+    /**
+     * Divide the given Shard up into active/inactive AssemblyRegions on the traversal thread, exactly as in
+     * {@link #processReadShard}, but hand each region off to the worker pool rather than calling {@link #apply}.
+     *
+     * @param shard MultiIntervalLocalReadShard to process
+     * @param regionExecutor executor running the workers, which runs each region's output step on this thread in order
+     * @param idleWorkers workers not currently processing a region. There are as many workers as threads, so a task never
+     *                    waits for one.
+     */
+    private void processReadShardInParallel(final MultiIntervalLocalReadShard shard, final OrderedParallelExecutor<Runnable> regionExecutor,
+                                            final BlockingQueue<RegionWorkerContext> idleWorkers) {
+        final Iterator<AssemblyRegion> assemblyRegionIter = new AssemblyRegionIterator(shard, getHeaderForReads(), reference, features, assemblyRegionEvaluator(), assemblyRegionArgs, shouldTrackPileupsForAssemblyRegions());
+
+        while ( assemblyRegionIter.hasNext() ) {
+            final AssemblyRegion assemblyRegion = assemblyRegionIter.next();
+            if ( assemblyRegionArgs.forceActive ) {
+                assemblyRegion.setIsActive(true);
+            }
+
+            logger.debug("Queueing assembly region at " + assemblyRegion.getSpan() + " isActive: " + assemblyRegion.isActive() + " numReads: " + assemblyRegion.getReads().size());
+            writeAssemblyRegion(assemblyRegion);
+
+            // Reads near region boundaries are shared with neighbouring regions, and tools may modify reads in place
+            // (eg., when correcting overlapping mate qualities), so give each region its own copies. The originals are
+            // kept untouched in case the region has to be processed again in order.
+            final List<GATKRead> originalReads = new ArrayList<>(assemblyRegion.getReads());
+            final AssemblyRegion regionCopy = copyAssemblyRegion(assemblyRegion, originalReads);
+
+            regionExecutor.submit(() -> {
+                final RegionWorkerContext workerContext = idleWorkers.take();
+                try {
+                    final AssemblyRegionWorker.RegionOutput output = workerContext.processRegion(regionCopy);
+                    return () -> {
+                        if ( ! output.emit() ) {
+                            logger.debug("Processing assembly region at " + assemblyRegion.getSpan() + " again on the traversal thread");
+                            apply(copyAssemblyRegion(assemblyRegion, originalReads),
+                                    new ReferenceContext(reference, assemblyRegion.getPaddedSpan()),
+                                    new FeatureContext(features, assemblyRegion.getPaddedSpan()));
+                        }
+                        progressMeter.update(assemblyRegion.getSpan());
+                    };
+                } finally {
+                    idleWorkers.add(workerContext);
+                }
+            });
+        }
+    }
+
+    /**
+     * @return a new, unprocessed region with the same spans, activity and alignment data as the given one, and deep
+     *         copies of the given reads
+     */
+    private static AssemblyRegion copyAssemblyRegion(final AssemblyRegion region, final List<GATKRead> reads) {
+        final AssemblyRegion copy = new AssemblyRegion(region.getSpan(), region.getPaddedSpan(), region.isActive(), region.getHeader());
+        copy.addAll(reads.stream().map(GATKRead::deepCopy).collect(Collectors.toList()));
+        copy.addAllAlignmentData(region.getAlignmentData());
+        return copy;
+    }
+
     private void writeAssemblyRegion(final AssemblyRegion region) {
         if ( assemblyRegionOutStream != null ) {
             IGVUtils.printIGVFormatRow(assemblyRegionOutStream, new SimpleInterval(region.getContig(), region.getStart(), region.getStart()),
@@ -249,13 +378,62 @@ public abstract class AssemblyRegionWalker extends WalkerBase {
      * {@link #assemblyRegionEvaluator}. This method will be called once for each active AND inactive region,
      * and it is up to the implementation how to handle/process active vs. inactive regions.
      *
+     * In multi-threaded mode, this method is only called on the traversal thread for regions that must be processed
+     * again in order (see {@link AssemblyRegionWorker.RegionOutput#emit}).
+     *
      * @param region region to process (pre-marked as either active or inactive)
      * @param referenceContext reference data overlapping the padded span of the assembly region
      * @param featureContext features overlapping the padded span of the assembly region
      */
     public abstract void apply( final AssemblyRegion region, final ReferenceContext referenceContext, final FeatureContext featureContext );
 
+    /**
+     * Create a new, independent worker for processing assembly regions concurrently when running with
+     * {@code --assembly-region-threads} greater than 1. Called once per worker thread on the traversal thread, after
+     * {@link #onTraversalStart}. Each worker must own all of its mutable state (see {@link AssemblyRegionWorker}).
+     *
+     * The default implementation returns null, indicating that the tool only supports single-threaded processing
+     * through {@link #apply}.
+     *
+     * @return a new worker, or null if this tool doesn't support multi-threaded assembly region processing
+     */
+    protected AssemblyRegionWorker makeAssemblyRegionWorker() {
+        return null;
+    }
+
     public boolean nonRandomDownsamplingMode() {
         return false;
     }
+
+    /**
+     * A tool's {@link AssemblyRegionWorker} together with the reference and feature readers that it uses.
+     */
+    private static final class RegionWorkerContext implements AutoCloseable {
+        private final AssemblyRegionWorker worker;
+        private final ReferenceDataSource reference;
+        private final FeatureManager features;
+
+        RegionWorkerContext(final AssemblyRegionWorker worker, final ReferenceDataSource reference, final FeatureManager features) {
+            this.worker = worker;
+            this.reference = reference;
+            this.features = features;
+        }
+
+        AssemblyRegionWorker.RegionOutput processRegion(final AssemblyRegion region) {
+            return worker.processRegion(region,
+                    new ReferenceContext(reference, region.getPaddedSpan()),
+                    new FeatureContext(features, region.getPaddedSpan()));
+        }
+
+        @Override
+        public void close() {
+            worker.close();
+            if ( reference != null ) {
+                reference.close();
+            }
+            if ( features != null ) {
+                features.close();
+            }
+        }
+    }
 }
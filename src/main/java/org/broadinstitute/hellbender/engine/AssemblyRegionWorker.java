@@ -0,0 +1,49 @@
+package org.broadinstitute.hellbender.engine;
+
+/**
+ * Processes {@link AssemblyRegion}s on behalf of an {@link AssemblyRegionWalker} running in multi-threaded mode
+ * (see {@link AssemblyRegionWalker#makeAssemblyRegionWorker()}).
+ *
+ * Each worker is used by at most one thread at a time, but consecutive calls may come from different threads, so a worker
+ * must own all of the mutable state it needs (its own engine, aligner, PairHMM, reference reader, etc.) and must not
+ * touch the tool's outputs directly. Instead, {@link #processRegion} returns the output step for the region as a
+ * {@link RegionOutput}, which the traversal runs on the main traversal thread, in region order.
+ */
+public interface AssemblyRegionWorker extends AutoCloseable {
+
+    /**
+     * Process an individual AssemblyRegion on a worker thread.
+     *
+     * @param region region to process (pre-marked as either active or inactive). Its reads are private copies owned by this call.
+     * @param referenceContext reference data overlapping the padded span of the assembly region, backed by a reader owned by the calling thread
+     * @param featureContext features overlapping the padded span of the assembly region, backed by readers owned by the calling thread
+     * @return the output step for this region (eg., adding its calls to the tool's writer), to be run on the traversal thread
+     *         after the output steps of all preceding regions. Never {@code null}.
+     */
+    RegionOutput processRegion(final AssemblyRegion region, final ReferenceContext referenceContext, final FeatureContext featureContext);
+
+    /**
+     * Release any resources held by this worker. Called on the traversal thread after all regions have been processed.
+     */
+    @Override
+    default void close() {}
+
+    /**
+     * The output step of a region processed by an {@link AssemblyRegionWorker}
+     */
+    @FunctionalInterface
+    interface RegionOutput {
+
+        /**
+         * Emit the results of the region. Run on the traversal thread, after the output steps of all preceding regions.
+         *
+         * A worker can't see the state that the preceding regions leave behind for the regions after them (eg., the
+         * deletions that they emitted). If the results of the worker turn out to depend on that state, this method
+         * must emit nothing and return false: the traversal then processes the region again through
+         * {@link AssemblyRegionWalker#apply} on the traversal thread, with fresh copies of its reads.
+         *
+         * @return true if the results of the region were emitted, false if the region must be processed again in order
+         */
+        boolean emit();
+    }
+}
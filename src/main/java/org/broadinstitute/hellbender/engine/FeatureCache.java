@@ -6,6 +6,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
 
 import java.util.*;
 
@@ -17,18 +18,24 @@ import java.util.*;
  * Strategy is to pre-fetch a large number of records AFTER each query interval that produces
  * a cache miss. This optimizes for the use case of intervals with gradually increasing start
  * positions, as many subsequent queries will find their records wholly contained in the cache
- * before we have another cache miss. Performance will be poor for random/non-localized access
- * patterns, or intervals with decreasing start positions.
+ * before we have another cache miss.
+ *
+ * The cache holds up to a fixed number of such windows, each of them the set of all records overlapping an interval,
+ * and evicts the least recently used one when a new window is added. This way, access patterns that jump
+ * back and forth between a few regions (or to an earlier position within a window) don't go back to disk each time.
+ * Within a window, the records overlapping a query are found with a binary search over the running maximum of their
+ * end positions, so that windows don't have to be trimmed as queries move forward.
  *
  * Usage:
- * -Test whether each query interval is a cache hit via {@link #cacheHit(org.broadinstitute.hellbender.utils.SimpleInterval)}
+ * -Test whether each query interval is a cache hit via {@link #cacheHit(Locatable)}, which
+ *  also makes the window containing the interval the current window.
  *
- * -If it is a cache hit, trim the cache to the start position of the interval (discarding records that
- *  end before the start of the new interval) via {@link #trimToNewStartPosition(int)}, then retrieve
- *  records up to the desired endpoint using {@link #getCachedFeaturesUpToStopPosition(int)}.
+ * -If it is a cache hit, retrieve the records overlapping the interval from the current window with
+ *  {@link #getCachedFeaturesOverlapping(Locatable)}.
  *
- * -If it is a cache miss, reset the cache using {@link #fill(java.util.Iterator, org.broadinstitute.hellbender.utils.SimpleInterval)}, pre-fetching
- *  a large number of records after the query interval in addition to those actually requested.
+ * -If it is a cache miss, add a new window to the cache using {@link #fill(java.util.Iterator, org.broadinstitute.hellbender.utils.SimpleInterval)}
+ *  (or {@link #addPrefetchedWindow} for records read ahead of time), pre-fetching a large number of records after the
+ *  query interval in addition to those actually requested.
  *
  * @param <CACHED_FEATURE> Type of Feature record we are caching
  */
@@ -36,191 +43,214 @@ class FeatureCache<CACHED_FEATURE extends Feature> {
     private static final Logger logger = LogManager.getLogger(FeatureCache.class);
 
     /**
-     * Our cache of Features, optimized for insertion/removal at both ends.
+     * Default maximum number of windows held by the cache
+     */
+    public static final int DEFAULT_MAX_WINDOWS = 8;
+
+    /**
+     * Maximum number of windows held by the cache
      */
-    private final Deque<CACHED_FEATURE> cache;
+    private final int maxWindows;
 
     /**
-     * Our cache currently contains Feature records overlapping this interval
+     * Our windows, most recently used first
      */
-    private SimpleInterval cachedInterval;
+    private final List<FeatureWindow<CACHED_FEATURE>> windows;
 
     /**
-     * Number of times we called {@link #cacheHit(SimpleInterval)} and it returned true
+     * Number of times we called {@link #cacheHit(Locatable)} and it returned true
      */
     private int numCacheHits = 0;
 
     /**
-     * Number of times we called {@link #cacheHit(SimpleInterval)} and it returned false
+     * Number of times we called {@link #cacheHit(Locatable)} and it returned false
      */
     private int numCacheMisses = 0;
 
     /**
-     * Initial capacity of our cache (will grow by doubling if needed)
+     * Number of windows added to the cache, including prefetched ones
      */
-    private static final int INITIAL_CAPACITY = 1024;
+    private int numWindowsAdded = 0;
 
     /**
-     * When we trim our cache to a new start position, this is the maximum number of
-     * Features we expect to need to place into temporary storage for the duration of
-     * the trim operation. Performance only suffers slightly if our estimate is wrong.
+     * Number of windows added to the cache that were read ahead of time
      */
-    private static final int EXPECTED_MAX_OVERLAPPING_FEATURES_DURING_CACHE_TRIM = 128;
+    private int numPrefetchedWindowsAdded = 0;
 
     /**
-     * Create an initially-empty FeatureCache with default initial capacity
+     * Number of Feature records added to the cache
+     */
+    private long numFeaturesAdded = 0;
+
+    /**
+     * Create an initially-empty FeatureCache holding up to {@link #DEFAULT_MAX_WINDOWS} windows
      */
     public FeatureCache() {
-        cache = new ArrayDeque<>(INITIAL_CAPACITY);
+        this(DEFAULT_MAX_WINDOWS);
+    }
+
+    /**
+     * Create an initially-empty FeatureCache
+     *
+     * @param maxWindows maximum number of windows held by the cache. Must be > 0.
+     */
+    public FeatureCache( final int maxWindows ) {
+        Utils.validateArg(maxWindows > 0, "maxWindows must be > 0");
+        this.maxWindows = maxWindows;
+        this.windows = new ArrayList<>(maxWindows);
+    }
+
+    private FeatureWindow<CACHED_FEATURE> getCurrentWindow() {
+        if ( windows.isEmpty() ) {
+            throw new GATKException("BUG: the Feature cache is empty");
+        }
+        return windows.get(0);
     }
 
     /**
-     * Get the name of the contig on which the Features in our cache are located
+     * Get the name of the contig on which the Features in our current window are located
      *
-     * @return the name of the contig on which the Features in our cache are located
+     * @return the name of the contig on which the Features in our current window are located
      */
     public String getContig() {
-        return cachedInterval.getContig();
+        return getCurrentWindow().interval.getContig();
     }
 
     /**
-     * Get the start position of the interval that all Features in our cache overlap
+     * Get the start position of the interval that all Features in our current window overlap
      *
-     * @return the start position of the interval that all Features in our cache overlap
+     * @return the start position of the interval that all Features in our current window overlap
      */
     public int getCacheStart() {
-        return cachedInterval.getStart();
+        return getCurrentWindow().interval.getStart();
     }
 
     /**
-     * Get the stop position of the interval that all Features in our cache overlap
+     * Get the stop position of the interval that all Features in our current window overlap
      *
-     * @return the stop position of the interval that all Features in our cache overlap
+     * @return the stop position of the interval that all Features in our current window overlap
      */
     public int getCacheEnd() {
-        return cachedInterval.getEnd();
+        return getCurrentWindow().interval.getEnd();
     }
 
     /**
-     * Does our cache currently contain no Features?
+     * Does our current window contain no Features?
      *
-     * @return true if our cache contains no Features, otherwise false
+     * @return true if our cache has no current window, or if it contains no Features, otherwise false
      */
     public boolean isEmpty() {
-        return cache.isEmpty();
+        return windows.isEmpty() || getCurrentWindow().getFeatures(getCacheStart(), getCacheEnd()).isEmpty();
     }
 
     /**
-     * @return Number of times we called {@link #cacheHit(SimpleInterval)} and it returned true
+     * @return Number of times we called {@link #cacheHit(Locatable)} and it returned true
      */
     public int getNumCacheHits() {
         return numCacheHits;
     }
 
     /**
-     * @return Number of times we called {@link #cacheHit(SimpleInterval)} and it returned false
+     * @return Number of times we called {@link #cacheHit(Locatable)} and it returned false
      */
     public int getNumCacheMisses() {
         return numCacheMisses;
     }
 
     /**
-     * Clear our cache and fill it with the records from the provided iterator, preserving their
-     * relative ordering, and update our contig/start/stop to reflect the new interval that all
-     * records in our cache overlap.
+     * @return Number of windows added to the cache, including prefetched ones
+     */
+    public int getNumWindowsAdded() {
+        return numWindowsAdded;
+    }
+
+    /**
+     * @return Number of windows added to the cache that were read ahead of time
+     */
+    public int getNumPrefetchedWindowsAdded() {
+        return numPrefetchedWindowsAdded;
+    }
+
+    /**
+     * @return Number of Feature records added to the cache
+     */
+    public long getNumFeaturesAdded() {
+        return numFeaturesAdded;
+    }
+
+    /**
+     * Add a new window to our cache with the records from the provided iterator, preserving their
+     * relative ordering, and make it the current window. If the cache is full, the least recently used window is evicted.
      *
      * Typically each fill operation should involve significant lookahead beyond the region
      * requested so that future queries will be cache hits.
      *
-     * @param featureIter iterator from which to pull Features with which to populate our cache
-     *                    (replacing existing cache contents)
+     * @param featureIter iterator from which to pull Features with which to populate the new window
      * @param interval all Features from featureIter overlap this interval
      */
     public void fill( final Iterator<CACHED_FEATURE> featureIter, final SimpleInterval interval ) {
-        cache.clear();
+        final List<CACHED_FEATURE> features = new ArrayList<>();
         while ( featureIter.hasNext() ) {
-            cache.add(featureIter.next());
+            features.add(featureIter.next());
         }
-
-        cachedInterval = interval;
+        addWindow(features, interval);
     }
 
     /**
-     * Determines whether all records overlapping the provided interval are already contained in our cache.
+     * Add a new window to our cache with records that were read ahead of time, and make it the current window.
+     * If the cache is full, the least recently used window is evicted.
      *
-     * @param interval the interval to check against the contents of our cache
-     * @return true if all records overlapping the provided interval are already contained in our cache, otherwise false
+     * @param features all Features overlapping interval, sorted by start position (no copy is made)
+     * @param interval the interval of the new window
      */
-    public boolean cacheHit( final Locatable interval ) {
-        final boolean cacheHit = cachedInterval != null && cachedInterval.contains(interval);
+    public void addPrefetchedWindow( final List<CACHED_FEATURE> features, final SimpleInterval interval ) {
+        addWindow(features, interval);
+        ++numPrefetchedWindowsAdded;
+    }
 
-        if ( cacheHit ) {
-            ++numCacheHits;
-        }
-        else {
-            ++numCacheMisses;
+    private void addWindow( final List<CACHED_FEATURE> features, final SimpleInterval interval ) {
+        Utils.nonNull(interval);
+        if ( windows.size() == maxWindows ) {
+            windows.remove(windows.size() - 1);
         }
-
-        return cacheHit;
+        windows.add(0, new FeatureWindow<>(features, interval));
+        ++numWindowsAdded;
+        numFeaturesAdded += features.size();
     }
 
     /**
-     * Trims the cache to the specified new start position by discarding all records that end before it
-     * while preserving relative ordering of records.
+     * Determines whether all records overlapping the provided interval are already contained in one of our windows,
+     * and if so makes that window the current window.
      *
-     * @param newStart new start position on the current contig to which to trim the cache
+     * @param interval the interval to check against the contents of our cache
+     * @return true if all records overlapping the provided interval are already contained in our cache, otherwise false
      */
-    public void trimToNewStartPosition( final int newStart ) {
-        if ( newStart > cachedInterval.getEnd() ) {
-            throw new GATKException(String.format("BUG: attempted to trim Feature cache to an improper new start position (%d). Cache stop = %d",
-                    newStart, cachedInterval.getEnd()));
-        }
-
-        List<CACHED_FEATURE> overlappingFeaturesBeforeNewStart = new ArrayList<>(EXPECTED_MAX_OVERLAPPING_FEATURES_DURING_CACHE_TRIM);
-
-        // In order to trim the cache to the new start position, we need to find
-        // all Features in the cache that start before the new start position,
-        // and discard those that don't overlap the new start while keeping those
-        // that do overlap. We can stop once we find a Feature that starts on or
-        // after the new start position, since the Features are assumed to be sorted
-        // by start position.
-        while ( ! cache.isEmpty() && cache.getFirst().getStart() < newStart ) {
-            CACHED_FEATURE featureBeforeNewStart = cache.removeFirst();
-
-            if ( featureBeforeNewStart.getEnd() >= newStart ) {
-                overlappingFeaturesBeforeNewStart.add(featureBeforeNewStart);
+    public boolean cacheHit( final Locatable interval ) {
+        for ( int i = 0; i < windows.size(); i++ ) {
+            final FeatureWindow<CACHED_FEATURE> window = windows.get(i);
+            if ( window.interval.contains(interval) ) {
+                if ( i > 0 ) {
+                    windows.remove(i);
+                    windows.add(0, window);
+                }
+                ++numCacheHits;
+                return true;
             }
         }
 
-        // Add back the Features that started before the new start but overlapped it
-        // in the reverse of the order in which we encountered them so that their original
-        // relative ordering in the cache is restored.
-        for ( int i = overlappingFeaturesBeforeNewStart.size() - 1; i >= 0; --i ) {
-            cache.addFirst(overlappingFeaturesBeforeNewStart.get(i));
-        }
-
-        // Record our new start boundary
-        cachedInterval = new SimpleInterval(cachedInterval.getContig(), newStart, cachedInterval.getEnd());
+        ++numCacheMisses;
+        return false;
     }
 
     /**
-     * Returns (but does not remove) all cached Features that overlap the region from the start
-     * of our cache (cacheStart) to the specified stop position.
+     * Returns (but does not remove) all Features of the current window that overlap the provided interval,
+     * which should be contained in it (see {@link #cacheHit(Locatable)}).
      *
-     * @param stopPosition Endpoint of the interval that returned Features must overlap
-     * @return all cached Features that overlap the region from the start of our cache to the specified stop position
+     * @param interval the interval that returned Features must overlap
+     * @return all cached Features that overlap the interval, sorted by start position
      */
-    public List<CACHED_FEATURE> getCachedFeaturesUpToStopPosition( final int stopPosition ) {
-        List<CACHED_FEATURE> matchingFeatures = new ArrayList<>(cache.size());
-
-        // Find (but do not remove from our cache) all Features that start before or on the provided stop position
-        for ( CACHED_FEATURE candidateFeature : cache ) {
-            if ( candidateFeature.getStart() > stopPosition ) {
-                break; // No more possible matches among the remaining cached Features, so stop looking
-            }
-            matchingFeatures.add(candidateFeature);
-        }
-        return matchingFeatures;
+    public List<CACHED_FEATURE> getCachedFeaturesOverlapping( final Locatable interval ) {
+        return getCurrentWindow().getFeatures(interval.getStart(), interval.getEnd());
     }
 
     /**
@@ -231,7 +261,7 @@ class FeatureCache<CACHED_FEATURE extends Feature> {
     }
 
     /**
-     * Print statistics about the cache hit rate for debugging.
+     * Print statistics about the cache hit rate, and the records read to fill the cache, for debugging.
      * @param sourceName The source for the features in this cache.
      */
     public void printCacheStatistics(final String sourceName) {
@@ -244,6 +274,70 @@ class FeatureCache<CACHED_FEATURE extends Feature> {
                 totalQueries > 0 ? ((double)getNumCacheHits() / totalQueries) * 100.0 : 0.0,
                 getNumCacheHits(),
                 totalQueries));
+        logger.debug(String.format("Cache %s was filled with %d windows (%d of them prefetched) holding %d records",
+                sourceNameString,
+                getNumWindowsAdded(),
+                getNumPrefetchedWindowsAdded(),
+                getNumFeaturesAdded()));
     }
-}
 
+    /**
+     * All records overlapping an interval, sorted by start position, with an index to find those overlapping
+     * a sub-interval without scanning the records that end before it.
+     */
+    private static final class FeatureWindow<F extends Feature> {
+        private final List<F> features;
+
+        /**
+         * maxEnds[i] is the largest end position of features 0 to i, so it is sorted even though the end
+         * positions of the features are not
+         */
+        private final int[] maxEnds;
+
+        private final SimpleInterval interval;
+
+        private FeatureWindow( final List<F> features, final SimpleInterval interval ) {
+            this.features = features;
+            this.interval = interval;
+            this.maxEnds = new int[features.size()];
+            int maxEnd = Integer.MIN_VALUE;
+            for ( int i = 0; i < maxEnds.length; i++ ) {
+                maxEnd = Math.max(maxEnd, features.get(i).getEnd());
+                maxEnds[i] = maxEnd;
+            }
+        }
+
+        /**
+         * @return the features overlapping start-stop, in their original order
+         */
+        private List<F> getFeatures( final int start, final int stop ) {
+            final List<F> matchingFeatures = new ArrayList<>();
+
+            // no feature before the first one with maxEnds >= start can overlap start
+            for ( int i = firstIndexWithMaxEndAtLeast(start); i < features.size(); i++ ) {
+                final F candidateFeature = features.get(i);
+                if ( candidateFeature.getStart() > stop ) {
+                    break; // No more possible matches among the remaining cached Features, so stop looking
+                }
+                if ( candidateFeature.getEnd() >= start ) {
+                    matchingFeatures.add(candidateFeature);
+                }
+            }
+            return matchingFeatures;
+        }
+
+        private int firstIndexWithMaxEndAtLeast( final int position ) {
+            int low = 0;
+            int high = maxEnds.length;
+            while ( low < high ) {
+                final int mid = (low + high) >>> 1;
+                if ( maxEnds[mid] < position ) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -22,6 +22,8 @@ import org.broadinstitute.hellbender.tools.sv.SVFeaturesHeader;
 import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
 import org.broadinstitute.hellbender.utils.io.BlockCompressedIntervalStream.Reader;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.broadinstitute.hellbender.utils.variant.ProjectedVCFCodec;
+import org.broadinstitute.hellbender.utils.variant.VCFFieldProjection;
 import org.genomicsdb.model.GenomicsDBExportConfiguration;
 import org.genomicsdb.reader.GenomicsDBFeatureReader;
 
@@ -35,6 +37,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static org.broadinstitute.hellbender.tools.genomicsdb.GATKGenomicsDBUtils.createExportConfiguration;
 import static org.broadinstitute.hellbender.utils.io.BlockCompressedIntervalStream.BCI_FILE_EXTENSION;
@@ -58,9 +61,11 @@ import static org.broadinstitute.hellbender.utils.io.BlockCompressedIntervalStre
  * To improve performance in the case of targeted queries by one interval at a time, this class uses a caching
  * scheme that is optimized for the common access pattern of multiple separate queries over intervals with
  * gradually increasing start positions. It optimizes for this use case by pre-fetching records immediately
- * following each interval during a query and caching them. Performance will suffer if the access pattern is
- * random, involves queries over intervals with DECREASING start positions instead of INCREASING start positions,
- * or involves lots of very large jumps forward on the genome or lots of contig switches. Query caching
+ * following each interval during a query and caching them. The cache keeps several such windows of records, so
+ * going back to a recently queried region doesn't require going to disk again, but performance will suffer if the
+ * access pattern is random, or involves lots of very large jumps on the genome or lots of contig switches. If the
+ * intervals of the traversal are known in advance, they can be provided via {@link #setIntervalsForPrefetching(List)}
+ * so that the records overlapping them are read on a background thread, ahead of the queries. Query caching
  * can be disabled, if desired.
  *
  * @param <T> The type of Feature returned by this data source
@@ -73,6 +78,11 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
      */
     private final FeatureReader<T> featureReader;
 
+    /**
+     * Creates new Feature readers for our file, configured like {@link #featureReader}
+     */
+    private final Supplier<FeatureReader<T>> featureReaderFactory;
+
     /**
      * Iterator representing an open traversal over this data source initiated via a call to {@link #iterator}
      * (null if there is no open traversal). We need this to ensure that each iterator is properly closed,
@@ -90,13 +100,19 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
 
     /**
      * Cache containing Features from recent queries initiated via {@link #query(SimpleInterval)} and/or
-     * {@link #queryAndPrefetch(Locatable)}. This is guaranteed to start at the start position of the
-     * most recent query, but will typically end well after the end of the most recent query. Designed to
+     * {@link #queryAndPrefetch(Locatable)}. Its current window is guaranteed to contain the interval of the
+     * most recent query, and will typically end well after the end of the most recent query. Designed to
      * improve performance of the common access pattern involving multiple queries across nearby intervals
      * with gradually increasing start positions.
      */
     private final FeatureCache<T> queryCache;
 
+    /**
+     * Reads the Features overlapping the intervals set via {@link #setIntervalsForPrefetching(List)} ahead of
+     * our queries (null if no intervals were set)
+     */
+    private FeaturePrefetcher<T> prefetcher;
+
     /**
      * When we experience a cache miss (ie., a query interval not fully contained within our cache) and need
      * to re-populate the Feature cache from disk to satisfy a query, this controls the number of extra bases
@@ -308,6 +324,29 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
     public FeatureDataSource(final FeatureInput<T> featureInput, final int queryLookaheadBases, final Class<? extends Feature> targetFeatureType,
                              final int cloudPrefetchBuffer, final int cloudIndexPrefetchBuffer, final GenomicsDBOptions genomicsDBOptions,
                              final boolean setNameOnCodec) {
+        this(featureInput, queryLookaheadBases, targetFeatureType, cloudPrefetchBuffer, cloudIndexPrefetchBuffer, genomicsDBOptions,
+                setNameOnCodec, VCFFieldProjection.ALL_FIELDS);
+    }
+
+    /**
+     * Creates a FeatureDataSource backed by the provided FeatureInput. We will look ahead the specified number of bases
+     * during queries that produce cache misses.
+     *
+     * @param featureInput             a FeatureInput specifying a source of Features
+     * @param queryLookaheadBases      look ahead this many bases during queries that produce cache misses
+     * @param targetFeatureType        When searching for a {@link FeatureCodec} for this data source, restrict the search to codecs
+     *                                 that produce this type of Feature. May be null, which results in an unrestricted search.
+     * @param cloudPrefetchBuffer      MB size of caching/prefetching wrapper for the data, if on Google Cloud (0 to disable).
+     * @param cloudIndexPrefetchBuffer MB size of caching/prefetching wrapper for the index, if on Google Cloud (0 to disable).
+     * @param genomicsDBOptions         options and info for reading from a GenomicsDB; may be null
+     * @param setNameOnCodec            If true, and if this FeatureDataSource uses a NameAwareCodec, the name of the FeatureInput will be used to set the codec's name. This exists as a mechanism to store the FeatureInput name in the source field of VariantContexts
+     * @param variantFieldProjection   fields of the records to decode, if this FeatureDataSource reads a VCF file with
+     *                                 {@link VCFCodec} (other sources of Features are unaffected)
+     */
+    public FeatureDataSource(final FeatureInput<T> featureInput, final int queryLookaheadBases, final Class<? extends Feature> targetFeatureType,
+                             final int cloudPrefetchBuffer, final int cloudIndexPrefetchBuffer, final GenomicsDBOptions genomicsDBOptions,
+                             final boolean setNameOnCodec, final VCFFieldProjection variantFieldProjection) {
+        Utils.nonNull(variantFieldProjection, "variantFieldProjection must not be null");
         Utils.validateArg(queryLookaheadBases >= 0, "Query lookahead bases must be >= 0");
         this.featureInput = Utils.nonNull(featureInput, "featureInput must not be null");
         if (IOUtils.isGenomicsDBPath(featureInput)) {
@@ -316,10 +355,11 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
 
         // Create a feature reader without requiring an index.  We will require one ourselves as soon as
         // a query by interval is attempted.
-        this.featureReader = getFeatureReader(featureInput, targetFeatureType,
+        this.featureReaderFactory = () -> getFeatureReader(featureInput, targetFeatureType,
                 BucketUtils.getPrefetchingWrapper(cloudPrefetchBuffer),
                 BucketUtils.getPrefetchingWrapper(cloudIndexPrefetchBuffer),
-                genomicsDBOptions, setNameOnCodec);
+                genomicsDBOptions, setNameOnCodec, variantFieldProjection);
+        this.featureReader = featureReaderFactory.get();
 
         if (IOUtils.isGenomicsDBPath(featureInput) ||
                 featureInput.getFeaturePath().toLowerCase().endsWith(BCI_FILE_EXTENSION)) {
@@ -343,6 +383,7 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
         this.intervalsForTraversal = null;
         this.queryCache = new FeatureCache<>();
         this.queryLookaheadBases = queryLookaheadBases;
+        this.prefetcher = null;
     }
 
     final void printCacheStats() {
@@ -353,7 +394,8 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
     private static <T extends Feature> FeatureReader<T> getFeatureReader(final FeatureInput<T> featureInput, final Class<? extends Feature> targetFeatureType,
                                                                          final Function<SeekableByteChannel, SeekableByteChannel> cloudWrapper,
                                                                          final Function<SeekableByteChannel, SeekableByteChannel> cloudIndexWrapper,
-                                                                         final GenomicsDBOptions genomicsDBOptions, final boolean setNameOnCodec) {
+                                                                         final GenomicsDBOptions genomicsDBOptions, final boolean setNameOnCodec,
+                                                                         final VCFFieldProjection variantFieldProjection) {
         if (IOUtils.isGenomicsDBPath(featureInput.getFeaturePath())) {
             Utils.nonNull(genomicsDBOptions);
             try {
@@ -370,7 +412,7 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
                 throw new UserException("GenomicsDB inputs can only be used to provide VariantContexts.", e);
             }
         } else {
-            final FeatureCodec<T, ?> codec = getCodecForFeatureInput(featureInput, targetFeatureType, setNameOnCodec);
+            final FeatureCodec<T, ?> codec = getCodecForFeatureInput(featureInput, targetFeatureType, setNameOnCodec, variantFieldProjection);
             if ( featureInput.getFeaturePath().toLowerCase().endsWith(BCI_FILE_EXTENSION) ) {
                 return new Reader(featureInput, codec);
             }
@@ -381,15 +423,17 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
     /**
      * Get a new FeatureCodec instance to use for a FeatureInput. Avoid re-discovering which codec class to
      * use by checking to see if the FeatureInput already has a cached codec class. It not, discover the codec class
-     * and cache it for next time.
+     * and cache it for next time. Plain VCF codecs are replaced by a {@link ProjectedVCFCodec} if the projection doesn't
+     * include all fields (the cached codec class remains the discovered one).
      *
      * @return A new FeatureCodec instance to use for the FeatureInput.
      */
     @SuppressWarnings("unchecked")
     private static <T extends Feature> FeatureCodec<T, ?> getCodecForFeatureInput(final FeatureInput<T> featureInput,
                                                                                   final Class<? extends Feature> targetFeatureType,
-                                                                                  final boolean setNameOnCodec) {
-        final FeatureCodec<T, ?> codec;
+                                                                                  final boolean setNameOnCodec,
+                                                                                  final VCFFieldProjection variantFieldProjection) {
+        FeatureCodec<T, ?> codec;
         final Class<FeatureCodec<T, ?>> codecClass = featureInput.getFeatureCodecClass();
         if (codecClass == null) {
             final Path featurePath = featureInput.toPath();
@@ -408,6 +452,10 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
             }
         }
 
+        if (!variantFieldProjection.includesAllFields() && codec.getClass() == VCFCodec.class) {
+            codec = (FeatureCodec<T, ?>) (FeatureCodec<?, ?>) new ProjectedVCFCodec(variantFieldProjection);
+        }
+
         if (setNameOnCodec && codec instanceof NameAwareCodec) {
             final NameAwareCodec namedCodec = (NameAwareCodec) codec;
             namedCodec.setName(featureInput.getName());
@@ -511,6 +559,35 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
     }
 
 
+    /**
+     * Read the Features overlapping the provided intervals on a background thread, ahead of the queries initiated via
+     * {@link #query(SimpleInterval)} and/or {@link #queryAndPrefetch(Locatable)}, using a second reader over our file.
+     * Queries outside of these intervals (or that go back to an interval that was already queried past) are still
+     * answered, by querying the file on the calling thread. Traversals via {@link #iterator} are not affected.
+     * <p>
+     * Intervals MUST be non-overlapping and sorted in order of increasing start position, as they will be queried.
+     * <p>
+     * Prefetching is only done for indexed files. Passing in a null or empty interval List stops prefetching.
+     *
+     * @param intervals our next queries will mostly be over these intervals, in order
+     */
+    public void setIntervalsForPrefetching(final List<SimpleInterval> intervals) {
+        if (prefetcher != null) {
+            prefetcher.close();
+            prefetcher = null;
+        }
+        if (intervals == null || intervals.isEmpty()) {
+            return;
+        }
+        if (!hasIndex) {
+            logger.debug(String.format("Not prefetching Features from %s, which is not an indexed file", featureInput));
+            return;
+        }
+        prefetcher = new FeaturePrefetcher<>(featureReaderFactory.get(), intervals,
+                Math.max(queryLookaheadBases, DEFAULT_QUERY_LOOKAHEAD_BASES), FeaturePrefetcher.DEFAULT_MAX_CHUNKS_IN_FLIGHT,
+                featureInput.toString());
+    }
+
     /**
      * Gets an iterator over all Features in this data source, restricting traversal to Features
      * overlapping our intervals if intervals were provided via {@link #setIntervalsForTraversal(List)}
@@ -580,19 +657,14 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
                     "If it's a file, please index it using the bundled tool " + IndexFeatureFile.class.getSimpleName());
         }
 
-        // If the query can be satisfied using existing cache contents, prepare for retrieval
-        // by discarding all Features at the beginning of the cache that end before the start
-        // of our query interval.
-        if (queryCache.cacheHit(interval)) {
-            queryCache.trimToNewStartPosition(interval.getStart());
-        }
-        // Otherwise, we have a cache miss, so go to disk to refill our cache.
-        else {
+        // If the query can't be satisfied using existing cache contents, we have a cache miss, so add a window
+        // to our cache with the Features read ahead of time, or go to disk if there are none for this interval.
+        if (!queryCache.cacheHit(interval) && (prefetcher == null || !prefetcher.fillCache(interval, queryCache))) {
             refillQueryCache(interval);
         }
 
         // Return the subset of our cache that overlaps our query interval
-        return queryCache.getCachedFeaturesUpToStopPosition(interval.getEnd());
+        return queryCache.getCachedFeaturesOverlapping(interval);
     }
 
     /**
@@ -655,6 +727,11 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
         logger.debug(String.format("Cache statistics for FeatureInput %s:", featureInput));
         queryCache.printCacheStatistics();
 
+        if (prefetcher != null) {
+            prefetcher.close();
+            prefetcher = null;
+        }
+
         try {
             if (featureReader != null) {
                 featureReader.close();
@@ -211,6 +211,16 @@ public final class FeatureManager implements AutoCloseable {
         }
     }
 
+    /**
+     * Read the Features overlapping the provided intervals ahead of the queries of the tool, for all of our data
+     * sources. See {@link FeatureDataSource#setIntervalsForPrefetching(List)}.
+     *
+     * @param intervals the intervals that the tool will query, in order
+     */
+    public void setIntervalsForPrefetching( final List<SimpleInterval> intervals ) {
+        featureSources.values().forEach(ds -> ds.setIntervalsForPrefetching(intervals));
+    }
+
     @SuppressWarnings({"unchecked", "rawtypes"})
     public void dumpAllFeatureCacheStats() {
         for ( final FeatureDataSource f : featureSources.values() ) {
@@ -0,0 +1,343 @@
+package org.broadinstitute.hellbender.engine;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import htsjdk.samtools.util.Locatable;
+import htsjdk.tribble.CloseableTribbleIterator;
+import htsjdk.tribble.Feature;
+import htsjdk.tribble.FeatureReader;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FeaturePrefetcher: helper class for {@link FeatureDataSource} that reads the Features overlapping the intervals of a
+ * traversal on a background thread, ahead of the queries of the traversal, and hands them over to a {@link FeatureCache}
+ * when a query produces a cache miss.
+ *
+ * The traversal intervals (padded by the size of a chunk, so that queries a little past their end still find their
+ * Features) are split into chunks of a fixed number of bases as they are needed, and a bounded number of chunks are
+ * read ahead of the one being queried, in order. Queries that fall before the chunks being read ahead, or outside of
+ * the traversal intervals, are not handled here: the caller should then query its own reader instead.
+ *
+ * This class has its own {@link FeatureReader}, which is only used by the background thread, since tribble readers
+ * don't support concurrent queries. It is not thread-safe: a single thread must call {@link #fillCache}.
+ *
+ * @param <T> Type of Feature record we are prefetching
+ */
+final class FeaturePrefetcher<T extends Feature> implements AutoCloseable {
+
+    /**
+     * Default maximum number of chunks read ahead of the queries
+     */
+    public static final int DEFAULT_MAX_CHUNKS_IN_FLIGHT = 4;
+
+    private final FeatureReader<T> featureReader;
+    private final String sourceName;
+    private final int maxChunksInFlight;
+
+    /**
+     * The traversal intervals padded by the size of a chunk and merged, in traversal order. Chunks are generated from
+     * these as they are submitted, so that only the chunks in flight are ever materialized.
+     */
+    private final List<SimpleInterval> paddedIntervals;
+
+    /**
+     * For each contig, the range of indices of its padded intervals in {@link #paddedIntervals}, as {first, last + 1}
+     */
+    private final Map<String, int[]> paddedIntervalIndicesByContig;
+
+    /**
+     * The chunks that remain to be submitted, in traversal order
+     */
+    private final ChunkIterator chunksToSubmit;
+
+    private final ExecutorService executorService;
+
+    /**
+     * Chunks that were submitted to the background thread and not yet discarded, in traversal order
+     */
+    private final Deque<ChunkInFlight<T>> chunksInFlight = new ArrayDeque<>();
+
+    /**
+     * @param featureReader reader to read the Features from, which is closed along with this prefetcher
+     * @param intervals the traversal intervals, sorted and non-overlapping
+     * @param chunkSize number of bases read at a time. Must be > 0.
+     * @param maxChunksInFlight number of chunks read ahead of the queries. Must be > 0.
+     * @param sourceName name of the source of Features, for error messages
+     */
+    public FeaturePrefetcher(final FeatureReader<T> featureReader, final List<SimpleInterval> intervals, final int chunkSize,
+                             final int maxChunksInFlight, final String sourceName) {
+        this.featureReader = Utils.nonNull(featureReader);
+        Utils.nonEmpty(intervals, "intervals must not be empty");
+        Utils.validateArg(chunkSize > 0, "chunkSize must be > 0");
+        Utils.validateArg(maxChunksInFlight > 0, "maxChunksInFlight must be > 0");
+        this.sourceName = sourceName;
+        this.maxChunksInFlight = maxChunksInFlight;
+        this.paddedIntervals = padIntervals(intervals, chunkSize);
+        this.paddedIntervalIndicesByContig = new HashMap<>();
+        for ( int i = 0; i < paddedIntervals.size(); i++ ) {
+            final int index = i;
+            paddedIntervalIndicesByContig.computeIfAbsent(paddedIntervals.get(i).getContig(), contig -> new int[]{index, index})[1] = index + 1;
+        }
+        this.chunksToSubmit = new ChunkIterator(paddedIntervals, chunkSize);
+
+        this.executorService = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("featurePrefetch-thread-%d")
+                .setDaemon(true).build());
+        submitChunks();
+    }
+
+    /**
+     * Pads each interval by chunkSize bases on both sides, and merges the padded intervals that overlap or abut.
+     */
+    static List<SimpleInterval> padIntervals(final List<SimpleInterval> intervals, final int chunkSize) {
+        final List<SimpleInterval> padded = new ArrayList<>(intervals.size());
+        for ( final SimpleInterval interval : intervals ) {
+            final int start = Math.max(1, interval.getStart() - chunkSize);
+            final int end = Math.addExact(interval.getEnd(), chunkSize);
+            final SimpleInterval previous = padded.isEmpty() ? null : padded.get(padded.size() - 1);
+            if ( previous != null && previous.getContig().equals(interval.getContig()) && start <= previous.getEnd() + 1 ) {
+                padded.set(padded.size() - 1, new SimpleInterval(previous.getContig(), previous.getStart(), Math.max(previous.getEnd(), end)));
+            } else {
+                padded.add(new SimpleInterval(interval.getContig(), start, end));
+            }
+        }
+        return padded;
+    }
+
+    /**
+     * Add a window to the cache with the prefetched Features of the chunks covering the provided interval.
+     *
+     * The chunks before the one containing the start of the interval are discarded, and more chunks are read ahead.
+     *
+     * @param interval the query interval that produced a cache miss
+     * @param cache the cache to add the window to
+     * @return true if a window containing the interval was added to the cache, false if the interval is not covered
+     *         by the chunks that remain to be queried
+     */
+    public boolean fillCache(final Locatable interval, final FeatureCache<T> cache) {
+        // chunks are only contiguous within a padded interval, so the whole query must lie in one
+        final int paddedIntervalIndex = findPaddedInterval(interval);
+        if ( paddedIntervalIndex < 0 || interval.getEnd() > paddedIntervals.get(paddedIntervalIndex).getEnd() ) {
+            return false;
+        }
+        final Chunk firstChunk = chunksToSubmit.chunkAt(paddedIntervalIndex, interval.getStart());
+        final Chunk lastChunk = chunksToSubmit.chunkAt(paddedIntervalIndex, interval.getEnd());
+        final Chunk firstRemainingChunk = chunksInFlight.isEmpty() ? chunksToSubmit.peek() : chunksInFlight.getFirst().chunk;
+        if ( firstRemainingChunk == null || firstChunk.compareTo(firstRemainingChunk) < 0 ) {
+            return false;
+        }
+
+        // discard the chunks before the first one, and make sure that all of the chunks we need were submitted
+        while ( ! chunksInFlight.isEmpty() && chunksInFlight.getFirst().chunk.compareTo(firstChunk) < 0 ) {
+            chunksInFlight.removeFirst().features.cancel(false);
+        }
+        if ( chunksInFlight.isEmpty() ) {
+            chunksToSubmit.skipTo(firstChunk);
+        }
+        while ( chunksInFlight.isEmpty() || chunksInFlight.getLast().chunk.compareTo(lastChunk) < 0 ) {
+            submitChunk(chunksToSubmit.next());
+        }
+
+        // a Feature spanning the boundary of two chunks is returned by the queries of both: keep the first one
+        final List<T> features = new ArrayList<>(awaitChunk(chunksInFlight.getFirst()));
+        while ( chunksInFlight.getFirst().chunk.compareTo(lastChunk) < 0 ) {
+            final int previousChunkEnd = chunksInFlight.removeFirst().chunk.interval.getEnd();
+            for ( final T feature : awaitChunk(chunksInFlight.getFirst()) ) {
+                if ( feature.getStart() > previousChunkEnd ) {
+                    features.add(feature);
+                }
+            }
+        }
+        // the last chunk stays in flight, in case the next query spans it and the following one
+        submitChunks();
+
+        cache.addPrefetchedWindow(features, new SimpleInterval(interval.getContig(), firstChunk.interval.getStart(), lastChunk.interval.getEnd()));
+        return true;
+    }
+
+    /**
+     * @return the index of the padded interval containing the start of the interval, or -1 if there's none
+     */
+    private int findPaddedInterval(final Locatable interval) {
+        final int[] contigIntervals = paddedIntervalIndicesByContig.get(interval.getContig());
+        if ( contigIntervals == null ) {
+            return -1;
+        }
+
+        // find the last padded interval of the contig that starts at or before the start of the interval
+        int low = contigIntervals[0];
+        int high = contigIntervals[1];
+        while ( low < high ) {
+            final int mid = (low + high) >>> 1;
+            if ( paddedIntervals.get(mid).getStart() <= interval.getStart() ) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        final int index = low - 1;
+        return index >= contigIntervals[0] && paddedIntervals.get(index).getEnd() >= interval.getStart() ? index : -1;
+    }
+
+    private void submitChunks() {
+        while ( chunksInFlight.size() < maxChunksInFlight && chunksToSubmit.hasNext() ) {
+            submitChunk(chunksToSubmit.next());
+        }
+    }
+
+    private void submitChunk(final Chunk chunk) {
+        chunksInFlight.addLast(new ChunkInFlight<>(chunk, executorService.submit(() -> readChunk(chunk.interval))));
+    }
+
+    /**
+     * Body of the tasks run by the background thread.
+     */
+    private List<T> readChunk(final SimpleInterval chunk) {
+        final List<T> features = new ArrayList<>();
+        try ( final CloseableTribbleIterator<T> queryIter = featureReader.query(chunk.getContig(), chunk.getStart(), chunk.getEnd()) ) {
+            while ( queryIter.hasNext() ) {
+                features.add(queryIter.next());
+            }
+        } catch ( final IOException e ) {
+            throw new GATKException("Error querying file " + sourceName + " over interval " + chunk, e);
+        }
+        return features;
+    }
+
+    private List<T> awaitChunk(final ChunkInFlight<T> chunk) {
+        return Utils.getFutureResult(chunk.features);
+    }
+
+    /**
+     * Stop reading ahead, wait for the chunk being read (if any), and close our reader.
+     */
+    @Override
+    public void close() {
+        // as in ReadAheadIterator, don't interrupt a thread that may be blocked on a channel read
+        chunksInFlight.forEach(chunk -> chunk.features.cancel(false));
+        chunksInFlight.clear();
+        executorService.shutdown();
+        try {
+            executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
+        } catch ( final InterruptedException e ) {
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            featureReader.close();
+        } catch ( final IOException e ) {
+            throw new GATKException("Error closing Feature reader for input " + sourceName, e);
+        }
+    }
+
+    /**
+     * A chunk of a padded interval, ordered by its position in the traversal.
+     */
+    static final class Chunk implements Comparable<Chunk> {
+        private final int paddedIntervalIndex;
+        private final SimpleInterval interval;
+
+        private Chunk(final int paddedIntervalIndex, final SimpleInterval interval) {
+            this.paddedIntervalIndex = paddedIntervalIndex;
+            this.interval = interval;
+        }
+
+        SimpleInterval getInterval() {
+            return interval;
+        }
+
+        @Override
+        public int compareTo(final Chunk other) {
+            final int result = Integer.compare(paddedIntervalIndex, other.paddedIntervalIndex);
+            return result != 0 ? result : Integer.compare(interval.getStart(), other.interval.getStart());
+        }
+    }
+
+    /**
+     * Splits padded intervals into chunks of at most chunkSize bases, as they are needed.
+     */
+    static final class ChunkIterator implements Iterator<Chunk> {
+        private final List<SimpleInterval> paddedIntervals;
+        private final int chunkSize;
+
+        // position of the next chunk
+        private int paddedIntervalIndex = 0;
+        private int start;
+
+        ChunkIterator(final List<SimpleInterval> paddedIntervals, final int chunkSize) {
+            this.paddedIntervals = paddedIntervals;
+            this.chunkSize = chunkSize;
+            this.start = paddedIntervals.isEmpty() ? 0 : paddedIntervals.get(0).getStart();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return paddedIntervalIndex < paddedIntervals.size();
+        }
+
+        @Override
+        public Chunk next() {
+            final Chunk chunk = peek();
+            if ( chunk == null ) {
+                throw new NoSuchElementException();
+            }
+            if ( chunk.interval.getEnd() == paddedIntervals.get(paddedIntervalIndex).getEnd() ) {
+                paddedIntervalIndex++;
+                start = hasNext() ? paddedIntervals.get(paddedIntervalIndex).getStart() : 0;
+            } else {
+                start = chunk.interval.getEnd() + 1;
+            }
+            return chunk;
+        }
+
+        /**
+         * @return the next chunk without consuming it, or null if there's none
+         */
+        Chunk peek() {
+            return hasNext() ? chunkAt(paddedIntervalIndex, start) : null;
+        }
+
+        /**
+         * Skip ahead, so that the next chunk is the provided one
+         */
+        void skipTo(final Chunk chunk) {
+            paddedIntervalIndex = chunk.paddedIntervalIndex;
+            start = chunk.interval.getStart();
+        }
+
+        /**
+         * @return the chunk of the given padded interval that contains the given position
+         */
+        Chunk chunkAt(final int paddedIntervalIndex, final int position) {
+            final SimpleInterval paddedInterval = paddedIntervals.get(paddedIntervalIndex);
+            final int chunkStart = paddedInterval.getStart() + (position - paddedInterval.getStart()) / chunkSize * chunkSize;
+            final int chunkEnd = (int)Math.min((long)chunkStart + chunkSize - 1, paddedInterval.getEnd());
+            return new Chunk(paddedIntervalIndex, new SimpleInterval(paddedInterval.getContig(), chunkStart, chunkEnd));
+        }
+    }
+
+    private static final class ChunkInFlight<T> {
+        private final Chunk chunk;
+        private final Future<List<T>> features;
+
+        private ChunkInFlight(final Chunk chunk, final Future<List<T>> features) {
+            this.chunk = chunk;
+            this.features = features;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.broadinstitute.hellbender.engine;
 
+import htsjdk.samtools.Defaults;
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMProgramRecord;
 import htsjdk.samtools.SAMSequenceDictionary;
@@ -123,6 +124,27 @@ public abstract class GATKTool extends CommandLineProgram {
             optional = true)
     public boolean disableBamIndexCaching = false;
 
+    public static final String READ_AHEAD_BATCHES_LONG_NAME = "read-ahead-batches";
+    /**
+     * Decompress and decode reads on background threads, ahead of the traversal. Mostly useful for tools that do
+     * little work per read, whose runtime is otherwise dominated by decoding the input.
+     */
+    @Argument(fullName = READ_AHEAD_BATCHES_LONG_NAME,
+            doc = "Number of batches of " + ReadsPathDataSource.READ_AHEAD_BATCH_SIZE + " reads to decode on a background thread, " +
+                    "ahead of the traversal (0 to decode reads on the traversal thread).",
+            optional = true, minValue = 0)
+    public int readAheadBatches = 0;
+
+    public static final String PREFETCH_FEATURES_LONG_NAME = "prefetch-features";
+    /**
+     * Read the Features of the feature inputs that overlap the traversal intervals on a background thread, ahead of
+     * the queries of the tool. Only applies to indexed feature files, when intervals are given or there's a reference.
+     */
+    @Argument(fullName = PREFETCH_FEATURES_LONG_NAME,
+            doc = "If true, read the Features overlapping the traversal intervals on a background thread, ahead of the queries of the tool.",
+            optional = true)
+    public boolean prefetchFeatures = false;
+
     @Argument(fullName = StandardArgumentDefinitions.SITES_ONLY_LONG_NAME,
             doc = "If true, don't emit genotype fields when writing vcf file output.", optional = true)
     public boolean outputSitesOnlyVCFs = false;
@@ -448,9 +470,15 @@ public abstract class GATKTool extends CommandLineProgram {
     void initializeReads() {
         if (! readArguments.getReadPathSpecifiers().isEmpty()) {
             final SamReaderFactory factory = makeSamReaderFactory();
+            if ( readAheadBatches > 0 ) {
+                // inflate BGZF blocks on htsjdk's asynchronous reader thread, in addition to our own read-ahead
+                factory.setUseAsyncIo(true);
+            }
 
-            reads = new ReadsPathDataSource(readArguments.getReadPaths(), readArguments.getReadIndexPaths(), factory, cloudPrefetchBuffer,
+            final ReadsPathDataSource readsPathDataSource = new ReadsPathDataSource(readArguments.getReadPaths(), readArguments.getReadIndexPaths(), factory, cloudPrefetchBuffer,
                 (cloudIndexPrefetchBuffer < 0 ? cloudPrefetchBuffer : cloudIndexPrefetchBuffer));
+            readsPathDataSource.setReadAheadBatches(readAheadBatches);
+            reads = readsPathDataSource;
         }
         else {
             reads = null;
@@ -500,6 +528,54 @@ public abstract class GATKTool extends CommandLineProgram {
         }
     }
 
+    /**
+     * Create a new source of reference data over the same reference as the engine's, but with its own file handles
+     * and cache, for use by a single worker thread in multi-threaded traversals (the engine's own data sources
+     * are not thread-safe). The caller is responsible for closing it.
+     *
+     * Package-private so that engine classes can access it, but concrete tool child classes cannot.
+     *
+     * @return a new, independent {@link ReferenceDataSource}, or null if no reference was provided
+     */
+    ReferenceDataSource createWorkerReferenceDataSource() {
+        return referenceArguments.getReferencePath() != null ? ReferenceDataSource.of(referenceArguments.getReferencePath()) : null;
+    }
+
+    /**
+     * Create a new source of reads over the same inputs as the engine's, but with its own readers, for use by a single
+     * worker thread in multi-threaded traversals. Its traversal is initially unbounded. The caller is responsible for
+     * closing it.
+     *
+     * Package-private so that engine classes can access it, but concrete tool child classes cannot.
+     *
+     * @return a new, independent {@link ReadsDataSource}, or null if no reads were provided
+     */
+    ReadsDataSource createWorkerReadsDataSource() {
+        if ( readArguments.getReadPathSpecifiers().isEmpty() ) {
+            return null;
+        }
+        return new ReadsPathDataSource(readArguments.getReadPaths(), readArguments.getReadIndexPaths(), makeSamReaderFactory(), cloudPrefetchBuffer,
+                (cloudIndexPrefetchBuffer < 0 ? cloudPrefetchBuffer : cloudIndexPrefetchBuffer));
+    }
+
+    /**
+     * Create a new {@link FeatureManager} over the same Feature inputs as the engine's, but with its own readers
+     * and caches, for use by a single worker thread in multi-threaded traversals. The {@link FeatureInput}s of the tool
+     * are used as query keys for both, so tool code can query either one with the same arguments.
+     * The caller is responsible for closing it.
+     *
+     * Package-private so that engine classes can access it, but concrete tool child classes cannot.
+     *
+     * @return a new, independent {@link FeatureManager}, or null if no sources of Features were provided
+     */
+    FeatureManager createWorkerFeatureManager() {
+        if ( features == null ) {
+            return null;
+        }
+        return new FeatureManager(this, FeatureDataSource.DEFAULT_QUERY_LOOKAHEAD_BASES, cloudPrefetchBuffer,
+                cloudIndexPrefetchBuffer, getGenomicsDBOptions());
+    }
+
     /**
      * Initialize our intervals for traversal.
      *
@@ -727,6 +803,13 @@ public abstract class GATKTool extends CommandLineProgram {
 
         initializeIntervals(); // Must be initialized after reference, reads and features, since intervals currently require a sequence dictionary from another data source
 
+        if ( prefetchFeatures && hasFeatures() ) {
+            final List<SimpleInterval> traversalIntervals = getTraversalIntervals();
+            if ( traversalIntervals != null ) {
+                features.setIntervalsForPrefetching(traversalIntervals);
+            }
+        }
+
         if ( seqValidationArguments.performSequenceDictionaryValidation()) {
             validateSequenceDictionaries();
         }
@@ -850,7 +933,9 @@ public abstract class GATKTool extends CommandLineProgram {
                 getHeaderForSAMWriter(),
                 preSorted,
                 createOutputBamIndex,
-                createOutputBamMD5
+                createOutputBamMD5,
+                // htsjdk writers compress inline, so the most we can do for them is to move the writing to a writer thread
+                compressionThreads > 1 || Defaults.USE_ASYNC_IO_WRITE_FOR_SAMTOOLS
             )
         );
     }
@@ -912,6 +997,11 @@ public abstract class GATKTool extends CommandLineProgram {
             options.add(Options.DO_NOT_WRITE_GENOTYPES);
         }
 
+        if (compressionThreads > 1) {
+            // encode, compress and index on htsjdk's asynchronous writer thread
+            options.add(Options.USE_ASYNC_IO);
+        }
+
         if (maxVariantsPerShard > 0) {
             return new ShardingVCFWriter(
                     outPath,
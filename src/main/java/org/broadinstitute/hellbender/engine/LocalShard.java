@@ -0,0 +1,124 @@
+package org.broadinstitute.hellbender.engine;
+
+import htsjdk.samtools.util.Locatable;
+import org.broadinstitute.hellbender.utils.IntervalUtils;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A contiguous portion of the traversal intervals that is processed independently, with its own data sources,
+ * by a {@code --local-shards} traversal (see {@link WalkerBase#traverseLocalShards}).
+ *
+ * Records that overlap the boundary between two shards are returned by the queries of both shards. Each such
+ * record is owned by the first shard that it overlaps (see {@link #owns}), so that it is processed exactly once.
+ */
+final class LocalShard {
+
+    /**
+     * Number of shards created per local-shard thread, so that all threads stay busy even when some shards take
+     * much longer to process than others (eg., because of uneven coverage).
+     */
+    static final int SHARDS_PER_THREAD = 4;
+
+    private final List<SimpleInterval> intervals;
+    private final SimpleInterval precedingInterval;
+    private final boolean traverseUnmapped;
+
+    // progress of this shard, updated by the thread that processes it and read on the traversal thread once it is done
+    private long recordCount = 0;
+    private SimpleInterval lastRecordInterval = null;
+
+    private LocalShard(final List<SimpleInterval> intervals, final SimpleInterval precedingInterval, final boolean traverseUnmapped) {
+        this.intervals = Collections.unmodifiableList(intervals);
+        this.precedingInterval = precedingInterval;
+        this.traverseUnmapped = traverseUnmapped;
+    }
+
+    /**
+     * Divide the traversal intervals into contiguous shards covering roughly equal numbers of bases.
+     *
+     * @param sortedIntervals sorted, non-overlapping traversal intervals
+     * @param numThreads number of threads that will process the shards
+     * @return shards in traversal order
+     */
+    static List<LocalShard> divide(final List<SimpleInterval> sortedIntervals, final int numThreads) {
+        Utils.nonNull(sortedIntervals);
+        final List<LocalShard> shards = new ArrayList<>();
+        SimpleInterval precedingInterval = null;
+        for ( final List<SimpleInterval> shardIntervals : IntervalUtils.divideIntervalsIntoShards(sortedIntervals, numThreads * SHARDS_PER_THREAD) ) {
+            shards.add(new LocalShard(shardIntervals, precedingInterval, false));
+            precedingInterval = shardIntervals.get(shardIntervals.size() - 1);
+        }
+        return shards;
+    }
+
+    /**
+     * @return a shard containing only the unmapped reads that have no assigned position
+     */
+    static LocalShard unmappedReads() {
+        return new LocalShard(Collections.emptyList(), null, true);
+    }
+
+    /**
+     * @return the intervals of this shard, in traversal order. Empty for the unmapped reads shard.
+     */
+    List<SimpleInterval> getIntervals() {
+        return intervals;
+    }
+
+    /**
+     * @return the last interval of the preceding shard, or null if this is the first shard
+     */
+    SimpleInterval getPrecedingInterval() {
+        return precedingInterval;
+    }
+
+    /**
+     * @return true if this shard contains unmapped reads with no assigned position
+     */
+    boolean traversesUnmapped() {
+        return traverseUnmapped;
+    }
+
+    /**
+     * Determine whether this shard is responsible for processing a record returned by a query over its intervals.
+     * Because the shards are contiguous and in order, a record overlaps some earlier shard if and only if it overlaps
+     * the last interval of the immediately preceding shard.
+     *
+     * @param recordLocation span of the record, or null if it has no position
+     * @return true if the record does not overlap any earlier shard
+     */
+    boolean owns(final Locatable recordLocation) {
+        return precedingInterval == null || recordLocation == null || ! precedingInterval.overlaps(recordLocation);
+    }
+
+    /**
+     * Record that a record of this shard has been processed, for progress reporting.
+     *
+     * @param recordInterval span of the record, or null if it has no position
+     */
+    void recordProcessed(final SimpleInterval recordInterval) {
+        recordCount++;
+        if ( recordInterval != null ) {
+            lastRecordInterval = recordInterval;
+        }
+    }
+
+    /**
+     * @return the number of records of this shard that have been processed
+     */
+    long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * @return the span of the last processed record of this shard that has a position, or null if there is none
+     */
+    SimpleInterval getLastRecordInterval() {
+        return lastRecordInterval;
+    }
+}
@@ -0,0 +1,30 @@
+package org.broadinstitute.hellbender.engine;
+
+/**
+ * Common lifecycle of the workers that process a single shard on behalf of a walker running with
+ * {@code --local-shards} (see {@link ReadShardWorker}, {@link LocusShardWorker}, {@link VariantShardWorker} and
+ * {@link VariantLocusShardWorker}).
+ *
+ * A new worker is created on the traversal thread for each shard, and should not acquire any resources until it
+ * starts processing records on its worker thread, since a shard may never be processed if the traversal fails.
+ */
+public interface LocalShardWorker {
+
+    /**
+     * Merge the results of this shard into the tool. Called on the traversal thread after all records of this shard,
+     * and all preceding shards, have been processed, and after {@link #close}.
+     */
+    void reduce();
+
+    /**
+     * Discard any results of this shard, which will never be reduced. Called on the worker thread if the shard fails,
+     * before {@link #close}.
+     */
+    default void discard() {}
+
+    /**
+     * Release any resources acquired while processing the records of this shard. Called on the worker thread once the
+     * shard has been processed, or has failed.
+     */
+    default void close() {}
+}
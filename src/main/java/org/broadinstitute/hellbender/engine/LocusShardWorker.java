@@ -0,0 +1,34 @@
+package org.broadinstitute.hellbender.engine;
+
+import org.broadinstitute.hellbender.utils.pileup.PileupColumn;
+
+/**
+ * Processes the loci of a single shard on behalf of a {@link LocusWalker} running with {@code --local-shards}
+ * (see {@link LocusWalker#makeShardWorker()}).
+ *
+ * A new worker is created for each shard. {@link #apply} is called on a worker thread for each locus in the shard,
+ * in coordinate order, and must only update state owned by the worker. Once the whole shard has been processed,
+ * {@link #reduce} is called on the traversal thread to merge the worker's results into the tool (see
+ * {@link LocalShardWorker}). Shards are reduced in traversal order, so tools that buffer per-shard output can still
+ * emit it in coordinate order.
+ */
+public interface LocusShardWorker extends LocalShardWorker {
+
+    /**
+     * Process an individual locus of this shard. See {@link LocusWalker#apply(AlignmentContext, ReferenceContext, FeatureContext)}
+     * for a description of the arguments. The contexts are backed by data sources owned by this shard.
+     */
+    void apply(final AlignmentContext alignmentContext, final ReferenceContext referenceContext, final FeatureContext featureContext);
+
+    /**
+     * Process an individual locus of this shard as a {@link PileupColumn}, for tools for which
+     * {@link LocusWalker#usesPileupColumns()} is {@code true}. See
+     * {@link LocusWalker#apply(PileupColumn, ReferenceContext, FeatureContext)} for a description of the arguments.
+     *
+     * The default implementation calls {@link #apply(AlignmentContext, ReferenceContext, FeatureContext)} with
+     * {@link PileupColumn#toAlignmentContext()}.
+     */
+    default void apply(final PileupColumn column, final ReferenceContext referenceContext, final FeatureContext featureContext) {
+        apply(column.toAlignmentContext(), referenceContext, featureContext);
+    }
+}
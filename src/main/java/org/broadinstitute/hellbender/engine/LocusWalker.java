@@ -2,16 +2,22 @@ package org.broadinstitute.hellbender.engine;
 
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMReadGroupRecord;
+import htsjdk.samtools.SAMSequenceDictionary;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.hellbender.engine.filters.CountingReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilterLibrary;
 import org.broadinstitute.hellbender.engine.filters.WellformedReadFilter;
+import org.broadinstitute.hellbender.transformers.ReadTransformer;
+import org.broadinstitute.hellbender.utils.IntervalUtils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.locusiterator.AlignmentContextIteratorBuilder;
+import org.broadinstitute.hellbender.utils.locusiterator.ColumnarLocusIterator;
 import org.broadinstitute.hellbender.utils.locusiterator.LIBSDownsamplingInfo;
 import org.broadinstitute.hellbender.utils.locusiterator.LocusIteratorByState;
+import org.broadinstitute.hellbender.utils.pileup.PileupColumn;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 
 import java.util.ArrayList;
@@ -34,6 +40,12 @@ import java.util.stream.Collectors;
  * LocusWalker authors must implement the apply() method to process each position, and may optionally implement
  * onTraversalStart(), onTraversalSuccess() and/or closeTool().
  *
+ * Tools whose per-locus work can be split into independent shards and merged afterwards can additionally implement
+ * {@link #makeShardWorker()} and {@link #supportsLocalShards()}, which enables the {@code --local-shards N} traversal:
+ * the traversal intervals are divided into contiguous shards, and the reads overlapping each shard are read through its
+ * own data sources on one of N threads, with per-shard results merged on the traversal thread in shard order. This
+ * requires indexed inputs, and no downsampling.
+ *
  * @author Daniel Gomez-Sanchez (magicDGS)
  */
 public abstract class LocusWalker extends WalkerBase {
@@ -85,6 +97,21 @@ public abstract class LocusWalker extends WalkerBase {
         return false;
     }
 
+    /**
+     * Does this tool process loci as {@link PileupColumn}s? Tools that do should override to return {@code true} and
+     * override {@link #apply(PileupColumn, ReferenceContext, FeatureContext)}.
+     *
+     * The loci are then produced by a {@link ColumnarLocusIterator}, which doesn't allocate a {@link org.broadinstitute.hellbender.utils.pileup.PileupElement}
+     * per read per locus, unless the traversal needs to downsample or to emit empty loci, which only
+     * {@link LocusIteratorByState} does, in which case {@link #apply(AlignmentContext, ReferenceContext, FeatureContext)}
+     * is called as for other tools.
+     *
+     * @return {@code true} if this tool processes PileupColumns, {@code false} otherwise
+     */
+    public boolean usesPileupColumns() {
+        return false;
+    }
+
 
     /**
      * Returns default value for the {@link #maxDepthPerSample} parameter, if none is provided on the command line.
@@ -145,7 +172,16 @@ public abstract class LocusWalker extends WalkerBase {
      */
     @Override
     public void traverse() {
+        if ( localShardThreads > 1 ) {
+            traverseLocalShards();
+            return;
+        }
+
         final CountingReadFilter countedFilter = makeReadFilter();
+        if ( usesPileupColumns() && maxDepthPerSample == 0 && !emitEmptyLoci() ) {
+            traverseColumns(countedFilter);
+            return;
+        }
         final Iterator<AlignmentContext> iterator = getAlignmentContextIterator(countedFilter);
 
         // iterate over each alignment, and apply the function
@@ -158,6 +194,104 @@ public abstract class LocusWalker extends WalkerBase {
         logger.info(countedFilter.getSummaryLine());
     }
 
+    /**
+     * Locus-based traversal for tools that process {@link PileupColumn}s, over the same loci as {@link #traverse()}
+     */
+    private void traverseColumns(final CountingReadFilter countedFilter) {
+        final SAMFileHeader header = getHeaderForReads();
+        final Set<String> samples = header.getReadGroups().stream()
+                                          .map(SAMReadGroupRecord::getSample)
+                                          .collect(Collectors.toSet());
+        final ColumnarLocusIterator iterator = new ColumnarLocusIterator(getTransformedReadStream(countedFilter).iterator(),
+                samples, header, includeDeletions(), includeNs(), userIntervals, getBestAvailableSequenceDictionary());
+
+        while ( iterator.advance() ) {
+            final PileupColumn column = iterator.getColumn();
+            final SimpleInterval locus = new SimpleInterval(column);
+            apply(column, new ReferenceContext(reference, locus), new FeatureContext(features, locus));
+            progressMeter.update(locus);
+        }
+        logger.info(countedFilter.getSummaryLine());
+    }
+
+    /**
+     * Sharded, multi-threaded implementation of locus-based traversal (see {@link #makeShardWorker()}). Produces the same
+     * loci as the serial traversal, since each shard gets all of the reads overlapping its intervals.
+     */
+    private void traverseLocalShards() {
+        // the downsampler is randomized, so the loci of a shard wouldn't get the same reads as in the serial traversal
+        if ( maxDepthPerSample != 0 ) {
+            throw new CommandLineException.BadArgumentValue(MAX_DEPTH_PER_SAMPLE_NAME, String.valueOf(maxDepthPerSample),
+                    "downsampling is not supported with --" + LOCAL_SHARDS_LONG_NAME + ". Set it to 0 to disable downsampling.");
+        }
+
+        final SAMSequenceDictionary dict = getBestAvailableSequenceDictionary();
+        final List<SimpleInterval> intervals = hasUserSuppliedIntervals() ? userIntervals : IntervalUtils.getAllIntervalsForReference(dict);
+
+        final List<CountingReadFilter> shardFilters = new ArrayList<>();
+        traverseLocalShards(LocalShard.divide(intervals, localShardThreads), "loci", this::makeShardWorker, (shard, worker) -> {
+            final CountingReadFilter shardFilter = makeReadFilter();
+            shardFilters.add(shardFilter);
+            final ReadTransformer preTransformer = makePreReadFilterTransformer();
+            final ReadTransformer postTransformer = makePostReadFilterTransformer();
+            return () -> processLocalShard(shard, worker, dict, preTransformer, shardFilter, postTransformer);
+        });
+
+        long filteredCount = 0;
+        for ( final CountingReadFilter shardFilter : shardFilters ) {
+            filteredCount += shardFilter.getFilteredCount();
+        }
+        // reads that span a shard boundary are seen, and may be filtered, by both shards
+        logger.info(filteredCount + " read(s) filtered across all local shards");
+    }
+
+    /**
+     * Process the loci of one shard through its own data sources on a worker thread.
+     */
+    private void processLocalShard(final LocalShard shard, final LocusShardWorker worker, final SAMSequenceDictionary dict,
+                                   final ReadTransformer preTransformer, final ReadFilter filter, final ReadTransformer postTransformer) {
+        try ( final ReadsDataSource shardReads = createWorkerReadsDataSource();
+              final ReferenceDataSource shardReference = createWorkerReferenceDataSource();
+              final FeatureManager shardFeatures = createWorkerFeatureManager() ) {
+            shardReads.setTraversalBounds(shard.getIntervals(), false);
+            final Iterator<GATKRead> readIterator = Utils.stream(shardReads)
+                    .map(preTransformer)
+                    .filter(filter)
+                    .map(postTransformer)
+                    .iterator();
+
+            final SAMFileHeader header = getHeaderForReads();
+            if ( usesPileupColumns() && !emitEmptyLoci() ) {
+                final Set<String> samples = header.getReadGroups().stream()
+                                                  .map(SAMReadGroupRecord::getSample)
+                                                  .collect(Collectors.toSet());
+                final ColumnarLocusIterator iterator = new ColumnarLocusIterator(readIterator, samples, header,
+                        includeDeletions(), includeNs(), shard.getIntervals(), dict);
+                while ( iterator.advance() ) {
+                    final PileupColumn column = iterator.getColumn();
+                    final SimpleInterval locus = new SimpleInterval(column);
+                    worker.apply(column, new ReferenceContext(shardReference, locus), new FeatureContext(shardFeatures, locus));
+                    shard.recordProcessed(locus);
+                }
+                return;
+            }
+
+            final AlignmentContextIteratorBuilder alignmentContextIteratorBuilder = new AlignmentContextIteratorBuilder();
+            alignmentContextIteratorBuilder.setDownsamplingInfo(LocusIteratorByState.NO_DOWNSAMPLING);
+            alignmentContextIteratorBuilder.setEmitEmptyLoci(emitEmptyLoci());
+            alignmentContextIteratorBuilder.setIncludeDeletions(includeDeletions());
+            alignmentContextIteratorBuilder.setIncludeNs(includeNs());
+            final Iterator<AlignmentContext> iterator = alignmentContextIteratorBuilder.build(
+                    readIterator, header, shard.getIntervals(), dict, hasReference());
+            while ( iterator.hasNext() ) {
+                final AlignmentContext alignmentContext = iterator.next();
+                final SimpleInterval locus = new SimpleInterval(alignmentContext);
+                worker.apply(alignmentContext, new ReferenceContext(shardReference, locus), new FeatureContext(shardFeatures, locus));
+                shard.recordProcessed(locus);
+            }
+        }
+    }
+
     /**
      * Helper method that returns an AlignmentContext Iterator object based on the provided parameters.
      *
@@ -200,6 +334,40 @@ public abstract class LocusWalker extends WalkerBase {
      */
     public abstract void apply(AlignmentContext alignmentContext, ReferenceContext referenceContext, FeatureContext featureContext);
 
+    /**
+     * Process the reads at an individual locus as a {@link PileupColumn} (with optional contextual information).
+     * Only called for tools for which {@link #usesPileupColumns()} is {@code true}; see there for when
+     * {@link #apply(AlignmentContext, ReferenceContext, FeatureContext)} is called instead. Tools that implement this
+     * method can use {@link PileupColumn#of(AlignmentContext)} to implement the other one.
+     *
+     * The column is reused for the next locus, so it must not be kept after this method returns.
+     *
+     * The default implementation calls {@link #apply(AlignmentContext, ReferenceContext, FeatureContext)} with
+     * {@link PileupColumn#toAlignmentContext()}.
+     *
+     * @param column the reads at the current locus
+     * @param referenceContext Reference bases spanning the current locus, as for {@link #apply(AlignmentContext, ReferenceContext, FeatureContext)}
+     * @param featureContext Features spanning the current locus, as for {@link #apply(AlignmentContext, ReferenceContext, FeatureContext)}
+     */
+    public void apply(final PileupColumn column, final ReferenceContext referenceContext, final FeatureContext featureContext) {
+        apply(column.toAlignmentContext(), referenceContext, featureContext);
+    }
+
+    /**
+     * Create a new worker to process one shard of the input when running with {@code --local-shards} greater than 1.
+     * Called on the traversal thread, once per shard, after {@link #onTraversalStart}. Tools should only implement this
+     * if the results of processing disjoint sets of loci can be merged afterwards (see {@link LocusShardWorker}).
+     *
+     * The default implementation returns null, indicating that the tool only supports the serial traversal.
+     *
+     * Tools that implement this must also override {@link #supportsLocalShards()} to return true.
+     *
+     * @return a new worker, or null if this tool doesn't support sharded traversal
+     */
+    protected LocusShardWorker makeShardWorker() {
+        return null;
+    }
+
     /**
      * Marked final so that tool authors don't override it. Tool authors should override onTraversalSuccess() instead.
      */
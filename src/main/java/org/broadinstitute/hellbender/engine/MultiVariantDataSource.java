@@ -4,6 +4,7 @@ import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.SAMSequenceRecord;
 import htsjdk.samtools.util.CloseableIterator;
 import htsjdk.samtools.util.MergingIterator;
+import htsjdk.variant.variantcontext.LazyGenotypesContext;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.VariantContextComparator;
 import htsjdk.variant.variantcontext.writer.VariantContextWriter;
@@ -12,10 +13,13 @@ import htsjdk.variant.vcf.VCFUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.tools.genomicsdb.GenomicsDBOptions;
 import org.broadinstitute.hellbender.utils.SequenceDictionaryUtils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.iterators.ReadAheadIteratorPool;
 import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
+import org.broadinstitute.hellbender.utils.variant.VCFFieldProjection;
 import org.broadinstitute.hellbender.utils.variant.VcfUtils;
 
 import java.nio.file.Path;
@@ -37,10 +41,20 @@ import java.util.stream.Collectors;
  * -Targeted queries by one interval at a time. This also requires the files to have been indexed using
  *  the bundled tool IndexFeatureFile. Targeted queries by one interval at a time are unaffected by
  *  any intervals for full traversal set via {@link #setIntervalsForTraversal(List)}.
+ *
+ * Full traversals merge the sources with a k-way merge over a heap of their next variants, ordered by
+ * position. With {@link #setReadAheadThreads} the variants of every source are also decoded in batches by a shared
+ * pool of threads, ahead of the merge, which matters when there are hundreds of sources.
  */
 public final class MultiVariantDataSource implements GATKDataSource<VariantContext>, AutoCloseable {
     private static final Logger logger = LogManager.getLogger(MultiVariantDataSource.class);
 
+    /**
+     * Number of variants of a source decoded at a time when reading ahead. At most two batches per source are held
+     * in memory.
+     */
+    public static final int READ_AHEAD_BATCH_SIZE = 100;
+
     /**
      * List of FeatureDataSource objects aggregated by this MultiVariantDataSource
      */
@@ -60,6 +74,16 @@ public final class MultiVariantDataSource implements GATKDataSource<VariantConte
     private CloseableIterator<VariantContext> currentIterator;
     private SortedSet<String> mergedSamples;
 
+    /**
+     * Pool of threads decoding the variants of the sources ahead of full traversals (null if there is no read-ahead)
+     */
+    private ReadAheadIteratorPool readAheadPool = null;
+
+    /**
+     * Whether the genotypes of the variants are decoded, in which case the pool reading ahead also decodes them
+     */
+    private final boolean decodesGenotypes;
+
     /**
      * Creates a MultiVariantDataSource backed by the provided FeatureInputs. We will look ahead the specified number of bases
      * during queries that produce cache misses.
@@ -82,13 +106,30 @@ public final class MultiVariantDataSource implements GATKDataSource<VariantConte
      * @param reference reference to use when creating FeatureDataSources, may be null, only needed by GenomicsDB
      */
     public MultiVariantDataSource(final List<FeatureInput<VariantContext>> featureInputs, final int queryLookaheadBases, final int cloudPrefetchBuffer, final int cloudIndexPrefetchBuffer, final Path reference, final boolean skipDictionaryValidation) {
+        this(featureInputs, queryLookaheadBases, cloudPrefetchBuffer, cloudIndexPrefetchBuffer, reference, skipDictionaryValidation, VCFFieldProjection.ALL_FIELDS);
+    }
+
+    /**
+     * Creates a MultiVariantDataSource backed by the provided FeatureInputs. We will look ahead the specified number of bases
+     * during queries that produce cache misses.
+     *
+     * @param featureInputs List of FeatureInput<VariantContext>> specifying sources of VariantContexts
+     * @param queryLookaheadBases look ahead this many bases during queries that produce cache misses
+     * @param cloudPrefetchBuffer  MB size of caching/prefetching wrapper for the data, if on Google Cloud (0 to disable).
+     * @param cloudIndexPrefetchBuffer MB size of caching/prefetching wrapper for the index, if on Google Cloud (0 to disable).
+     * @param reference reference to use when creating FeatureDataSources, may be null, only needed by GenomicsDB
+     * @param variantFieldProjection fields of the variants to decode from VCF inputs
+     */
+    public MultiVariantDataSource(final List<FeatureInput<VariantContext>> featureInputs, final int queryLookaheadBases, final int cloudPrefetchBuffer, final int cloudIndexPrefetchBuffer, final Path reference, final boolean skipDictionaryValidation,
+                                  final VCFFieldProjection variantFieldProjection) {
         Utils.validateArg(queryLookaheadBases >= 0, "Query lookahead bases must be >= 0");
         Utils.validateArg(featureInputs != null && featureInputs.size() > 0, "FeatureInputs list must be non-null and non-empty");
+        this.decodesGenotypes = variantFieldProjection.includesGenotypes();
 
         featureInputs.forEach(
                 featureInput -> featureDataSources.add(
                         new FeatureDataSource<>(featureInput, queryLookaheadBases, VariantContext.class, cloudPrefetchBuffer, cloudIndexPrefetchBuffer,
-                                                reference, true)));
+                                                new GenomicsDBOptions(reference), true, variantFieldProjection)));
 
         // Ensure that the merged header and sequence dictionary that we use are in sync with each
         // other, and reflect the actual dictionaries used to do validation:
@@ -147,6 +188,26 @@ public final class MultiVariantDataSource implements GATKDataSource<VariantConte
         featureDataSources.forEach(ds -> ds.setIntervalsForTraversal(intervals));
     }
 
+    /**
+     * Decode the variants of the sources on background threads, ahead of full traversals via {@link #iterator}.
+     * If the genotypes are decoded at all (see {@link VCFFieldProjection#includesGenotypes}), they are decoded there
+     * too, so that the variants are handed over fully decoded. Queries via {@link #query} are small, and are not affected.
+     *
+     * @param readAheadThreads number of threads shared by all of the sources, or 0 to decode variants on the thread
+     *                         that traverses this data source
+     */
+    public void setReadAheadThreads(final int readAheadThreads) {
+        Utils.validateArg(readAheadThreads >= 0, "readAheadThreads must be >= 0");
+        closeOpenIterationIfNecessary();
+        if (readAheadPool != null) {
+            readAheadPool.close();
+            readAheadPool = null;
+        }
+        if (readAheadThreads > 0) {
+            readAheadPool = new ReadAheadIteratorPool(readAheadThreads, READ_AHEAD_BATCH_SIZE, "MultiVariantDataSource-readAhead");
+        }
+    }
+
     /**
      * Gets an iterator over all variants in this data source, restricting traversal to variants
      * overlapping our intervals if intervals were provided via {@link #setIntervalsForTraversal(List)}
@@ -157,7 +218,19 @@ public final class MultiVariantDataSource implements GATKDataSource<VariantConte
      */
     @Override
     public Iterator<VariantContext> iterator() {
-        return getMergedIteratorFromDataSources(ds -> ds.iterator());
+        return getMergedIteratorFromDataSources(ds -> readAheadPool != null ?
+                readAheadPool.readAhead(ds.iterator(), decodesGenotypes ? MultiVariantDataSource::decodeGenotypes : variant -> {}) :
+                getCloseableIteratorWrapper(ds.iterator()));
+    }
+
+    /**
+     * The genotypes of VCF records are only parsed when first accessed. Decode them on the thread reading ahead,
+     * rather than leaving that to the traversal thread.
+     */
+    private static void decodeGenotypes(final VariantContext variant) {
+        if ( variant.getGenotypes() instanceof LazyGenotypesContext ) {
+            ((LazyGenotypesContext) variant.getGenotypes()).decode();
+        }
     }
 
     /**
@@ -179,7 +252,7 @@ public final class MultiVariantDataSource implements GATKDataSource<VariantConte
      */
     @Override
     public Iterator<VariantContext> query( final SimpleInterval interval ) {
-        return getMergedIteratorFromDataSources(ds -> ds.queryAndPrefetch(interval).iterator());
+        return getMergedIteratorFromDataSources(ds -> getCloseableIteratorWrapper(ds.queryAndPrefetch(interval).iterator()));
     }
 
     /**
@@ -188,7 +261,7 @@ public final class MultiVariantDataSource implements GATKDataSource<VariantConte
      * @return
      */
     private Iterator<VariantContext> getMergedIteratorFromDataSources(
-            final Function<FeatureDataSource<VariantContext>, Iterator<VariantContext>> iteratorFromSource) {
+            final Function<FeatureDataSource<VariantContext>, CloseableIterator<VariantContext>> iteratorFromSource) {
 
         // Tribble documentation states that having multiple iterators open simultaneously over the same FeatureReader
         // results in undefined behavior
@@ -196,12 +269,12 @@ public final class MultiVariantDataSource implements GATKDataSource<VariantConte
 
         if (featureDataSources.size() > 1) {
             final List<CloseableIterator<VariantContext>> iterators = new ArrayList<>(featureDataSources.size());
-            featureDataSources.forEach(ds -> iterators.add(getCloseableIteratorWrapper(iteratorFromSource.apply((ds)))));
+            featureDataSources.forEach(ds -> iterators.add(iteratorFromSource.apply(ds)));
 
             final VariantContextComparator varComparator = new VariantContextComparator(getSequenceDictionary());
             currentIterator = new MergingIterator<>(varComparator, iterators);
         } else {
-            currentIterator = getCloseableIteratorWrapper(iteratorFromSource.apply(featureDataSources.get(0)));
+            currentIterator = iteratorFromSource.apply(featureDataSources.get(0));
         }
         return currentIterator;
     }
@@ -224,6 +297,10 @@ public final class MultiVariantDataSource implements GATKDataSource<VariantConte
     @Override
     public void close() {
         closeOpenIterationIfNecessary();
+        if (readAheadPool != null) {
+            readAheadPool.close();
+            readAheadPool = null;
+        }
         featureDataSources.forEach(dataSource -> dataSource.close());
     }
 
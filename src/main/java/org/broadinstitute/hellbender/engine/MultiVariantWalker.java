@@ -3,6 +3,7 @@ package org.broadinstitute.hellbender.engine;
 import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.vcf.VCFHeader;
+import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.ArgumentCollection;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.cmdline.argumentcollections.MultiVariantInputArgumentCollection;
@@ -29,6 +30,19 @@ public abstract class MultiVariantWalker extends VariantWalkerBase {
     @ArgumentCollection
     protected MultiVariantInputArgumentCollection multiVariantInputArgumentCollection = getMultiVariantInputArgumentCollection();
 
+    public static final String VARIANT_READ_AHEAD_THREADS_LONG_NAME = "variant-read-ahead-threads";
+    /**
+     * Decode the driving variants of every input on a pool of background threads, ahead of the traversal, including
+     * their genotypes unless the tool doesn't require them (see {@link #requiresGenotypes}). Mostly useful for tools
+     * that merge many inputs, such as CombineGVCFs, whose runtime is otherwise dominated by decoding the inputs one at
+     * a time.
+     */
+    @Argument(fullName = VARIANT_READ_AHEAD_THREADS_LONG_NAME,
+            doc = "Number of threads decoding the driving variants of all inputs, in batches of " + MultiVariantDataSource.READ_AHEAD_BATCH_SIZE +
+                    " variants per input, ahead of the traversal (0 to decode variants on the traversal thread).",
+            optional = true, minValue = 0)
+    public int variantReadAheadThreads = 0;
+
     // NOTE: keeping the driving source of variants separate from other, supplementary FeatureInputs in our FeatureManager
     // in GATKTool we do add the driving source to the Feature manager but we do need to treat it differently and thus this
     // field.
@@ -97,7 +111,8 @@ public abstract class MultiVariantWalker extends VariantWalkerBase {
         // Create a (MultiVariantDataSource) FeatureDataSource for the driving variants inputs using the
         // cache lookahead value from getDrivingVariantCacheLookAheadBases()
         drivingVariants = new MultiVariantDataSource(drivingVariantsFeatureInputs, getDrivingVariantCacheLookAheadBases(), cloudPrefetchBuffer, cloudIndexPrefetchBuffer,
-                                                     referenceArguments.getReferencePath(), skipDictionaryValidation);
+                                                     referenceArguments.getReferencePath(), skipDictionaryValidation, getDrivingVariantsFieldProjection());
+        drivingVariants.setReadAheadThreads(variantReadAheadThreads);
 
         // Note: the intervals for the driving variants are set in onStartup()
     }
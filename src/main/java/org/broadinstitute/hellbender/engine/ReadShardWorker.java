@@ -0,0 +1,29 @@
+package org.broadinstitute.hellbender.engine;
+
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+
+/**
+ * Processes the reads of a single shard on behalf of a {@link ReadWalker} running with {@code --local-shards}
+ * (see {@link ReadWalker#makeShardWorker()}).
+ *
+ * A new worker is created for each shard. {@link #apply} is called on a worker thread for each read in the shard,
+ * in coordinate order, and must only update state owned by the worker. Once the whole shard has been processed,
+ * {@link #reduce} is called on the traversal thread to merge the worker's results into the tool (see
+ * {@link LocalShardWorker}). Shards are reduced in traversal order, so tools that buffer per-shard output can still
+ * emit it in coordinate order.
+ */
+public interface ReadShardWorker extends LocalShardWorker {
+
+    /**
+     * Called on the worker thread before the first read of this shard, with the reference data source backing the
+     * {@link ReferenceContext}s passed to {@link #apply}, for workers that need to look up reference bases outside of
+     * the read's span. The data source is owned and closed by the engine. May be null if there is no reference.
+     */
+    default void onShardStart(final ReferenceDataSource shardReference) {}
+
+    /**
+     * Process an individual read of this shard. See {@link ReadWalker#apply} for a description of the arguments.
+     * The contexts are backed by data sources owned by this shard.
+     */
+    void apply(final GATKRead read, final ReferenceContext referenceContext, final FeatureContext featureContext);
+}
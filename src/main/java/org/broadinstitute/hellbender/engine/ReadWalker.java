@@ -4,9 +4,12 @@ import htsjdk.samtools.SAMSequenceDictionary;
 import org.broadinstitute.hellbender.engine.filters.CountingReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.engine.filters.WellformedReadFilter;
+import org.broadinstitute.hellbender.transformers.ReadTransformer;
+import org.broadinstitute.hellbender.utils.IntervalUtils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -24,6 +27,12 @@ import java.util.List;
  *
  * ReadWalker authors must implement the apply() method to process each read, and may optionally implement
  * onTraversalStart() and/or onTraversalSuccess(). See the PrintReadsWithReference walker for an example.
+ *
+ * Tools whose per-read work can be split into independent shards and merged afterwards (counters, histograms, etc.)
+ * can additionally implement {@link #makeShardWorker()} and {@link #supportsLocalShards()}, which enables the
+ * {@code --local-shards N} traversal: the traversal intervals are divided into contiguous shards, and each shard is
+ * read through its own data sources on one of N threads, with per-shard results merged on the traversal thread in
+ * shard order. This requires indexed inputs.
  */
 public abstract class ReadWalker extends WalkerBase {
 
@@ -91,6 +100,11 @@ public abstract class ReadWalker extends WalkerBase {
      */
     @Override
     public void traverse() {
+        if ( localShardThreads > 1 ) {
+            traverseLocalShards();
+            return;
+        }
+
         // Process each read in the input stream.
         // Supply reference bases spanning each read, if a reference is available.
         final CountingReadFilter countedFilter = makeReadFilter();
@@ -107,6 +121,78 @@ public abstract class ReadWalker extends WalkerBase {
         logger.info(countedFilter.getSummaryLine());
     }
 
+    /**
+     * Sharded, multi-threaded implementation of read-based traversal (see {@link #makeShardWorker()}). Produces the same set
+     * of reads as the serial traversal: mapped reads overlapping the traversal intervals, unmapped reads placed within
+     * them, and (if requested, or if there are no intervals) unmapped reads with no position as a final shard.
+     */
+    private void traverseLocalShards() {
+        final SAMSequenceDictionary dict = getHeaderForReads().getSequenceDictionary();
+        final List<SimpleInterval> intervals = hasUserSuppliedIntervals() ? userIntervals : IntervalUtils.getAllIntervalsForReference(dict);
+        final boolean traverseUnmapped = ! hasUserSuppliedIntervals() || intervalArgumentCollection.getTraversalParameters(dict).traverseUnmappedReads();
+
+        final List<LocalShard> shards = new ArrayList<>(LocalShard.divide(intervals, localShardThreads));
+        if ( traverseUnmapped ) {
+            shards.add(LocalShard.unmappedReads());
+        }
+
+        final List<CountingReadFilter> shardFilters = new ArrayList<>(shards.size());
+        traverseLocalShards(shards, "reads", this::makeShardWorker, (shard, worker) -> {
+            final CountingReadFilter shardFilter = makeReadFilter();
+            shardFilters.add(shardFilter);
+            final ReadTransformer preTransformer = makePreReadFilterTransformer();
+            final ReadTransformer postTransformer = makePostReadFilterTransformer();
+            return () -> processLocalShard(shard, worker, preTransformer, shardFilter, postTransformer);
+        });
+
+        long filteredCount = 0;
+        for ( final CountingReadFilter shardFilter : shardFilters ) {
+            filteredCount += shardFilter.getFilteredCount();
+        }
+        logger.info(filteredCount + " read(s) filtered across all local shards");
+    }
+
+    /**
+     * Process the reads of one shard through its own data sources on a worker thread.
+     */
+    private void processLocalShard(final LocalShard shard, final ReadShardWorker worker, final ReadTransformer preTransformer,
+                                   final ReadFilter filter, final ReadTransformer postTransformer) {
+        try ( final ReadsDataSource shardReads = createWorkerReadsDataSource();
+              final ReferenceDataSource shardReference = createWorkerReferenceDataSource();
+              final FeatureManager shardFeatures = createWorkerFeatureManager() ) {
+            shardReads.setTraversalBounds(shard.getIntervals(), shard.traversesUnmapped());
+            worker.onShardStart(shardReference);
+
+            for ( final GATKRead originalRead : shardReads ) {
+                if ( ! shard.owns(getReadPosition(originalRead)) ) {
+                    continue;
+                }
+
+                final GATKRead preTransformedRead = preTransformer.apply(originalRead);
+                if ( ! filter.test(preTransformedRead) ) {
+                    continue;
+                }
+                final GATKRead read = postTransformer.apply(preTransformedRead);
+
+                final SimpleInterval readInterval = getReadInterval(read);
+                worker.apply(read, new ReferenceContext(shardReference, readInterval), new FeatureContext(shardFeatures, readInterval));
+                shard.recordProcessed(readInterval);
+            }
+        }
+    }
+
+    /**
+     * Returns the position used to decide which local shard owns a read: its span if mapped, or the position
+     * of its mate if it is an unmapped read placed with its mate. Null for unmapped reads with no position.
+     */
+    private SimpleInterval getReadPosition(final GATKRead read) {
+        final SimpleInterval readInterval = getReadInterval(read);
+        if ( readInterval != null || read.getAssignedContig() == null || read.getAssignedStart() < 1 ) {
+            return readInterval;
+        }
+        return new SimpleInterval(read.getAssignedContig(), read.getAssignedStart(), read.getAssignedStart());
+    }
+
     /**
      * Returns an interval for the read.
      * Note: some walkers must be able to work on any read, including those whose coordinates do not form a valid SimpleInterval.
@@ -161,6 +247,21 @@ public abstract class ReadWalker extends WalkerBase {
      */
     public abstract void apply( GATKRead read, ReferenceContext referenceContext, FeatureContext featureContext );
 
+    /**
+     * Create a new worker to process one shard of the input when running with {@code --local-shards} greater than 1.
+     * Called on the traversal thread, once per shard, after {@link #onTraversalStart}. Tools should only implement this
+     * if the results of processing disjoint sets of reads can be merged afterwards (see {@link ReadShardWorker}).
+     *
+     * The default implementation returns null, indicating that the tool only supports the serial traversal.
+     *
+     * Tools that implement this must also override {@link #supportsLocalShards()} to return true.
+     *
+     * @return a new worker, or null if this tool doesn't support sharded traversal
+     */
+    protected ReadShardWorker makeShardWorker() {
+        return null;
+    }
+
     /**
      * Shutdown data sources.
      *
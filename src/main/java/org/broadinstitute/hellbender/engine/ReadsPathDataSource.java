@@ -1,6 +1,7 @@
 package org.broadinstitute.hellbender.engine;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Iterators;
 import htsjdk.samtools.MergingSamRecordIterator;
 import htsjdk.samtools.SAMException;
 import htsjdk.samtools.SAMFileHeader;
@@ -20,6 +21,7 @@ import org.broadinstitute.hellbender.utils.IntervalUtils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
+import org.broadinstitute.hellbender.utils.iterators.ReadAheadIterator;
 import org.broadinstitute.hellbender.utils.iterators.SAMRecordToReadIterator;
 import org.broadinstitute.hellbender.utils.iterators.SamReaderQueryingIterator;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
@@ -50,6 +52,11 @@ import java.util.stream.Collectors;
 public final class ReadsPathDataSource implements ReadsDataSource {
     private static final Logger logger = LogManager.getLogger(ReadsPathDataSource.class);
 
+    /**
+     * Number of reads handed from the read-ahead thread to the traversal at a time, when read-ahead is enabled
+     */
+    public static final int READ_AHEAD_BATCH_SIZE = 1000;
+
     /**
      * Mapping from SamReaders to iterators over the reads from each reader. Only one
      * iterator can be open from a given reader at a time (this is a restriction
@@ -92,6 +99,17 @@ public final class ReadsPathDataSource implements ReadsDataSource {
      */
     private boolean indicesAvailable;
 
+    /**
+     * Maximum number of batches of {@link #READ_AHEAD_BATCH_SIZE} reads decoded ahead of the traversal on a background
+     * thread during iterations initiated via {@link #iterator}. 0 if read-ahead is disabled.
+     */
+    private int readAheadBatches = 0;
+
+    /**
+     * Read-ahead iterator for the current traversal, if any. Must be closed before the iterators it reads from.
+     */
+    private ReadAheadIterator<GATKRead> readAheadIterator;
+
     /**
      * Has it been closed already.
      */
@@ -303,6 +321,23 @@ public final class ReadsPathDataSource implements ReadsDataSource {
         }
     }
 
+    /**
+     * Decode reads on a background thread, ahead of the consumer, during traversals initiated via {@link #iterator}.
+     * Reads are fully decoded by the background thread (including their lazily-decoded fields), so that the consumer
+     * only pays the cost of its own processing. Combined with asynchronous BGZF decompression in the
+     * {@link SamReaderFactory} (see {@link SamReaderFactory#setUseAsyncIo}), this moves nearly all of the decoding work
+     * off the traversal thread, which speeds up tools that do little work per read.
+     *
+     * Calls to {@link #query} and {@link #queryUnmapped} are not affected by this method.
+     *
+     * @param numBatches maximum number of batches of {@link #READ_AHEAD_BATCH_SIZE} reads to decode ahead of the
+     *                   consumer, or 0 to disable read-ahead
+     */
+    public void setReadAheadBatches( final int numBatches ) {
+        Utils.validateArg(numBatches >= 0, "numBatches must be >= 0");
+        this.readAheadBatches = numBatches;
+    }
+
     /**
      * @return True if traversals initiated via {@link #iterator} will be restricted to reads that overlap intervals
      *         as configured via {@link #setTraversalBounds}, otherwise false
@@ -333,7 +368,17 @@ public final class ReadsPathDataSource implements ReadsDataSource {
     @Override
     public Iterator<GATKRead> iterator() {
         logger.debug("Preparing readers for traversal");
-        return prepareIteratorsForTraversal(intervalsForTraversal, traverseUnmapped);
+        final Iterator<SAMRecord> samRecordIterator = prepareIteratorsForTraversal(intervalsForTraversal, traverseUnmapped);
+        if ( readAheadBatches == 0 ) {
+            return new SAMRecordToReadIterator(samRecordIterator);
+        }
+
+        final Iterator<SAMRecord> decodingIterator = Iterators.transform(samRecordIterator, record -> {
+            record.eagerDecode();
+            return record;
+        });
+        readAheadIterator = new ReadAheadIterator<>(new SAMRecordToReadIterator(decodingIterator), READ_AHEAD_BATCH_SIZE, readAheadBatches, "ReadsPathDataSource-readAhead");
+        return readAheadIterator;
     }
 
     /**
@@ -349,7 +394,7 @@ public final class ReadsPathDataSource implements ReadsDataSource {
             raiseExceptionForMissingIndex("Cannot query reads data source by interval unless all files are indexed");
         }
 
-        return prepareIteratorsForTraversal(Arrays.asList(interval));
+        return new SAMRecordToReadIterator(prepareIteratorsForTraversal(Arrays.asList(interval)));
     }
 
     /**
@@ -362,7 +407,7 @@ public final class ReadsPathDataSource implements ReadsDataSource {
             raiseExceptionForMissingIndex("Cannot query reads data source by interval unless all files are indexed");
         }
 
-        return prepareIteratorsForTraversal(null, true);
+        return new SAMRecordToReadIterator(prepareIteratorsForTraversal(null, true));
     }
 
     /**
@@ -385,7 +430,7 @@ public final class ReadsPathDataSource implements ReadsDataSource {
      * @param queryIntervals Intervals to bound the iteration (reads must overlap one of these intervals). If null, iteration is unbounded.
      * @return Iterator over all reads in this data source, limited to overlap with the supplied intervals
      */
-    private Iterator<GATKRead> prepareIteratorsForTraversal( final List<SimpleInterval> queryIntervals ) {
+    private Iterator<SAMRecord> prepareIteratorsForTraversal( final List<SimpleInterval> queryIntervals ) {
         return prepareIteratorsForTraversal(queryIntervals, false);
     }
 
@@ -395,7 +440,7 @@ public final class ReadsPathDataSource implements ReadsDataSource {
      * @param queryIntervals Intervals to bound the iteration (reads must overlap one of these intervals). If null, iteration is unbounded.
      * @return Iterator over all reads in this data source, limited to overlap with the supplied intervals
      */
-    private Iterator<GATKRead> prepareIteratorsForTraversal( final List<SimpleInterval> queryIntervals, final boolean queryUnmapped ) {
+    private Iterator<SAMRecord> prepareIteratorsForTraversal( final List<SimpleInterval> queryIntervals, final boolean queryUnmapped ) {
         // htsjdk requires that only one iterator be open at a time per reader, so close out
         // any previous iterations
         closePreviousIterationsIfNecessary();
@@ -429,7 +474,7 @@ public final class ReadsPathDataSource implements ReadsDataSource {
             startingIterator = new MergingSamRecordIterator(headerMerger, readers, true);
         }
 
-        return new SAMRecordToReadIterator(startingIterator);
+        return startingIterator;
     }
 
     /**
@@ -512,6 +557,12 @@ public final class ReadsPathDataSource implements ReadsDataSource {
      * Close any previously-opened iterations over our readers (htsjdk allows only one open iteration per reader).
      */
     private void closePreviousIterationsIfNecessary() {
+        // stop the read-ahead thread first, since it may be using the reader iterators
+        if ( readAheadIterator != null ) {
+            readAheadIterator.close();
+            readAheadIterator = null;
+        }
+
         for ( Map.Entry<SamReader, CloseableIterator<SAMRecord>> readerEntry : readers.entrySet() ) {
             CloseableIterator<SAMRecord> readerIterator = readerEntry.getValue();
             if ( readerIterator != null ) {
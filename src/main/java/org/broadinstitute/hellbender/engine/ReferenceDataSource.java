@@ -4,6 +4,7 @@ import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.reference.ReferenceSequence;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.iterators.ByteArrayIterator;
+import org.broadinstitute.hellbender.utils.reference.MappedTwoBitReference;
 import org.broadinstitute.hellbender.utils.reference.ReferenceBases;
 
 import java.nio.file.Path;
@@ -17,30 +18,33 @@ import java.util.Iterator;
 public interface ReferenceDataSource extends GATKDataSource<Byte>, AutoCloseable {
 
     /**
-     * Initialize this data source using a fasta file.
+     * Initialize this data source using a fasta file, or a .2bit file.
      *
-     * The provided fasta file must have companion .fai and .dict files.
+     * The provided fasta file must have companion .fai and .dict files. A .2bit file is memory-mapped
+     * (see {@link ReferenceTwoBitSource}).
      *
-     * @param fastaPath reference fasta Path
+     * @param fastaPath reference fasta (or 2bit) Path
      */
     public static ReferenceDataSource of(final Path fastaPath) {
-        return new ReferenceFileSource(fastaPath);
+        return MappedTwoBitReference.isTwoBit(fastaPath) ? new ReferenceTwoBitSource(fastaPath) : new ReferenceFileSource(fastaPath);
     }
 
     /**
-     * Initialize this data source using a fasta file.
+     * Initialize this data source using a fasta file, or a .2bit file.
      *
-     * The provided fasta file must have companion .fai and .dict files.
+     * The provided fasta file must have companion .fai and .dict files. A .2bit file is memory-mapped
+     * (see {@link ReferenceTwoBitSource}).
      *
      * If {@code preserveFileBases} is {@code true}, will NOT convert IUPAC bases in the file to `N` and will NOT capitalize lower-case bases.
      *
      * NOTE: Most GATK tools do not support data created by setting {@code preserveFileBases} to {@code true}.
      *
-     * @param fastaPath reference fasta Path
+     * @param fastaPath reference fasta (or 2bit) Path
      * @param preserveAmbiguityCodesAndCapitalization Whether to preserve the original bases in the given reference file path.
      */
     public static ReferenceDataSource of(final Path fastaPath, final boolean preserveAmbiguityCodesAndCapitalization) {
-        return new ReferenceFileSource(fastaPath, preserveAmbiguityCodesAndCapitalization);
+        return MappedTwoBitReference.isTwoBit(fastaPath) ? new ReferenceTwoBitSource(fastaPath, preserveAmbiguityCodesAndCapitalization)
+                : new ReferenceFileSource(fastaPath, preserveAmbiguityCodesAndCapitalization);
     }
 
     /**
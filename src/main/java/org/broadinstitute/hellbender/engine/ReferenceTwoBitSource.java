@@ -0,0 +1,88 @@
+package org.broadinstitute.hellbender.engine;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.reference.ReferenceSequence;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.reference.MappedTwoBitReference;
+
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * Manages traversals and queries over reference data stored in .2bit format, which is memory-mapped
+ * rather than loaded onto the heap (see {@link MappedTwoBitReference}).
+ *
+ * Supports targeted queries over the reference by interval, but does not
+ * yet support complete iteration over the entire reference.
+ */
+public final class ReferenceTwoBitSource implements ReferenceDataSource {
+
+    private final MappedTwoBitReference reference;
+
+    /**
+     * Initialize this data source using a 2bit file, uppercasing all bases.
+     *
+     * @param twoBitPath reference 2bit file
+     */
+    public ReferenceTwoBitSource(final Path twoBitPath) {
+        this(twoBitPath, false);
+    }
+
+    /**
+     * Initialize this data source using a 2bit file.
+     *
+     * If {@code preserveFileBases} is {@code true}, will NOT capitalize lower-case (masked) bases. The 2bit format
+     * doesn't store IUPAC bases.
+     *
+     * @param twoBitPath reference 2bit file
+     * @param preserveFileBases Whether to preserve the case of the bases in the given reference file path.
+     */
+    public ReferenceTwoBitSource(final Path twoBitPath, final boolean preserveFileBases) {
+        reference = new MappedTwoBitReference(Utils.nonNull(twoBitPath), preserveFileBases);
+    }
+
+    /**
+     * Start an iteration over the entire reference. Not yet supported!
+     *
+     * See the BaseUtils class for guidance on how to work with bases in this format.
+     *
+     * @return iterator over all bases in this reference
+     */
+    @Override
+    public Iterator<Byte> iterator() {
+        throw new UnsupportedOperationException("Iteration over entire reference not yet implemented");
+    }
+
+    /**
+     * Query a specific interval on this reference, and get back all bases spanning that interval at once.
+     * Call getBases() on the returned ReferenceSequence to get the actual reference bases. See the BaseUtils
+     * class for guidance on how to work with bases in this format.
+     *
+     * @param contig query interval contig
+     * @param start query interval start
+     * @param stop query interval stop
+     * @return a ReferenceSequence containing all bases spanning the query interval, prefetched
+     */
+    @Override
+    public ReferenceSequence queryAndPrefetch( final String contig, final long start , final long stop) {
+        return reference.getReferenceBases(contig, start, stop);
+    }
+
+    /**
+     * Get the sequence dictionary for this reference
+     *
+     * @return SAMSequenceDictionary for this reference
+     */
+    @Override
+    public SAMSequenceDictionary getSequenceDictionary() {
+        return reference.getSequenceDictionary();
+    }
+
+    /**
+     * Permanently close this data source
+     */
+    @Override
+    public void close() {
+        reference.close();
+    }
+}
@@ -0,0 +1,37 @@
+package org.broadinstitute.hellbender.engine;
+
+import htsjdk.samtools.util.Locatable;
+import htsjdk.variant.variantcontext.VariantContext;
+
+import java.util.List;
+
+/**
+ * Processes the loci of a single shard on behalf of a {@link VariantLocusWalker} running with {@code --local-shards}
+ * (see {@link VariantLocusWalker#makeShardWorker()}).
+ *
+ * A new worker is created for each shard. {@link #apply} is called on a worker thread for each locus (or, in by-variant
+ * traversal, each variant) in the shard, in coordinate order, and must only update state owned by the worker. Once the
+ * whole shard has been processed, {@link #reduce} is called on the traversal thread to merge the worker's results into
+ * the tool (see {@link LocalShardWorker}). Shards are reduced in traversal order, so tools that buffer per-shard output
+ * can still emit it in coordinate order.
+ */
+public interface VariantLocusShardWorker extends LocalShardWorker {
+
+    /**
+     * Process an individual locus or variant of this shard. See {@link VariantLocusWalker#apply} for a description of
+     * the arguments. The contexts are backed by data sources owned by this shard.
+     */
+    void apply(final Locatable loc, final List<VariantContext> variants, final ReadsContext readsContext,
+               final ReferenceContext referenceContext, final FeatureContext featureContext);
+
+    /**
+     * Called on the worker thread, before the first call to {@link #apply}, for each variant (or, in by-locus traversal,
+     * each locus) of the preceding shard whose variants extend into this shard, in order. These are processed by the
+     * preceding shard, so the worker must not output anything for them, but workers whose results depend on upstream
+     * variants (eg. on the deletions that span the start of the shard) can use them to set up their state.
+     *
+     * The default implementation ignores them.
+     */
+    default void applyUpstream(final Locatable loc, final List<VariantContext> variants, final ReadsContext readsContext,
+                               final ReferenceContext referenceContext, final FeatureContext featureContext) {}
+}
@@ -27,6 +27,12 @@ import java.util.stream.Stream;
  *
  * VariantLocusWalker authors must implement the {@link #apply} method to process each variant, and may optionally implement
  * {@link #onTraversalStart}, {@link #onTraversalSuccess} and/or {@link #closeTool}.
+ *
+ * Tools whose per-locus work can be split into independent shards and merged afterwards can additionally implement
+ * {@link #makeShardWorker()} and {@link #supportsLocalShards()}, which enables the {@code --local-shards N} traversal:
+ * the traversal intervals are divided into contiguous shards, and each shard is read through its own data sources
+ * (including its own query of the driving variants, eg. its own GenomicsDB query) on one of N threads, with per-shard
+ * results merged on the traversal thread in shard order. This requires an indexed driving variants file or a GenomicsDB workspace.
  */
 public abstract class VariantLocusWalker extends VariantWalkerBase {
 
@@ -73,7 +79,7 @@ public abstract class VariantLocusWalker extends VariantWalkerBase {
         // This is the data source for the driving source of variants,
         // which uses a cache lookahead of getDrivingVariantCacheLookAheadBases()
         drivingVariants = new FeatureDataSource<>(drivingVariantsFeatureInput, getDrivingVariantCacheLookAheadBases(), VariantContext.class, cloudPrefetchBuffer, cloudIndexPrefetchBuffer,
-                getGenomicsDBOptions());
+                getGenomicsDBOptions(), false, getDrivingVariantsFieldProjection());
 
         // Also add the driving datasource to the feature manager so that it can be queried. Setting cache lookahead
         // to 0 to avoid caching. Note: we are disabling lookahead here because of windowed queries that need to "look behind" as well.
@@ -121,6 +127,11 @@ public abstract class VariantLocusWalker extends VariantWalkerBase {
      */
     @Override
     public void traverse() {
+        if ( localShardThreads > 1 ) {
+            traverseLocalShards();
+            return;
+        }
+
         final CountingReadFilter readFilter = makeReadFilter();
         final CountingVariantFilter variantFilter = makeVariantFilter();
         final VariantTransformer preTransformer  = makePreVariantFilterTransformer();
@@ -184,6 +195,152 @@ public abstract class VariantLocusWalker extends VariantWalkerBase {
         }
     }
 
+    /**
+     * Sharded, multi-threaded implementation of variant-locus traversal (see {@link #makeShardWorker()}).
+     */
+    private void traverseLocalShards() {
+        traverseLocalShards(LocalShard.divide(getTraversalIntervals(), localShardThreads), "loci", this::makeShardWorker, (shard, worker) -> {
+            final CountingVariantFilter variantFilter = makeVariantFilter();
+            final CountingReadFilter readFilter = makeReadFilter();
+            final VariantTransformer preTransformer = makePreVariantFilterTransformer();
+            final VariantTransformer postTransformer = makePostVariantFilterTransformer();
+            return () -> processLocalShard(shard, worker, preTransformer, variantFilter, postTransformer, readFilter);
+        });
+    }
+
+    /**
+     * Process the loci (or variants) of one shard through its own data sources on a worker thread.
+     */
+    private void processLocalShard(final LocalShard shard, final VariantLocusShardWorker worker, final VariantTransformer preTransformer,
+                                   final CountingVariantFilter variantFilter, final VariantTransformer postTransformer,
+                                   final CountingReadFilter readFilter) {
+        try ( final FeatureDataSource<VariantContext> shardVariants = new FeatureDataSource<>(drivingVariantsFeatureInput, getDrivingVariantCacheLookAheadBases(),
+                    VariantContext.class, cloudPrefetchBuffer, cloudIndexPrefetchBuffer, getGenomicsDBOptions(), false, getDrivingVariantsFieldProjection());
+              final ReadsDataSource shardReads = createWorkerReadsDataSource();
+              final ReferenceDataSource shardReference = createWorkerReferenceDataSource();
+              final FeatureManager shardFeatures = createWorkerFeatureManager() ) {
+            // as for the engine's FeatureManager, make the driving variants queryable without caching
+            shardFeatures.addToFeatureSources(0, drivingVariantsFeatureInput, VariantContext.class, cloudPrefetchBuffer, cloudIndexPrefetchBuffer,
+                    getGenomicsDBOptions());
+
+            if (traverseByVariant) {
+                shardVariants.setIntervalsForTraversal(shard.getIntervals());
+                final Iterator<VariantContext> variants = shardVariants.iterator();
+                while ( variants.hasNext() ) {
+                    final VariantContext originalVariant = variants.next();
+                    final VariantContext preTransformedVariant = preTransformer.apply(originalVariant);
+                    if ( ! variantFilter.test(preTransformedVariant) ) {
+                        continue;
+                    }
+                    final VariantContext variant = postTransformer.apply(preTransformedVariant);
+
+                    final SimpleInterval variantInterval = new SimpleInterval(variant);
+                    if ( ! shard.owns(originalVariant) ) {
+                        // processed by the preceding shard
+                        worker.applyUpstream(variant,
+                                Collections.singletonList(variant),
+                                new ReadsContext(shardReads, variantInterval, readFilter),
+                                new ReferenceContext(shardReference, variantInterval),
+                                new FeatureContext(shardFeatures, variantInterval));
+                        continue;
+                    }
+                    try {
+                        worker.apply(variant,
+                                Collections.singletonList(variant),
+                                new ReadsContext(shardReads, variantInterval, readFilter),
+                                new ReferenceContext(shardReference, variantInterval),
+                                new FeatureContext(shardFeatures, variantInterval));
+                    } catch (final IllegalStateException e) {
+                        throw new GATKException("Exception thrown at " + variant.getContig() + ":" + variant.getStart()
+                                + " " + variant.toString(), e);
+                    }
+                    shard.recordProcessed(variantInterval);
+                }
+            } else {
+                for ( final SimpleInterval locus : getUpstreamLoci(shard, shardVariants) ) {
+                    final List<VariantContext> filteredVariants = queryFilteredVariants(shardVariants, locus, preTransformer, variantFilter, postTransformer);
+                    if ( ! filteredVariants.isEmpty() ) {
+                        worker.applyUpstream(locus,
+                                filteredVariants,
+                                new ReadsContext(shardReads, locus, readFilter),
+                                new ReferenceContext(shardReference, locus),
+                                new FeatureContext(shardFeatures, locus));
+                    }
+                }
+
+                // each locus lies in exactly one shard, so unlike variants, loci don't need to be checked for ownership
+                final Iterator<SimpleInterval> intervalShards = new ShardedIntervalIterator(shard.getIntervals().iterator(), getDrivingVariantCacheLookAheadBases());
+                while ( intervalShards.hasNext() ) {
+                    final SimpleInterval intervalShard = intervalShards.next();
+                    if ( ! shardVariants.query(intervalShard).hasNext() ) {
+                        continue;
+                    }
+                    final Iterator<SimpleInterval> loci = new IntervalLocusIterator(Collections.singletonList(intervalShard).iterator());
+                    while ( loci.hasNext() ) {
+                        final SimpleInterval locus = loci.next();
+                        final List<VariantContext> filteredVariants = queryFilteredVariants(shardVariants, locus, preTransformer, variantFilter, postTransformer);
+                        if ( filteredVariants.isEmpty() ) {
+                            continue;
+                        }
+                        try {
+                            worker.apply(locus,
+                                    filteredVariants,
+                                    new ReadsContext(shardReads, locus, readFilter),
+                                    new ReferenceContext(shardReference, locus),
+                                    new FeatureContext(shardFeatures, locus));
+                        } catch (final IllegalStateException e) {
+                            throw new GATKException("Exception thrown at first variant start " + filteredVariants.get(0).getContig() + ":" + filteredVariants.get(0).getStart()
+                                    + " " + filteredVariants.get(0).toString(), e);
+                        }
+                        shard.recordProcessed(locus);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the transformed and filtered variants of a shard overlapping a locus.
+     */
+    private static List<VariantContext> queryFilteredVariants(final FeatureDataSource<VariantContext> shardVariants, final SimpleInterval locus,
+                                                              final VariantTransformer preTransformer, final CountingVariantFilter variantFilter,
+                                                              final VariantTransformer postTransformer) {
+        final List<VariantContext> filteredVariants = new ArrayList<>();
+        final Iterator<VariantContext> overlappingVariants = shardVariants.query(locus);
+        while ( overlappingVariants.hasNext() ) {
+            final VariantContext preTransformedVariant = preTransformer.apply(overlappingVariants.next());
+            if ( variantFilter.test(preTransformedVariant) ) {
+                filteredVariants.add(postTransformer.apply(preTransformedVariant));
+            }
+        }
+        return filteredVariants;
+    }
+
+    /**
+     * Returns the loci of the last interval of the preceding shard at or after the start of the earliest variant that
+     * overlaps the start of this shard, in order. These are the loci at which the preceding shard processed the variants
+     * that extend into this one.
+     */
+    private List<SimpleInterval> getUpstreamLoci(final LocalShard shard, final FeatureDataSource<VariantContext> shardVariants) {
+        final SimpleInterval precedingInterval = shard.getPrecedingInterval();
+        final SimpleInterval firstInterval = shard.getIntervals().get(0);
+        if ( precedingInterval == null || ! precedingInterval.contigsMatch(firstInterval) ) {
+            return Collections.emptyList();
+        }
+
+        int upstreamStart = firstInterval.getStart();
+        final Iterator<VariantContext> overlappingVariants = shardVariants.query(new SimpleInterval(firstInterval.getContig(), firstInterval.getStart(), firstInterval.getStart()));
+        while ( overlappingVariants.hasNext() ) {
+            upstreamStart = Math.min(upstreamStart, overlappingVariants.next().getStart());
+        }
+        if ( upstreamStart > precedingInterval.getEnd() ) {
+            return Collections.emptyList();
+        }
+        final SimpleInterval upstreamInterval = new SimpleInterval(precedingInterval.getContig(),
+                Math.max(upstreamStart, precedingInterval.getStart()), precedingInterval.getEnd());
+        return getLocusStream(upstreamInterval).collect(Collectors.toList());
+    }
+
     // Return a Stream of SimpleInterval covering the entire territory sketched out by requestedInterval
     private Stream<SimpleInterval> getLocusStream(final SimpleInterval requestedInterval) {
         return Utils.stream(new IntervalLocusIterator(Collections.singletonList(requestedInterval).iterator()));
@@ -215,6 +372,21 @@ public abstract class VariantLocusWalker extends VariantWalkerBase {
      */
     public abstract void apply(Locatable loc, List<VariantContext> variants, ReadsContext readsContext, ReferenceContext referenceContext, FeatureContext featureContext );
 
+    /**
+     * Create a new worker to process one shard of the input when running with {@code --local-shards} greater than 1.
+     * Called on the traversal thread, once per shard, after {@link #onTraversalStart}. Tools should only implement this
+     * if the results of processing disjoint sets of loci can be merged afterwards (see {@link VariantLocusShardWorker}).
+     *
+     * The default implementation returns null, indicating that the tool only supports the serial traversal.
+     *
+     * Tools that implement this must also override {@link #supportsLocalShards()} to return true.
+     *
+     * @return a new worker, or null if this tool doesn't support sharded traversal
+     */
+    protected VariantLocusShardWorker makeShardWorker() {
+        return null;
+    }
+
     /**
      * Close all data sources.
      *
@@ -0,0 +1,22 @@
+package org.broadinstitute.hellbender.engine;
+
+import htsjdk.variant.variantcontext.VariantContext;
+
+/**
+ * Processes the variants of a single shard on behalf of a {@link VariantWalker} running with {@code --local-shards}
+ * (see {@link VariantWalker#makeShardWorker()}).
+ *
+ * A new worker is created for each shard. {@link #apply} is called on a worker thread for each variant in the shard,
+ * in coordinate order, and must only update state owned by the worker. Once the whole shard has been processed,
+ * {@link #reduce} is called on the traversal thread to merge the worker's results into the tool (see
+ * {@link LocalShardWorker}). Shards are reduced in traversal order, so tools that buffer per-shard output can still
+ * emit it in coordinate order.
+ */
+public interface VariantShardWorker extends LocalShardWorker {
+
+    /**
+     * Process an individual variant of this shard. See {@link VariantWalker#apply} for a description of the arguments.
+     * The contexts are backed by data sources owned by this shard.
+     */
+    void apply(final VariantContext variant, final ReadsContext readsContext, final ReferenceContext referenceContext, final FeatureContext featureContext);
+}
@@ -6,9 +6,14 @@ import htsjdk.variant.vcf.VCFHeader;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.engine.filters.CountingReadFilter;
+import org.broadinstitute.hellbender.engine.filters.CountingVariantFilter;
 import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.transformers.VariantTransformer;
+import org.broadinstitute.hellbender.utils.IntervalUtils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 
+import java.util.Iterator;
+import java.util.List;
 import java.util.Spliterator;
 
 /**
@@ -18,6 +23,12 @@ import java.util.Spliterator;
  *
  * VariantWalker authors must implement the {@link #apply} method to process each variant, and may optionally implement
  * {@link #onTraversalStart}, {@link #onTraversalSuccess} and/or {@link #closeTool}.
+ *
+ * Tools whose per-variant work can be split into independent shards and merged afterwards can additionally implement
+ * {@link #makeShardWorker()} and {@link #supportsLocalShards()}, which enables the {@code --local-shards N} traversal:
+ * the traversal intervals are divided into contiguous shards, and each shard is read through its own data sources on
+ * one of N threads, with per-shard results merged on the traversal thread in shard order. This requires an indexed
+ * driving variants file.
  */
 public abstract class VariantWalker extends VariantWalkerBase {
 
@@ -55,7 +66,7 @@ public abstract class VariantWalker extends VariantWalkerBase {
         // Create a FeatureDataSource for the driving variants FeatureInput, using the
         // cache lookahead value from getDrivingVariantCacheLookAheadBases()
         drivingVariants = new FeatureDataSource<>(drivingVariantsFeatureInput, getDrivingVariantCacheLookAheadBases(), VariantContext.class, cloudPrefetchBuffer, cloudIndexPrefetchBuffer,
-                                                  getGenomicsDBOptions());
+                                                  getGenomicsDBOptions(), false, getDrivingVariantsFieldProjection());
 
         // Also add the driving variants FeatureInput to FeatureManager as well so that it can be queried,
         // but use a lookahead value of 0 to avoid caching because of windowed queries that need to "look behind" as well.
@@ -96,6 +107,11 @@ public abstract class VariantWalker extends VariantWalkerBase {
      */
     @Override
     public void traverse() {
+        if ( localShardThreads > 1 ) {
+            traverseLocalShards();
+            return;
+        }
+
         final CountingReadFilter readFilter = makeReadFilter();
         // Process each variant in the input stream.
         getTransformedVariantStream( makeVariantFilter() )
@@ -110,6 +126,61 @@ public abstract class VariantWalker extends VariantWalkerBase {
                 });
     }
 
+    /**
+     * Sharded, multi-threaded implementation of variant-based traversal (see {@link #makeShardWorker()}).
+     */
+    private void traverseLocalShards() {
+        final List<SimpleInterval> intervals = hasUserSuppliedIntervals() ? userIntervals :
+                IntervalUtils.getAllIntervalsForReference(getBestAvailableSequenceDictionary());
+
+        traverseLocalShards(LocalShard.divide(intervals, localShardThreads), "variants", this::makeShardWorker, (shard, worker) -> {
+            final CountingVariantFilter variantFilter = makeVariantFilter();
+            final CountingReadFilter readFilter = makeReadFilter();
+            final VariantTransformer preTransformer = makePreVariantFilterTransformer();
+            final VariantTransformer postTransformer = makePostVariantFilterTransformer();
+            return () -> processLocalShard(shard, worker, preTransformer, variantFilter, postTransformer, readFilter);
+        });
+    }
+
+    /**
+     * Process the variants of one shard through its own data sources on a worker thread.
+     */
+    private void processLocalShard(final LocalShard shard, final VariantShardWorker worker, final VariantTransformer preTransformer,
+                                   final CountingVariantFilter variantFilter, final VariantTransformer postTransformer,
+                                   final CountingReadFilter readFilter) {
+        try ( final FeatureDataSource<VariantContext> shardVariants = new FeatureDataSource<>(drivingVariantsFeatureInput, getDrivingVariantCacheLookAheadBases(),
+                    VariantContext.class, cloudPrefetchBuffer, cloudIndexPrefetchBuffer, getGenomicsDBOptions(), false, getDrivingVariantsFieldProjection());
+              final ReadsDataSource shardReads = createWorkerReadsDataSource();
+              final ReferenceDataSource shardReference = createWorkerReferenceDataSource();
+              final FeatureManager shardFeatures = createWorkerFeatureManager() ) {
+            shardVariants.setIntervalsForTraversal(shard.getIntervals());
+            // as for the engine's FeatureManager, make the driving variants queryable without caching
+            shardFeatures.addToFeatureSources(0, drivingVariantsFeatureInput, VariantContext.class, cloudPrefetchBuffer, cloudIndexPrefetchBuffer,
+                    getGenomicsDBOptions());
+
+            final Iterator<VariantContext> variants = shardVariants.iterator();
+            while ( variants.hasNext() ) {
+                final VariantContext originalVariant = variants.next();
+                if ( ! shard.owns(originalVariant) ) {
+                    continue;
+                }
+
+                final VariantContext preTransformedVariant = preTransformer.apply(originalVariant);
+                if ( ! variantFilter.test(preTransformedVariant) ) {
+                    continue;
+                }
+                final VariantContext variant = postTransformer.apply(preTransformedVariant);
+
+                final SimpleInterval variantInterval = new SimpleInterval(variant);
+                worker.apply(variant,
+                        new ReadsContext(shardReads, variantInterval, readFilter),
+                        new ReferenceContext(shardReference, variantInterval),
+                        new FeatureContext(shardFeatures, variantInterval));
+                shard.recordProcessed(variantInterval);
+            }
+        }
+    }
+
     /**
      * Process an individual variant. Must be implemented by tool authors.
      * In general, tool authors should simply stream their output from apply(), and maintain as little internal state
@@ -130,6 +201,21 @@ public abstract class VariantWalker extends VariantWalkerBase {
      */
     public abstract void apply( VariantContext variant, ReadsContext readsContext, ReferenceContext referenceContext, FeatureContext featureContext );
 
+    /**
+     * Create a new worker to process one shard of the input when running with {@code --local-shards} greater than 1.
+     * Called on the traversal thread, once per shard, after {@link #onTraversalStart}. Tools should only implement this
+     * if the results of processing disjoint sets of variants can be merged afterwards (see {@link VariantShardWorker}).
+     *
+     * The default implementation returns null, indicating that the tool only supports the serial traversal.
+     *
+     * Tools that implement this must also override {@link #supportsLocalShards()} to return true.
+     *
+     * @return a new worker, or null if this tool doesn't support sharded traversal
+     */
+    protected VariantShardWorker makeShardWorker() {
+        return null;
+    }
+
     /**
      * Close all data sources.
      *
@@ -9,7 +9,9 @@ import org.broadinstitute.hellbender.engine.filters.VariantFilterLibrary;
 import org.broadinstitute.hellbender.tools.genomicsdb.GenomicsDBOptions;
 import org.broadinstitute.hellbender.transformers.VariantTransformer;
 import org.broadinstitute.hellbender.utils.IndexUtils;
+import org.broadinstitute.hellbender.utils.variant.VCFFieldProjection;
 
+import java.util.Set;
 import java.util.Spliterator;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -128,6 +130,41 @@ public abstract class VariantWalkerBase extends WalkerBase {
         return DEFAULT_DRIVING_VARIANTS_LOOKAHEAD_BASES;
     }
 
+    /**
+     * Returns the keys of the INFO fields of the driving variants that are used by this tool, including by its variant
+     * filters and transformers. The other INFO fields of VCF inputs are not decoded, and are missing from the driving
+     * variants. Called after the arguments have been parsed, when the driving variants are initialized.
+     *
+     * The default implementation returns null: all INFO fields may be used.
+     *
+     * @return the keys of the INFO fields used by this tool, or null if it may use any of them
+     */
+    public Set<String> getRequiredInfoFields() {
+        return null;
+    }
+
+    /**
+     * Does this tool use the genotypes of the driving variants, including in its variant filters and transformers?
+     * If not, the FORMAT and sample columns of VCF inputs are not decoded at all, and the driving variants have no
+     * genotypes, so they must not be written to an output with samples. Called after the arguments have been parsed,
+     * when the driving variants are initialized.
+     *
+     * The default implementation returns true.
+     *
+     * @return true if this tool uses the genotypes of the driving variants
+     */
+    public boolean requiresGenotypes() {
+        return true;
+    }
+
+    /**
+     * @return the fields of the driving variants to decode, as declared by {@link #getRequiredInfoFields} and
+     * {@link #requiresGenotypes}
+     */
+    protected final VCFFieldProjection getDrivingVariantsFieldProjection() {
+        return VCFFieldProjection.of(getRequiredInfoFields(), requiresGenotypes());
+    }
+
     /**
      * Returns the pre-filter variant transformer (simple or composite) that will be applied to the variants before filtering.
      * The default implementation uses the {@link VariantTransformer#identity()}.
@@ -1,6 +1,13 @@
 package org.broadinstitute.hellbender.engine;
 
+import org.broadinstitute.barclay.argparser.Argument;
+import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.OrderedParallelExecutor;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
 
 /**
  * Base class for pre-packaged walker traversals in the GATK engine.
@@ -15,6 +22,100 @@ import org.broadinstitute.hellbender.exceptions.GATKException;
  */
 public abstract class WalkerBase extends GATKTool {
 
+    /**
+     * Name of the argument that enables the multi-threaded, sharded traversal in walker types that support it
+     * (see {@link ReadWalker#makeShardWorker()}, {@link VariantWalker#makeShardWorker()} and
+     * {@link VariantLocusWalker#makeShardWorker()}).
+     */
+    public static final String LOCAL_SHARDS_LONG_NAME = "local-shards";
+
+    /**
+     * If greater than 1, and the tool supports it, the input is processed in independent shards on this many threads.
+     */
+    @Argument(fullName = LOCAL_SHARDS_LONG_NAME, doc = "Number of threads with which to process independent shards of the input. " +
+            "Only supported by some tools, and requires indexed inputs.", optional = true, minValue = 1)
+    public int localShardThreads = 1;
+
+    /**
+     * Work done on a worker thread to feed the records of one shard to its worker (see {@link #traverseLocalShards}).
+     */
+    @FunctionalInterface
+    interface LocalShardTask {
+        void process() throws Exception;
+    }
+
+    /**
+     * Whether this tool supports the {@code --local-shards} traversal. Tools that implement the {@code makeShardWorker()}
+     * method of their walker type must override this to return true.
+     *
+     * @return true if this tool supports processing independent shards of the input on multiple threads
+     */
+    protected boolean supportsLocalShards() {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Rejects {@code --local-shards} for tools that don't support it before any data sources or outputs are opened.
+     */
+    @Override
+    protected void onStartup() {
+        if ( localShardThreads > 1 && ! supportsLocalShards() ) {
+            throw new CommandLineException.BadArgumentValue(LOCAL_SHARDS_LONG_NAME, String.valueOf(localShardThreads),
+                    getToolName() + " does not support sharded traversal");
+        }
+        super.onStartup();
+    }
+
+    /**
+     * Process the given shards on {@link #localShardThreads} threads.
+     *
+     * For each shard, in order, a worker is created with {@code makeWorker} and the task that feeds it the records of the
+     * shard is created with {@code makeTask}, both on the traversal thread, so that tools don't need to make their
+     * worker, filter and transformer factory methods thread-safe. The task then runs on a worker thread, and the worker
+     * is closed once it completes or fails (and discarded first if it fails). Workers are reduced on the traversal
+     * thread in shard order.
+     *
+     * @param shards shards in traversal order
+     * @param recordLabel plural name of the records being processed, for logging
+     * @param makeWorker creates the worker for a shard
+     * @param makeTask creates the task that processes a shard with its worker, and must call
+     *                 {@link LocalShard#recordProcessed} for each record processed
+     */
+    final <W extends LocalShardWorker> void traverseLocalShards(final List<LocalShard> shards, final String recordLabel,
+                                                               final Supplier<W> makeWorker,
+                                                               final BiFunction<LocalShard, W, LocalShardTask> makeTask) {
+        logger.info("Processing " + recordLabel + " in " + shards.size() + " local shards with " + localShardThreads + " threads");
+
+        try ( final OrderedParallelExecutor<Runnable> shardExecutor = new OrderedParallelExecutor<>(localShardThreads,
+                localShardThreads * LocalShard.SHARDS_PER_THREAD, "localShard", Runnable::run) ) {
+            for ( final LocalShard shard : shards ) {
+                final W worker = makeWorker.get();
+                if ( worker == null ) {
+                    throw new GATKException(getToolName() + " supports sharded traversal but did not create a shard worker");
+                }
+                final LocalShardTask task = makeTask.apply(shard, worker);
+
+                shardExecutor.submit(() -> {
+                    try {
+                        task.process();
+                    } catch ( final Exception e ) {
+                        worker.discard();
+                        throw e;
+                    } finally {
+                        worker.close();
+                    }
+                    return () -> {
+                        worker.reduce();
+                        progressMeter.update(shard.getLastRecordInterval(), shard.getRecordCount());
+                    };
+                });
+            }
+            shardExecutor.finish();
+        }
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -7,6 +7,7 @@ import org.broadinstitute.barclay.help.DocumentedFeature;
 import org.broadinstitute.hellbender.cmdline.argumentcollections.OptionalTextOutputArgumentCollection;
 import org.broadinstitute.hellbender.cmdline.programgroups.CoverageAnalysisProgramGroup;
 import org.broadinstitute.hellbender.engine.FeatureContext;
+import org.broadinstitute.hellbender.engine.ReadShardWorker;
 import org.broadinstitute.hellbender.engine.ReadWalker;
 import org.broadinstitute.hellbender.engine.ReferenceContext;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
@@ -45,6 +46,28 @@ public final class CountReads extends ReadWalker {
         ++count;
     }
 
+    @Override
+    protected boolean supportsLocalShards() {
+        return true;
+    }
+
+    @Override
+    protected ReadShardWorker makeShardWorker() {
+        return new ReadShardWorker() {
+            private long shardCount = 0;
+
+            @Override
+            public void apply(final GATKRead read, final ReferenceContext referenceContext, final FeatureContext featureContext) {
+                ++shardCount;
+            }
+
+            @Override
+            public void reduce() {
+                count += shardCount;
+            }
+        };
+    }
+
     @Override
     public Object onTraversalSuccess() {
         logger.info("CountReads counted " + count + " total reads");
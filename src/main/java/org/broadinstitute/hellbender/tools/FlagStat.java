@@ -7,6 +7,7 @@ import org.broadinstitute.barclay.help.DocumentedFeature;
 import org.broadinstitute.hellbender.cmdline.argumentcollections.OptionalTextOutputArgumentCollection;
 import picard.cmdline.programgroups.DiagnosticsAndQCProgramGroup;
 import org.broadinstitute.hellbender.engine.FeatureContext;
+import org.broadinstitute.hellbender.engine.ReadShardWorker;
 import org.broadinstitute.hellbender.engine.ReadWalker;
 import org.broadinstitute.hellbender.engine.ReferenceContext;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
@@ -55,6 +56,28 @@ public final class FlagStat extends ReadWalker {
         sum.add(read);
     }
 
+    @Override
+    protected boolean supportsLocalShards() {
+        return true;
+    }
+
+    @Override
+    protected ReadShardWorker makeShardWorker() {
+        return new ReadShardWorker() {
+            private final FlagStatus shardSum = new FlagStatus();
+
+            @Override
+            public void apply(final GATKRead read, final ReferenceContext referenceContext, final FeatureContext featureContext) {
+                shardSum.add(read);
+            }
+
+            @Override
+            public void reduce() {
+                sum.merge(shardSum);
+            }
+        };
+    }
+
     @Override
     public Object onTraversalSuccess() {
         out.print(sum);
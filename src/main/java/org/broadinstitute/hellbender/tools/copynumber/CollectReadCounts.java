@@ -14,6 +14,7 @@ import org.broadinstitute.barclay.help.DocumentedFeature;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.cmdline.programgroups.CoverageAnalysisProgramGroup;
 import org.broadinstitute.hellbender.engine.FeatureContext;
+import org.broadinstitute.hellbender.engine.ReadShardWorker;
 import org.broadinstitute.hellbender.engine.ReadWalker;
 import org.broadinstitute.hellbender.engine.ReferenceContext;
 import org.broadinstitute.hellbender.engine.filters.MappingQualityReadFilter;
@@ -126,14 +127,7 @@ public final class CollectReadCounts extends ReadWalker {
 
     private List<SimpleInterval> intervals;
 
-    private String currentContig = null;
-
-    /**
-     * Overlap detector used to determine when read starts overlap with input intervals.
-     */
-    private CachedOverlapDetector<SimpleInterval> intervalCachedOverlapDetector;
-
-    private Multiset<SimpleInterval> intervalMultiset;
+    private ReadStartCounter readStartCounter;
 
     @Override
     public boolean requiresIntervals() {
@@ -163,7 +157,7 @@ public final class CollectReadCounts extends ReadWalker {
         }
 
         intervals = intervalArgumentCollection.getIntervals(sequenceDictionary);
-        intervalMultiset = HashMultiset.create(intervals.size());
+        readStartCounter = new ReadStartCounter();
 
         logger.info("Collecting read counts...");
     }
@@ -175,22 +169,33 @@ public final class CollectReadCounts extends ReadWalker {
 
     @Override
     public void apply(GATKRead read, ReferenceContext referenceContext, FeatureContext featureContext) {
-        if (currentContig == null || !read.getContig().equals(currentContig)) {
-            //if we are on a new contig, create an OverlapDetector covering the contig
-            currentContig = read.getContig();
-            final List<SimpleInterval> intervalsOnCurrentContig = intervals.stream()
-                    .filter(i -> i.getContig().equals(currentContig))
-                    .collect(Collectors.toList());
-            intervalCachedOverlapDetector = new CachedOverlapDetector<>(intervalsOnCurrentContig);
-        }
-        final SimpleInterval overlappingInterval = intervalCachedOverlapDetector.getOverlap(
-                new SimpleInterval(read.getContig(), read.getStart(), read.getStart()));
+        readStartCounter.add(read);
+    }
 
-        //if read doesn't overlap any of the provided intervals, do nothing
-        if (overlappingInterval == null) {
-            return;
-        }
-        intervalMultiset.add(overlappingInterval);
+    @Override
+    protected boolean supportsLocalShards() {
+        return true;
+    }
+
+    /**
+     * Each shard counts the reads that it owns, and the counts are added together. Every read is processed by
+     * exactly one shard, so the counts are identical to those of the serial traversal.
+     */
+    @Override
+    protected ReadShardWorker makeShardWorker() {
+        return new ReadShardWorker() {
+            private final ReadStartCounter shardCounter = new ReadStartCounter();
+
+            @Override
+            public void apply(final GATKRead read, final ReferenceContext referenceContext, final FeatureContext featureContext) {
+                shardCounter.add(read);
+            }
+
+            @Override
+            public void reduce() {
+                readStartCounter.addAll(shardCounter);
+            }
+        };
     }
 
     @Override
@@ -199,7 +204,7 @@ public final class CollectReadCounts extends ReadWalker {
         final SimpleCountCollection readCounts = new SimpleCountCollection(
                 metadata,
                 ImmutableList.copyOf(intervals.stream()     //making this an ImmutableList avoids a defensive copy in SimpleCountCollection
-                        .map(i -> new SimpleCount(i, intervalMultiset.count(i)))
+                        .map(i -> new SimpleCount(i, readStartCounter.count(i)))
                         .iterator()));
 
         if (format == Format.HDF5) {
@@ -213,6 +218,47 @@ public final class CollectReadCounts extends ReadWalker {
         return null;
     }
 
+    /**
+     * Counts the reads whose start overlaps each interval.
+     */
+    private final class ReadStartCounter {
+        private final Multiset<SimpleInterval> intervalMultiset = HashMultiset.create(intervals.size());
+
+        private String currentContig = null;
+
+        /**
+         * Overlap detector used to determine when read starts overlap with input intervals.
+         */
+        private CachedOverlapDetector<SimpleInterval> intervalCachedOverlapDetector;
+
+        void add(final GATKRead read) {
+            if (currentContig == null || !read.getContig().equals(currentContig)) {
+                //if we are on a new contig, create an OverlapDetector covering the contig
+                currentContig = read.getContig();
+                final List<SimpleInterval> intervalsOnCurrentContig = intervals.stream()
+                        .filter(i -> i.getContig().equals(currentContig))
+                        .collect(Collectors.toList());
+                intervalCachedOverlapDetector = new CachedOverlapDetector<>(intervalsOnCurrentContig);
+            }
+            final SimpleInterval overlappingInterval = intervalCachedOverlapDetector.getOverlap(
+                    new SimpleInterval(read.getContig(), read.getStart(), read.getStart()));
+
+            //if read doesn't overlap any of the provided intervals, do nothing
+            if (overlappingInterval == null) {
+                return;
+            }
+            intervalMultiset.add(overlappingInterval);
+        }
+
+        void addAll(final ReadStartCounter other) {
+            intervalMultiset.addAll(other.intervalMultiset);
+        }
+
+        int count(final SimpleInterval interval) {
+            return intervalMultiset.count(interval);
+        }
+    }
+
     /**
      * A simple wrapper around {@link OverlapDetector} to provide naive caching and ensure that overlap sets
      * only contain a single interval.
@@ -8,6 +8,9 @@ import org.broadinstitute.hellbender.cmdline.argumentcollections.OptionalTextOut
 import org.broadinstitute.hellbender.engine.*;
 import picard.cmdline.programgroups.VariantEvaluationProgramGroup;
 
+import java.util.Collections;
+import java.util.Set;
+
 /**
  *
  * Count variant records in a VCF file, regardless of filter status. The tool prints the count to standard output
@@ -41,11 +44,46 @@ public final class CountVariants extends VariantWalker {
     @ArgumentCollection
     final public OptionalTextOutputArgumentCollection out = new OptionalTextOutputArgumentCollection();
 
+    /**
+     * Only the records themselves are counted, so none of their INFO fields or genotypes are decoded
+     */
+    @Override
+    public Set<String> getRequiredInfoFields() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public boolean requiresGenotypes() {
+        return false;
+    }
+
     @Override
     public void apply(final VariantContext variant, final ReadsContext readsContext, final ReferenceContext referenceContext, final FeatureContext featureContext) {
         count++;
     }
 
+    @Override
+    protected boolean supportsLocalShards() {
+        return true;
+    }
+
+    @Override
+    protected VariantShardWorker makeShardWorker() {
+        return new VariantShardWorker() {
+            private long shardCount = 0;
+
+            @Override
+            public void apply(final VariantContext variant, final ReadsContext readsContext, final ReferenceContext referenceContext, final FeatureContext featureContext) {
+                shardCount++;
+            }
+
+            @Override
+            public void reduce() {
+                count += shardCount;
+            }
+        };
+    }
+
     @Override
     public Object onTraversalSuccess() {
         out.print(count);
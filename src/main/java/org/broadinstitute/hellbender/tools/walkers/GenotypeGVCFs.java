@@ -18,12 +18,14 @@ import org.broadinstitute.hellbender.engine.FeatureContext;
 import org.broadinstitute.hellbender.engine.GATKPath;
 import org.broadinstitute.hellbender.engine.ReadsContext;
 import org.broadinstitute.hellbender.engine.ReferenceContext;
+import org.broadinstitute.hellbender.engine.VariantLocusShardWorker;
 import org.broadinstitute.hellbender.engine.VariantLocusWalker;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.tools.genomicsdb.GenomicsDBArgumentCollection;
 import org.broadinstitute.hellbender.tools.genomicsdb.GenomicsDBImport;
 import org.broadinstitute.hellbender.tools.genomicsdb.GenomicsDBOptions;
 import org.broadinstitute.hellbender.tools.walkers.annotator.Annotation;
+import org.broadinstitute.hellbender.tools.walkers.annotator.QualByDepth;
 import org.broadinstitute.hellbender.tools.walkers.annotator.StandardAnnotation;
 import org.broadinstitute.hellbender.tools.walkers.annotator.StrandBiasBySample;
 import org.broadinstitute.hellbender.tools.walkers.annotator.VariantAnnotatorEngine;
@@ -31,6 +33,7 @@ import org.broadinstitute.hellbender.tools.walkers.genotyper.GenotypeCalculation
 import org.broadinstitute.hellbender.tools.walkers.mutect.M2ArgumentCollection;
 import org.broadinstitute.hellbender.utils.*;
 import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
+import org.broadinstitute.hellbender.utils.variant.writers.DeferredVariantContextWriter;
 import org.broadinstitute.hellbender.tools.walkers.annotator.allelespecific.ReducibleAnnotation;
 
 import java.util.*;
@@ -76,6 +79,15 @@ import java.util.stream.Collectors;
  *   --tmp-dir /path/to/large/tmp
  * </pre>
  *
+ * <h4>Perform joint genotyping on GenomicsDB workspace on 8 threads, each genotyping its own part of the intervals</h4>
+ * <pre>
+ * gatk --java-options "-Xmx16g" GenotypeGVCFs \
+ *   -R Homo_sapiens_assembly38.fasta \
+ *   -V gendb://my_database \
+ *   -O output.vcf.gz \
+ *   --local-shards 8
+ * </pre>
+ *
  * <h3>Caveats</h3>
  * <ul>
  *   <li>Only GVCF files produced by HaplotypeCaller (or CombineGVCFs) can be used as input for this tool. Some other
@@ -83,6 +95,9 @@ import java.util.stream.Collectors;
  * for every position) that GenotypeGVCFs requires for its operation.</li>
  *   <li>Cannot take multiple GVCF files in one command.</li>
  *   <li>The amount of temporary disk storage required by GenomicsDBImport may exceed what is available in the default location: `/tmp`. The command line argument `--tmp-dir` can be used to specify an alternate temperary storage location with sufficient space.</li>
+ *   <li>With `--local-shards`, each thread queries the input separately and keeps the output of its part of the
+ * intervals until the preceding parts have been written, in a temporary file in `--tmp-dir` if it is large.
+ * The output is the same as without it.</li>
  * </ul>
  *
  * <h3>Special note on ploidy</h3>
@@ -310,16 +325,79 @@ public final class GenotypeGVCFs extends VariantLocusWalker {
 
     @Override
     public void apply(final Locatable loc, List<VariantContext> variants, ReadsContext reads, ReferenceContext ref, FeatureContext features) {
+        genotypeLocus(gvcfEngine, merger, loc, variants, ref, features, vcfWriter);
+    }
 
+    @Override
+    protected boolean supportsLocalShards() {
+        return true;
+    }
+
+    /**
+     * Each shard gets its own genotyping engine and merger, and its output is written to the VCF once the preceding
+     * shards have been written. The engine is first run over the variants of the preceding shard that extend into this
+     * one, so that it knows about the deletions spanning the start of the shard, and the jitter of the QD annotation is
+     * drawn from a generator of its own, so that the output doesn't depend on the scheduling of the threads.
+     */
+    @Override
+    protected VariantLocusShardWorker makeShardWorker() {
+        final GenotypeGVCFsEngine shardEngine = gvcfEngine.createShardEngine();
+        final ReferenceConfidenceVariantContextMerger shardMerger = new ReferenceConfidenceVariantContextMerger(annotationEngine,
+                getHeaderForVariants(), somaticInput, false, true);
+        final DeferredVariantContextWriter shardWriter = new DeferredVariantContextWriter();
+        shardWriter.setHeader(gvcfEngine.getOutputHeader());
+        // drawn on the traversal thread, in shard order
+        final Random shardJitterGenerator = new Random(Utils.getRandomGenerator().nextLong());
+
+        return new VariantLocusShardWorker() {
+            @Override
+            public void applyUpstream(final Locatable loc, final List<VariantContext> variants, final ReadsContext readsContext,
+                                      final ReferenceContext referenceContext, final FeatureContext featureContext) {
+                QualByDepth.setJitterGeneratorForCurrentThread(shardJitterGenerator);
+                // the calls are written by the preceding shard
+                shardEngine.callRegion(loc, variants, referenceContext, featureContext, shardMerger, somaticInput, tlodThreshold, afTolerance, isForceOutput(loc));
+            }
+
+            @Override
+            public void apply(final Locatable loc, final List<VariantContext> variants, final ReadsContext readsContext,
+                              final ReferenceContext referenceContext, final FeatureContext featureContext) {
+                QualByDepth.setJitterGeneratorForCurrentThread(shardJitterGenerator);
+                genotypeLocus(shardEngine, shardMerger, loc, variants, referenceContext, featureContext, shardWriter);
+            }
+
+            @Override
+            public void discard() {
+                shardWriter.close();
+            }
+
+            @Override
+            public void close() {
+                QualByDepth.setJitterGeneratorForCurrentThread(null);
+            }
+
+            @Override
+            public void reduce() {
+                shardWriter.replayTo(vcfWriter);
+            }
+        };
+    }
+
+    private boolean isForceOutput(final Locatable loc) {
         final boolean inForceOutputIntervals = forceOutputIntervalsPresent && forceOutputIntervals.overlapsAny(loc);
-        final boolean forceOutput = includeNonVariants || inForceOutputIntervals;
-        final VariantContext regenotypedVC = gvcfEngine.callRegion(loc, variants, ref, features, merger, somaticInput, tlodThreshold, afTolerance, forceOutput);
+        return includeNonVariants || inForceOutputIntervals;
+    }
+
+    private void genotypeLocus(final GenotypeGVCFsEngine engine, final ReferenceConfidenceVariantContextMerger locusMerger,
+                               final Locatable loc, final List<VariantContext> variants, final ReferenceContext ref,
+                               final FeatureContext features, final VariantContextWriter writer) {
+        final boolean forceOutput = isForceOutput(loc);
+        final VariantContext regenotypedVC = engine.callRegion(loc, variants, ref, features, locusMerger, somaticInput, tlodThreshold, afTolerance, forceOutput);
 
         if (regenotypedVC != null) {
             final SimpleInterval variantStart = new SimpleInterval(regenotypedVC.getContig(), regenotypedVC.getStart(), regenotypedVC.getStart());
             if ((forceOutput || !GATKVariantContextUtils.isSpanningDeletionOnly(regenotypedVC)) &&
                     (!onlyOutputCallsStartingInIntervals || intervals.stream().anyMatch(interval -> interval.contains (variantStart)))) {
-                vcfWriter.add(regenotypedVC);
+                writer.add(regenotypedVC);
             }
         }
     }
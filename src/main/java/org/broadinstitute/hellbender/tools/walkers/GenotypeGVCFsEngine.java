@@ -87,6 +87,27 @@ public class GenotypeGVCFsEngine
         initialize();
     }
 
+    /**
+     * Create a new engine with the same configuration and output header as this one, for genotyping a disjoint part of
+     * the input on another thread (each engine keeps per-site state, so an engine may only be used by one thread at a
+     * time).  Must be called after {@link #setupVCFWriter}.
+     *
+     * @return a new engine
+     */
+    public GenotypeGVCFsEngine createShardEngine() {
+        Utils.validate(outputHeader != null, "the output header must be set up before creating shard engines");
+        final GenotypeGVCFsEngine shardEngine = new GenotypeGVCFsEngine(annotationEngine, genotypeArgs, includeNonVariants, inputVCFHeader, keepSB);
+        shardEngine.outputHeader = outputHeader;
+        return shardEngine;
+    }
+
+    /**
+     * @return the header of the output VCF, or null if {@link #setupVCFWriter} hasn't been called
+     */
+    public VCFHeader getOutputHeader() {
+        return outputHeader;
+    }
+
     private void initialize()
     {
         samples = new IndexedSampleList(inputVCFHeader.getGenotypeSamples()); //todo should this be getSampleNamesInOrder?
@@ -17,6 +17,7 @@ import org.broadinstitute.hellbender.utils.variant.GATKVCFConstants;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
 /**
  * Variant confidence normalized by unfiltered depth of variant samples
@@ -52,6 +53,9 @@ public final class QualByDepth implements InfoFieldAnnotation, StandardAnnotatio
     static final double IDEAL_HIGH_QD = 30;
     private static final double JITTER_SIGMA = 3;
 
+    // if set, the generator from which fixTooHighQD draws its jitter on the current thread
+    private static final ThreadLocal<Random> threadJitterGenerator = new ThreadLocal<>();
+
     @Override
     public Map<String, Object> annotate(final ReferenceContext ref,
                                         final VariantContext vc,
@@ -94,7 +98,23 @@ public final class QualByDepth implements InfoFieldAnnotation, StandardAnnotatio
         if ( QD < MAX_QD_BEFORE_FIXING ) {
             return QD;
         } else {
-            return IDEAL_HIGH_QD + Utils.getRandomGenerator().nextGaussian() * JITTER_SIGMA;
+            final Random jitterGenerator = threadJitterGenerator.get();
+            return IDEAL_HIGH_QD + (jitterGenerator != null ? jitterGenerator : Utils.getRandomGenerator()).nextGaussian() * JITTER_SIGMA;
+        }
+    }
+
+    /**
+     * Draw the jitter of {@link #fixTooHighQD} on the current thread from the given generator rather than from
+     * {@link Utils#getRandomGenerator()}. Multi-threaded tools use this to give each unit of work (shard, region...)
+     * its own generator, since the order in which threads draw from the shared generator depends on scheduling.
+     *
+     * @param jitterGenerator the generator to use on the current thread, or null to use the shared generator again
+     */
+    public static void setJitterGeneratorForCurrentThread(final Random jitterGenerator) {
+        if ( jitterGenerator == null ) {
+            threadJitterGenerator.remove();
+        } else {
+            threadJitterGenerator.set(jitterGenerator);
         }
     }
 
@@ -17,12 +17,17 @@ import org.broadinstitute.hellbender.engine.ReferenceContext;
 import org.broadinstitute.hellbender.tools.ApplyBQSRArgumentCollection;
 import org.broadinstitute.hellbender.transformers.BQSRReadTransformer;
 import org.broadinstitute.hellbender.transformers.ReadTransformer;
+import org.broadinstitute.hellbender.utils.OrderedParallelExecutor;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.SAMFileGATKReadWriter;
 import picard.cmdline.programgroups.ReadDataManipulationProgramGroup;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 /**
  * Apply base quality score recalibration
@@ -63,6 +68,8 @@ import java.io.File;
  *     <li>You should only run ApplyBQSR with the covariates table created from the input BAM or CRAM file(s).</li>
  *     <li>Original qualities can be retained in the output file under the "OQ" tag if desired. See the
  *     `--emit-original-quals` argument for details.</li>
+ *     <li>Reads can be recalibrated on several threads with `--recalibration-threads`. Reading and writing remain
+ *     single-threaded, and the output is identical to that of a single-threaded run.</li>
  * </ul>
  *
  */
@@ -79,6 +86,12 @@ public final class ApplyBQSR extends ReadWalker{
 
     private static final Logger logger = LogManager.getLogger(ApplyBQSR.class);
 
+    public static final String RECALIBRATION_THREADS_LONG_NAME = "recalibration-threads";
+
+    // reads are handed to the recalibration threads in batches, to amortize the cost of the hand-off
+    private static final int READS_PER_BATCH = 1000;
+    private static final int BATCHES_IN_FLIGHT_PER_THREAD = 4;
+
     @Argument(fullName = StandardArgumentDefinitions.OUTPUT_LONG_NAME, shortName = StandardArgumentDefinitions.OUTPUT_SHORT_NAME, doc="Write output to this file")
     @WorkflowOutput(optionalCompanions = {StandardArgumentDefinitions.OUTPUT_INDEX_COMPANION})
     public GATKPath OUTPUT;
@@ -97,30 +110,100 @@ public final class ApplyBQSR extends ReadWalker{
      */
     @ArgumentCollection
     public ApplyBQSRArgumentCollection bqsrArgs = new ApplyBQSRArgumentCollection();
-    
+
+    /**
+     * If greater than 1, reads are recalibrated in batches on this many threads, and written in their original order.
+     */
+    @Argument(fullName = RECALIBRATION_THREADS_LONG_NAME, doc = "Number of threads with which to recalibrate reads. " +
+            "Reads are still read and written on a single thread, in the same order.", optional = true, minValue = 1)
+    public int recalibrationThreads = 1;
+
     private SAMFileGATKReadWriter outputWriter;
 
+    // only used with more than one recalibration thread
+    private BlockingQueue<BQSRReadTransformer> recalibrationTransformers;
+    private OrderedParallelExecutor<List<GATKRead>> recalibrationExecutor;
+    private List<GATKRead> currentBatch;
+
     /**
-     * Returns the BQSR post-transformer.
+     * Returns the BQSR post-transformer, unless reads are recalibrated on separate threads by the tool itself.
      */
     @Override
     public ReadTransformer makePostReadFilterTransformer(){
-        return new BQSRReadTransformer(getHeaderForReads(), BQSR_RECAL_FILE, bqsrArgs);
+        return recalibrationThreads > 1 ? ReadTransformer.identity() : new BQSRReadTransformer(getHeaderForReads(), BQSR_RECAL_FILE, bqsrArgs);
     }
 
     @Override
     public void onTraversalStart() {
         outputWriter = createSAMWriter(OUTPUT, true);
         Utils.warnOnNonIlluminaReadGroups(getHeaderForReads(), logger);
+
+        if ( recalibrationThreads > 1 ) {
+            // BQSRReadTransformer is not thread-safe, so each thread borrows its own one. They are copies of the first
+            // one, so they all share the same recalibration tables and precomputed recalibration, which are only read
+            // (the empirical quality each RecalDatum computes lazily is always computed with the same prior, so it
+            // doesn't depend on which thread gets there first).
+            final BQSRReadTransformer recalibrationTransformer = new BQSRReadTransformer(getHeaderForReads(), BQSR_RECAL_FILE, bqsrArgs);
+            recalibrationTransformers = new ArrayBlockingQueue<>(recalibrationThreads);
+            recalibrationTransformers.add(recalibrationTransformer);
+            for ( int i = 1; i < recalibrationThreads; i++ ) {
+                recalibrationTransformers.add(new BQSRReadTransformer(recalibrationTransformer));
+            }
+            recalibrationExecutor = new OrderedParallelExecutor<>(recalibrationThreads, recalibrationThreads * BATCHES_IN_FLIGHT_PER_THREAD,
+                    "recalibration", batch -> batch.forEach(outputWriter::addRead));
+            currentBatch = new ArrayList<>(READS_PER_BATCH);
+        }
     }
 
     @Override
     public void apply( GATKRead read, ReferenceContext referenceContext, FeatureContext featureContext ) {
-        outputWriter.addRead(read);
+        if ( recalibrationExecutor == null ) {
+            outputWriter.addRead(read);
+            return;
+        }
+
+        currentBatch.add(read);
+        if ( currentBatch.size() == READS_PER_BATCH ) {
+            submitCurrentBatch();
+        }
+    }
+
+    private void submitCurrentBatch() {
+        final List<GATKRead> batch = currentBatch;
+        currentBatch = new ArrayList<>(READS_PER_BATCH);
+        recalibrationExecutor.submit(() -> recalibrate(batch));
+    }
+
+    // called on a recalibration thread
+    private List<GATKRead> recalibrate(final List<GATKRead> batch) {
+        final BQSRReadTransformer transformer = recalibrationTransformers.remove();
+        try {
+            final List<GATKRead> recalibratedReads = new ArrayList<>(batch.size());
+            for ( final GATKRead read : batch ) {
+                recalibratedReads.add(transformer.apply(read));
+            }
+            return recalibratedReads;
+        } finally {
+            recalibrationTransformers.add(transformer);
+        }
+    }
+
+    @Override
+    public Object onTraversalSuccess() {
+        if ( recalibrationExecutor != null ) {
+            if ( ! currentBatch.isEmpty() ) {
+                submitCurrentBatch();
+            }
+            recalibrationExecutor.finish();
+        }
+        return null;
     }
 
     @Override
     public void closeTool() {
+        if ( recalibrationExecutor != null ) {
+            recalibrationExecutor.close();
+        }
         if ( outputWriter != null ) {
             outputWriter.close();
         }
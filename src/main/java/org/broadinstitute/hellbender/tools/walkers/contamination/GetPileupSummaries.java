@@ -15,7 +15,7 @@ import org.broadinstitute.hellbender.engine.filters.ReadFilterLibrary;
 import org.broadinstitute.hellbender.engine.filters.WellformedReadFilter;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
-import org.broadinstitute.hellbender.utils.pileup.ReadPileup;
+import org.broadinstitute.hellbender.utils.pileup.PileupColumn;
 import org.broadinstitute.hellbender.utils.read.ReadUtils;
 import org.broadinstitute.hellbender.utils.tsv.TableUtils;
 
@@ -204,8 +204,18 @@ public class GetPileupSummaries extends LocusWalker {
 
     }
 
+    @Override
+    public boolean usesPileupColumns() {
+        return true;
+    }
+
     @Override
     public void apply(AlignmentContext alignmentContext, ReferenceContext referenceContext, FeatureContext featureContext) {
+        apply(PileupColumn.of(alignmentContext), referenceContext, featureContext);
+    }
+
+    @Override
+    public void apply(PileupColumn column, ReferenceContext referenceContext, FeatureContext featureContext) {
         final List<VariantContext> vcs = featureContext.getValues(variants);
         if (vcs.isEmpty()) {
             return;
@@ -213,15 +223,65 @@ public class GetPileupSummaries extends LocusWalker {
         final VariantContext vc = vcs.get(0);
 
         if ( vc.isBiallelic() && vc.isSNP() && alleleFrequencyInRange(vc) ) {
-            final ReadPileup pileup = alignmentContext.getBasePileup();
-            try {
-                writer.writeRecord(new PileupSummary(vc, pileup));
-            } catch (final IOException ex) {
-                throw new UserException(String.format("Encountered an IO exception while writing to %s", outputTable));
-            }
+            writeSummary(new PileupSummary(vc, column.getBaseCounts()));
         }
     }
 
+    @Override
+    protected boolean supportsLocalShards() {
+        return true;
+    }
+
+    /**
+     * Collects the summaries of a shard, and the allele frequency bookkeeping of {@link #alleleFrequencyInRange}, and
+     * writes and merges them in shard order, so that the output table and warnings are the same as for the serial traversal.
+     */
+    @Override
+    protected LocusShardWorker makeShardWorker() {
+        return new LocusShardWorker() {
+            private final List<PileupSummary> summaries = new ArrayList<>();
+            private VariantContext firstVariantWithoutAlleleFrequency = null;
+            private boolean shardSawVariantsWithAlleleFrequency = false;
+
+            @Override
+            public void apply(final AlignmentContext alignmentContext, final ReferenceContext referenceContext, final FeatureContext featureContext) {
+                apply(PileupColumn.of(alignmentContext), referenceContext, featureContext);
+            }
+
+            @Override
+            public void apply(final PileupColumn column, final ReferenceContext referenceContext, final FeatureContext featureContext) {
+                final List<VariantContext> vcs = featureContext.getValues(variants);
+                if (vcs.isEmpty()) {
+                    return;
+                }
+                final VariantContext vc = vcs.get(0);
+
+                if ( !vc.isBiallelic() || !vc.isSNP() ) {
+                    return;
+                }
+                if (!vc.hasAttribute(VCFConstants.ALLELE_FREQUENCY_KEY)) {
+                    if (firstVariantWithoutAlleleFrequency == null) {
+                        firstVariantWithoutAlleleFrequency = vc;
+                    }
+                } else {
+                    shardSawVariantsWithAlleleFrequency = true;
+                    if (alleleFrequencyInRange(vc.getAttributeAsDouble(VCFConstants.ALLELE_FREQUENCY_KEY, -1.0))) {
+                        summaries.add(new PileupSummary(vc, column.getBaseCounts()));
+                    }
+                }
+            }
+
+            @Override
+            public void reduce() {
+                if (firstVariantWithoutAlleleFrequency != null) {
+                    warnVariantWithoutAlleleFrequency(firstVariantWithoutAlleleFrequency);
+                }
+                sawVariantsWithAlleleFrequency |= shardSawVariantsWithAlleleFrequency;
+                summaries.forEach(GetPileupSummaries.this::writeSummary);
+            }
+        };
+    }
+
     @Override
     public Object onTraversalSuccess() {
         if (sawVariantsWithoutAlleleFrequency && !sawVariantsWithAlleleFrequency) {
@@ -242,17 +302,32 @@ public class GetPileupSummaries extends LocusWalker {
         }
     }
 
+    private void writeSummary(final PileupSummary summary) {
+        try {
+            writer.writeRecord(summary);
+        } catch (final IOException ex) {
+            throw new UserException(String.format("Encountered an IO exception while writing to %s", outputTable));
+        }
+    }
+
     private boolean alleleFrequencyInRange(final VariantContext vc) {
         if (!vc.hasAttribute(VCFConstants.ALLELE_FREQUENCY_KEY)) {
-            if (!sawVariantsWithoutAlleleFrequency) {
-                logger.warn(String.format("Variant context at %s:%d lacks allele frequency (AF) field.", vc.getContig(), vc.getStart()));
-                sawVariantsWithoutAlleleFrequency = true;
-            }
+            warnVariantWithoutAlleleFrequency(vc);
             return false;
         } else {
             sawVariantsWithAlleleFrequency = true;
-            final double alleleFrequency = vc.getAttributeAsDouble(VCFConstants.ALLELE_FREQUENCY_KEY, -1.0);
-            return minPopulationAlleleFrequency < alleleFrequency && alleleFrequency < maxPopulationAlleleFrequency;
+            return alleleFrequencyInRange(vc.getAttributeAsDouble(VCFConstants.ALLELE_FREQUENCY_KEY, -1.0));
+        }
+    }
+
+    private boolean alleleFrequencyInRange(final double alleleFrequency) {
+        return minPopulationAlleleFrequency < alleleFrequency && alleleFrequency < maxPopulationAlleleFrequency;
+    }
+
+    private void warnVariantWithoutAlleleFrequency(final VariantContext vc) {
+        if (!sawVariantsWithoutAlleleFrequency) {
+            logger.warn(String.format("Variant context at %s:%d lacks allele frequency (AF) field.", vc.getContig(), vc.getStart()));
+            sawVariantsWithoutAlleleFrequency = true;
         }
     }
 }
@@ -427,20 +427,24 @@ public final class AlleleSubsettingUtils {
         final int[] result = new int[GenotypeLikelihoods.numLikelihoods(newAlleles.size(), ploidy)];
         final Permutation<Allele> allelePermutation = new IndexedAlleleList<>(originalAlleles).permutation(new IndexedAlleleList<>(newAlleles));
 
-        for (final GenotypeAlleleCounts oldAlleleCounts : GenotypeAlleleCounts.iterable(ploidy, originalAlleles.size())) {
-            final boolean containsOnlyNewAlleles = IntStream.range(0, oldAlleleCounts.distinctAlleleCount())
-                    .map(oldAlleleCounts::alleleIndexAt).allMatch(allelePermutation::isKept);
-
-            if (containsOnlyNewAlleles) {
-                // make an array in the format described in {@link GenotypeAlleleCounts}:
-                // [(new) index of first allele, count of first allele, (new) index of second allele, count of second allele. . .]
-                final int[] newAlleleCounts = IntStream.range(0, newAlleles.size()).flatMap(newAlleleIndex ->
-                        IntStream.of(newAlleleIndex, oldAlleleCounts.alleleCountFor(allelePermutation.fromIndex(newAlleleIndex)))).toArray();
-
-                final int newPLIndex = GenotypeIndexCalculator.alleleCountsToIndex(newAlleleCounts);
-                result[newPLIndex] = oldAlleleCounts.index();
-            }
+        // old allele index -> new allele index
+        final int[] oldToNewAlleleMap = new int[originalAlleles.size()];
+        for (int oldAlleleIndex = 0; oldAlleleIndex < oldToNewAlleleMap.length; oldAlleleIndex++) {
+            oldToNewAlleleMap[oldAlleleIndex] = allelePermutation.isKept(oldAlleleIndex) ? allelePermutation.toIndex(oldAlleleIndex) : -1;
         }
+
+        final int[] alleleContainer = new int[ploidy];
+        GenotypesCache.forEachGenotype(ploidy, originalAlleles.size(), (oldIndex, sortedAlleleCounts, offset, distinctAlleleCount) -> {
+            for (int n = 0; n < distinctAlleleCount; n++) {
+                if (oldToNewAlleleMap[sortedAlleleCounts[offset + 2 * n]] < 0) {
+                    return;
+                }
+            }
+            // this genotype contains only new alleles
+            final int newPLIndex = GenotypeIndexCalculator.alleleCountsToIndex(sortedAlleleCounts, offset, distinctAlleleCount,
+                    oldToNewAlleleMap, alleleContainer);
+            result[newPLIndex] = oldIndex;
+        });
         return  result;
     }
 
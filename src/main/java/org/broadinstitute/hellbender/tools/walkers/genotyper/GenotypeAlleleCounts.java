@@ -145,6 +145,22 @@ public final class GenotypeAlleleCounts implements Comparable<GenotypeAlleleCoun
         this.distinctAlleleCount = distinctAlleleCount;
     }
 
+    /**
+     * Creates a genotype from allele counts in the {allele 1, count 1, allele 2, count 2. . .} format, which are not checked.
+     * The array is not copied.
+     */
+    static GenotypeAlleleCounts fromSortedAlleleCounts(final int ploidy, final int index, final int[] sortedAlleleCounts) {
+        return new GenotypeAlleleCounts(ploidy, index, sortedAlleleCounts);
+    }
+
+    /**
+     * @return the allele counts in the {allele 1, count 1, allele 2, count 2. . .} format.  Only the first
+     * 2 * {@link #distinctAlleleCount()} values are valid.  DO NOT MODIFY
+     */
+    int[] sortedAlleleCountsNoCopy() {
+        return sortedAlleleCounts;
+    }
+
     public int ploidy() { return ploidy; }
 
     private static Iterator<GenotypeAlleleCounts> iterator(final int ploidy, final int alleleCount) {
@@ -191,7 +207,7 @@ public final class GenotypeAlleleCounts implements Comparable<GenotypeAlleleCoun
      *
      * <p>
      *     This method must not be invoked on cached genotype-allele-counts that are meant to remain constant,
-     *     such as the ones contained in {@link GenotypesCache#genotypeTableByPloidy}.
+     *     such as the ones returned by {@link GenotypesCache#get}.
      * </p>
      *
      * @param times the number of times to increase.
@@ -210,7 +226,7 @@ public final class GenotypeAlleleCounts implements Comparable<GenotypeAlleleCoun
      *
      * <p>
      *     This method must not be invoked on cached genotype-allele-counts that are meant to remain constant,
-     *     such as the ones contained in {@link GenotypesCache#genotypeTableByPloidy}
+     *     such as the ones returned by {@link GenotypesCache#get}
      * </p>
      */
     protected GenotypeAlleleCounts increase() {
@@ -29,6 +29,18 @@ import java.util.Arrays;
  */
 public class GenotypeIndexCalculator {
 
+    /**
+     * Tabulated values of {@link #indexOfFirstGenotypeWithAllele}: firstGenotypeIndices[ploidy][allele], up to the
+     * largest allele requested for each ploidy.  As in {@link GenotypesCache}, the rows are never modified after being
+     * published and are replaced by extended copies, so that they can be read without locking.
+     */
+    private static volatile long[][] firstGenotypeIndices = new long[0][];
+
+    /**
+     * Ploidies above this are not tabulated
+     */
+    private static final int MAX_TABULATED_PLOIDY = 1000;
+
     private GenotypeIndexCalculator() {}
 
     /**
@@ -51,9 +63,62 @@ public class GenotypeIndexCalculator {
      *     See discussion at https://genome.sph.umich.edu/wiki/Relationship_between_Ploidy,_Alleles_and_Genotypes
      */
     public static long indexOfFirstGenotypeWithAllele(final int ploidy, final int allele) {
+        if (allele == 0) {
+            return 0;
+        }
+        final long[][] table = firstGenotypeIndices;
+        if (ploidy < table.length) {
+            final long[] row = table[ploidy];
+            if (row != null && allele < row.length) {
+                return row[allele];
+            }
+        }
+        return ploidy < 0 || ploidy > MAX_TABULATED_PLOIDY ? computeIndexOfFirstGenotypeWithAllele(ploidy, allele)
+                : extendFirstGenotypeIndices(ploidy, allele)[allele];
+    }
+
+    private static long computeIndexOfFirstGenotypeWithAllele(final int ploidy, final int allele) {
         return allele == 0 ? 0 : CombinatoricsUtils.binomialCoefficient(ploidy + allele - 1, allele - 1);
     }
 
+    /**
+     * Tabulate {@link #indexOfFirstGenotypeWithAllele} for a ploidy up to (at least) an allele
+     *
+     * This method is synchronized since it replaces the shared table.
+     *
+     * @return the new row of the table for the ploidy
+     */
+    private static synchronized long[] extendFirstGenotypeIndices(final int ploidy, final int allele) {
+        final long[][] table = firstGenotypeIndices;
+        final long[] row = ploidy < table.length && table[ploidy] != null ? table[ploidy] : new long[0];
+        if (allele < row.length) {
+            // another thread extended it in the meantime
+            return row;
+        }
+        long[] newRow = Arrays.copyOf(row, allele + 1);
+        for (int a = row.length; a <= allele; a++) {
+            newRow[a] = computeIndexOfFirstGenotypeWithAllele(ploidy, a);
+        }
+        // tabulate ahead so that the row is extended a logarithmic number of times, but only up to the values that
+        // don't overflow
+        final int extendedLength = Math.max(allele + 1, 2 * row.length);
+        if (extendedLength > newRow.length) {
+            newRow = Arrays.copyOf(newRow, extendedLength);
+            for (int a = allele + 1; a < extendedLength; a++) {
+                try {
+                    newRow[a] = computeIndexOfFirstGenotypeWithAllele(ploidy, a);
+                } catch (final ArithmeticException e) {
+                    newRow = Arrays.copyOf(newRow, a);
+                    break;
+                }
+            }
+        }
+        final long[][] newTable = Arrays.copyOf(table, Math.max(table.length, ploidy + 1));
+        newTable[ploidy] = newRow;
+        firstGenotypeIndices = newTable;
+        return newRow;
+    }
+
     /**
      * Returns the number of possible genotypes given the ploidy and number of different alleles.
      * @param ploidy the requested ploidy.
@@ -132,20 +197,46 @@ public class GenotypeIndexCalculator {
         return calculateIndex(alleleContainer);
     }
 
+    /**
+     * Like {@link #alleleCountsToIndex(GenotypeAlleleCounts, int[])}, for a genotype given by its packed allele counts,
+     * as in {@link GenotypesCache#forEachGenotype}.
+     *
+     * @param alleleMap translation from the allele indices of the genotype to those of the returned genotype index
+     * @param alleleContainer a buffer with at least as many elements as the ploidy, which is overwritten
+     */
+    static int alleleCountsToIndex(final int[] sortedAlleleCounts, final int offset, final int distinctAlleleCount,
+                                   final int[] alleleMap, final int[] alleleContainer) {
+        int n = 0;
+        for (int i = 0; i < distinctAlleleCount; i++) {
+            final int mappedAllele = alleleMap[sortedAlleleCounts[offset + 2 * i]];
+            final int count = sortedAlleleCounts[offset + 2 * i + 1];
+            for (int k = 0; k < count; k++) {
+                alleleContainer[n++] = mappedAllele;
+            }
+        }
+        return calculateIndex(alleleContainer, n);
+    }
+
     /**
      * Example: suppose our genotype is ABC.  Then the index is the sum of (1) the number of ploidy 3 genotypes before
      * reaching C in the third position, (2) the number of ploidy 2 genotypes before reaching B in the 2nd position, and
      * (3) the number of ploidy 1 genotypes before reaching A in the 1st position.
      */
     private static int calculateIndex(final int[] alleles) {
-        final int ploidy = alleles.length;
+        return calculateIndex(alleles, alleles.length);
+    }
 
+    /**
+     * As above, for the genotype of the first ploidy elements of alleles
+     */
+    private static int calculateIndex(final int[] alleles, final int ploidy) {
         // traverse alleles from highest to lowest index
-        Arrays.sort(alleles);
-        return new IndexRange(0, ploidy).sumInt(n ->  {
-            final int allele = alleles[ploidy - n - 1];
-            return (int) indexOfFirstGenotypeWithAllele(ploidy - n, allele);
-        });
+        Arrays.sort(alleles, 0, ploidy);
+        int result = 0;
+        for (int n = 0; n < ploidy; n++) {
+            result += (int) indexOfFirstGenotypeWithAllele(ploidy - n, alleles[ploidy - n - 1]);
+        }
+        return result;
     }
 
     /**
@@ -197,9 +288,9 @@ public class GenotypeIndexCalculator {
         final int newAlleleCount = newToOldAlleleMap.length;
 
         final int[] result = new int[genotypeCount(ploidy, newAlleleCount)];
-        for (final GenotypeAlleleCounts newGAC : GenotypeAlleleCounts.iterable(ploidy, newAlleleCount)) {
-            result[newGAC.index()] = alleleCountsToIndex(newGAC, newToOldAlleleMap);
-        }
+        final int[] alleleContainer = new int[ploidy];
+        GenotypesCache.forEachGenotype(ploidy, newAlleleCount, (index, sortedAlleleCounts, offset, distinctAlleleCount) ->
+                result[index] = alleleCountsToIndex(sortedAlleleCounts, offset, distinctAlleleCount, newToOldAlleleMap, alleleContainer));
 
         return result;
     }
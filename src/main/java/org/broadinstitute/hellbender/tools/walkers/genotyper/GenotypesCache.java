@@ -2,16 +2,21 @@ package org.broadinstitute.hellbender.tools.walkers.genotyper;
 
 import org.broadinstitute.hellbender.utils.Utils;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 /**
  * This class holds caches of {@link GenotypeAlleleCounts} for multiple fixed ploidy, allele count pairs,
  * allowing for fast random access of genotypes.  Note that the increment method of GenotypeAlleleCounts is always fast,
  * so the caches here are only necessary when incremental traversal over genotypes in the canonical order is not possible.
  *
+ * For each ploidy the cache holds the allele counts of the first genotypes in the canonical order packed into
+ * primitive arrays, in the {allele 1, count 1, allele 2, count 2. . .} format of {@link GenotypeAlleleCounts}, and
+ * GenotypeAlleleCounts objects for the first {@link #MAX_CACHE_SIZE} of them.  Bulk traversals over the packed
+ * allele counts, which don't create any GenotypeAlleleCounts, are provided by {@link #forEachGenotype} and
+ * {@link #forEachGenotypeInRange}.
  *
- * This class is thread-safe since modifying the caches is synchronized.
+ * This class is thread-safe without locking its readers: the tables of every ploidy are immutable and are replaced
+ * by extended copies, under a lock, when a genotype that they don't hold is requested.
  */
 public final class GenotypesCache {
 
@@ -21,69 +26,208 @@ public final class GenotypesCache {
     public static final int MAX_CACHE_SIZE = 5000;
 
     /**
-     * Cache of GenotypeAlleleCounts objects by ploidy.  Format is caches[p][n] = nth genotype of ploidy p in canonical order,
-     * with p up to the current maximum ploidy and n up to the maximum number of cached genotypes per table.
+     * Maximum possible number of genotypes with packed allele counts for each fixed ploidy
      */
-    private static List<List<GenotypeAlleleCounts>> caches = new ArrayList<>();
+    public static final int MAX_PACKED_CACHE_SIZE = 1 << 17;
+
+    /**
+     * Action performed on the genotypes of a traversal.  The allele counts of the genotype are given in
+     * sortedAlleleCounts[offset] to sortedAlleleCounts[offset + 2 * distinctAlleleCount - 1], in the format of
+     * {@link GenotypeAlleleCounts}.  The array is shared by the cache and only valid during the call.  DO NOT MODIFY
+     */
+    @FunctionalInterface
+    public interface GenotypeAction {
+        void accept(int genotypeIndex, int[] sortedAlleleCounts, int offset, int distinctAlleleCount);
+    }
+
+    /**
+     * Immutable table of the first genotypes of a ploidy in the canonical order
+     */
+    private static final class PloidyTable {
+        private final int ploidy;
+
+        private final int size;
+
+        /**
+         * The allele counts of genotype n are in alleleCounts[offsets[n]] to alleleCounts[offsets[n+1] - 1]
+         */
+        private final int[] offsets;
+
+        private final int[] alleleCounts;
+
+        /**
+         * GenotypeAlleleCounts of the first (up to {@link #MAX_CACHE_SIZE}) genotypes
+         */
+        private final GenotypeAlleleCounts[] genotypes;
+
+        private PloidyTable(final int ploidy, final int size, final int[] offsets, final int[] alleleCounts, final GenotypeAlleleCounts[] genotypes) {
+            this.ploidy = ploidy;
+            this.size = size;
+            this.offsets = offsets;
+            this.alleleCounts = alleleCounts;
+            this.genotypes = genotypes;
+        }
+
+        private static PloidyTable empty(final int ploidy) {
+            return new PloidyTable(ploidy, 0, new int[1], new int[0], new GenotypeAlleleCounts[0]);
+        }
+
+        private int distinctAlleleCount(final int genotypeIndex) {
+            return (offsets[genotypeIndex + 1] - offsets[genotypeIndex]) >> 1;
+        }
+
+        /**
+         * @return a new GenotypeAlleleCounts for a genotype of this table
+         */
+        private GenotypeAlleleCounts newGenotypeAlleleCounts(final int genotypeIndex) {
+            return GenotypeAlleleCounts.fromSortedAlleleCounts(ploidy, genotypeIndex,
+                    Arrays.copyOfRange(alleleCounts, offsets[genotypeIndex], offsets[genotypeIndex + 1]));
+        }
+
+        /**
+         * @return a copy of this table with (at least) the first newSize genotypes
+         */
+        private PloidyTable extend(final int newSize) {
+            final int[] newOffsets = Arrays.copyOf(offsets, newSize + 1);
+            int[] newAlleleCounts = Arrays.copyOf(alleleCounts, Math.max(alleleCounts.length, 2 * newSize));
+            final GenotypeAlleleCounts[] newGenotypes = Arrays.copyOf(genotypes, Math.min(newSize, MAX_CACHE_SIZE));
+
+            final GenotypeAlleleCounts genotype = size == 0 ? GenotypeAlleleCounts.first(ploidy) : newGenotypeAlleleCounts(size - 1);
+            for (int n = size; n < newSize; n++) {
+                if (n > 0) {
+                    genotype.increase();
+                }
+                if (n < newGenotypes.length) {
+                    newGenotypes[n] = genotype.copy();
+                }
+                final int length = genotype.distinctAlleleCount() << 1;
+                final int offset = newOffsets[n];
+                if (offset + length > newAlleleCounts.length) {
+                    newAlleleCounts = Arrays.copyOf(newAlleleCounts, Math.max(2 * newAlleleCounts.length, offset + length));
+                }
+                System.arraycopy(genotype.sortedAlleleCountsNoCopy(), 0, newAlleleCounts, offset, length);
+                newOffsets[n + 1] = offset + length;
+            }
+            return new PloidyTable(ploidy, newSize, newOffsets, Arrays.copyOf(newAlleleCounts, newOffsets[newSize]), newGenotypes);
+        }
+    }
+
+    /**
+     * Tables by ploidy, with null for the ploidies that haven't been requested.  The array and the tables are never
+     * modified after being published; extending a table replaces the whole array.
+     */
+    private static volatile PloidyTable[] tables = new PloidyTable[0];
 
     private GenotypesCache(){ }
 
     /**
      * Returns the GenotypeAlleleCounts associated to a particular ploidy and genotype index.
      *
-     *  If the requested index is larger than {@link GenotypesCache#MAX_CACHE_SIZE},
-     *  this method will construct the result iteratively from the largest cached object.  Thus if you are iterating
-     *  through all genotype-allele-counts you should do sequentially using the iterator method to avoid a large efficiency drop.
+     *  If the requested index is larger than {@link GenotypesCache#MAX_CACHE_SIZE}, this method will construct a new
+     *  object from the packed allele counts, and if it is larger than {@link GenotypesCache#MAX_PACKED_CACHE_SIZE},
+     *  it will construct the result iteratively from the largest cached genotype.  Thus if you are iterating
+     *  through all genotype-allele-counts you should do sequentially using the iterator method or
+     *  {@link #forEachGenotype} to avoid a large efficiency drop.
      *
      * @param ploidy the ploidy
      * @param genotypeIndex  the genotype index in the canonical order
      * @return never {@code null}.
      */
     public static GenotypeAlleleCounts get(final int ploidy, final int genotypeIndex) {
-        ensureCapacity(genotypeIndex, ploidy);
         Utils.validateArg(ploidy >= 0, "ploidy may not be negative");
         Utils.validateArg(genotypeIndex >= 0, "genotype index may not be negative");
-        final List<GenotypeAlleleCounts> cache = caches.get(ploidy);
-        if (genotypeIndex < cache.size()) {
-            return cache.get(genotypeIndex);
+        final PloidyTable table = getTable(ploidy, genotypeIndex + 1);
+        if (genotypeIndex < table.genotypes.length) {
+            return table.genotypes[genotypeIndex];
+        } else if (genotypeIndex < table.size) {
+            return table.newGenotypeAlleleCounts(genotypeIndex);
         } else {
-            final GenotypeAlleleCounts result = cache.get(cache.size() - 1).copy();
-            result.increase(genotypeIndex + 1 - cache.size());
+            final GenotypeAlleleCounts result = table.newGenotypeAlleleCounts(table.size - 1);
+            result.increase(genotypeIndex + 1 - table.size);
             return result;
         }
     }
 
     /**
-     * Extends the genotype allele counts cache for a certain ploidy up to a given size
+     * Performs an action on every genotype of a given ploidy and allele count, in the canonical order, without creating
+     * any {@link GenotypeAlleleCounts}.
      *
-     * This method is synchronized since it modifies the shared cache.
+     * @param ploidy the ploidy
+     * @param alleleCount the number of alleles
+     * @param action the action performed on each genotype
      */
-    private static synchronized void extendCache(final int ploidy, final int newSize) {
-        final List<GenotypeAlleleCounts> cache = caches.get(ploidy);
+    public static void forEachGenotype(final int ploidy, final int alleleCount, final GenotypeAction action) {
+        forEachGenotypeInRange(ploidy, 0, GenotypeIndexCalculator.genotypeCount(ploidy, alleleCount), action);
+    }
 
-        if (cache.isEmpty()) {
-            cache.add(GenotypeAlleleCounts.first(ploidy));
+    /**
+     * Performs an action on the genotypes of a given ploidy with indices from (inclusive) to to (exclusive), in the
+     * canonical order, without creating any {@link GenotypeAlleleCounts} if they are within the cache.  This allows the
+     * genotypes of high-ploidy and high-allele-count sites to be split among threads.
+     *
+     * @param ploidy the ploidy
+     * @param from the index of the first genotype
+     * @param to the index after that of the last genotype
+     * @param action the action performed on each genotype
+     */
+    public static void forEachGenotypeInRange(final int ploidy, final int from, final int to, final GenotypeAction action) {
+        Utils.validateArg(ploidy >= 0, "ploidy may not be negative");
+        Utils.validateArg(from >= 0 && from <= to, () -> String.format("invalid genotype index range [%d, %d)", from, to));
+        Utils.nonNull(action);
+        if (from == to) {
+            return;
+        }
+        final PloidyTable table = getTable(ploidy, to);
+        final int cachedTo = Math.min(to, table.size);
+        for (int n = from; n < cachedTo; n++) {
+            action.accept(n, table.alleleCounts, table.offsets[n], table.distinctAlleleCount(n));
         }
 
-        while (cache.size() < newSize) {
-            cache.add(cache.get(cache.size() - 1).next());
+        if (cachedTo < to) {
+            final GenotypeAlleleCounts genotype = cachedTo > from ? table.newGenotypeAlleleCounts(cachedTo - 1) : get(ploidy, from);
+            for (int n = Math.max(from, cachedTo); n < to; n++) {
+                if (n > genotype.index()) {
+                    genotype.increase();
+                }
+                action.accept(n, genotype.sortedAlleleCountsNoCopy(), 0, genotype.distinctAlleleCount());
+            }
         }
     }
 
     /**
-     * Update cache if necessary
+     * @return the table of a ploidy, extended if necessary so that it holds at least the first minSize genotypes
+     * (or {@link #MAX_PACKED_CACHE_SIZE} genotypes)
      */
-    private static void ensureCapacity(final int genotypeIndex, final int ploidy) {
-        // add empty lists of genotypes until we have initialized all ploidies up to and including this one
-        while (ploidy >= caches.size()) {
-            caches.add(new ArrayList<>());
+    private static PloidyTable getTable(final int ploidy, final int minSize) {
+        final PloidyTable[] current = tables;
+        if (ploidy < current.length) {
+            final PloidyTable table = current[ploidy];
+            if (table != null && table.size >= Math.min(minSize, MAX_PACKED_CACHE_SIZE)) {
+                return table;
+            }
         }
+        return extendTable(ploidy, minSize);
+    }
 
-        final List<GenotypeAlleleCounts> cache = caches.get(ploidy);
-
-        if (cache.size() <= genotypeIndex && cache.size() < MAX_CACHE_SIZE) {
-            final int newSize = Math.min(Math.max(cache.size() * 2 + 1, genotypeIndex), MAX_CACHE_SIZE);
-            extendCache(ploidy, newSize);
+    /**
+     * Extends the genotype allele counts cache for a certain ploidy up to at least a given size
+     *
+     * This method is synchronized since it replaces the shared tables.
+     */
+    private static synchronized PloidyTable extendTable(final int ploidy, final int minSize) {
+        final PloidyTable[] current = tables;
+        final PloidyTable table = ploidy < current.length && current[ploidy] != null ? current[ploidy] : PloidyTable.empty(ploidy);
+        final int requiredSize = Math.max(1, Math.min(minSize, MAX_PACKED_CACHE_SIZE));
+        if (table.size >= requiredSize) {
+            // another thread extended it in the meantime
+            return table;
         }
+
+        final int newSize = Math.min(Math.max(table.size * 2 + 1, requiredSize), MAX_PACKED_CACHE_SIZE);
+        final PloidyTable newTable = table.extend(newSize);
+        final PloidyTable[] newTables = Arrays.copyOf(current, Math.max(current.length, ploidy + 1));
+        newTables[ploidy] = newTable;
+        tables = newTables;
+        return newTable;
     }
-}
\ No newline at end of file
+}
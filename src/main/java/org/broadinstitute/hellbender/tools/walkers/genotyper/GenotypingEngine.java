@@ -5,6 +5,7 @@ import htsjdk.samtools.util.Locatable;
 import htsjdk.variant.variantcontext.*;
 import htsjdk.variant.vcf.VCFConstants;
 import htsjdk.variant.vcf.VCFInfoHeaderLine;
+import org.apache.commons.lang3.tuple.Pair;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.broadinstitute.hellbender.utils.genotyper.GenotypePriorCalculator;
@@ -51,6 +52,9 @@ public abstract class GenotypingEngine<Config extends StandardCallerArgumentColl
     // that everything in this queue belongs to the same contig
     private final PriorityQueue<Locatable> upstreamDeletionsLoc = new PriorityQueue<>(Comparator.comparingInt(Locatable::getEnd));
 
+    // if not null, the current region is being genotyped on its own (see startUpstreamDeletionLog)
+    private UpstreamDeletionLog upstreamDeletionLog = null;
+
     private final boolean doAlleleSpecificCalcs;
 
     /**
@@ -331,16 +335,39 @@ public abstract class GenotypingEngine<Config extends StandardCallerArgumentColl
         upstreamDeletionsLoc.clear();
     }
 
+    /**
+     * Start genotyping a region on its own, independently of the regions genotyped before it on this engine, as
+     * multi-threaded callers do when consecutive regions are genotyped on different engines. Forgets the recorded
+     * deletions, then logs the deletions recorded and the spanning deletion alleles dropped for lack of an upstream
+     * deletion until {@link #stopUpstreamDeletionLog}, so that the region can be reconciled with the engine that
+     * genotyped the preceding regions (see {@link UpstreamDeletionLog}).
+     */
+    public void startUpstreamDeletionLog() {
+        clearUpstreamDeletionsLoc();
+        upstreamDeletionLog = new UpstreamDeletionLog();
+    }
+
+    /**
+     * @return the log started by the last call to {@link #startUpstreamDeletionLog}
+     */
+    public UpstreamDeletionLog stopUpstreamDeletionLog() {
+        final UpstreamDeletionLog log = Utils.nonNull(upstreamDeletionLog, "no upstream deletion log was started");
+        upstreamDeletionLog = null;
+        return log;
+    }
+
     /**
      *  Record emitted deletions in order to remove downstream spanning deletion alleles that are not covered by any emitted deletion.
      *  In addition to recording new deletions, this method culls previously-recorded deletions that end before the current variant
      *  context.  This assumes that variants are traversed in order.
      *
+     *  Called by {@link #calculateGenotypes}, and by tools that genotype variants without spanning deletion alleles out of
+     *  order on other engines, to keep this engine's record of the emitted deletions in order.
+     *
      * @param vc                VariantContext, potentially multiallelic and potentially containing one or more deletion alleles
      * @param emittedAlleles    The subset of the variant's alt alleles that are actually emitted
      */
-    @VisibleForTesting
-    void recordDeletions(final VariantContext vc, final Collection<Allele> emittedAlleles) {
+    public void recordDeletions(final VariantContext vc, final Collection<Allele> emittedAlleles) {
         while (!upstreamDeletionsLoc.isEmpty() && (!upstreamDeletionsLoc.peek().contigsMatch(vc) || upstreamDeletionsLoc.peek().getEnd() < vc.getStart())) {
             upstreamDeletionsLoc.poll();
         }
@@ -354,6 +381,10 @@ public abstract class GenotypingEngine<Config extends StandardCallerArgumentColl
                 upstreamDeletionsLoc.add(genomeLoc);
             }
         }
+
+        if (upstreamDeletionLog != null) {
+            upstreamDeletionLog.recordedDeletions.add(Pair.of(vc, new ArrayList<>(emittedAlleles)));
+        }
     }
 
     /**
@@ -365,9 +396,45 @@ public abstract class GenotypingEngine<Config extends StandardCallerArgumentColl
     boolean isVcCoveredByDeletion(final VariantContext vc) {
         // note: the code below seems like it's duplicating Locatable.overlaps, but here if the upstream deletion
         // has the same start as the vc we don't want to count it
-        return !upstreamDeletionsLoc.isEmpty() && upstreamDeletionsLoc.stream()
+        final boolean isCovered = !upstreamDeletionsLoc.isEmpty() && upstreamDeletionsLoc.stream()
                 .anyMatch(loc -> loc.getContig().equals(vc.getContig()) && loc.getStart() < vc.getStart() && vc.getStart() <= loc.getEnd());
 
+        if (!isCovered && upstreamDeletionLog != null) {
+            upstreamDeletionLog.uncoveredSpanningDeletionSites.add(vc);
+        }
+        return isCovered;
+    }
+
+    /**
+     * The spanning deletion bookkeeping of a region genotyped on its own (see {@link #startUpstreamDeletionLog}).
+     *
+     * Such a region can't see the deletions emitted by the regions before it, so it drops the spanning deletion alleles
+     * that its own deletions don't cover. Once the preceding regions have been genotyped, in order, on another engine,
+     * {@link #dependsOnDeletionsRecordedBy} tells whether one of those alleles should have been kept after all, in
+     * which case the region must be genotyped again on that engine. Otherwise the region's results are the same as if
+     * it had been genotyped on that engine, and {@link #replay} records its deletions there for the regions after it.
+     */
+    public static final class UpstreamDeletionLog {
+        // the arguments of each call to recordDeletions, in order
+        private final List<Pair<VariantContext, List<Allele>>> recordedDeletions = new ArrayList<>();
+
+        private final List<VariantContext> uncoveredSpanningDeletionSites = new ArrayList<>();
+
+        /**
+         * @param engine the engine that genotyped all of the preceding regions, in order
+         * @return true if a spanning deletion allele of this region was dropped although it's covered by a deletion
+         *         recorded by {@code engine}
+         */
+        public boolean dependsOnDeletionsRecordedBy(final GenotypingEngine<?> engine) {
+            return uncoveredSpanningDeletionSites.stream().anyMatch(engine::isVcCoveredByDeletion);
+        }
+
+        /**
+         * Record the deletions emitted by this region on the engine that genotyped all of the preceding regions
+         */
+        public void replay(final GenotypingEngine<?> engine) {
+            recordedDeletions.forEach(deletions -> engine.recordDeletions(deletions.getLeft(), deletions.getRight()));
+        }
     }
 
     /**
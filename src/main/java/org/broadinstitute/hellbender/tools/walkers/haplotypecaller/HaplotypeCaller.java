@@ -2,6 +2,8 @@ package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
 
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.reference.ReferenceSequenceFile;
+import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.writer.VariantContextWriter;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.ArgumentCollection;
@@ -19,14 +21,18 @@ import org.broadinstitute.hellbender.engine.spark.AssemblyRegionArgumentCollecti
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.tools.walkers.annotator.Annotation;
 import org.broadinstitute.hellbender.tools.walkers.annotator.HaplotypeFilteringAnnotation;
+import org.broadinstitute.hellbender.tools.walkers.annotator.QualByDepth;
 import org.broadinstitute.hellbender.tools.walkers.annotator.VariantAnnotatorEngine;
+import org.broadinstitute.hellbender.tools.walkers.genotyper.GenotypingEngine;
 import org.broadinstitute.hellbender.transformers.DRAGENMappingQualityReadTransformer;
 import org.broadinstitute.hellbender.transformers.ReadTransformer;
-import org.broadinstitute.hellbender.utils.fasta.CachingIndexedFastaSequenceFile;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.reference.ReferenceUtils;
 
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Random;
 
 
 /**
@@ -175,6 +181,9 @@ public class HaplotypeCaller extends AssemblyRegionWalker {
 
     private HaplotypeCallerEngine hcEngine;
 
+    // in multi-threaded mode, mixed with the position of each region to seed its QD jitter (see callRegion)
+    private long regionJitterSeed;
+
     @Override
     public List<ReadFilter> getDefaultReadFilters() {
         return HaplotypeCallerEngine.makeStandardHCReadFilters();
@@ -206,6 +215,12 @@ public class HaplotypeCaller extends AssemblyRegionWalker {
                     HaplotypeCallerArgumentCollection.FLOW_GATK_MODE_LONG_NAME);
         }
 
+        // each worker thread has its own engine, so debug outputs written by the engine itself can't be shared between them
+        if (assemblyRegionThreads > 1 && (hcArgs.bamOutputPath != null || hcArgs.assemblyStateOutput != null || hcArgs.genotyperDebugOutStream != null
+                || hcArgs.alleleLikelihoodMatrixPath != null || hcArgs.assemblerArgs.debugAssemblyVariantsOut != null)) {
+            throw new UserException("--" + ASSEMBLY_REGION_THREADS_LONG_NAME + " greater than 1 can't be combined with bamout or other debugging outputs");
+        }
+
         return null;
     }
 
@@ -269,19 +284,81 @@ public class HaplotypeCaller extends AssemblyRegionWalker {
         final SAMSequenceDictionary sequenceDictionary = getHeaderForReads().getSequenceDictionary();
         vcfWriter = hcEngine.makeVCFWriter(outputVCF, sequenceDictionary, createOutputVariantIndex, createOutputVariantMD5, outputSitesOnlyVCFs);
         hcEngine.writeHeader(vcfWriter, sequenceDictionary, getDefaultToolVCFHeaderLines());
+
+        if ( assemblyRegionThreads > 1 ) {
+            regionJitterSeed = Utils.getRandomGenerator().nextLong();
+        }
     }
 
-    protected HaplotypeCallerEngine buildHaplotypeCallerEngine(final HaplotypeCallerArgumentCollection hcArgs, final AssemblyRegionArgumentCollection assemblyRegionArgs, final boolean createOutputBamIndex, final boolean createOutputBamMD5, final SAMFileHeader headerForReads, final CachingIndexedFastaSequenceFile referenceReader, final VariantAnnotatorEngine variantAnnotatorEngine) {
+    protected HaplotypeCallerEngine buildHaplotypeCallerEngine(final HaplotypeCallerArgumentCollection hcArgs, final AssemblyRegionArgumentCollection assemblyRegionArgs, final boolean createOutputBamIndex, final boolean createOutputBamMD5, final SAMFileHeader headerForReads, final ReferenceSequenceFile referenceReader, final VariantAnnotatorEngine variantAnnotatorEngine) {
         return new HaplotypeCallerEngine(hcArgs, assemblyRegionArgs, createOutputBamIndex, createOutputBamMD5, getHeaderForReads(), getReferenceReader(referenceArguments), variantAnnotatorEngine);
     }
 
-    protected static CachingIndexedFastaSequenceFile getReferenceReader(ReferenceInputArgumentCollection referenceArguments) {
-        return new CachingIndexedFastaSequenceFile(referenceArguments.getReferenceSpecifier());
+    protected static ReferenceSequenceFile getReferenceReader(ReferenceInputArgumentCollection referenceArguments) {
+        return ReferenceUtils.createReferenceReader(referenceArguments.getReferenceSpecifier());
     }
 
     @Override
     public void apply(final AssemblyRegion region, final ReferenceContext referenceContext, final FeatureContext featureContext ) {
-        hcEngine.callRegion(region, featureContext, referenceContext).forEach(vcfWriter::add);
+        // in multi-threaded mode, only regions processed again in order get here (see makeAssemblyRegionWorker)
+        callRegion(hcEngine, region, referenceContext, featureContext).forEach(vcfWriter::add);
+    }
+
+    /**
+     * Each worker gets its own {@link HaplotypeCallerEngine}, with its own reference reader, assembler, aligner and PairHMM.
+     * Calls are buffered per region and added to the shared writer by the traversal thread, in order.
+     *
+     * A worker engine doesn't see the deletions emitted by the regions before the one it's calling, so each region is
+     * genotyped on its own (see {@link GenotypingEngine#startUpstreamDeletionLog}), and its spanning deletion bookkeeping
+     * is reconciled with the main engine, which tracks the deletions of all regions in order, when its calls are output.
+     * Regions that dropped a spanning deletion allele covered by an upstream deletion are called again on the main engine.
+     */
+    @Override
+    protected AssemblyRegionWorker makeAssemblyRegionWorker() {
+        final VariantAnnotatorEngine variantAnnotatorEngine = new VariantAnnotatorEngine(makeVariantAnnotations(),
+                hcArgs.dbsnp.dbsnp, hcArgs.comps,  hcArgs.emitReferenceConfidence != ReferenceConfidenceMode.NONE, false);
+        final HaplotypeCallerEngine workerEngine = buildHaplotypeCallerEngine(hcArgs, assemblyRegionArgs, createOutputBamIndex, createOutputBamMD5, getHeaderForReads(), getReferenceReader(referenceArguments), variantAnnotatorEngine);
+        return new AssemblyRegionWorker() {
+            @Override
+            public RegionOutput processRegion(final AssemblyRegion region, final ReferenceContext referenceContext, final FeatureContext featureContext) {
+                final GenotypingEngine<?> workerGenotypingEngine = workerEngine.getLocalGenotypingEngine(region);
+                workerGenotypingEngine.startUpstreamDeletionLog();
+                final List<VariantContext> calls = callRegion(workerEngine, region, referenceContext, featureContext);
+                final GenotypingEngine.UpstreamDeletionLog upstreamDeletionLog = workerGenotypingEngine.stopUpstreamDeletionLog();
+
+                return () -> {
+                    final GenotypingEngine<?> genotypingEngine = hcEngine.getLocalGenotypingEngine(region);
+                    if ( upstreamDeletionLog.dependsOnDeletionsRecordedBy(genotypingEngine) ) {
+                        return false;
+                    }
+                    upstreamDeletionLog.replay(genotypingEngine);
+                    calls.forEach(vcfWriter::add);
+                    return true;
+                };
+            }
+
+            @Override
+            public void close() {
+                workerEngine.shutdown();
+            }
+        };
+    }
+
+    /**
+     * Call a region on the given engine. In multi-threaded mode, the QD jitter of the region is drawn from a generator
+     * seeded by its position, so that its calls don't depend on which thread calls it or when.
+     */
+    private List<VariantContext> callRegion(final HaplotypeCallerEngine engine, final AssemblyRegion region,
+                                            final ReferenceContext referenceContext, final FeatureContext featureContext) {
+        if ( assemblyRegionThreads <= 1 ) {
+            return engine.callRegion(region, featureContext, referenceContext);
+        }
+        QualByDepth.setJitterGeneratorForCurrentThread(new Random(regionJitterSeed + 31L * region.getContig().hashCode() + region.getStart()));
+        try {
+            return engine.callRegion(region, featureContext, referenceContext);
+        } finally {
+            QualByDepth.setJitterGeneratorForCurrentThread(null);
+        }
     }
 
     @Override
@@ -293,6 +370,6 @@ public class HaplotypeCaller extends AssemblyRegionWalker {
         if ( hcEngine != null ) {
             hcEngine.shutdown();
         }
-
+        hcArgs.assemblerArgs.shutdownKmerAssemblyPool();
     }
 }
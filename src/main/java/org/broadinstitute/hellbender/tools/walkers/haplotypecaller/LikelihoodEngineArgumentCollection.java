@@ -34,6 +34,8 @@ public final class LikelihoodEngineArgumentCollection implements Serializable {
     public static final String FLOW_HMM_ENGINE_MIN_INDEL_ADJUST_LONG_NAME = "flow-hmm-engine-min-indel-adjust";
     public static final String FLOW_HMM_ENGINE_FLAT_INSERTION_PENATLY_LONG_NAME = "flow-hmm-engine-flat-insertion-penatly";
     public static final String FLOW_HMM_ENGINE_FLAT_DELETION_PENATLY_LONG_NAME = "flow-hmm-engine-flat-deletion-penatly";
+    public static final String COMPACT_READ_LIKELIHOODS_LONG_NAME = "compact-read-likelihoods";
+    public static final String PAIR_HMM_CACHE_SIZE_LONG_NAME = "pair-hmm-cache-size";
 
 
     @Advanced
@@ -130,6 +132,23 @@ public final class LikelihoodEngineArgumentCollection implements Serializable {
     @Argument(fullName="pair-hmm-results-file", doc="File to write exact pairHMM inputs/outputs to for debugging purposes", optional = true)
     public GATKPath pairHmmResultsFile = null;
 
+    /**
+     * If enabled, the read-by-haplotype likelihoods computed by the PairHMM are stored as floats rather than doubles,
+     * which halves the memory they use in regions with deep coverage and many haplotypes at the cost of some precision.
+     */
+    @Advanced
+    @Argument(fullName = COMPACT_READ_LIKELIHOODS_LONG_NAME, doc = "Store the PairHMM read likelihoods in single precision to reduce memory usage", optional = true)
+    public boolean compactReadLikelihoods = false;
+
+    /**
+     * Maximum number of read-haplotype PairHMM results kept across assembly regions, so that overlapping or adjacent
+     * regions (from padding, --force-active or re-assembly around indels) don't evaluate the same read against the same
+     * haplotype twice. Each result takes about 100 bytes. The results are the same with or without the cache.
+     */
+    @Advanced
+    @Argument(fullName = PAIR_HMM_CACHE_SIZE_LONG_NAME, doc = "Maximum number of PairHMM results to cache across regions (0 to disable the cache)", optional = true, minValue = 0)
+    public int pairHMMCacheSize = 0;
+
     @ArgumentCollection
     public PairHMMNativeArgumentCollection pairHMMNativeArgs = new PairHMMNativeArgumentCollection();
 
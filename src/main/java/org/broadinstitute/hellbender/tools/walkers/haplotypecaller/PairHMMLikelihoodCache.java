@@ -0,0 +1,262 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.genotyper.AlleleList;
+import org.broadinstitute.hellbender.utils.genotyper.AlleleLikelihoods;
+import org.broadinstitute.hellbender.utils.genotyper.LikelihoodMatrix;
+import org.broadinstitute.hellbender.utils.genotyper.SampleList;
+import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.broadinstitute.hellbender.utils.pairhmm.PairHMM;
+import org.broadinstitute.hellbender.utils.pairhmm.PairHMMInputScoreImputation;
+import org.broadinstitute.hellbender.utils.pairhmm.PairHMMInputScoreImputator;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded cache of PairHMM results for {@link PairHMMLikelihoodCalculationEngine}, which lets overlapping or adjacent
+ * assembly regions reuse the likelihoods of the reads they share against identical haplotypes.
+ *
+ * The results are keyed on a 128-bit hash of the content of all the inputs of the PairHMM: the read bases, base
+ * qualities, gap open and gap continuation penalties, and the haplotype bases. Reads with the same content in a batch
+ * (common in amplicon data) are also evaluated only once. When the cache is full the least recently used results are
+ * evicted.
+ *
+ * This class is not thread-safe: each engine has its own cache.
+ */
+final class PairHMMLikelihoodCache {
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+    private static final String SCRATCH_SAMPLE = "scratch";
+
+    private final LinkedHashMap<ContentHash, Double> log10Likelihoods;
+
+    private long lookups = 0;
+    private long hits = 0;
+    private long evictions = 0;
+
+    /**
+     * @param maxEntries maximum number of read-haplotype results in the cache. Must be > 0.
+     */
+    PairHMMLikelihoodCache(final int maxEntries) {
+        Utils.validateArg(maxEntries > 0, "maxEntries must be > 0");
+        // access order, so that the eldest entry is the least recently used one
+        this.log10Likelihoods = new LinkedHashMap<ContentHash, Double>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<ContentHash, Double> eldest) {
+                if (size() > maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Fill the likelihood matrices with the log10 likelihoods of the processed reads, as
+     * {@link PairHMM#batchComputeLog10Likelihoods} would, running the PairHMM only for the reads whose results are not
+     * all in the cache.
+     *
+     * @param haplotypes the haplotypes of all the matrices
+     * @param logLikelihoods where to store the log likelihoods of each set of reads
+     * @param processedReads reads to analyze for each matrix, in the same order as {@code logLikelihoods}
+     */
+    void computeLog10Likelihoods(final PairHMM pairHMM,
+                                 final AlleleList<Haplotype> haplotypes,
+                                 final List<? extends LikelihoodMatrix<GATKRead, Haplotype>> logLikelihoods,
+                                 final List<List<GATKRead>> processedReads,
+                                 final PairHMMInputScoreImputator inputScoreImputator) {
+        Utils.validateArg(logLikelihoods.size() == processedReads.size(), "there must be one list of processed reads per likelihood matrix");
+        final int haplotypeCount = haplotypes.numberOfAlleles();
+        final ContentHash[] haplotypeHashes = new ContentHash[haplotypeCount];
+        for (int h = 0; h < haplotypeCount; h++) {
+            haplotypeHashes[h] = hashHaplotype(haplotypes.getAllele(h));
+        }
+
+        // the reads with results missing from the cache, without duplicates, and the index among them of each read that needs them
+        final List<GATKRead> missingReads = new ArrayList<>();
+        final List<ContentHash[]> missingReadPairHashes = new ArrayList<>();
+        final Map<ContentHash, Integer> missingReadIndices = new HashMap<>();
+        final List<int[]> missingReadIndicesByMatrix = new ArrayList<>(logLikelihoods.size());
+
+        final double[] cachedLikelihoods = new double[haplotypeCount];
+        for (int m = 0; m < logLikelihoods.size(); m++) {
+            final LikelihoodMatrix<GATKRead, Haplotype> matrix = logLikelihoods.get(m);
+            final List<GATKRead> reads = processedReads.get(m);
+            final int[] missingReadIndicesOfMatrix = new int[reads.size()];
+            for (int r = 0; r < reads.size(); r++) {
+                final GATKRead read = reads.get(r);
+                final ContentHash readHash = hashRead(read, inputScoreImputator.impute(read));
+                final Integer missingReadIndex = missingReadIndices.get(readHash);
+                if (missingReadIndex != null) {
+                    // same content as a read of this batch, which will be evaluated
+                    missingReadIndicesOfMatrix[r] = missingReadIndex;
+                    continue;
+                }
+
+                final ContentHash[] pairHashes = new ContentHash[haplotypeCount];
+                boolean allCached = true;
+                for (int h = 0; h < haplotypeCount; h++) {
+                    pairHashes[h] = hashPair(readHash, haplotypeHashes[h]);
+                    final Double cached = allCached ? log10Likelihoods.get(pairHashes[h]) : null;
+                    if (cached == null) {
+                        allCached = false;
+                    } else {
+                        cachedLikelihoods[h] = cached;
+                    }
+                }
+                lookups += haplotypeCount;
+                if (allCached) {
+                    hits += haplotypeCount;
+                    for (int h = 0; h < haplotypeCount; h++) {
+                        matrix.set(h, r, cachedLikelihoods[h]);
+                    }
+                    missingReadIndicesOfMatrix[r] = -1;
+                } else {
+                    missingReadIndicesOfMatrix[r] = missingReads.size();
+                    missingReadIndices.put(readHash, missingReads.size());
+                    missingReads.add(read);
+                    missingReadPairHashes.add(pairHashes);
+                }
+            }
+            missingReadIndicesByMatrix.add(missingReadIndicesOfMatrix);
+        }
+
+        if (missingReads.isEmpty()) {
+            return;
+        }
+
+        final AlleleLikelihoods<GATKRead, Haplotype> missingLikelihoods = new AlleleLikelihoods<>(SampleList.singletonSampleList(SCRATCH_SAMPLE),
+                haplotypes, Collections.singletonMap(SCRATCH_SAMPLE, missingReads));
+        final LikelihoodMatrix<GATKRead, Haplotype> missingMatrix = missingLikelihoods.sampleMatrix(0);
+        pairHMM.batchComputeLog10Likelihoods(Collections.singletonList(missingMatrix), Collections.singletonList(missingReads), inputScoreImputator);
+
+        for (int r = 0; r < missingReads.size(); r++) {
+            final ContentHash[] pairHashes = missingReadPairHashes.get(r);
+            for (int h = 0; h < haplotypeCount; h++) {
+                log10Likelihoods.put(pairHashes[h], missingMatrix.get(h, r));
+            }
+        }
+        for (int m = 0; m < logLikelihoods.size(); m++) {
+            final LikelihoodMatrix<GATKRead, Haplotype> matrix = logLikelihoods.get(m);
+            final int[] missingReadIndicesOfMatrix = missingReadIndicesByMatrix.get(m);
+            for (int r = 0; r < missingReadIndicesOfMatrix.length; r++) {
+                final int missingReadIndex = missingReadIndicesOfMatrix[r];
+                if (missingReadIndex >= 0) {
+                    for (int h = 0; h < haplotypeCount; h++) {
+                        matrix.set(h, r, missingMatrix.get(h, missingReadIndex));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of read-haplotype results in the cache
+     */
+    int size() {
+        return log10Likelihoods.size();
+    }
+
+    /**
+     * @return the number of read-haplotype results requested from the cache (reads with the same content as another
+     *         read of the same batch are not counted)
+     */
+    long getLookups() {
+        return lookups;
+    }
+
+    /**
+     * @return the number of read-haplotype results looked up and used from the cache
+     */
+    long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of read-haplotype results evicted from the cache
+     */
+    long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return a one-line summary of the cache usage, for logging
+     */
+    String getStatistics() {
+        return String.format("PairHMM cache: %d lookups, %d hits (%.2f%%), %d evictions, %d results cached",
+                lookups, hits, lookups == 0 ? 0.0 : 100.0 * hits / lookups, evictions, log10Likelihoods.size());
+    }
+
+    private static ContentHash hashRead(final GATKRead read, final PairHMMInputScoreImputation inputScoreImputation) {
+        final Hasher hasher = HASH_FUNCTION.newHasher();
+        putArray(hasher, read.getBases());
+        putArray(hasher, read.getBaseQualities());
+        putArray(hasher, inputScoreImputation.insOpenPenalties());
+        putArray(hasher, inputScoreImputation.delOpenPenalties());
+        putArray(hasher, inputScoreImputation.gapContinuationPenalties());
+        return new ContentHash(hasher.hash());
+    }
+
+    private static ContentHash hashHaplotype(final Haplotype haplotype) {
+        final Hasher hasher = HASH_FUNCTION.newHasher();
+        putArray(hasher, haplotype.getBases());
+        return new ContentHash(hasher.hash());
+    }
+
+    private static ContentHash hashPair(final ContentHash readHash, final ContentHash haplotypeHash) {
+        return new ContentHash(HASH_FUNCTION.newHasher()
+                .putLong(readHash.high).putLong(readHash.low)
+                .putLong(haplotypeHash.high).putLong(haplotypeHash.low)
+                .hash());
+    }
+
+    // the length is part of the content, so that the boundaries between arrays are unambiguous
+    private static void putArray(final Hasher hasher, final byte[] array) {
+        hasher.putInt(array.length).putBytes(array);
+    }
+
+    /**
+     * 128-bit hash of some content, which is used in place of the content itself
+     */
+    private static final class ContentHash {
+        private final long high;
+        private final long low;
+
+        private ContentHash(final HashCode hashCode) {
+            final ByteBuffer bytes = ByteBuffer.wrap(hashCode.asBytes());
+            this.high = bytes.getLong();
+            this.low = bytes.getLong();
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ContentHash)) {
+                return false;
+            }
+            final ContentHash other = (ContentHash) o;
+            return high == other.high && low == other.low;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(high);
+        }
+    }
+}
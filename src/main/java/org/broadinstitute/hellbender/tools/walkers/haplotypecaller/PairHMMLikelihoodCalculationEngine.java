@@ -50,6 +50,14 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
     private final boolean symmetricallyNormalizeAllelesToReference;
     private final boolean modifySoftclippedBases;
 
+    // whether the read likelihoods are stored in the compact (float) storage of AlleleLikelihoods
+    private boolean compactReadLikelihoods = false;
+
+    private final boolean writesResultsFile;
+
+    // null if PairHMM results are not cached
+    private PairHMMLikelihoodCache likelihoodCache = null;
+
     public enum PCRErrorModel {
         /** no specialized PCR error model will be applied; if base insertion/deletion qualities are present they will be used */
         NONE(0.0),
@@ -146,6 +154,7 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
         if (resultsFile != null) {
             pairHMM.setAndInitializeDebugOutputStream(new OutputStreamWriter(resultsFile.getOutputStream()));
         }
+        this.writesResultsFile = resultsFile != null;
         this.dynamicDisqualification = dynamicReadDisqualificaiton;
         this.readDisqualificationScale = readDisqualificationScale;
         this.symmetricallyNormalizeAllelesToReference = symmetricallyNormalizeAllelesToReference;
@@ -161,8 +170,32 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
         this.baseQualityScoreThreshold = baseQualityScoreThreshold;
     }
 
+    /**
+     * Sets whether the read likelihoods computed by this engine are stored as floats rather than doubles.
+     */
+    public void setCompactReadLikelihoods(final boolean compactReadLikelihoods) {
+        this.compactReadLikelihoods = compactReadLikelihoods;
+    }
+
+    /**
+     * Sets the maximum number of read-haplotype PairHMM results cached by this engine across calls, 0 to disable the
+     * cache. The cache is always disabled when the PairHMM inputs and outputs are written to a results file, so that
+     * the file remains complete.
+     */
+    public void setPairHMMCacheSize(final int cacheSize) {
+        Utils.validateArg(cacheSize >= 0, "cacheSize must be >= 0");
+        if (cacheSize > 0 && writesResultsFile) {
+            logger.warn("The PairHMM cache is disabled because the PairHMM results are written to a file");
+            return;
+        }
+        likelihoodCache = cacheSize == 0 ? null : new PairHMMLikelihoodCache(cacheSize);
+    }
+
     @Override
     public void close() {
+        if (likelihoodCache != null) {
+            logger.info(likelihoodCache.getStatistics());
+        }
         pairHMM.close();
     }
 
@@ -191,10 +224,21 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
         initializePairHMM(haplotypeList, perSampleReadList);
 
         // Add likelihoods for each sample's reads to our result
-        final AlleleLikelihoods<GATKRead, Haplotype> result = new AlleleLikelihoods<>(samples, haplotypes, perSampleReadList);
+        final AlleleLikelihoods<GATKRead, Haplotype> result = new AlleleLikelihoods<>(samples, haplotypes, perSampleReadList, compactReadLikelihoods);
         final int sampleCount = result.numberOfSamples();
+        final List<LikelihoodMatrix<GATKRead, Haplotype>> sampleMatrices = new ArrayList<>(sampleCount);
+        final List<List<GATKRead>> processedReads = new ArrayList<>(sampleCount);
         for (int i = 0; i < sampleCount; i++) {
-            computeReadLikelihoods(result.sampleMatrix(i));
+            sampleMatrices.add(result.sampleMatrix(i));
+            processedReads.add(processReads(result.sampleMatrix(i)));
+        }
+
+        // Run the PairHMM to calculate the log10 likelihood of each (processed) reads' arising from each haplotype.
+        // All samples share the same haplotypes, so their reads are evaluated as a single batch.
+        if (likelihoodCache == null) {
+            pairHMM.batchComputeLog10Likelihoods(sampleMatrices, processedReads, inputScoreImputator);
+        } else {
+            likelihoodCache.computeLog10Likelihoods(pairHMM, haplotypes, sampleMatrices, processedReads, inputScoreImputator);
         }
 
         result.normalizeLikelihoods(log10globalReadMismappingRate, symmetricallyNormalizeAllelesToReference);
@@ -257,7 +301,7 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
         pairHMM.initialize(haplotypes, perSampleReadList, readMaxLength, haplotypeMaxLength);
     }
 
-    private void computeReadLikelihoods(final LikelihoodMatrix<GATKRead, Haplotype> likelihoods) {
+    private List<GATKRead> processReads(final LikelihoodMatrix<GATKRead, Haplotype> likelihoods) {
         // Modify the read qualities by applying the PCR error model and capping the minimum base,insertion,deletion qualities
         final List<GATKRead> processedReads = modifyReadQualities(likelihoods.evidence());
 
@@ -268,8 +312,7 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
                 HaplotypeCallerGenotypingDebugger.println(Arrays.toString(read.getBaseQualitiesNoCopy()));
             }
         }
-        // Run the PairHMM to calculate the log10 likelihood of each (processed) reads' arising from each haplotype
-        pairHMM.computeLog10Likelihoods(likelihoods, processedReads, inputScoreImputator);
+        return processedReads;
     }
 
     /**
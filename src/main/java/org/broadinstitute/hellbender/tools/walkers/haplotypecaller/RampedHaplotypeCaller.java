@@ -1,16 +1,17 @@
 package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
 
 import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.reference.ReferenceSequenceFile;
 import org.broadinstitute.barclay.argparser.*;
 import org.broadinstitute.barclay.help.DocumentedFeature;
 import org.broadinstitute.hellbender.cmdline.programgroups.ShortVariantDiscoveryProgramGroup;
+import org.broadinstitute.hellbender.engine.AssemblyRegionWorker;
 import org.broadinstitute.hellbender.engine.spark.AssemblyRegionArgumentCollection;
 import org.broadinstitute.hellbender.tools.walkers.annotator.VariantAnnotatorEngine;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.ramps.AssemblerOffRamp;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.ramps.PostAssemblerOnRamp;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.ramps.PostFilterOnRamp;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.ramps.PreFilterOffRamp;
-import org.broadinstitute.hellbender.utils.fasta.CachingIndexedFastaSequenceFile;
 
 /**
  * This is a specialized HaplotypeCaller tool, designed to allow for breaking the monolithic haplotype
@@ -71,10 +72,18 @@ public class RampedHaplotypeCaller extends HaplotypeCaller {
     }
 
     @Override
-    protected HaplotypeCallerEngine buildHaplotypeCallerEngine(final HaplotypeCallerArgumentCollection hcArgs, final AssemblyRegionArgumentCollection assemblyRegionArgs, final boolean createOutputBamIndex, final boolean createOutputBamMD5, final SAMFileHeader headerForReads, final CachingIndexedFastaSequenceFile referenceReader, final VariantAnnotatorEngine variantAnnotatorEngine) {
+    protected HaplotypeCallerEngine buildHaplotypeCallerEngine(final HaplotypeCallerArgumentCollection hcArgs, final AssemblyRegionArgumentCollection assemblyRegionArgs, final boolean createOutputBamIndex, final boolean createOutputBamMD5, final SAMFileHeader headerForReads, final ReferenceSequenceFile referenceReader, final VariantAnnotatorEngine variantAnnotatorEngine) {
         return new RampedHaplotypeCallerEngine(hcArgs, assemblyRegionArgs, createOutputBamIndex, createOutputBamMD5, getHeaderForReads(), getReferenceReader(referenceArguments), variantAnnotatorEngine, rpArgs);
     }
 
+    /**
+     * Ramp files are read and written by the engine itself, so they can't be shared between worker engines.
+     */
+    @Override
+    protected AssemblyRegionWorker makeAssemblyRegionWorker() {
+        return null;
+    }
+
     @Override
     public boolean nonRandomDownsamplingMode() {
         return true;
@@ -1,6 +1,7 @@
 package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
 
 import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.reference.ReferenceSequenceFile;
 import htsjdk.variant.variantcontext.VariantContext;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -13,7 +14,6 @@ import org.broadinstitute.hellbender.tools.walkers.annotator.*;
 import org.broadinstitute.hellbender.tools.walkers.genotyper.GenotypeAssignmentMethod;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.ramps.*;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
-import org.broadinstitute.hellbender.utils.fasta.CachingIndexedFastaSequenceFile;
 import org.broadinstitute.hellbender.utils.genotyper.AlleleLikelihoods;
 import org.broadinstitute.hellbender.utils.haplotype.Event;
 import org.broadinstitute.hellbender.utils.haplotype.EventMap;
@@ -63,7 +63,7 @@ public class RampedHaplotypeCallerEngine extends HaplotypeCallerEngine {
 
     public RampedHaplotypeCallerEngine(final HaplotypeCallerArgumentCollection hcArgs, AssemblyRegionArgumentCollection assemblyRegionArgs, boolean createBamOutIndex,
                                        boolean createBamOutMD5, final SAMFileHeader readsHeader,
-                                       CachingIndexedFastaSequenceFile referenceReader, VariantAnnotatorEngine annotationEngine,
+                                       ReferenceSequenceFile referenceReader, VariantAnnotatorEngine annotationEngine,
                                        RampedHaplotypeCallerArgumentCollection rpArgs) {
 
         super(hcArgs, assemblyRegionArgs, createBamOutIndex,
@@ -1,6 +1,7 @@
 package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
 
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.broadinstitute.barclay.argparser.Advanced;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.Hidden;
@@ -9,6 +10,8 @@ import org.broadinstitute.hellbender.utils.MathUtils;
 
 import java.io.Serializable;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Set of arguments related to the {@link org.broadinstitute.hellbender.tools.walkers.haplotypecaller.readthreading.ReadThreadingAssembler}
@@ -24,6 +27,8 @@ public abstract class ReadThreadingAssemblerArgumentCollection implements Serial
     public static final String CAPTURE_ASSEMBLY_FAILURE_BAM_LONG_NAME = "capture-assembly-failure-bam";
     public static final String KMER_SIZE_LONG_NAME = "kmer-size";
     public static final String DONT_INCREASE_KMER_SIZE_LONG_NAME = "dont-increase-kmer-sizes-for-cycles";
+    public static final String KMER_ASSEMBLY_THREADS_LONG_NAME = "kmer-assembly-threads";
+    public static final String USE_PACKED_ASSEMBLY_GRAPH_LONG_NAME = "use-packed-assembly-graph";
     public static final String LINKED_DE_BRUIJN_GRAPH_LONG_NAME = "linked-de-bruijn-graph";
     public static final String ALLOW_NON_UNIQUE_KMERS_IN_REF_LONG_NAME = "allow-non-unique-kmers-in-ref";
     public static final String NUM_PRUNING_SAMPLES_LONG_NAME = "num-pruning-samples";
@@ -67,6 +72,27 @@ public abstract class ReadThreadingAssemblerArgumentCollection implements Serial
     @Argument(fullName= DONT_INCREASE_KMER_SIZE_LONG_NAME, doc="Disable iterating over kmer sizes when graph cycles are detected", optional = true)
     public boolean dontIncreaseKmerSizesForCycles = false;
 
+    /**
+     * The graphs of the different kmer sizes of an assembly region (and, when graph cycles are detected, of the larger
+     * kmer sizes that are tried next) are independent, so they can be built concurrently. The threads are shared by
+     * all the assemblers of the run. Each assembly also builds one of its graphs on its own thread. The assembled
+     * haplotypes are the same for any number of threads.
+     */
+    @Advanced
+    @Argument(fullName= KMER_ASSEMBLY_THREADS_LONG_NAME, doc="Number of threads building the assembly graphs of different kmer sizes concurrently", optional = true, minValue = 1)
+    public int kmerAssemblyThreads = 1;
+
+    /**
+     * Thread the reads into the assembly graphs and prune them with the kmers packed into longs and the graph edges and
+     * their multiplicities held in primitive arrays, and only create the vertex and edge objects of the graphs once they
+     * have been pruned. The graphs, and so the assembled haplotypes, are the same as without this argument. Graphs with
+     * kmers longer than 31 bases or reads with bases other than A, C, G and T, and graphs printed with
+     * --debug-graph-transformations, --linked-de-bruijn-graph or --enable-legacy-graph-cycle-detection, are built as before.
+     */
+    @Advanced
+    @Argument(fullName= USE_PACKED_ASSEMBLY_GRAPH_LONG_NAME, doc="Thread and prune the assembly graphs in primitive arrays", optional = true)
+    public boolean usePackedAssemblyGraph = false;
+
     /**
      * By default, the program does not allow processing of reference sections that contain non-unique kmers. Disabling
      * this check may cause problems in the assembly graph.
@@ -245,5 +271,36 @@ public abstract class ReadThreadingAssemblerArgumentCollection implements Serial
     @Argument(fullName= MIN_OBSERVATIONS_FOR_KMER_TO_BE_SOLID_LONG_NAME, doc = "A k-mer must be seen at least these times for it considered to be solid", optional = true)
     public int minObservationsForKmerToBeSolid = 20;
 
+    /**
+     * Pool building the graphs of different kmer sizes for all the assemblers made from these arguments (there is one
+     * per assembly region worker thread, for example). Created along with the first of them, and shut down by the tool
+     * with {@link #shutdownKmerAssemblyPool()}.
+     */
+    private transient ExecutorService kmerAssemblyPool = null;
+
     public abstract ReadThreadingAssembler makeReadThreadingAssembler();
+
+    /**
+     * @return the pool of {@link #kmerAssemblyThreads} threads shared by the assemblers made from these arguments, or
+     *         null if the graphs of different kmer sizes are built one at a time
+     */
+    protected final synchronized ExecutorService getKmerAssemblyPool() {
+        if ( kmerAssemblyThreads > 1 && kmerAssemblyPool == null ) {
+            kmerAssemblyPool = Executors.newFixedThreadPool(kmerAssemblyThreads, new ThreadFactoryBuilder()
+                    .setNameFormat("kmerAssembly-thread-%d")
+                    .setDaemon(true).build());
+        }
+        return kmerAssemblyPool;
+    }
+
+    /**
+     * Shut down the pool shared by the assemblers made from these arguments, if it was created. Must be called by the
+     * tool once it is done with them.
+     */
+    public final synchronized void shutdownKmerAssemblyPool() {
+        if ( kmerAssemblyPool != null ) {
+            kmerAssemblyPool.shutdownNow();
+            kmerAssemblyPool = null;
+        }
+    }
 }
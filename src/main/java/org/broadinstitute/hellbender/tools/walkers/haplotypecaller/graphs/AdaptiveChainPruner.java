@@ -1,17 +1,17 @@
 package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.graphs;
 
 import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Multimap;
-import org.apache.commons.lang3.mutable.MutableInt;
+import com.google.common.collect.MultimapBuilder;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 import org.broadinstitute.hellbender.tools.walkers.mutect.Mutect2Engine;
 import org.broadinstitute.hellbender.utils.BaseUtils;
-import org.broadinstitute.hellbender.utils.MathUtils;
 import org.broadinstitute.hellbender.utils.param.ParamUtils;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class AdaptiveChainPruner<V extends BaseVertex, E extends BaseEdge> extends ChainPruner<V,E> {
     private final double initialErrorProbability;
@@ -28,47 +28,59 @@ public class AdaptiveChainPruner<V extends BaseVertex, E extends BaseEdge> exten
     }
 
     @Override
-    protected Collection<Path<V,E>> chainsToRemove(final List<Path<V, E>> chains) {
-        if (chains.isEmpty()) {
-            return Collections.emptyList();
+    protected BitSet chainsToRemove(final Chains chains) {
+        if (chains.size() == 0) {
+            return new BitSet();
         }
 
-        final BaseGraph<V,E> graph = chains.get(0).getGraph();
-
-
-
-        Collection<Path<V,E>> probableErrorChains = likelyErrorChains(chains, graph, initialErrorProbability);
-        final int errorCount = probableErrorChains.stream().mapToInt(c -> c.getLastEdge().getMultiplicity()).sum();
-        final int totalBases = chains.stream().mapToInt(c -> c.getEdges().stream().mapToInt(E::getMultiplicity).sum()).sum();
+        final BitSet probableErrorChains = likelyErrorChains(chains, initialErrorProbability);
+        final int errorCount = probableErrorChains.stream().map(c -> chains.multiplicity(c, chains.length(c) - 1)).sum();
+        int totalBases = 0;
+        for (int chain = 0; chain < chains.size(); chain++) {
+            for (int edge = 0; edge < chains.length(chain); edge++) {
+                totalBases += chains.multiplicity(chain, edge);
+            }
+        }
         final double errorRate = (double) errorCount / totalBases;
 
-        return likelyErrorChains(chains, graph, errorRate).stream().filter(c -> !c.getEdges().stream().anyMatch(BaseEdge::isRef)).collect(Collectors.toList());
+        final BitSet chainsToRemove = likelyErrorChains(chains, errorRate);
+        for (int chain = chainsToRemove.nextSetBit(0); chain >= 0; chain = chainsToRemove.nextSetBit(chain + 1)) {
+            if (hasRefEdge(chains, chain)) {
+                chainsToRemove.clear(chain);
+            }
+        }
+        return chainsToRemove;
     }
 
-    private Collection<Path<V,E>> likelyErrorChains(final List<Path<V, E>> chains, final BaseGraph<V,E> graph, final double errorRate) {
+    private BitSet likelyErrorChains(final Chains chains, final double errorRate) {
         // pre-compute the left and right log odds of each chain
-        final Map<Path<V,E>, Pair<Double, Double>> chainLogOdds = chains.stream()
-                .collect(Collectors.toMap(c -> c, c-> chainLogOdds(c, graph, errorRate)));
+        final double[] leftLogOdds = new double[chains.size()];
+        final double[] rightLogOdds = new double[chains.size()];
+        for (int chain = 0; chain < chains.size(); chain++) {
+            leftLogOdds[chain] = leftLogOdds(chains, chain, errorRate);
+            rightLogOdds[chain] = rightLogOdds(chains, chain, errorRate);
+        }
 
         // compute correspondence of vertices to incident chains with log odds above the seeding and extending thresholds
-        final Multimap<V, Path<V,E>> vertexToSeedableChains = ArrayListMultimap.create();
-        final Multimap<V, Path<V,E>> vertexToGoodIncomingChains = ArrayListMultimap.create();
-        final Multimap<V, Path<V,E>> vertexToGoodOutgoingChains = ArrayListMultimap.create();
-
-        for (final Path<V,E> chain : chains) {
-            if (chainLogOdds.get(chain).getRight() >= logOddsThreshold || chain.getEdges().get(0).isRef()) {
-                vertexToGoodIncomingChains.put(chain.getLastVertex(), chain);
+        // the seedable vertices are kept in order of first appearance for determinism
+        final ListMultimap<Integer, Integer> vertexToSeedableChains = MultimapBuilder.linkedHashKeys().arrayListValues().build();
+        final Multimap<Integer, Integer> vertexToGoodIncomingChains = ArrayListMultimap.create();
+        final Multimap<Integer, Integer> vertexToGoodOutgoingChains = ArrayListMultimap.create();
+
+        for (int chain = 0; chain < chains.size(); chain++) {
+            if (rightLogOdds[chain] >= logOddsThreshold || chains.isRef(chain, 0)) {
+                vertexToGoodIncomingChains.put(chains.lastVertex(chain), chain);
             }
 
-            if (chainLogOdds.get(chain).getLeft() >= logOddsThreshold || chain.getEdges().get(0).isRef()) {
-                vertexToGoodOutgoingChains.put(chain.getFirstVertex(), chain);
+            if (leftLogOdds[chain] >= logOddsThreshold || chains.isRef(chain, 0)) {
+                vertexToGoodOutgoingChains.put(chains.firstVertex(chain), chain);
             }
 
             // seed-worthy chains must pass the more stringent seeding log odds threshold on both sides
             // in addition to that, we only seed from vertices with multiple such chains incoming or outgoing (see below)
-            if (chainLogOdds.get(chain).getRight() >= seedingLogOddsThreshold && chainLogOdds.get(chain).getLeft() >= seedingLogOddsThreshold) {
-                vertexToSeedableChains.put(chain.getFirstVertex(), chain);
-                vertexToSeedableChains.put(chain.getLastVertex(), chain);
+            if (rightLogOdds[chain] >= seedingLogOddsThreshold && leftLogOdds[chain] >= seedingLogOddsThreshold) {
+                vertexToSeedableChains.put(chains.firstVertex(chain), chain);
+                vertexToSeedableChains.put(chains.lastVertex(chain), chain);
             }
         }
 
@@ -76,85 +88,105 @@ public class AdaptiveChainPruner<V extends BaseVertex, E extends BaseEdge> exten
         // We have a priority queue of chains to add to the graph, with priority given by the log odds (higher first)
         // for determinism we have a tie breaker based on chains' first vertex
         // Note that chains can we added twice to the queue, once for each side
-        final PriorityQueue<Pair<Path<V,E>, Double>> chainsToAdd = new PriorityQueue<>(
-                Comparator.comparingDouble((Pair<Path<V,E>, Double> p) -> -p.getRight())
-                .thenComparing((Pair<Path<V,E>, Double> p) -> p.getLeft().getFirstVertex().getSequence(), BaseUtils.BASES_COMPARATOR)
-                .thenComparing((Pair<Path<V,E>, Double> p) -> p.getLeft().getBases(), BaseUtils.BASES_COMPARATOR)); // Handle rare edge case for non-determinism where two chains with equivalent score start on the same vertex
+        final PriorityQueue<Pair<Integer, Double>> chainsToAdd = new PriorityQueue<>(
+                Comparator.comparingDouble((Pair<Integer, Double> p) -> -p.getRight())
+                .thenComparing((Pair<Integer, Double> p) -> chains.vertexSequence(chains.firstVertex(p.getLeft())), BaseUtils.BASES_COMPARATOR)
+                .thenComparing((Pair<Integer, Double> p) -> chains.bases(p.getLeft()), BaseUtils.BASES_COMPARATOR)); // Handle rare edge case for non-determinism where two chains with equivalent score start on the same vertex
 
         // seed the subgraph of good chains by starting with some definitely-good chains.  These include the max-weight chain
         // and chains emanating from vertices with two incoming or two outgoing chains (plus one outgoing or incoming for a total of 3 or more) with good log odds
         // The idea is that a high-multiplicity error chain A that branches into a second error chain B and a continuation-of-the-original-error chain A'
         // may have a high log odds for A'.  However, only in the case of true variation will multiple branches leaving the same vertex have good log odds.
-        final Path<V,E> maxWeightChain = getMaxWeightChain(chains);
+        final int maxWeightChain = getMaxWeightChain(chains);
         chainsToAdd.add(ImmutablePair.of(maxWeightChain, Double.POSITIVE_INFINITY));
-        final Set<V> processedVertices = new LinkedHashSet<>(); // vertices whose incident chains have already been enqueued
-        for (final V vertex : vertexToSeedableChains.keySet()) {
+        final Set<Integer> processedVertices = new HashSet<>(); // vertices whose incident chains have already been enqueued
+        for (final int vertex : vertexToSeedableChains.keySet()) {
             if (vertexToSeedableChains.get(vertex).size() > 2) {
-                vertexToGoodOutgoingChains.get(vertex).forEach(chain -> chainsToAdd.add(ImmutablePair.of(chain, chainLogOdds.get(chain).getLeft())));
-                vertexToGoodIncomingChains.get(vertex).forEach(chain -> chainsToAdd.add(ImmutablePair.of(chain, chainLogOdds.get(chain).getRight())));
+                vertexToGoodOutgoingChains.get(vertex).forEach(chain -> chainsToAdd.add(ImmutablePair.of(chain, leftLogOdds[chain])));
+                vertexToGoodIncomingChains.get(vertex).forEach(chain -> chainsToAdd.add(ImmutablePair.of(chain, rightLogOdds[chain])));
                 processedVertices.add(vertex);
             }
         }
 
-        final Set<Path<V,E>> goodChains = new LinkedHashSet<>();
-        final Set<V> verticesThatAlreadyHaveOutgoingGoodChains = new LinkedHashSet<>();
-        final MutableInt variantCount = new MutableInt(0);
+        final BitSet goodChains = new BitSet(chains.size());
+        final Set<Integer> verticesThatAlreadyHaveOutgoingGoodChains = new HashSet<>();
+        int variantCount = 0;
 
         // starting from the high-confidence seed vertices, grow the "good" subgraph along chains with above-threshold log odds,
         // discovering good chains as we go.
-        while (!chainsToAdd.isEmpty() && variantCount.intValue() <= maxUnprunedVariants) {
-            final Path<V,E> chain = chainsToAdd.poll().getLeft();
+        while (!chainsToAdd.isEmpty() && variantCount <= maxUnprunedVariants) {
+            final int chain = chainsToAdd.poll().getLeft();
 
-            if (!goodChains.add(chain)) {
+            if (goodChains.get(chain)) {
                 continue;
             }
+            goodChains.set(chain);
 
             // When we add an outgoing chain starting from a vertex with other good outgoing chains, we add a variant
-            final boolean newVariant = !verticesThatAlreadyHaveOutgoingGoodChains.add(chain.getFirstVertex());
+            final boolean newVariant = !verticesThatAlreadyHaveOutgoingGoodChains.add(chains.firstVertex(chain));
             if (newVariant) {
-                variantCount.increment();
+                variantCount++;
             }
 
             // check whether we've already added this chain from the other side or we've exceeded the variant count limit
-            if (newVariant && variantCount.intValue() > maxUnprunedVariants) {
+            if (newVariant && variantCount > maxUnprunedVariants) {
                 continue;
             }
 
-            for (final V vertex : Arrays.asList(chain.getFirstVertex(), chain.getLastVertex())) {
-                if (!processedVertices.contains(vertex)) {
-                    vertexToGoodOutgoingChains.get(vertex).forEach(c -> chainsToAdd.add(ImmutablePair.of(c, chainLogOdds.get(c).getLeft())));
-                    vertexToGoodIncomingChains.get(vertex).forEach(c -> chainsToAdd.add(ImmutablePair.of(c, chainLogOdds.get(c).getRight())));
-                    processedVertices.add(vertex);
+            for (final int vertex : new int[] {chains.firstVertex(chain), chains.lastVertex(chain)}) {
+                if (processedVertices.add(vertex)) {
+                    vertexToGoodOutgoingChains.get(vertex).forEach(c -> chainsToAdd.add(ImmutablePair.of(c, leftLogOdds[c])));
+                    vertexToGoodIncomingChains.get(vertex).forEach(c -> chainsToAdd.add(ImmutablePair.of(c, rightLogOdds[c])));
                 }
             }
         }
 
-        return chains.stream().filter(c -> !goodChains.contains(c)).collect(Collectors.toList());
+        final BitSet errorChains = new BitSet(chains.size());
+        errorChains.set(0, chains.size());
+        errorChains.andNot(goodChains);
+        return errorChains;
     }
 
     // find the chain containing the edge of greatest weight, taking care to break ties deterministically
-    private Path<V, E> getMaxWeightChain(final Collection<Path<V, E>> chains) {
-        return chains.stream()
-                .max(Comparator.comparingInt((Path<V, E> chain) -> chain.getEdges().stream().mapToInt(BaseEdge::getMultiplicity).max().orElse(0))
-                        .thenComparingInt(Path::length)
-                        .thenComparing((Path<V,E> c) -> c.getFirstVertex().getSequence(), BaseUtils.BASES_COMPARATOR))
+    private static int getMaxWeightChain(final Chains chains) {
+        return IntStream.range(0, chains.size()).boxed()
+                .max(Comparator.comparingInt((Integer chain) -> maxMultiplicity(chains, chain))
+                        .thenComparingInt(chains::length)
+                        .thenComparing((Integer chain) -> chains.vertexSequence(chains.firstVertex(chain)), BaseUtils.BASES_COMPARATOR))
                 .get();
     }
 
-    // left and right chain log odds
-    private Pair<Double, Double> chainLogOdds(final Path<V,E> chain, final BaseGraph<V,E> graph, final double errorRate) {
-        final int leftTotalMultiplicity = MathUtils.sumIntFunction(graph.outgoingEdgesOf(chain.getFirstVertex()), E::getMultiplicity);
-        final int rightTotalMultiplicity = MathUtils.sumIntFunction(graph.incomingEdgesOf(chain.getLastVertex()), E::getMultiplicity);
+    private static int maxMultiplicity(final Chains chains, final int chain) {
+        int maxMultiplicity = 0;
+        for (int edge = 0; edge < chains.length(chain); edge++) {
+            maxMultiplicity = Math.max(maxMultiplicity, chains.multiplicity(chain, edge));
+        }
+        return maxMultiplicity;
+    }
 
-        final int leftMultiplicity = chain.getEdges().get(0).getMultiplicity();
-        final int rightMultiplicity = chain.getLastEdge().getMultiplicity();
+    private static boolean hasRefEdge(final Chains chains, final int chain) {
+        for (int edge = 0; edge < chains.length(chain); edge++) {
+            if (chains.isRef(chain, edge)) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-        final double leftLogOdds = graph.isSource(chain.getFirstVertex()) ? 0.0 :
-                Mutect2Engine.logLikelihoodRatio(leftTotalMultiplicity - leftMultiplicity, leftMultiplicity, errorRate);
-        final double rightLogOdds = graph.isSink(chain.getLastVertex()) ? 0.0 :
-                Mutect2Engine.logLikelihoodRatio(rightTotalMultiplicity - rightMultiplicity, rightMultiplicity, errorRate);
+    // left chain log odds
+    private static double leftLogOdds(final Chains chains, final int chain, final double errorRate) {
+        final int firstVertex = chains.firstVertex(chain);
+        final int leftMultiplicity = chains.multiplicity(chain, 0);
+        return chains.isSource(firstVertex) ? 0.0 :
+                Mutect2Engine.logLikelihoodRatio(chains.totalOutgoingMultiplicity(firstVertex) - leftMultiplicity, leftMultiplicity, errorRate);
+    }
 
-        return ImmutablePair.of(leftLogOdds, rightLogOdds);
+    // right chain log odds
+    private static double rightLogOdds(final Chains chains, final int chain, final double errorRate) {
+        final int lastVertex = chains.lastVertex(chain);
+        final int rightMultiplicity = chains.multiplicity(chain, chains.length(chain) - 1);
+        return chains.isSink(lastVertex) ? 0.0 :
+                Mutect2Engine.logLikelihoodRatio(chains.totalIncomingMultiplicity(lastVertex) - rightMultiplicity, rightMultiplicity, errorRate);
     }
 
 }
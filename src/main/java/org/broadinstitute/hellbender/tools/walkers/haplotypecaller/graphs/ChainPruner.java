@@ -1,6 +1,7 @@
 package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.graphs;
 
 import com.google.common.annotations.VisibleForTesting;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.readthreading.PackedReadThreadingGraph;
 
 import java.util.*;
 
@@ -9,9 +10,19 @@ public abstract class ChainPruner<V extends BaseVertex, E extends BaseEdge> {
     public ChainPruner() { }
 
     public void pruneLowWeightChains(final BaseGraph<V,E> graph) {
-        final List<Path<V, E>> chains = findAllChains(graph);
-        final Collection<Path<V, E>> chainsToRemove = chainsToRemove(chains);
-        chainsToRemove.forEach(c -> graph.removeAllEdges(c.getEdges()));
+        final List<Path<V, E>> chains = new ArrayList<>(findAllChains(graph));
+        final BitSet chainsToRemove = chainsToRemove(new PathChains<>(chains, graph));
+        chainsToRemove.stream().forEach(c -> graph.removeAllEdges(chains.get(c).getEdges()));
+        graph.removeSingletonOrphanVertices();
+    }
+
+    /**
+     * Prune the chains of a {@link PackedReadThreadingGraph}, removing the same chains as
+     * {@link #pruneLowWeightChains(BaseGraph)} would from the equivalent {@link BaseGraph}
+     */
+    public void pruneLowWeightChains(final PackedReadThreadingGraph graph) {
+        final PackedReadThreadingGraph.PackedChains chains = graph.findAllChains();
+        graph.removeChains(chains, chainsToRemove(chains));
         graph.removeSingletonOrphanVertices();
     }
 
@@ -59,5 +70,151 @@ public abstract class ChainPruner<V extends BaseVertex, E extends BaseEdge> {
         return new Path<V, E>(edges, lastVertex, graph);
     }
 
-    protected abstract Collection<Path<V,E>> chainsToRemove(final List<Path<V, E>> chains);
+    /**
+     * @return the indices of the chains to remove
+     */
+    protected abstract BitSet chainsToRemove(final Chains chains);
+
+    /**
+     * The chains of a graph, in the order they are found by {@link #findAllChains}, along with what the pruners need to
+     * know about their edges and their first and last vertices. Chains, the edges of each chain and vertices are
+     * identified by their index, so that the pruners make the same decisions for graphs of any representation.
+     */
+    public interface Chains {
+        /**
+         * @return the number of chains
+         */
+        int size();
+
+        /**
+         * @return the number of edges of chain
+         */
+        int length(int chain);
+
+        /**
+         * @return the index of the first vertex of chain. Indices are equal exactly when the vertices are.
+         */
+        int firstVertex(int chain);
+
+        /**
+         * @return the index of the last vertex of chain. Indices are equal exactly when the vertices are.
+         */
+        int lastVertex(int chain);
+
+        /**
+         * @return the multiplicity of the edge-th edge of chain
+         */
+        int multiplicity(int chain, int edge);
+
+        /**
+         * @return the pruning multiplicity (see {@link BaseEdge#getPruningMultiplicity()}) of the edge-th edge of chain
+         */
+        int pruningMultiplicity(int chain, int edge);
+
+        /**
+         * @return true if the edge-th edge of chain is a reference edge
+         */
+        boolean isRef(int chain, int edge);
+
+        /**
+         * @return the sum of the multiplicities of the outgoing edges of the vertex with index vertex
+         */
+        int totalOutgoingMultiplicity(int vertex);
+
+        /**
+         * @return the sum of the multiplicities of the incoming edges of the vertex with index vertex
+         */
+        int totalIncomingMultiplicity(int vertex);
+
+        /**
+         * @return true if the vertex with index vertex has no incoming edges
+         */
+        boolean isSource(int vertex);
+
+        /**
+         * @return true if the vertex with index vertex has no outgoing edges
+         */
+        boolean isSink(int vertex);
+
+        /**
+         * @return the sequence of the vertex with index vertex
+         */
+        byte[] vertexSequence(int vertex);
+
+        /**
+         * @return the bases of chain, as given by {@link Path#getBases()}
+         */
+        byte[] bases(int chain);
+    }
+
+    /**
+     * The {@link Chains} of a {@link BaseGraph}, given as paths
+     */
+    private static final class PathChains<V extends BaseVertex, E extends BaseEdge> implements Chains {
+        private final List<Path<V, E>> chains;
+        private final BaseGraph<V, E> graph;
+        private final List<V> vertices = new ArrayList<>();
+        private final int[] firstVertices;
+        private final int[] lastVertices;
+
+        PathChains(final List<Path<V, E>> chains, final BaseGraph<V, E> graph) {
+            this.chains = chains;
+            this.graph = graph;
+            firstVertices = new int[chains.size()];
+            lastVertices = new int[chains.size()];
+            final Map<V, Integer> vertexIndices = new HashMap<>();
+            for (int chain = 0; chain < chains.size(); chain++) {
+                firstVertices[chain] = vertexIndices.computeIfAbsent(chains.get(chain).getFirstVertex(), this::addVertex);
+                lastVertices[chain] = vertexIndices.computeIfAbsent(chains.get(chain).getLastVertex(), this::addVertex);
+            }
+        }
+
+        private int addVertex(final V vertex) {
+            vertices.add(vertex);
+            return vertices.size() - 1;
+        }
+
+        @Override
+        public int size() { return chains.size(); }
+
+        @Override
+        public int length(final int chain) { return chains.get(chain).length(); }
+
+        @Override
+        public int firstVertex(final int chain) { return firstVertices[chain]; }
+
+        @Override
+        public int lastVertex(final int chain) { return lastVertices[chain]; }
+
+        @Override
+        public int multiplicity(final int chain, final int edge) { return chains.get(chain).getEdges().get(edge).getMultiplicity(); }
+
+        @Override
+        public int pruningMultiplicity(final int chain, final int edge) { return chains.get(chain).getEdges().get(edge).getPruningMultiplicity(); }
+
+        @Override
+        public boolean isRef(final int chain, final int edge) { return chains.get(chain).getEdges().get(edge).isRef(); }
+
+        @Override
+        public int totalOutgoingMultiplicity(final int vertex) {
+            return graph.outgoingEdgesOf(vertices.get(vertex)).stream().mapToInt(BaseEdge::getMultiplicity).sum();
+        }
+
+        @Override
+        public int totalIncomingMultiplicity(final int vertex) {
+            return graph.incomingEdgesOf(vertices.get(vertex)).stream().mapToInt(BaseEdge::getMultiplicity).sum();
+        }
+
+        @Override
+        public boolean isSource(final int vertex) { return graph.isSource(vertices.get(vertex)); }
+
+        @Override
+        public boolean isSink(final int vertex) { return graph.isSink(vertices.get(vertex)); }
+
+        @Override
+        public byte[] vertexSequence(final int vertex) { return vertices.get(vertex).getSequence(); }
+
+        @Override
+        public byte[] bases(final int chain) { return chains.get(chain).getBases(); }
+    }
 }
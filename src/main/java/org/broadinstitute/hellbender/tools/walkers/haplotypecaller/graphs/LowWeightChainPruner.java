@@ -2,8 +2,7 @@ package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.graphs;
 
 import org.broadinstitute.hellbender.utils.Utils;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.BitSet;
 
 /**
  * Prune all chains from this graph where all edges in the path have multiplicity < pruneFactor
@@ -22,11 +21,22 @@ public final class LowWeightChainPruner<V extends BaseVertex, E extends BaseEdge
     }
 
     @Override
-    protected Collection<Path<V,E>> chainsToRemove(final List<Path<V, E>> chains) {
-        return chains.stream().filter(this::needsPruning).collect(Collectors.toList());
+    protected BitSet chainsToRemove(final Chains chains) {
+        final BitSet chainsToRemove = new BitSet(chains.size());
+        for (int chain = 0; chain < chains.size(); chain++) {
+            if (needsPruning(chains, chain)) {
+                chainsToRemove.set(chain);
+            }
+        }
+        return chainsToRemove;
     }
 
-    private boolean needsPruning(final Path<V,E> chain) {
-        return chain.getEdges().stream().allMatch(e -> e.getPruningMultiplicity() < pruneFactor && !e.isRef());
+    private boolean needsPruning(final Chains chains, final int chain) {
+        for (int edge = 0; edge < chains.length(chain); edge++) {
+            if (chains.pruningMultiplicity(chain, edge) >= pruneFactor || chains.isRef(chain, edge)) {
+                return false;
+            }
+        }
+        return true;
     }
 }
@@ -51,6 +51,29 @@ public final class MultiSampleEdge extends BaseEdge {
         this.singleSampleCapacity = singleSampleCapacity;
     }
 
+    /**
+     * Create a new MultiSampleEdge of a graph whose samples have all been added, as if the single sample multiplicities
+     * had been flushed one sample at a time with {@link #flushSingleSampleMultiplicity()}
+     *
+     * @param isRef indicates whether this edge is a path through the reference
+     * @param multiplicity the number of observations of this edge in all samples
+     * @param singleSampleCapacity the max number of samples to track edge multiplicities
+     * @param singleSampleMultiplicities the tracked single sample multiplicities, at least one and at most singleSampleCapacity
+     */
+    public MultiSampleEdge(final boolean isRef, final int multiplicity, final int singleSampleCapacity, final int[] singleSampleMultiplicities) {
+        super(isRef, multiplicity);
+
+        Utils.validateArg( singleSampleCapacity > 0, () -> "singleSampleCapacity must be > 0 but found: " + singleSampleCapacity);
+        Utils.validateArg( singleSampleMultiplicities.length > 0 && singleSampleMultiplicities.length <= singleSampleCapacity,
+                () -> "there must be between 1 and " + singleSampleCapacity + " single sample multiplicities but found: " + singleSampleMultiplicities.length);
+        this.singleSampleMultiplicities = new PriorityQueue<>(singleSampleCapacity);
+        for ( final int singleSampleMultiplicity : singleSampleMultiplicities ) {
+            this.singleSampleMultiplicities.add(singleSampleMultiplicity);
+        }
+        currentSingleSampleMultiplicity = 0;
+        this.singleSampleCapacity = singleSampleCapacity;
+    }
+
     @Override
     public MultiSampleEdge copy() {
         return new MultiSampleEdge(isRef(), getMultiplicity(), singleSampleCapacity); // TODO -- should I copy values for other features?
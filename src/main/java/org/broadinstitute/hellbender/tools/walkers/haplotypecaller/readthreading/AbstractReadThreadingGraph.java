@@ -100,6 +100,16 @@ public abstract class AbstractReadThreadingGraph extends BaseGraph<MultiDeBruijn
      */
     protected abstract boolean isThreadingStart(final Kmer kmer, final boolean startThreadingOnlyAtExistingVertex);
 
+    /**
+     * Checks whether the kmer starting at start in sequence can be the threading start. Graphs that can check this
+     * without creating a {@link Kmer} should override this method.
+     *
+     * @see #isThreadingStart(Kmer, boolean)
+     */
+    protected boolean isThreadingStart(final byte[] sequence, final int start, final boolean startThreadingOnlyAtExistingVertex) {
+        return isThreadingStart(new Kmer(sequence, start, kmerSize), startThreadingOnlyAtExistingVertex);
+    }
+
     // get the next kmerVertex for ChainExtension and validate if necessary.
     protected abstract MultiDeBruijnVertex getNextKmerVertexForChainExtension(final Kmer kmer, final boolean isRef, final MultiDeBruijnVertex prevVertex);
 
@@ -203,8 +213,7 @@ public abstract class AbstractReadThreadingGraph extends BaseGraph<MultiDeBruijn
         }
 
         for (int i = seqForKmers.start; i < seqForKmers.stop - kmerSize; i++) {
-            final Kmer kmer1 = new Kmer(seqForKmers.sequence, i, kmerSize);
-            if (isThreadingStart(kmer1, startThreadingOnlyAtExistingVertex)) {
+            if (isThreadingStart(seqForKmers.sequence, i, startThreadingOnlyAtExistingVertex)) {
                 return i;
             }
         }
@@ -390,6 +399,33 @@ public abstract class AbstractReadThreadingGraph extends BaseGraph<MultiDeBruijn
         this.increaseCountsThroughBranches = increaseCountsThroughBranches;
     }
 
+    boolean isThreadingStartOnlyAtExistingVertex() {
+        return startThreadingOnlyAtExistingVertex;
+    }
+
+    boolean isIncreaseCountsThroughBranches() {
+        return increaseCountsThroughBranches;
+    }
+
+    /**
+     * Mark this graph as built from a {@link PackedReadThreadingGraph} that threaded its pending sequences and copied its
+     * vertices, edges and kmer index into it (see {@link PackedReadThreadingGraph#copyInto(ReadThreadingGraph)})
+     *
+     * @param referencePath the vertices of the reference path, or null if there is no reference
+     * @param refSource the first kmer of the reference, or null if there is no reference
+     */
+    void setBuiltFromPackedGraph(final List<MultiDeBruijnVertex> referencePath, final Kmer refSource) {
+        Utils.validate(!alreadyBuilt, "Attempting to build a graph that has already been built");
+        this.referencePath = referencePath;
+        this.refSource = refSource;
+
+        // clear the pending reads pile to conserve memory
+        if (shouldRemoveReadsAfterGraphConstruction()) {
+            pending.clear();
+        }
+        alreadyBuilt = true;
+    }
+
     /**
      * Try to recover dangling tails
      *
@@ -0,0 +1,233 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.readthreading;
+
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.Kmer;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Set of kmers of a fixed size, for the kmer bookkeeping of {@link ReadThreadingGraph}, which checks every kmer of
+ * every read against such sets.
+ *
+ * Kmers of at most {@link #MAX_PACKED_KMER_SIZE} bases made only of A, C, G and T are packed 2 bits per base into a long,
+ * and stored in an open-addressing table, so that adding or looking up a kmer allocates nothing. The few kmers with
+ * other bases (and all kmers, if the kmer size is larger) are stored as {@link Kmer}s in a regular set. Since a kmer
+ * is packed if and only if it is made of ACGT bases, two kmers are in the set under the same form exactly when they have
+ * the same bases, so this class has the same semantics as a {@code Set<Kmer>}.
+ */
+final class PackedKmerSet {
+
+    /**
+     * Largest kmer size that fits into a long, 2 bits per base, leaving the sign bit for {@link #EMPTY_SLOT}
+     */
+    static final int MAX_PACKED_KMER_SIZE = 31;
+
+    private static final long EMPTY_SLOT = -1L;
+
+    /**
+     * The bases of the 2-bit codes
+     */
+    static final byte[] DECODED_BASES = { 'A', 'C', 'G', 'T' };
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final int kmerSize;
+    private final boolean canPack;
+    private final long kmerMask;
+
+    // open-addressing table of packed kmers (linear probing, at most half full), with EMPTY_SLOT in unused slots
+    private long[] table;
+    private int numPackedKmers = 0;
+
+    // kmers that can't be packed
+    private final Set<Kmer> unpackedKmers = new HashSet<>();
+
+    /**
+     * @param kmerSize the size of the kmers in the set. Must be > 0.
+     */
+    PackedKmerSet(final int kmerSize) {
+        Utils.validateArg(kmerSize > 0, () -> "bad kmerSize " + kmerSize);
+        this.kmerSize = kmerSize;
+        this.canPack = kmerSize <= MAX_PACKED_KMER_SIZE;
+        this.kmerMask = canPack ? (1L << (2 * kmerSize)) - 1 : 0;
+        this.table = new long[INITIAL_CAPACITY];
+        Arrays.fill(table, EMPTY_SLOT);
+    }
+
+    /**
+     * @return the 2-bit code of base, or -1 if it isn't one of A, C, G or T
+     */
+    static int encode(final byte base) {
+        switch ( base ) {
+            case 'A': return 0;
+            case 'C': return 1;
+            case 'G': return 2;
+            case 'T': return 3;
+            default: return -1;
+        }
+    }
+
+    /**
+     * @return the kmer starting at start in bases packed into a long, or -1 if it can't be packed
+     */
+    private long pack(final byte[] bases, final int start) {
+        if ( ! canPack ) {
+            return -1;
+        }
+        long packed = 0;
+        for ( int i = start; i < start + kmerSize; i++ ) {
+            final int code = encode(bases[i]);
+            if ( code < 0 ) {
+                return -1;
+            }
+            packed = (packed << 2) | code;
+        }
+        return packed;
+    }
+
+    /**
+     * @return the number of kmers in the set
+     */
+    int size() {
+        return numPackedKmers + unpackedKmers.size();
+    }
+
+    /**
+     * @return true if the set contains the kmer starting at start in bases
+     */
+    boolean contains(final byte[] bases, final int start) {
+        final long packed = pack(bases, start);
+        return packed >= 0 ? containsPacked(packed) : unpackedKmers.contains(new Kmer(bases, start, kmerSize));
+    }
+
+    /**
+     * @return true if the set contains kmer
+     */
+    boolean contains(final Kmer kmer) {
+        Utils.validateArg(kmer.length() == kmerSize, "kmer has the wrong size");
+        final long packed = pack(kmer.bases(), 0);
+        return packed >= 0 ? containsPacked(packed) : unpackedKmers.contains(kmer);
+    }
+
+    /**
+     * Adds the kmer starting at start in bases to the set. The bases must not be modified afterwards.
+     *
+     * @return true if the kmer wasn't already in the set
+     */
+    boolean add(final byte[] bases, final int start) {
+        final long packed = pack(bases, start);
+        return packed >= 0 ? addPacked(packed) : unpackedKmers.add(new Kmer(bases, start, kmerSize));
+    }
+
+    /**
+     * Adds all the kmers of bases starting at positions from to lastStart (inclusive) to the set, and adds those
+     * that were already present, either in the set or earlier in bases, to duplicates. The kmers are packed
+     * incrementally, one base at a time. The bases must not be modified afterwards.
+     *
+     * @param duplicates a set of kmers of the same size
+     */
+    void addAll(final byte[] bases, final int from, final int lastStart, final PackedKmerSet duplicates) {
+        Utils.validateArg(duplicates.kmerSize == kmerSize, "duplicates must have the same kmer size");
+        if ( lastStart < from ) {
+            return;
+        }
+        long packed = 0;
+        // number of consecutive ACGT bases ending at the current position
+        int packableRun = 0;
+        for ( int i = from; i <= lastStart + kmerSize - 1; i++ ) {
+            final int code = encode(bases[i]);
+            if ( code < 0 ) {
+                packableRun = 0;
+            } else {
+                packed = ((packed << 2) | code) & kmerMask;
+                packableRun++;
+            }
+
+            final int kmerStart = i - kmerSize + 1;
+            if ( kmerStart < from ) {
+                continue;
+            }
+            if ( canPack && packableRun >= kmerSize ) {
+                if ( ! addPacked(packed) ) {
+                    duplicates.addPacked(packed);
+                }
+            } else {
+                final Kmer kmer = new Kmer(bases, kmerStart, kmerSize);
+                if ( ! unpackedKmers.add(kmer) ) {
+                    duplicates.unpackedKmers.add(kmer);
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove all kmers from the set, keeping its capacity
+     */
+    void clear() {
+        if ( numPackedKmers > 0 ) {
+            Arrays.fill(table, EMPTY_SLOT);
+            numPackedKmers = 0;
+        }
+        unpackedKmers.clear();
+    }
+
+    /**
+     * @return the kmers of the set as Kmer objects, for debugging and testing
+     */
+    Set<Kmer> toKmers() {
+        final Set<Kmer> kmers = new LinkedHashSet<>(unpackedKmers);
+        for ( final long packed : table ) {
+            if ( packed != EMPTY_SLOT ) {
+                final byte[] bases = new byte[kmerSize];
+                for ( int i = kmerSize - 1, shift = 0; i >= 0; i--, shift += 2 ) {
+                    bases[i] = DECODED_BASES[(int)((packed >>> shift) & 3)];
+                }
+                kmers.add(new Kmer(bases));
+            }
+        }
+        return kmers;
+    }
+
+    private int slotOf(final long packed, final long[] slots) {
+        // spread the bits of the kmer, whose low bits only depend on its last bases
+        final long hash = packed * 0x9E3779B97F4A7C15L;
+        final int mask = slots.length - 1;
+        int slot = (int)(hash >>> 32) & mask;
+        while ( slots[slot] != EMPTY_SLOT && slots[slot] != packed ) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * @return true if the set contains the kmer packed 2 bits per base (see {@link #encode}), first base in the highest bits
+     */
+    boolean containsPacked(final long packed) {
+        return numPackedKmers > 0 && table[slotOf(packed, table)] == packed;
+    }
+
+    private boolean addPacked(final long packed) {
+        final int slot = slotOf(packed, table);
+        if ( table[slot] == packed ) {
+            return false;
+        }
+        table[slot] = packed;
+        if ( ++numPackedKmers * 2 > table.length ) {
+            grow();
+        }
+        return true;
+    }
+
+    private void grow() {
+        final long[] newTable = new long[table.length * 2];
+        Arrays.fill(newTable, EMPTY_SLOT);
+        for ( final long packed : table ) {
+            if ( packed != EMPTY_SLOT ) {
+                newTable[slotOf(packed, newTable)] = packed;
+            }
+        }
+        table = newTable;
+    }
+}
@@ -0,0 +1,843 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.readthreading;
+
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.Kmer;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.graphs.ChainPruner;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.graphs.GraphBasedKBestHaplotypeFinder;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.graphs.KBestHaplotype;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.graphs.MultiSampleEdge;
+import org.broadinstitute.hellbender.utils.BaseUtils;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+
+import java.util.*;
+
+/**
+ * Read threading graph stored in primitive arrays, used by {@link ReadThreadingGraph} to thread its sequences and prune
+ * its chains without creating a vertex object and an edge object for every kmer and kmer transition of every read.
+ *
+ * Vertices and edges are numbered in the order they are created. Each vertex holds its kmer packed 2 bits per base into
+ * a long (see {@link PackedKmerSet}), and the kmer index of {@link ReadThreadingGraph} is an open-addressing table from
+ * packed kmers to vertex numbers. The outgoing and incoming edges of each vertex are linked lists threaded through int
+ * arrays, in creation order, and the multiplicities of the edges are kept in int arrays. Removed vertices and edges are
+ * only flagged as such.
+ *
+ * Sequences are threaded exactly as by {@link ReadThreadingGraph#buildGraphIfNecessary()}, {@link ChainPruner}s remove
+ * the same chains (see {@link ChainPruner#pruneLowWeightChains(PackedReadThreadingGraph)}), and
+ * {@link #findBestHaplotypes(int)} finds the same haplotypes as {@link GraphBasedKBestHaplotypeFinder}, as they would on
+ * the equivalent {@link ReadThreadingGraph}. {@link #copyInto(ReadThreadingGraph)} creates that graph, with its vertices
+ * and edges in the same order, for the remaining steps of the assembly.
+ *
+ * Only sequences whose kmers are made of A, C, G and T bases and have at most {@link PackedKmerSet#MAX_PACKED_KMER_SIZE}
+ * bases can be threaded (see {@link #canThread}).
+ */
+public final class PackedReadThreadingGraph {
+    private static final int NO_VERTEX = -1;
+    private static final int NO_EDGE = -1;
+    private static final long EMPTY_SLOT = -1L;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final int kmerSize;
+    private final long kmerMask;
+    private final int numPruningSamples;
+    private final PackedKmerSet nonUniqueKmers;
+    private final boolean startThreadingOnlyAtExistingVertex;
+    private final boolean increaseCountsThroughBranches;
+
+    // kmer index: open-addressing table (linear probing, at most half full) of the packed kmers of the vertices tracked
+    // by ReadThreadingGraph#trackKmer, with the number of their vertex, or NO_VERTEX once the kmer has been dropped
+    private long[] kmerTable;
+    private int[] kmerTableVertices;
+    private int numTableKmers = 0;
+
+    // vertices
+    private int numVertices = 0;
+    private long[] vertexKmers;
+    private boolean[] trackedVertices;
+    private boolean[] removedVertices;
+    private int[] firstOutgoingEdges;
+    private int[] lastOutgoingEdges;
+    private int[] firstIncomingEdges;
+    private int[] lastIncomingEdges;
+    private int[] outDegrees;
+    private int[] inDegrees;
+
+    // edges
+    private int numEdges = 0;
+    private int[] edgeSources;
+    private int[] edgeTargets;
+    private int[] nextOutgoingEdges;
+    private int[] nextIncomingEdges;
+    private boolean[] refEdges;
+    private boolean[] removedEdges;
+    private int[] multiplicities;
+
+    // the multiplicity of each edge in the sample being threaded, and the (up to numPruningSamples) largest
+    // multiplicities of the samples threaded so far, numPruningSamples per edge (see MultiSampleEdge)
+    private int[] currentSampleMultiplicities;
+    private int[] sampleMultiplicities;
+    private int[] numSampleMultiplicities;
+
+    private boolean hasRefSource = false;
+    private long refSource;
+    private int[] referencePath = new int[0];
+
+    /**
+     * @param kmerSize the kmer size, at most {@link PackedKmerSet#MAX_PACKED_KMER_SIZE}
+     * @param numPruningSamples the number of samples whose multiplicities are tracked for pruning
+     * @param nonUniqueKmers the kmers that can't be merge points in the graph
+     * @param startThreadingOnlyAtExistingVertex see {@link AbstractReadThreadingGraph#setThreadingStartOnlyAtExistingVertex}
+     * @param increaseCountsThroughBranches see {@link AbstractReadThreadingGraph#setIncreaseCountsThroughBranches}
+     */
+    PackedReadThreadingGraph(final int kmerSize, final int numPruningSamples, final PackedKmerSet nonUniqueKmers,
+                             final boolean startThreadingOnlyAtExistingVertex, final boolean increaseCountsThroughBranches) {
+        Utils.validateArg(kmerSize > 0 && kmerSize <= PackedKmerSet.MAX_PACKED_KMER_SIZE, () -> "bad kmerSize " + kmerSize);
+        Utils.validateArg(numPruningSamples > 0, () -> "numPruningSamples must be > 0 but found: " + numPruningSamples);
+        this.kmerSize = kmerSize;
+        this.kmerMask = (1L << (2 * kmerSize)) - 1;
+        this.numPruningSamples = numPruningSamples;
+        this.nonUniqueKmers = Utils.nonNull(nonUniqueKmers);
+        this.startThreadingOnlyAtExistingVertex = startThreadingOnlyAtExistingVertex;
+        this.increaseCountsThroughBranches = increaseCountsThroughBranches;
+
+        kmerTable = new long[INITIAL_CAPACITY];
+        Arrays.fill(kmerTable, EMPTY_SLOT);
+        kmerTableVertices = new int[INITIAL_CAPACITY];
+        resizeVertices(INITIAL_CAPACITY);
+        resizeEdges(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @return true if every kmer of sequences that is threaded into a graph of kmerSize can be packed, that is if
+     *         kmerSize is at most {@link PackedKmerSet#MAX_PACKED_KMER_SIZE}, the threaded bases are all A, C, G or T
+     *         and the reference, if any, has at least one kmer
+     */
+    static boolean canThread(final int kmerSize, final Collection<AbstractReadThreadingGraph.SequenceForKmers> sequences) {
+        if ( kmerSize > PackedKmerSet.MAX_PACKED_KMER_SIZE ) {
+            return false;
+        }
+        for ( final AbstractReadThreadingGraph.SequenceForKmers sequenceForKmers : sequences ) {
+            if ( sequenceForKmers.isRef && sequenceForKmers.stop - sequenceForKmers.start < kmerSize ) {
+                return false;
+            }
+            // the reference is always threaded from its first base
+            for ( int i = sequenceForKmers.isRef ? 0 : sequenceForKmers.start; i < sequenceForKmers.stop; i++ ) {
+                if ( PackedKmerSet.encode(sequenceForKmers.sequence[i]) < 0 ) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Thread the sequences of each sample into the graph, as {@link AbstractReadThreadingGraph#buildGraphIfNecessary()}
+     * does, flushing the single sample multiplicities of the edges after each sample
+     *
+     * @param sequencesBySample the sequences of each sample, all threadable (see {@link #canThread})
+     */
+    void threadSequences(final Collection<? extends Collection<AbstractReadThreadingGraph.SequenceForKmers>> sequencesBySample) {
+        for ( final Collection<AbstractReadThreadingGraph.SequenceForKmers> sequencesForSample : sequencesBySample ) {
+            for ( final AbstractReadThreadingGraph.SequenceForKmers sequenceForKmers : sequencesForSample ) {
+                threadSequence(sequenceForKmers);
+            }
+
+            for ( int edge = 0; edge < numEdges; edge++ ) {
+                if ( ! removedEdges[edge] ) {
+                    flushSingleSampleMultiplicity(edge);
+                }
+            }
+        }
+    }
+
+    private void threadSequence(final AbstractReadThreadingGraph.SequenceForKmers seqForKmers) {
+        final int startPos = findStart(seqForKmers);
+        if ( startPos == -1 ) {
+            return;
+        }
+
+        final long startingKmer = pack(seqForKmers.sequence, startPos);
+        final int trackedVertex = getTrackedVertex(startingKmer);
+        final int startingVertex = trackedVertex != NO_VERTEX ? trackedVertex : createVertex(startingKmer);
+
+        // increase the counts of all edges incoming into the starting vertex supported by going back in sequence
+        increaseCountsInMatchedKmers(seqForKmers.count, startingVertex, startingKmer, kmerSize - 2);
+
+        int referencePathLength = 0;
+        if ( seqForKmers.isRef ) {
+            if ( hasRefSource ) {
+                throw new IllegalStateException("Found two refSources! prev: " + new String(unpack(refSource)) + ", new: " + new String(unpack(startingKmer)));
+            }
+            referencePath = new int[seqForKmers.stop - kmerSize - startPos + 1];
+            referencePath[referencePathLength++] = startingVertex;
+            refSource = pack(seqForKmers.sequence, seqForKmers.start);
+            hasRefSource = true;
+        }
+
+        // loop over all of the bases in sequence, extending the graph by one base at each point, as appropriate
+        int vertex = startingVertex;
+        for ( int i = startPos + 1; i <= seqForKmers.stop - kmerSize; i++ ) {
+            vertex = extendChainByOne(vertex, seqForKmers.sequence, i, seqForKmers.count, seqForKmers.isRef);
+            if ( seqForKmers.isRef ) {
+                referencePath[referencePathLength++] = vertex;
+            }
+        }
+    }
+
+    /**
+     * @see AbstractReadThreadingGraph#findStart
+     */
+    private int findStart(final AbstractReadThreadingGraph.SequenceForKmers seqForKmers) {
+        if ( seqForKmers.isRef ) {
+            return 0;
+        }
+
+        for ( int i = seqForKmers.start; i < seqForKmers.stop - kmerSize; i++ ) {
+            final boolean isThreadingStart = startThreadingOnlyAtExistingVertex ?
+                    getTrackedVertex(pack(seqForKmers.sequence, i)) != NO_VERTEX : ! nonUniqueKmers.contains(seqForKmers.sequence, i);
+            if ( isThreadingStart ) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private void increaseCountsInMatchedKmers(final int count, final int vertex, final long originalKmer, final int offset) {
+        if ( offset == -1 ) {
+            return;
+        }
+
+        final int seqBase = (int)((originalKmer >>> (2 * (kmerSize - 1 - offset))) & 3);
+        for ( int edge = firstIncomingEdges[vertex]; edge != NO_EDGE; edge = nextIncomingEdges[edge] ) {
+            final int prev = edgeSources[edge];
+            if ( getSuffix(prev) == seqBase && (increaseCountsThroughBranches || inDegrees[vertex] == 1) ) {
+                incMultiplicity(edge, count);
+                increaseCountsInMatchedKmers(count, prev, originalKmer, offset - 1);
+            }
+        }
+    }
+
+    /**
+     * @see AbstractReadThreadingGraph#extendChainByOne
+     */
+    private int extendChainByOne(final int prevVertex, final byte[] sequence, final int kmerStart, final int count, final boolean isRef) {
+        final int nextBase = PackedKmerSet.encode(sequence[kmerStart + kmerSize - 1]);
+        for ( int edge = firstOutgoingEdges[prevVertex]; edge != NO_EDGE; edge = nextOutgoingEdges[edge] ) {
+            final int target = edgeTargets[edge];
+            if ( getSuffix(target) == nextBase ) {
+                // we've got a match in the chain, so simply increase the count of the edge by 1 and continue
+                incMultiplicity(edge, count);
+                return target;
+            }
+        }
+
+        // the kmer of prevVertex is the previous kmer of sequence, so shifting in the next base gives the current one
+        final long kmer = ((vertexKmers[prevVertex] << 2) | nextBase) & kmerMask;
+        final int mergeVertex = hasRefSource && kmer == refSource ? NO_VERTEX : getTrackedVertex(kmer);
+        Utils.validate(!(isRef && mergeVertex != NO_VERTEX), () -> "Found a unique vertex to merge into the reference graph " +
+                new String(unpack(vertexKmers[prevVertex])) + " -> " + new String(unpack(kmer)));
+
+        // either use our merge vertex, or create a new one in the chain
+        final int nextVertex = mergeVertex == NO_VERTEX ? createVertex(kmer) : mergeVertex;
+        addEdge(prevVertex, nextVertex, isRef, count);
+        return nextVertex;
+    }
+
+    private int createVertex(final long kmer) {
+        if ( numVertices == vertexKmers.length ) {
+            resizeVertices(2 * numVertices);
+        }
+        final int vertex = numVertices++;
+        vertexKmers[vertex] = kmer;
+        firstOutgoingEdges[vertex] = NO_EDGE;
+        lastOutgoingEdges[vertex] = NO_EDGE;
+        firstIncomingEdges[vertex] = NO_EDGE;
+        lastIncomingEdges[vertex] = NO_EDGE;
+
+        // only track the kmer if it isn't non-unique and isn't tracked already (see ReadThreadingGraph#trackKmer)
+        if ( ! nonUniqueKmers.containsPacked(kmer) ) {
+            final int slot = slotOf(kmer, kmerTable);
+            if ( kmerTable[slot] != kmer ) {
+                kmerTable[slot] = kmer;
+                kmerTableVertices[slot] = vertex;
+                trackedVertices[vertex] = true;
+                if ( ++numTableKmers * 2 > kmerTable.length ) {
+                    growKmerTable();
+                }
+            }
+        }
+        return vertex;
+    }
+
+    private void addEdge(final int source, final int target, final boolean isRef, final int multiplicity) {
+        if ( numEdges == edgeSources.length ) {
+            resizeEdges(2 * numEdges);
+        }
+        final int edge = numEdges++;
+        edgeSources[edge] = source;
+        edgeTargets[edge] = target;
+        nextOutgoingEdges[edge] = NO_EDGE;
+        nextIncomingEdges[edge] = NO_EDGE;
+        refEdges[edge] = isRef;
+        multiplicities[edge] = multiplicity;
+        currentSampleMultiplicities[edge] = multiplicity;
+        sampleMultiplicities[edge * numPruningSamples] = multiplicity;
+        numSampleMultiplicities[edge] = 1;
+
+        if ( lastOutgoingEdges[source] == NO_EDGE ) {
+            firstOutgoingEdges[source] = edge;
+        } else {
+            nextOutgoingEdges[lastOutgoingEdges[source]] = edge;
+        }
+        lastOutgoingEdges[source] = edge;
+        outDegrees[source]++;
+
+        if ( lastIncomingEdges[target] == NO_EDGE ) {
+            firstIncomingEdges[target] = edge;
+        } else {
+            nextIncomingEdges[lastIncomingEdges[target]] = edge;
+        }
+        lastIncomingEdges[target] = edge;
+        inDegrees[target]++;
+    }
+
+    private void incMultiplicity(final int edge, final int incr) {
+        multiplicities[edge] += incr;
+        currentSampleMultiplicities[edge] += incr;
+    }
+
+    /**
+     * Keep the multiplicity of the edge in the current sample if it is among the numPruningSamples largest, and reset it
+     * (see {@link MultiSampleEdge#flushSingleSampleMultiplicity()})
+     */
+    private void flushSingleSampleMultiplicity(final int edge) {
+        final int offset = edge * numPruningSamples;
+        final int multiplicity = currentSampleMultiplicities[edge];
+        if ( numSampleMultiplicities[edge] < numPruningSamples ) {
+            sampleMultiplicities[offset + numSampleMultiplicities[edge]++] = multiplicity;
+        } else {
+            int lowest = offset;
+            for ( int i = offset + 1; i < offset + numPruningSamples; i++ ) {
+                if ( sampleMultiplicities[i] < sampleMultiplicities[lowest] ) {
+                    lowest = i;
+                }
+            }
+            if ( multiplicity > sampleMultiplicities[lowest] ) {
+                sampleMultiplicities[lowest] = multiplicity;
+            }
+        }
+        currentSampleMultiplicities[edge] = 0;
+    }
+
+    /**
+     * @see MultiSampleEdge#getPruningMultiplicity()
+     */
+    private int getPruningMultiplicity(final int edge) {
+        final int offset = edge * numPruningSamples;
+        int pruningMultiplicity = sampleMultiplicities[offset];
+        for ( int i = offset + 1; i < offset + numSampleMultiplicities[edge]; i++ ) {
+            pruningMultiplicity = Math.min(pruningMultiplicity, sampleMultiplicities[i]);
+        }
+        return pruningMultiplicity;
+    }
+
+    /**
+     * Find the chains of the graph, as {@link ChainPruner} does for a {@link org.broadinstitute.hellbender.tools.walkers.haplotypecaller.graphs.BaseGraph}
+     *
+     * @return the chains, in the same order
+     */
+    public PackedChains findAllChains() {
+        final PackedChains chains = new PackedChains();
+        final boolean[] alreadySeen = new boolean[numVertices];
+
+        // each vertex is added at most once, so the queue of chain starts needs no wrap-around
+        final int[] chainStarts = new int[numVertices];
+        int head = 0;
+        int tail = 0;
+        for ( int vertex = 0; vertex < numVertices; vertex++ ) {
+            if ( ! removedVertices[vertex] && inDegrees[vertex] == 0 ) {
+                chainStarts[tail++] = vertex;
+                alreadySeen[vertex] = true;
+            }
+        }
+
+        while ( head < tail ) {
+            final int chainStart = chainStarts[head++];
+            for ( int edge = firstOutgoingEdges[chainStart]; edge != NO_EDGE; edge = nextOutgoingEdges[edge] ) {
+                if ( removedEdges[edge] ) {
+                    continue;
+                }
+                final int chainEnd = chains.addChain(edge);
+                if ( ! alreadySeen[chainEnd] ) {
+                    chainStarts[tail++] = chainEnd;
+                    alreadySeen[chainEnd] = true;
+                }
+            }
+        }
+        return chains;
+    }
+
+    /**
+     * Remove the edges of the chains to remove
+     *
+     * @param chains chains found by {@link #findAllChains()}, with no edges removed since
+     * @param chainsToRemove the indices of the chains to remove
+     */
+    public void removeChains(final PackedChains chains, final BitSet chainsToRemove) {
+        for ( int chain = chainsToRemove.nextSetBit(0); chain >= 0; chain = chainsToRemove.nextSetBit(chain + 1) ) {
+            for ( int i = chains.chainStarts[chain]; i < chains.chainStarts[chain + 1]; i++ ) {
+                final int edge = chains.chainEdges[i];
+                if ( ! removedEdges[edge] ) {
+                    removedEdges[edge] = true;
+                    outDegrees[edgeSources[edge]]--;
+                    inDegrees[edgeTargets[edge]]--;
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove the vertices with no edges, dropping their kmers from the kmer index, as
+     * {@link AbstractReadThreadingGraph#removeSingletonOrphanVertices()} does
+     */
+    public void removeSingletonOrphanVertices() {
+        for ( int vertex = 0; vertex < numVertices; vertex++ ) {
+            if ( ! removedVertices[vertex] && inDegrees[vertex] == 0 && outDegrees[vertex] == 0 ) {
+                removedVertices[vertex] = true;
+                // as in AbstractReadThreadingGraph#removeVertex, the kmer is dropped even if it maps to another vertex
+                final int slot = slotOf(vertexKmers[vertex], kmerTable);
+                if ( kmerTable[slot] == vertexKmers[vertex] ) {
+                    kmerTableVertices[slot] = NO_VERTEX;
+                }
+            }
+        }
+    }
+
+    /**
+     * Find the best haplotypes from the sources to the sinks of the graph, as {@link GraphBasedKBestHaplotypeFinder} does
+     * on the equivalent {@link ReadThreadingGraph} (including the removal of the edges that close cycles and of the
+     * vertices that don't lead to a sink, if the graph has cycles)
+     *
+     * @param maxNumberOfHaplotypes the maximum number of haplotypes to find
+     * @return the haplotypes, best first, with their scores
+     */
+    public List<Haplotype> findBestHaplotypes(final int maxNumberOfHaplotypes) {
+        final boolean[] sinks = new boolean[numVertices];
+        final List<Integer> sources = new ArrayList<>();
+        for ( int vertex = 0; vertex < numVertices; vertex++ ) {
+            if ( ! removedVertices[vertex] ) {
+                sinks[vertex] = outDegrees[vertex] == 0;
+                if ( inDegrees[vertex] == 0 ) {
+                    sources.add(vertex);
+                }
+            }
+        }
+
+        // the vertices and edges of the graph searched, without the edges closing cycles if there are any
+        final boolean[] excludedVertices = removedVertices.clone();
+        final boolean[] excludedEdges = removedEdges.clone();
+        if ( hasCycles() ) {
+            excludeCyclesAndVerticesThatDontLeadToSinks(sources, sinks, excludedVertices, excludedEdges);
+        }
+
+        final List<Haplotype> result = new ArrayList<>();
+        final PriorityQueue<PartialHaplotype> queue = new PriorityQueue<>(Comparator.comparingDouble((PartialHaplotype p) -> p.score)
+                .reversed()
+                .thenComparing((PartialHaplotype p) -> p.bases, BaseUtils.BASES_COMPARATOR.reversed())); // This is an arbitrary deterministic tie breaker.
+        for ( final int source : sources ) {
+            Utils.validateArg(! excludedVertices[source], () -> "Vertex " + new String(unpack(vertexKmers[source])) + " must be part of graph");
+            queue.add(new PartialHaplotype(source, 0, unpack(vertexKmers[source])));
+        }
+
+        final int[] vertexCounts = new int[numVertices];
+        while ( ! queue.isEmpty() && result.size() < maxNumberOfHaplotypes ) {
+            final PartialHaplotype pathToExtend = queue.poll();
+            final int vertexToExtend = pathToExtend.lastVertex;
+            if ( sinks[vertexToExtend] ) {
+                final Haplotype haplotype = new Haplotype(pathToExtend.bases, false);
+                haplotype.setScore(pathToExtend.score);
+                result.add(haplotype);
+            } else if ( vertexCounts[vertexToExtend]++ < maxNumberOfHaplotypes ) {
+                int totalOutgoingMultiplicity = 0;
+                for ( int edge = firstOutgoingEdges[vertexToExtend]; edge != NO_EDGE; edge = nextOutgoingEdges[edge] ) {
+                    if ( ! excludedEdges[edge] ) {
+                        totalOutgoingMultiplicity += multiplicities[edge];
+                    }
+                }
+
+                for ( int edge = firstOutgoingEdges[vertexToExtend]; edge != NO_EDGE; edge = nextOutgoingEdges[edge] ) {
+                    if ( ! excludedEdges[edge] ) {
+                        final int target = edgeTargets[edge];
+                        final byte[] bases = Arrays.copyOf(pathToExtend.bases, pathToExtend.bases.length + 1);
+                        bases[bases.length - 1] = PackedKmerSet.DECODED_BASES[getSuffix(target)];
+                        queue.add(new PartialHaplotype(target, pathToExtend.score + KBestHaplotype.computeLogPenaltyScore(multiplicities[edge], totalOutgoingMultiplicity), bases));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return true if the graph has a cycle
+     */
+    public boolean hasCycles() {
+        // iterative depth-first search, with the next edge to follow of each vertex on the stack
+        final byte[] states = new byte[numVertices]; // 0: not visited yet, 1: on the stack, 2: done
+        final int[] stack = new int[numVertices];
+        final int[] nextEdges = new int[numVertices];
+        for ( int root = 0; root < numVertices; root++ ) {
+            if ( removedVertices[root] || states[root] != 0 ) {
+                continue;
+            }
+            int stackSize = 0;
+            stack[stackSize++] = root;
+            nextEdges[root] = firstOutgoingEdges[root];
+            states[root] = 1;
+            while ( stackSize > 0 ) {
+                final int vertex = stack[stackSize - 1];
+                final int edge = nextEdges[vertex];
+                if ( edge == NO_EDGE ) {
+                    states[vertex] = 2;
+                    stackSize--;
+                    continue;
+                }
+                nextEdges[vertex] = nextOutgoingEdges[edge];
+                if ( removedEdges[edge] ) {
+                    continue;
+                }
+                final int target = edgeTargets[edge];
+                if ( states[target] == 1 ) {
+                    return true;
+                } else if ( states[target] == 0 ) {
+                    states[target] = 1;
+                    nextEdges[target] = firstOutgoingEdges[target];
+                    stack[stackSize++] = target;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Exclude the edges that close cycles and the vertices that don't lead to any sink, as
+     * {@link org.broadinstitute.hellbender.tools.walkers.haplotypecaller.graphs.KBestHaplotypeFinder} does
+     */
+    private void excludeCyclesAndVerticesThatDontLeadToSinks(final List<Integer> sources, final boolean[] sinks,
+                                                             final boolean[] excludedVertices, final boolean[] excludedEdges) {
+        final BitSet edgesToRemove = new BitSet(numEdges);
+        final BitSet verticesToRemove = new BitSet(numVertices);
+
+        boolean foundSomePath = false;
+        for ( final int source : sources ) {
+            final boolean[] parentVertices = new boolean[numVertices];
+            foundSomePath = findGuiltyVerticesAndEdgesToRemoveCycles(source, sinks, edgesToRemove, verticesToRemove, parentVertices) || foundSomePath;
+        }
+
+        Utils.validate(foundSomePath, "could not find any path from the source vertex to the sink vertex after removing cycles");
+        Utils.validate(!(edgesToRemove.isEmpty() && verticesToRemove.isEmpty()), "cannot find a way to remove the cycles");
+
+        edgesToRemove.stream().forEach(edge -> excludedEdges[edge] = true);
+        verticesToRemove.stream().forEach(vertex -> excludedVertices[vertex] = true);
+        for ( int edge = 0; edge < numEdges; edge++ ) {
+            if ( verticesToRemove.get(edgeSources[edge]) || verticesToRemove.get(edgeTargets[edge]) ) {
+                excludedEdges[edge] = true;
+            }
+        }
+    }
+
+    private boolean findGuiltyVerticesAndEdgesToRemoveCycles(final int currentVertex, final boolean[] sinks, final BitSet edgesToRemove,
+                                                             final BitSet verticesToRemove, final boolean[] parentVertices) {
+        if ( sinks[currentVertex] ) {
+            return true;
+        }
+
+        parentVertices[currentVertex] = true;
+
+        boolean reachesSink = false;
+        for ( int edge = firstOutgoingEdges[currentVertex]; edge != NO_EDGE; edge = nextOutgoingEdges[edge] ) {
+            if ( removedEdges[edge] ) {
+                continue;
+            }
+            final int child = edgeTargets[edge];
+            if ( parentVertices[child] ) {
+                edgesToRemove.set(edge);
+            } else {
+                final boolean childReachSink = findGuiltyVerticesAndEdgesToRemoveCycles(child, sinks, edgesToRemove, verticesToRemove, parentVertices);
+                reachesSink = reachesSink || childReachSink;
+            }
+        }
+        if ( ! reachesSink ) {
+            verticesToRemove.set(currentVertex);
+        }
+        return reachesSink;
+    }
+
+    /**
+     * Add the vertices and edges of this graph to graph, in the same order, along with its kmer index and reference
+     * path, and mark graph as built. Graph is then the same as if the sequences threaded into this graph had been
+     * added to it and built with {@link ReadThreadingGraph#buildGraphIfNecessary()}, and then pruned the same way.
+     *
+     * @param graph an empty graph, with the same kmer size and number of pruning samples
+     */
+    void copyInto(final ReadThreadingGraph graph) {
+        Utils.validateArg(graph.vertexSet().isEmpty(), "the graph must be empty");
+        Utils.validateArg(graph.getKmerSize() == kmerSize, "the graph must have the same kmer size");
+
+        final MultiDeBruijnVertex[] vertices = new MultiDeBruijnVertex[numVertices];
+        for ( int vertex = 0; vertex < numVertices; vertex++ ) {
+            if ( ! removedVertices[vertex] ) {
+                vertices[vertex] = createVertexObject(vertex);
+                graph.addVertex(vertices[vertex]);
+            }
+        }
+
+        for ( int edge = 0; edge < numEdges; edge++ ) {
+            if ( ! removedEdges[edge] ) {
+                final int offset = edge * numPruningSamples;
+                graph.addEdge(vertices[edgeSources[edge]], vertices[edgeTargets[edge]], new MultiSampleEdge(refEdges[edge], multiplicities[edge],
+                        numPruningSamples, Arrays.copyOfRange(sampleMultiplicities, offset, offset + numSampleMultiplicities[edge])));
+            }
+        }
+
+        // the tracked kmers were added to the kmer index in the order their vertices were created
+        for ( int vertex = 0; vertex < numVertices; vertex++ ) {
+            if ( trackedVertices[vertex] && getTrackedVertex(vertexKmers[vertex]) == vertex ) {
+                graph.kmerToVertexMap.put(new Kmer(vertices[vertex].getSequence()), vertices[vertex]);
+            }
+        }
+
+        // the reference path keeps the vertices that have been removed since it was threaded
+        final List<MultiDeBruijnVertex> refPath = new ArrayList<>(referencePath.length);
+        for ( final int vertex : referencePath ) {
+            if ( vertices[vertex] == null ) {
+                vertices[vertex] = createVertexObject(vertex);
+            }
+            refPath.add(vertices[vertex]);
+        }
+
+        graph.setBuiltFromPackedGraph(hasRefSource ? Collections.unmodifiableList(refPath) : null,
+                hasRefSource ? new Kmer(unpack(refSource)) : null);
+    }
+
+    private MultiDeBruijnVertex createVertexObject(final int vertex) {
+        final MultiDeBruijnVertex vertexObject = new MultiDeBruijnVertex(unpack(vertexKmers[vertex]));
+        if ( trackedVertices[vertex] ) {
+            // see AbstractReadThreadingGraph#buildGraphIfNecessary
+            vertexObject.setAdditionalInfo(vertexObject.getAdditionalInfo() + '+');
+        }
+        return vertexObject;
+    }
+
+    private long pack(final byte[] bases, final int start) {
+        long packed = 0;
+        for ( int i = start; i < start + kmerSize; i++ ) {
+            packed = (packed << 2) | PackedKmerSet.encode(bases[i]);
+        }
+        return packed;
+    }
+
+    private byte[] unpack(final long packed) {
+        final byte[] bases = new byte[kmerSize];
+        for ( int i = kmerSize - 1, shift = 0; i >= 0; i--, shift += 2 ) {
+            bases[i] = PackedKmerSet.DECODED_BASES[(int)((packed >>> shift) & 3)];
+        }
+        return bases;
+    }
+
+    /**
+     * @return the 2-bit code of the last base of the kmer of vertex
+     */
+    private int getSuffix(final int vertex) {
+        return (int)(vertexKmers[vertex] & 3);
+    }
+
+    /**
+     * @return the vertex of kmer in the kmer index, or NO_VERTEX if it isn't there
+     */
+    private int getTrackedVertex(final long kmer) {
+        final int slot = slotOf(kmer, kmerTable);
+        return kmerTable[slot] == kmer ? kmerTableVertices[slot] : NO_VERTEX;
+    }
+
+    private static int slotOf(final long packed, final long[] slots) {
+        // spread the bits of the kmer, whose low bits only depend on its last bases
+        final long hash = packed * 0x9E3779B97F4A7C15L;
+        final int mask = slots.length - 1;
+        int slot = (int)(hash >>> 32) & mask;
+        while ( slots[slot] != EMPTY_SLOT && slots[slot] != packed ) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void growKmerTable() {
+        final long[] newTable = new long[kmerTable.length * 2];
+        final int[] newTableVertices = new int[kmerTable.length * 2];
+        Arrays.fill(newTable, EMPTY_SLOT);
+        for ( int i = 0; i < kmerTable.length; i++ ) {
+            if ( kmerTable[i] != EMPTY_SLOT ) {
+                final int slot = slotOf(kmerTable[i], newTable);
+                newTable[slot] = kmerTable[i];
+                newTableVertices[slot] = kmerTableVertices[i];
+            }
+        }
+        kmerTable = newTable;
+        kmerTableVertices = newTableVertices;
+    }
+
+    private void resizeVertices(final int capacity) {
+        vertexKmers = vertexKmers == null ? new long[capacity] : Arrays.copyOf(vertexKmers, capacity);
+        trackedVertices = trackedVertices == null ? new boolean[capacity] : Arrays.copyOf(trackedVertices, capacity);
+        removedVertices = removedVertices == null ? new boolean[capacity] : Arrays.copyOf(removedVertices, capacity);
+        firstOutgoingEdges = resize(firstOutgoingEdges, capacity);
+        lastOutgoingEdges = resize(lastOutgoingEdges, capacity);
+        firstIncomingEdges = resize(firstIncomingEdges, capacity);
+        lastIncomingEdges = resize(lastIncomingEdges, capacity);
+        outDegrees = resize(outDegrees, capacity);
+        inDegrees = resize(inDegrees, capacity);
+    }
+
+    private void resizeEdges(final int capacity) {
+        edgeSources = resize(edgeSources, capacity);
+        edgeTargets = resize(edgeTargets, capacity);
+        nextOutgoingEdges = resize(nextOutgoingEdges, capacity);
+        nextIncomingEdges = resize(nextIncomingEdges, capacity);
+        refEdges = refEdges == null ? new boolean[capacity] : Arrays.copyOf(refEdges, capacity);
+        removedEdges = removedEdges == null ? new boolean[capacity] : Arrays.copyOf(removedEdges, capacity);
+        multiplicities = resize(multiplicities, capacity);
+        currentSampleMultiplicities = resize(currentSampleMultiplicities, capacity);
+        sampleMultiplicities = resize(sampleMultiplicities, capacity * numPruningSamples);
+        numSampleMultiplicities = resize(numSampleMultiplicities, capacity);
+    }
+
+    private static int[] resize(final int[] array, final int capacity) {
+        return array == null ? new int[capacity] : Arrays.copyOf(array, capacity);
+    }
+
+    /**
+     * A path being extended by {@link #findBestHaplotypes(int)}
+     */
+    private static final class PartialHaplotype {
+        final int lastVertex;
+        final double score;
+        final byte[] bases;
+
+        PartialHaplotype(final int lastVertex, final double score, final byte[] bases) {
+            this.lastVertex = lastVertex;
+            this.score = score;
+            this.bases = bases;
+        }
+    }
+
+    /**
+     * The chains of a {@link PackedReadThreadingGraph}, with the edges of all the chains in a single array. Vertices are
+     * identified by their number in the graph.
+     */
+    public final class PackedChains implements ChainPruner.Chains {
+        private int numChains = 0;
+        private int[] chainEdges = new int[INITIAL_CAPACITY];
+        // the edges of chain i are chainEdges[chainStarts[i]] to chainEdges[chainStarts[i + 1] - 1]
+        private int[] chainStarts = new int[INITIAL_CAPACITY + 1];
+
+        private PackedChains() { }
+
+        /**
+         * Add the fully extended linear path starting with startEdge (see {@link ChainPruner})
+         *
+         * @return the last vertex of the chain
+         */
+        private int addChain(final int startEdge) {
+            final int firstVertex = edgeSources[startEdge];
+            int lastVertex = edgeTargets[startEdge];
+            chainStarts[numChains + 1] = chainStarts[numChains];
+            addChainEdge(startEdge);
+
+            // chain ends if: 1) no out edges; 2) multiple out edges; 3) multiple in edges; 4) cycle back to start of chain
+            while ( outDegrees[lastVertex] == 1 && inDegrees[lastVertex] <= 1 && lastVertex != firstVertex ) {
+                int nextEdge = firstOutgoingEdges[lastVertex];
+                while ( removedEdges[nextEdge] ) {
+                    nextEdge = nextOutgoingEdges[nextEdge];
+                }
+                addChainEdge(nextEdge);
+                lastVertex = edgeTargets[nextEdge];
+            }
+
+            numChains++;
+            if ( numChains + 1 == chainStarts.length ) {
+                chainStarts = Arrays.copyOf(chainStarts, 2 * chainStarts.length);
+            }
+            return lastVertex;
+        }
+
+        private void addChainEdge(final int edge) {
+            final int end = chainStarts[numChains + 1];
+            if ( end == chainEdges.length ) {
+                chainEdges = Arrays.copyOf(chainEdges, 2 * chainEdges.length);
+            }
+            chainEdges[end] = edge;
+            chainStarts[numChains + 1] = end + 1;
+        }
+
+        private int getEdge(final int chain, final int edge) {
+            return chainEdges[chainStarts[chain] + edge];
+        }
+
+        @Override
+        public int size() { return numChains; }
+
+        @Override
+        public int length(final int chain) { return chainStarts[chain + 1] - chainStarts[chain]; }
+
+        @Override
+        public int firstVertex(final int chain) { return edgeSources[chainEdges[chainStarts[chain]]]; }
+
+        @Override
+        public int lastVertex(final int chain) { return edgeTargets[chainEdges[chainStarts[chain + 1] - 1]]; }
+
+        @Override
+        public int multiplicity(final int chain, final int edge) { return multiplicities[getEdge(chain, edge)]; }
+
+        @Override
+        public int pruningMultiplicity(final int chain, final int edge) { return getPruningMultiplicity(getEdge(chain, edge)); }
+
+        @Override
+        public boolean isRef(final int chain, final int edge) { return refEdges[getEdge(chain, edge)]; }
+
+        @Override
+        public int totalOutgoingMultiplicity(final int vertex) {
+            int total = 0;
+            for ( int edge = firstOutgoingEdges[vertex]; edge != NO_EDGE; edge = nextOutgoingEdges[edge] ) {
+                total += removedEdges[edge] ? 0 : multiplicities[edge];
+            }
+            return total;
+        }
+
+        @Override
+        public int totalIncomingMultiplicity(final int vertex) {
+            int total = 0;
+            for ( int edge = firstIncomingEdges[vertex]; edge != NO_EDGE; edge = nextIncomingEdges[edge] ) {
+                total += removedEdges[edge] ? 0 : multiplicities[edge];
+            }
+            return total;
+        }
+
+        @Override
+        public boolean isSource(final int vertex) { return inDegrees[vertex] == 0; }
+
+        @Override
+        public boolean isSink(final int vertex) { return outDegrees[vertex] == 0; }
+
+        @Override
+        public byte[] vertexSequence(final int vertex) { return unpack(vertexKmers[vertex]); }
+
+        @Override
+        public byte[] bases(final int chain) {
+            final byte[] bases = Arrays.copyOf(unpack(vertexKmers[firstVertex(chain)]), kmerSize + length(chain));
+            for ( int edge = 0; edge < length(chain); edge++ ) {
+                bases[kmerSize + edge] = PackedKmerSet.DECODED_BASES[getSuffix(edgeTargets[getEdge(chain, edge)])];
+            }
+            return bases;
+        }
+    }
+}
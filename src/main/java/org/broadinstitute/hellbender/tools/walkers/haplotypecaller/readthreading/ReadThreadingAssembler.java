@@ -14,6 +14,7 @@ import org.apache.logging.log4j.Logger;
 import org.broadinstitute.gatk.nativebindings.smithwaterman.SWOverhangStrategy;
 import org.broadinstitute.gatk.nativebindings.smithwaterman.SWParameters;
 import org.broadinstitute.hellbender.engine.AssemblyRegion;
+import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.AssemblyResult;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.AssemblyResultSet;
@@ -35,6 +36,9 @@ import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 public final class ReadThreadingAssembler {
@@ -81,6 +85,18 @@ public final class ReadThreadingAssembler {
     private Histogram haplotypeHistogram = null;
     private Histogram kmersUsedHistogram = null;
 
+    /**
+     * Pool building the graphs of different kmer sizes concurrently, owned by the caller, or null to build them one at
+     * a time (see {@link #createGraphs})
+     */
+    private ExecutorService kmerAssemblyPool = null;
+
+    /**
+     * If true, read threading graphs are threaded and pruned as {@link PackedReadThreadingGraph}s when possible (see
+     * {@link #createGraph})
+     */
+    private boolean usePackedAssemblyGraph = false;
+
     public ReadThreadingAssembler(final int maxAllowedPathsForReadThreadingAssembler, final List<Integer> kmerSizes,
                                   final boolean dontIncreaseKmerSizesForCycles, final boolean allowNonUniqueKmersInRef,
                                   final int numPruningSamples, final int pruneFactor, final boolean useAdaptivePruning,
@@ -551,29 +567,84 @@ public final class ReadThreadingAssembler {
      */
     @VisibleForTesting
     List<AssemblyResult> assemble(final List<GATKRead> reads, final Haplotype refHaplotype, final SAMFileHeader header, final SmithWatermanAligner aligner, final SWParameters danglingEndSWParameters) {
-        final List<AssemblyResult> results = new LinkedList<>();
-
         // first, try using the requested kmer sizes
+        final List<Callable<AssemblyResult>> graphCreators = new ArrayList<>(kmerSizes.size());
         for ( final int kmerSize : kmerSizes ) {
-            addResult(results, createGraph(reads, refHaplotype, kmerSize, dontIncreaseKmerSizesForCycles, allowNonUniqueKmersInRef, header, aligner, danglingEndSWParameters));
+            graphCreators.add(() -> createGraph(reads, refHaplotype, kmerSize, dontIncreaseKmerSizesForCycles, allowNonUniqueKmersInRef, header, aligner, danglingEndSWParameters));
         }
+        final List<AssemblyResult> results = createGraphs(graphCreators, false);
 
         // if none of those worked, iterate over larger sizes if allowed to do so
         if ( results.isEmpty() && !dontIncreaseKmerSizesForCycles ) {
+            final List<Callable<AssemblyResult>> largerGraphCreators = new ArrayList<>(MAX_KMER_ITERATIONS_TO_ATTEMPT);
             int kmerSize = arrayMaxInt(kmerSizes) + KMER_SIZE_ITERATION_INCREASE;
-            int numIterations = 1;
-            while ( results.isEmpty() && numIterations <= MAX_KMER_ITERATIONS_TO_ATTEMPT ) {
+            for ( int numIterations = 1; numIterations <= MAX_KMER_ITERATIONS_TO_ATTEMPT; numIterations++ ) {
                 // on the last attempt we will allow low complexity graphs
                 final boolean lastAttempt = numIterations == MAX_KMER_ITERATIONS_TO_ATTEMPT;
-                addResult(results, createGraph(reads, refHaplotype, kmerSize, lastAttempt, lastAttempt, header, aligner, danglingEndSWParameters));
+                final int largerKmerSize = kmerSize;
+                largerGraphCreators.add(() -> createGraph(reads, refHaplotype, largerKmerSize, lastAttempt, lastAttempt, header, aligner, danglingEndSWParameters));
                 kmerSize += KMER_SIZE_ITERATION_INCREASE;
-                numIterations++;
             }
+            // only the smallest kmer size that works is used
+            results.addAll(createGraphs(largerGraphCreators, true));
+        }
+
+        return results;
+    }
+
+    /**
+     * Creates the graphs of several kmer sizes, concurrently if there is a {@link #kmerAssemblyPool}. In that case the
+     * first graph is created by the calling thread, and the others by the pool. Graphs of
+     * different kmer sizes share no mutable state, and the results are returned in the same order as the graph
+     * creators, so the results don't depend on the number of threads.
+     *
+     * @param graphCreators calls to {@link #createGraph} for each kmer size, in order
+     * @param stopAtFirstGraph if true, only the first non-null result is needed. The graphs that follow it are not
+     *                         created, or (if they were started concurrently) their results are ignored.
+     * @return the non-null results of the graph creators, in order
+     */
+    private List<AssemblyResult> createGraphs(final List<Callable<AssemblyResult>> graphCreators, final boolean stopAtFirstGraph) {
+        final List<AssemblyResult> results = new LinkedList<>();
+        // debug graph files are named with a static counter, so keep creating graphs one at a time when they are written
+        if ( kmerAssemblyPool == null || graphCreators.size() == 1 || debugGraphTransformations ) {
+            for ( final Callable<AssemblyResult> graphCreator : graphCreators ) {
+                addResult(results, callGraphCreator(graphCreator));
+                if ( stopAtFirstGraph && !results.isEmpty() ) {
+                    break;
+                }
+            }
+            return results;
         }
 
+        final List<Future<AssemblyResult>> futures = new ArrayList<>(graphCreators.size() - 1);
+        try {
+            for ( final Callable<AssemblyResult> graphCreator : graphCreators.subList(1, graphCreators.size()) ) {
+                futures.add(kmerAssemblyPool.submit(graphCreator));
+            }
+            addResult(results, callGraphCreator(graphCreators.get(0)));
+            for ( final Future<AssemblyResult> future : futures ) {
+                if ( stopAtFirstGraph && !results.isEmpty() ) {
+                    break;
+                }
+                addResult(results, Utils.getFutureResult(future));
+            }
+        } finally {
+            // graphs that are no longer needed are not created if they haven't started yet
+            futures.forEach(future -> future.cancel(false));
+        }
         return results;
     }
 
+    private static AssemblyResult callGraphCreator(final Callable<AssemblyResult> graphCreator) {
+        try {
+            return graphCreator.call();
+        } catch ( final RuntimeException e ) {
+            throw e;
+        } catch ( final Exception e ) {
+            throw new GATKException("Error while creating an assembly graph", e);
+        }
+    }
+
     /**
      * Method for getting a list of all the specified kmer sizes to test for the graph including kmer expansions
      */
@@ -622,9 +693,9 @@ public final class ReadThreadingAssembler {
 
         final DotFilePrinter dotFilePrinter = new DotFilePrinter(refHaplotype.getGenomeLocation(), kmerSize);
 
-        if ( !allowNonUniqueKmersInRef && !ReadThreadingGraph.determineNonUniqueKmers(
+        if ( !allowNonUniqueKmersInRef && ReadThreadingGraph.hasNonUniqueKmers(
                 new ReadThreadingGraph.SequenceForKmers("ref", refHaplotype.getBases(), 0,
-                        refHaplotype.getBases().length, 1, true), kmerSize).isEmpty() ) {
+                        refHaplotype.getBases().length, 1, true), kmerSize) ) {
             logDebugNotUsingKmerSize(debug, kmerSize);
 
             return null;
@@ -644,15 +715,23 @@ public final class ReadThreadingAssembler {
             rtgraph.addRead(read, header);
         }
 
-        // actually build the read threading graph
-        rtgraph.buildGraphIfNecessary();
-        dotFilePrinter.saveGraphIfDebugEnabled(rtgraph, "raw_readthreading_graph");
-
-        // It's important to prune before recovering dangling ends so that we don't waste time recovering bad ends.
-        // It's also important to prune before checking for cycles so that sequencing errors don't create false cycles
-        // and unnecessarily abort assembly
-        if (pruneBeforeCycleCounting) {
-            chainPruner.pruneLowWeightChains(rtgraph);
+        // thread and prune the graph in primitive arrays, and only then create its vertices and edges, if we can
+        final PackedReadThreadingGraph packedGraph = usePackedAssemblyGraph && pruneBeforeCycleCounting && rtgraph instanceof ReadThreadingGraph ?
+                ((ReadThreadingGraph) rtgraph).buildPackedGraph() : null;
+        if (packedGraph != null) {
+            chainPruner.pruneLowWeightChains(packedGraph);
+            packedGraph.copyInto((ReadThreadingGraph) rtgraph);
+        } else {
+            // actually build the read threading graph
+            rtgraph.buildGraphIfNecessary();
+            dotFilePrinter.saveGraphIfDebugEnabled(rtgraph, "raw_readthreading_graph");
+
+            // It's important to prune before recovering dangling ends so that we don't waste time recovering bad ends.
+            // It's also important to prune before checking for cycles so that sequencing errors don't create false cycles
+            // and unnecessarily abort assembly
+            if (pruneBeforeCycleCounting) {
+                chainPruner.pruneLowWeightChains(rtgraph);
+            }
         }
 
         // sanity check: make sure there are no cycles in the graph, unless we are in experimental mode
@@ -859,6 +938,24 @@ public final class ReadThreadingAssembler {
         this.minDanglingBranchLength = minDanglingBranchLength;
     }
 
+    /**
+     * Set the pool building the graphs of different kmer sizes concurrently, which may be shared by several assemblers.
+     * The pool is owned by the caller, which must shut it down. If null (the default), the graphs are built one at a
+     * time.
+     */
+    public void setKmerAssemblyPool(final ExecutorService kmerAssemblyPool) {
+        this.kmerAssemblyPool = kmerAssemblyPool;
+    }
+
+    /**
+     * If true, thread and prune the read threading graphs in primitive arrays before creating their vertices and edges,
+     * which gives the same graphs with fewer allocations. Graphs whose kmers can't be packed into longs, graphs printed
+     * for debugging and graphs of linked de Bruijn graph or legacy cycle detection modes are built as before.
+     */
+    public void setUsePackedAssemblyGraph(final boolean usePackedAssemblyGraph) {
+        this.usePackedAssemblyGraph = usePackedAssemblyGraph;
+    }
+
     @VisibleForTesting
     void setJustReturnRawGraph(final boolean justReturnRawGraph) {
         this.justReturnRawGraph = justReturnRawGraph;
@@ -26,7 +26,7 @@ public class ReadThreadingGraph extends AbstractReadThreadingGraph {
     /**
      * A set of non-unique kmers that cannot be used as merge points in the graph
      */
-    protected Set<Kmer> nonUniqueKmers;
+    private PackedKmerSet nonUniqueKmers;
 
     /**
      * Constructs an empty read-threading-grpah provided the kmerSize.
@@ -110,6 +110,11 @@ public class ReadThreadingGraph extends AbstractReadThreadingGraph {
         return startThreadingOnlyAtExistingVertex ? kmerToVertexMap.containsKey(kmer) : !nonUniqueKmers.contains(kmer);
     }
 
+    @Override
+    protected boolean isThreadingStart(final byte[] sequence, final int start, final boolean startThreadingOnlyAtExistingVertex) {
+        return startThreadingOnlyAtExistingVertex ? kmerToVertexMap.containsKey(new Kmer(sequence, start, kmerSize)) : !nonUniqueKmers.contains(sequence, start);
+    }
+
     /**
      * Compute the smallest kmer size >= minKmerSize and <= maxKmerSize that has no non-unique kmers
      * among all sequences added to the current graph.  Will always return a result for maxKmerSize if
@@ -118,28 +123,40 @@ public class ReadThreadingGraph extends AbstractReadThreadingGraph {
      * @param kmerSize the kmer size to check for non-unique kmers of
      * @return a non-null NonUniqueResult
      */
-    private static Set<Kmer> determineNonUniques(final int kmerSize, Collection<SequenceForKmers> withNonUniques) {
-        final Set<Kmer> nonUniqueKmers = new HashSet<>();
-
-        // loop over all sequences that have non-unique kmers in them from the previous iterator
-        final Iterator<SequenceForKmers> it = withNonUniques.iterator();
-        while ( it.hasNext() ) {
-            final SequenceForKmers sequenceForKmers = it.next();
-
-            // determine the non-unique kmers for this sequence
-            final Collection<Kmer> nonUniquesFromSeq = determineNonUniqueKmers(sequenceForKmers, kmerSize);
-            if ( nonUniquesFromSeq.isEmpty() ) {
-                // remove this sequence from future consideration
-                it.remove();
-            } else {
-                // keep track of the non-uniques for this kmerSize, and keep it in the list of sequences that have non-uniques
-                nonUniqueKmers.addAll(nonUniquesFromSeq);
-            }
+    private static PackedKmerSet determineNonUniques(final int kmerSize, final Collection<SequenceForKmers> sequences) {
+        final PackedKmerSet nonUniqueKmers = new PackedKmerSet(kmerSize);
+
+        // the kmers of each sequence are collected in the same table, which keeps its capacity between sequences
+        final PackedKmerSet kmersOfSequence = new PackedKmerSet(kmerSize);
+        for ( final SequenceForKmers sequenceForKmers : sequences ) {
+            kmersOfSequence.clear();
+            kmersOfSequence.addAll(sequenceForKmers.sequence, 0, sequenceForKmers.stop - kmerSize, nonUniqueKmers);
         }
 
         return nonUniqueKmers;
     }
 
+    /**
+     * Thread the pending sequences into a {@link PackedReadThreadingGraph} instead of this graph, if they can all be
+     * packed and the intermediate graphs aren't needed for debugging. The packed graph can then be pruned and copied
+     * into this graph with {@link PackedReadThreadingGraph#copyInto(ReadThreadingGraph)}, which builds it.
+     *
+     * @return the packed graph, or null if this graph must be built with {@link #buildGraphIfNecessary()}
+     */
+    PackedReadThreadingGraph buildPackedGraph() {
+        Utils.validate(!alreadyBuilt, "Attempting to build a graph that has already been built");
+        final Collection<SequenceForKmers> sequences = getAllPendingSequences();
+        if ( debugGraphTransformations || ! PackedReadThreadingGraph.canThread(kmerSize, sequences) ) {
+            return null;
+        }
+
+        nonUniqueKmers = determineNonUniques(kmerSize, sequences);
+        final PackedReadThreadingGraph packedGraph = new PackedReadThreadingGraph(kmerSize, ((MyEdgeFactory) getEdgeFactory()).numPruningSamples,
+                nonUniqueKmers, isThreadingStartOnlyAtExistingVertex(), isIncreaseCountsThroughBranches());
+        packedGraph.threadSequences(pending.values());
+        return packedGraph;
+    }
+
     /**
      * Get the collection of all sequences for kmers across all samples in no particular order
      * @return non-null Collection
@@ -149,23 +166,15 @@ public class ReadThreadingGraph extends AbstractReadThreadingGraph {
     }
 
     /**
-     * Get the collection of non-unique kmers from sequence for kmer size kmerSize
+     * Check whether sequence has non-unique kmers for kmer size kmerSize
      * @param seqForKmers a sequence to get kmers from
      * @param kmerSize the size of the kmers
-     * @return a non-null collection of non-unique kmers in sequence
+     * @return true if some kmer occurs more than once in sequence
      */
-    static Collection<Kmer> determineNonUniqueKmers(final SequenceForKmers seqForKmers, final int kmerSize) {
-        // count up occurrences of kmers within each read
-        final Set<Kmer> allKmers = new LinkedHashSet<>();
-        final List<Kmer> nonUniqueKmers = new ArrayList<>();
-        final int stopPosition = seqForKmers.stop - kmerSize;
-        for (int i = 0; i <= stopPosition; i++) {
-            final Kmer kmer = new Kmer(seqForKmers.sequence, i, kmerSize);
-            if (!allKmers.add(kmer)) {
-                nonUniqueKmers.add(kmer);
-            }
-        }
-        return nonUniqueKmers;
+    static boolean hasNonUniqueKmers(final SequenceForKmers seqForKmers, final int kmerSize) {
+        final PackedKmerSet nonUniqueKmers = new PackedKmerSet(kmerSize);
+        new PackedKmerSet(kmerSize).addAll(seqForKmers.sequence, 0, seqForKmers.stop - kmerSize, nonUniqueKmers);
+        return nonUniqueKmers.size() > 0;
     }
 
     @Override
@@ -176,10 +185,10 @@ public class ReadThreadingGraph extends AbstractReadThreadingGraph {
 
     /**
      * Get the set of non-unique kmers in this graph.  For debugging purposes
-     * @return a non-null set of kmers
+     * @return a non-null set of kmers, not a copy
      */
     @VisibleForTesting
-    Set<Kmer> getNonUniqueKmers() {
+    PackedKmerSet getNonUniqueKmers() {
         return nonUniqueKmers;
     }
 
@@ -1,5 +1,6 @@
 package org.broadinstitute.hellbender.tools.walkers.mutect;
 
+import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.writer.VariantContextWriter;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.ArgumentCollection;
@@ -304,6 +305,33 @@ public final class Mutect2 extends AssemblyRegionWalker {
         m2Engine.callRegion(region, referenceContext, featureContext).forEach(vcfWriter::add);
     }
 
+    /**
+     * Each worker gets its own {@link Mutect2Engine}, with its own reference reader, assembler, aligner and PairHMM.
+     * Calls are buffered per region and added to the shared writer by the traversal thread, in order. The callable
+     * sites and F1R2 counts are still collected by {@link #m2Engine} during activity detection.
+     */
+    @Override
+    protected AssemblyRegionWorker makeAssemblyRegionWorker() {
+        final VariantAnnotatorEngine annotatorEngine = new VariantAnnotatorEngine(makeVariantAnnotations(), null, Collections.emptyList(), false, false);
+        final Mutect2Engine workerEngine = new Mutect2Engine(MTAC, assemblyRegionArgs, createOutputBamIndex, createOutputBamMD5,
+                getHeaderForReads(), referenceArguments.getReferenceSpecifier(), annotatorEngine, false);
+        return new AssemblyRegionWorker() {
+            @Override
+            public RegionOutput processRegion(final AssemblyRegion region, final ReferenceContext referenceContext, final FeatureContext featureContext) {
+                final List<VariantContext> calls = workerEngine.callRegion(region, referenceContext, featureContext);
+                return () -> {
+                    calls.forEach(vcfWriter::add);
+                    return true;
+                };
+            }
+
+            @Override
+            public void close() {
+                workerEngine.close();
+            }
+        };
+    }
+
     @Override
     public void closeTool() {
         if (vcfWriter != null) {
@@ -312,6 +340,7 @@ public final class Mutect2 extends AssemblyRegionWalker {
         if (m2Engine != null) {
             m2Engine.close();
         }
+        MTAC.assemblerArgs.shutdownKmerAssemblyPool();
     }
 
     /**
@@ -327,6 +356,11 @@ public final class Mutect2 extends AssemblyRegionWalker {
                     M2ArgumentCollection.FLOW_M2_MODE_LONG_NAME
                     );
         }
+
+        if (assemblyRegionThreads > 1 && (MTAC.bamOutputPath != null || MTAC.assemblerArgs.debugAssemblyVariantsOut != null
+                || MTAC.mutect3Dataset != null)) {
+            throw new UserException("--" + ASSEMBLY_REGION_THREADS_LONG_NAME + " greater than 1 can't be combined with bamout, the Mutect3 dataset or other debugging outputs");
+        }
         return null;
     }
 }
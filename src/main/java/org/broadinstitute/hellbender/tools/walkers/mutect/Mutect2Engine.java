@@ -1,7 +1,9 @@
 package org.broadinstitute.hellbender.tools.walkers.mutect;
 
 import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.reference.ReferenceSequenceFile;
 import htsjdk.samtools.util.Locatable;
+import htsjdk.samtools.util.RuntimeIOException;
 import htsjdk.variant.variantcontext.Allele;
 import htsjdk.variant.variantcontext.Genotype;
 import htsjdk.variant.variantcontext.VariantContext;
@@ -40,7 +42,6 @@ import org.broadinstitute.hellbender.transformers.PalindromeArtifactClipReadTran
 import org.broadinstitute.hellbender.transformers.ReadTransformer;
 import org.broadinstitute.hellbender.utils.*;
 import org.broadinstitute.hellbender.utils.activityprofile.ActivityProfileState;
-import org.broadinstitute.hellbender.utils.fasta.CachingIndexedFastaSequenceFile;
 import org.broadinstitute.hellbender.utils.genotyper.AlleleLikelihoods;
 import org.broadinstitute.hellbender.utils.genotyper.IndexedSampleList;
 import org.broadinstitute.hellbender.utils.genotyper.SampleList;
@@ -61,6 +62,7 @@ import org.broadinstitute.hellbender.utils.variant.GATKVCFHeaderLines;
 import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Path;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -106,7 +108,7 @@ public final class Mutect2Engine implements AssemblyRegionEvaluator, AutoCloseab
 
     private final boolean forceCallingAllelesPresent;
 
-    private CachingIndexedFastaSequenceFile referenceReader;
+    private ReferenceSequenceFile referenceReader;
     private ReadThreadingAssembler assemblyEngine;
     private ReadLikelihoodCalculationEngine likelihoodCalculationEngine;
     private SomaticGenotypingEngine genotypingEngine;
@@ -137,6 +139,18 @@ public final class Mutect2Engine implements AssemblyRegionEvaluator, AutoCloseab
      * @param annotatorEngine annotator engine built with desired annotations
      */
     public Mutect2Engine(final M2ArgumentCollection MTAC, AssemblyRegionArgumentCollection assemblyRegionArgs, final boolean createBamOutIndex, final boolean createBamOutMD5, final SAMFileHeader header, final GATKPath referenceSpec, final VariantAnnotatorEngine annotatorEngine) {
+        this(MTAC, assemblyRegionArgs, createBamOutIndex, createBamOutMD5, header, referenceSpec, annotatorEngine, true);
+    }
+
+    /**
+     * As above, but optionally without F1R2 count collection. Engines that only call regions with
+     * {@link #callRegion} (e.g. the workers of a multi-threaded run) don't collect F1R2 counts: the callable sites and
+     * F1R2 counts are accumulated by {@link #isActive}, which runs serially on the traversal thread, so they are
+     * deterministic and are written by the single engine that does activity detection.
+     *
+     * @param collectF1R2Counts true to collect F1R2 counts in {@link #isActive} if {@code MTAC.f1r2TarGz} is set
+     */
+    public Mutect2Engine(final M2ArgumentCollection MTAC, AssemblyRegionArgumentCollection assemblyRegionArgs, final boolean createBamOutIndex, final boolean createBamOutMD5, final SAMFileHeader header, final GATKPath referenceSpec, final VariantAnnotatorEngine annotatorEngine, final boolean collectF1R2Counts) {
         this.MTAC = Utils.nonNull(MTAC);
         this.header = Utils.nonNull(header);
         minCallableDepth = MTAC.callableDepth;
@@ -171,7 +185,7 @@ public final class Mutect2Engine implements AssemblyRegionEvaluator, AutoCloseab
         referenceConfidenceModel = new SomaticReferenceConfidenceModel(samplesList, header, 0,
                 MTAC.minAF, MTAC.refModelDelQual, !MTAC.overrideSoftclipFragmentCheck, isFlowBased);  //TODO: do something classier with the indel size arg
         final List<String> tumorSamples = ReadUtils.getSamplesFromHeader(header).stream().filter(this::isTumorSample).collect(Collectors.toList());
-        f1R2CountsCollector = MTAC.f1r2TarGz == null ? Optional.empty() : Optional.of(new F1R2CountsCollector(MTAC.f1r2Args, header, MTAC.f1r2TarGz, tumorSamples));
+        f1R2CountsCollector = MTAC.f1r2TarGz == null || !collectF1R2Counts ? Optional.empty() : Optional.of(new F1R2CountsCollector(MTAC.f1r2Args, header, MTAC.f1r2TarGz, tumorSamples));
         assembledEventMapVcfOutputWriter = Optional.ofNullable(MTAC.assemblerArgs.debugAssemblyVariantsOut != null ?
                 GATKVariantContextUtils.createVCFWriter(
                         new GATKPath(MTAC.assemblerArgs.debugAssemblyVariantsOut).toPath(),
@@ -450,7 +464,11 @@ public final class Mutect2Engine implements AssemblyRegionEvaluator, AutoCloseab
         aligner.close();
         haplotypeBAMWriter.ifPresent(HaplotypeBAMWriter::close);
         assembledEventMapVcfOutputWriter.ifPresent(writer -> {assembledEventMapVariants.get().forEach(writer::add); writer.close();});
-        referenceReader.close();
+        try {
+            referenceReader.close();
+        } catch (final IOException e) {
+            throw new RuntimeIOException(e);
+        }
         genotypingEngine.close();
     }
 
@@ -4,6 +4,7 @@ import com.google.common.collect.HashMultiset;
 import com.google.common.collect.Multiset;
 import com.google.common.collect.Multisets;
 import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.reference.ReferenceSequenceFile;
 import htsjdk.samtools.util.Locatable;
 import htsjdk.samtools.util.Tuple;
 import htsjdk.variant.variantcontext.VariantContext;
@@ -36,7 +37,6 @@ import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.bwa.BwaMemAlignment;
 import org.broadinstitute.hellbender.utils.downsampling.DownsamplingMethod;
-import org.broadinstitute.hellbender.utils.fasta.CachingIndexedFastaSequenceFile;
 import org.broadinstitute.hellbender.utils.genotyper.AlleleLikelihoods;
 import org.broadinstitute.hellbender.utils.genotyper.IndexedSampleList;
 import org.broadinstitute.hellbender.utils.genotyper.SampleList;
@@ -146,7 +146,7 @@ public class FilterAlignmentArtifacts extends MultiVariantWalkerGroupedOnStart {
     private RealignmentEngine realignmentEngine;
     private SAMFileHeader bamHeader;
     private SampleList samplesList;
-    private CachingIndexedFastaSequenceFile referenceReader;
+    private ReferenceSequenceFile referenceReader;
     private ReadThreadingAssembler assemblyEngine;
     private final M2ArgumentCollection MTAC = new M2ArgumentCollection();
     private ReadLikelihoodCalculationEngine likelihoodCalculationEngine;
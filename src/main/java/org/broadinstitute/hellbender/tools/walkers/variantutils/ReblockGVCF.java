@@ -1,6 +1,7 @@
 package org.broadinstitute.hellbender.tools.walkers.variantutils;
 
 import com.google.common.annotations.VisibleForTesting;
+import htsjdk.samtools.reference.ReferenceSequenceFile;
 import htsjdk.variant.variantcontext.*;
 import htsjdk.variant.variantcontext.writer.VariantContextWriter;
 import htsjdk.variant.vcf.*;
@@ -26,8 +27,8 @@ import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.HaplotypeCall
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.HaplotypeCallerGenotypingEngine;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.ReferenceConfidenceMode;
 import org.broadinstitute.hellbender.utils.MathUtils;
+import org.broadinstitute.hellbender.utils.OrderedParallelExecutor;
 import org.broadinstitute.hellbender.utils.collections.Permutation;
-import org.broadinstitute.hellbender.utils.fasta.CachingIndexedFastaSequenceFile;
 import org.broadinstitute.hellbender.utils.genotyper.IndexedAlleleList;
 import org.broadinstitute.hellbender.utils.genotyper.IndexedSampleList;
 import org.broadinstitute.hellbender.utils.genotyper.SampleList;
@@ -44,6 +45,8 @@ import org.broadinstitute.hellbender.utils.variant.writers.ReblockingOptions;
 import picard.cmdline.programgroups.OtherProgramGroup;
 
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -92,6 +95,9 @@ import java.util.stream.IntStream;
  * <p>Annotations and header lines that are uninformative for single-sample will be dropped: 
  *       MLEAC, MLEAF, DS, ExcessHet, HaplotypeScore, InbreedingCoeff, AS_InbreedingCoeff
  * <p>Note that when uncalled alleles are dropped, the original GQ may increase.  Use --keep-all-alts if GQ accuracy is a concern.</p>
+ * <p>Variants can be re-genotyped on several threads with --reblocking-threads. The merging of hom-ref blocks, which
+ * depends on the records already written, remains single-threaded, and the output is identical to that of a
+ * single-threaded run.</p>
  *
  */
 @CommandLineProgramProperties(summary = "Compress a single-sample GVCF from HaplotypeCaller by merging homRef blocks using new GQ band parameters",
@@ -116,6 +122,11 @@ public final class ReblockGVCF extends MultiVariantWalker {
     public static final String KEEP_SITE_FILTERS_LONG_NAME = "keep-site-filters";
     public static final String KEEP_SITE_FILTERS_SHORT_NAME = "keep-filters";
     public static final String ADD_FILTERS_TO_GENOTYPE = "add-site-filters-to-genotype";
+    public static final String REBLOCKING_THREADS_LONG_NAME = "reblocking-threads";
+
+    // variants are handed to the re-genotyping threads in batches, to amortize the cost of the hand-off
+    private static final int VARIANTS_PER_BATCH = 1000;
+    private static final int BATCHES_IN_FLIGHT_PER_THREAD = 4;
 
     @Argument(fullName = StandardArgumentDefinitions.OUTPUT_LONG_NAME, shortName = StandardArgumentDefinitions.OUTPUT_SHORT_NAME,
             doc="File to which variants should be written")
@@ -184,6 +195,14 @@ public final class ReblockGVCF extends MultiVariantWalker {
     //TODO: this will be an argument when posteriors handling is fully implemented in AlleleSubsettingUtils
     protected String posteriorsKey = null;
 
+    /**
+     * If greater than 1, variants are decoded and re-genotyped in batches on this many threads, while hom-ref blocks
+     * are still merged and written on a single thread, in the original order.
+     */
+    @Argument(fullName=REBLOCKING_THREADS_LONG_NAME, doc="Number of threads with which to re-genotype variants. " +
+            "Hom-ref blocks are still merged and written on a single thread, in the same order.", optional = true, minValue = 1)
+    public int reblockingThreads = 1;
+
     /**
      * The rsIDs from this file are used to populate the ID column of the output.  Also, the DB INFO flag will be set when appropriate. Note that dbSNP is not used in any way for the calculations themselves.
      */
@@ -200,7 +219,39 @@ public final class ReblockGVCF extends MultiVariantWalker {
             GATKVCFConstants.MLE_ALLELE_FREQUENCY_KEY, GATKVCFConstants.EXCESS_HET_KEY, GATKVCFConstants.AS_INBREEDING_COEFFICIENT_KEY,
             GATKVCFConstants.DOWNSAMPLED_KEY);
 
-    private CachingIndexedFastaSequenceFile referenceReader;
+    private ReferenceSequenceFile referenceReader;
+
+    // only used with more than one re-genotyping thread
+    @VisibleForTesting
+    int variantsPerBatch = VARIANTS_PER_BATCH;
+    private BlockingQueue<HaplotypeCallerGenotypingEngine> genotypingEngines;
+    private OrderedParallelExecutor<List<RegenotypedVariant>> regenotypingExecutor;
+    private List<VariantContext> currentBatch;
+
+    /**
+     * A variant ready to be reblocked, as prepared by a re-genotyping thread
+     */
+    private static final class RegenotypedVariant {
+        private enum Kind {
+            // a hom-ref block from the input
+            HOM_REF_BLOCK,
+            // a variant that didn't need to be re-genotyped
+            UNCHANGED,
+            // a variant as re-genotyped, whose emitted deletions must still be recorded by the genotyping engine
+            REGENOTYPED,
+            // a variant with a spanning deletion allele, which can only be re-genotyped in order, after all of the
+            // upstream deletions have been recorded
+            NEEDS_ORDERED_REGENOTYPING
+        }
+
+        private final VariantContext vc;
+        private final Kind kind;
+
+        private RegenotypedVariant(final VariantContext vc, final Kind kind) {
+            this.vc = vc;
+            this.kind = kind;
+        }
+    }
 
     private static final List<String> alleleBasedLengthAnnots = new ArrayList<>();
 
@@ -299,6 +350,18 @@ public final class ReblockGVCF extends MultiVariantWalker {
         referenceReader = ReferenceUtils.createReferenceReader(referenceArguments.getReferenceSpecifier());
 
         createVcfWriter(headerLines);
+
+        if (reblockingThreads > 1) {
+            // the genotyping engine is not thread-safe, so each thread borrows its own one; the annotation engine
+            // is only read when re-genotyping, so it is shared
+            genotypingEngines = new ArrayBlockingQueue<>(reblockingThreads);
+            for (int i = 0; i < reblockingThreads; i++) {
+                genotypingEngines.add(createGenotypingEngine(new IndexedSampleList(getSamplesForVariants())));
+            }
+            regenotypingExecutor = new OrderedParallelExecutor<>(reblockingThreads, reblockingThreads * BATCHES_IN_FLIGHT_PER_THREAD,
+                    "reblocking", batch -> batch.forEach(this::reblock));
+            currentBatch = new ArrayList<>(variantsPerBatch);
+        }
     }
 
     @VisibleForTesting
@@ -335,11 +398,101 @@ public final class ReblockGVCF extends MultiVariantWalker {
     // get VariantContexts from input gVCFs and regenotype
     @Override
     public void apply(VariantContext variant, ReadsContext reads, ReferenceContext ref, FeatureContext features) {
+        if (regenotypingExecutor == null) {
+            regenotypeVC(prepareInputVariant(variant));
+            return;
+        }
+
+        currentBatch.add(variant);
+        if (currentBatch.size() >= variantsPerBatch) {
+            submitCurrentBatch();
+        }
+    }
+
+    private void submitCurrentBatch() {
+        final List<VariantContext> batch = currentBatch;
+        currentBatch = new ArrayList<>(variantsPerBatch);
+        regenotypingExecutor.submit(() -> regenotypeBatch(batch));
+    }
+
+    // called on a re-genotyping thread
+    // The genotyping engine drops spanning deletion alleles that aren't covered by a deletion it has emitted, so it
+    // must see the variants in order. The engines of the re-genotyping threads each see an arbitrary subset of them,
+    // so they only re-genotype the variants without spanning deletion alleles, which don't depend on the deletions
+    // emitted upstream, and the main engine records the emitted deletions and re-genotypes the rest in order (see reblock()).
+    private List<RegenotypedVariant> regenotypeBatch(final List<VariantContext> batch) {
+        final HaplotypeCallerGenotypingEngine engine = genotypingEngines.remove();
+        try {
+            final List<RegenotypedVariant> regenotypedVariants = new ArrayList<>(batch.size());
+            for (final VariantContext variant : batch) {
+                final VariantContext originalVC = prepareInputVariant(variant);
+                // decode the genotype here rather than on the writing thread
+                if (originalVC.hasGenotypes()) {
+                    originalVC.getGenotype(0);
+                }
+                if (isHomRefBlock(originalVC)) {
+                    regenotypedVariants.add(new RegenotypedVariant(originalVC, RegenotypedVariant.Kind.HOM_REF_BLOCK));
+                } else if (!needsRegenotyping(originalVC)) {
+                    regenotypedVariants.add(new RegenotypedVariant(originalVC, RegenotypedVariant.Kind.UNCHANGED));
+                } else if (originalVC.getAlleles().stream().anyMatch(GATKVCFConstants::isSpanningDeletion)) {
+                    regenotypedVariants.add(new RegenotypedVariant(originalVC, RegenotypedVariant.Kind.NEEDS_ORDERED_REGENOTYPING));
+                } else {
+                    final VariantContext result = regenotype(originalVC, engine);
+                    if (result != null) {
+                        regenotypedVariants.add(new RegenotypedVariant(result, RegenotypedVariant.Kind.REGENOTYPED));
+                    }
+                }
+            }
+            return regenotypedVariants;
+        } finally {
+            genotypingEngines.add(engine);
+        }
+    }
+
+    // called on the traversal thread, in order
+    private void reblock(final RegenotypedVariant regenotypedVariant) {
+        switch (regenotypedVariant.kind) {
+            case HOM_REF_BLOCK:
+                reblockHomRefBlock(regenotypedVariant.vc);
+                break;
+            case UNCHANGED:
+                reblockVariant(regenotypedVariant.vc);
+                break;
+            case REGENOTYPED:
+                genotypingEngine.recordDeletions(regenotypedVariant.vc, regenotypedVariant.vc.getAlleles());
+                reblockVariant(regenotypedVariant.vc);
+                break;
+            case NEEDS_ORDERED_REGENOTYPING:
+                final VariantContext result = regenotype(regenotypedVariant.vc, genotypingEngine);
+                if (result != null) {
+                    reblockVariant(result);
+                }
+                break;
+        }
+    }
+
+    @Override
+    public Object onTraversalSuccess() {
+        if (regenotypingExecutor != null) {
+            if (!currentBatch.isEmpty()) {
+                submitCurrentBatch();
+            }
+            regenotypingExecutor.finish();
+        }
+        return null;
+    }
+
+    /**
+     * Check that a variant comes from a GVCF, and remove the format annotations that should not be output
+     *
+     * @param variant an input variant
+     * @return the variant, without the format annotations to remove
+     */
+    private VariantContext prepareInputVariant(final VariantContext variant) {
         if (!variant.hasAllele(Allele.NON_REF_ALLELE)) {
             throw new UserException("Variant Context at " + variant.getContig() + ":" + variant.getStart() + " does not contain a <NON-REF> allele. This tool is only intended for use with GVCFs.");
         }
-        VariantContext newVC = annotationsToRemove.size() > 0 ? removeVCFFormatAnnotations(variant) : variant;
-        regenotypeVC(newVC);
+        return annotationsToRemove.size() > 0 ? removeVCFFormatAnnotations(variant) : variant;
     }
 
     /**
@@ -368,53 +521,93 @@ public final class ReblockGVCF extends MultiVariantWalker {
 
         //Pass back ref-conf homRef sites/blocks to be combined by the GVCFWriter
         if (isHomRefBlock(originalVC)) {
-            //if this hom ref block is entirely overlapped by previous VCF output, then drop it
-            if (originalVC.contigsMatch(vcfWriter.getVcfOutputEnd()) && originalVC.getEnd() <= vcfWriter.getVcfOutputEnd().getStart()) {
-                return;
-            }
-            final Genotype genotype = originalVC.getGenotype(0);
-            if (dropLowQuals && (!genotype.hasGQ() || genotype.getGQ() < rgqThreshold || genotype.getGQ() == 0)) {
-                return;
-            }
-            if (!genotype.hasPL()) {
-                if (genotype.hasGQ()) {
-                    logger.warn("PL is missing for hom ref genotype at at least one position for sample " + genotype.getSampleName() + ": " + originalVC.getContig() + ":" + originalVC.getStart() +
-                            ".  Using GQ to determine quality.");
-                    vcfWriter.add(originalVC);
+            reblockHomRefBlock(originalVC);
+            return;
+        }
+
+        final VariantContext result = regenotype(originalVC, genotypingEngine);
+        if (result != null) {
+            reblockVariant(result);
+        }
+    }
+
+    /**
+     * Add a homRef block from the input to the VCF writer, unless it is already covered by the output or dropped
+     *
+     * @param originalVC    a homRef block
+     */
+    private void reblockHomRefBlock(final VariantContext originalVC) {
+        //if this hom ref block is entirely overlapped by previous VCF output, then drop it
+        if (originalVC.contigsMatch(vcfWriter.getVcfOutputEnd()) && originalVC.getEnd() <= vcfWriter.getVcfOutputEnd().getStart()) {
+            return;
+        }
+        final Genotype genotype = originalVC.getGenotype(0);
+        if (dropLowQuals && (!genotype.hasGQ() || genotype.getGQ() < rgqThreshold || genotype.getGQ() == 0)) {
+            return;
+        }
+        if (!genotype.hasPL()) {
+            if (genotype.hasGQ()) {
+                logger.warn("PL is missing for hom ref genotype at at least one position for sample " + genotype.getSampleName() + ": " + originalVC.getContig() + ":" + originalVC.getStart() +
+                        ".  Using GQ to determine quality.");
+                vcfWriter.add(originalVC);
+            } else {
+                final String message = "Homozygous reference genotypes must contain GQ or PL. Both are missing for hom ref genotype at "
+                        + originalVC.getContig() + ":" + originalVC.getStart();
+                if (allowMissingHomRefData) {
+                    logger.warn(message);
+                    final VariantContextBuilder vcBuilder = new VariantContextBuilder(originalVC);
+                    final GenotypeBuilder gBuilder = new GenotypeBuilder(genotype);
+                    vcBuilder.genotypes(gBuilder.GQ(0).PL(new int[]{0,0,0}).make());
+                    vcfWriter.add(vcBuilder.make());
                 } else {
-                    final String message = "Homozygous reference genotypes must contain GQ or PL. Both are missing for hom ref genotype at "
-                            + originalVC.getContig() + ":" + originalVC.getStart();
-                    if (allowMissingHomRefData) {
-                        logger.warn(message);
-                        final VariantContextBuilder vcBuilder = new VariantContextBuilder(originalVC);
-                        final GenotypeBuilder gBuilder = new GenotypeBuilder(genotype);
-                        vcBuilder.genotypes(gBuilder.GQ(0).PL(new int[]{0,0,0}).make());
-                        vcfWriter.add(vcBuilder.make());
-                    } else {
-                        throw new UserException.BadInput(message);
-                    }
+                    throw new UserException.BadInput(message);
                 }
             }
-            vcfWriter.add(originalVC);
-            return;
         }
+        vcfWriter.add(originalVC);
+    }
 
+    /**
+     * Re-genotype (and re-annotate) a VariantContext that isn't a homRef block if low quality alleles are dropped.
+     * Doesn't depend on the records already added to the VCF writer, so variants without spanning deletion alleles may
+     * be re-genotyped on any thread with its own genotyping engine (see {@link #regenotypeBatch}).
+     *
+     * @param originalVC    a variant that is not a homRef block
+     * @param genotypingEngine  the genotyping engine to use
+     * @return the re-genotyped variant, or null if it should be dropped
+     */
+    private VariantContext regenotype(final VariantContext originalVC, final HaplotypeCallerGenotypingEngine genotypingEngine) {
         VariantContext result = originalVC;
 
         //Use the genotyping engine to do the QUAL thresholding if we're dropping low qual sites
         //don't need to calculate quals for sites with no data whatsoever or sites already genotyped homRef,
         //but if STAND_CALL_CONF > 0 we need to drop low quality alleles and regenotype
         //Note that spanning deletion star alleles will be considered low quality
-        if (dropLowQuals && originalVC.getAttributeAsInt(VCFConstants.DEPTH_KEY, 0) > 0 && !isMonomorphicCallWithAlts(originalVC)) {
+        if (needsRegenotyping(originalVC)) {
             final VariantContext regenotyped = genotypingEngine.calculateGenotypes(originalVC);
             if (regenotyped == null) {
-                return;
+                return null;
             }
             //make sure result has annotations so we don't have to keep originalVC around
             result = new VariantContextBuilder(regenotyped).attributes(subsetAnnotationsIfNecessary(annotationEngine, doQualApprox, posteriorsKey, originalVC, regenotyped, annotationsToKeep)).make();
         }
+        return result;
+    }
 
+    /**
+     * @return true if {@link #regenotype} runs the variant through the genotyping engine
+     */
+    private boolean needsRegenotyping(final VariantContext originalVC) {
+        return dropLowQuals && originalVC.getAttributeAsInt(VCFConstants.DEPTH_KEY, 0) > 0 && !isMonomorphicCallWithAlts(originalVC);
+    }
 
+    /**
+     * Add a re-genotyped variant to the VCF writer, either as a homRef block if it is low quality or as a cleaned up
+     * variant
+     *
+     * @param result    a re-genotyped variant
+     */
+    private void reblockVariant(final VariantContext result) {
         //variants with PL[0] less than threshold get turned to homRef with PL=[0,0,0], shouldn't get INFO attributes
         //make sure we can call het variants with GQ >= rgqThreshold in joint calling downstream
         if(shouldBeReblocked(result)) {
@@ -1073,6 +1266,9 @@ public final class ReblockGVCF extends MultiVariantWalker {
 
     @Override
     public void closeTool() {
+        if ( regenotypingExecutor != null ) {
+            regenotypingExecutor.close();
+        }
         if ( vcfWriter != null ) {
             vcfWriter.close();
         }
@@ -556,6 +556,22 @@ public final class SelectVariants extends VariantWalker {
         }
         return genomicsDBOptions;
     }
+
+    /**
+     * The genotypes are only needed if they are written out, or if any of the selection criteria looks at them.
+     * Discordance and concordance only compare genotypes when samples are specified.
+     */
+    @Override
+    public boolean requiresGenotypes() {
+        return !outputSitesOnlyVCFs ||
+                !sampleNames.isEmpty() || !sampleExpressions.isEmpty() ||
+                !XLsampleNames.isEmpty() || !XLsampleExpressions.isEmpty() ||
+                !selectExpressions.isEmpty() || !selectGenotypeExpressions.isEmpty() ||
+                removeUnusedAlternates || excludeNonVariants || mendelianViolations ||
+                considerFilteredGenotypes() || considerNoCallGenotypes() ||
+                setFilteredGenotypesToNocall || fullyDecode;
+    }
+
     // We do not output the vcf entries in the order they arrive, as trimming alleles may change the start position
     // (e.g. at a multiallelic site, see #6444).
     final private PriorityQueue<VariantContext> pendingVariants = new PriorityQueue<>(Comparator.comparingInt(VariantContext::getStart));
@@ -211,13 +211,40 @@ public final class VariantsToTable extends VariantWalker {
     private PrintStream outputStream = null;
     private VCFHeader inputHeader;
 
+    /**
+     * Only the INFO fields in the table are decoded, unless all fields are requested or a wildcard is used.
+     */
+    @Override
+    public Set<String> getRequiredInfoFields() {
+        if (includesAllFields() || fieldsToTake.stream().anyMatch(VariantsToTable::isWildCard)) {
+            return null;
+        }
+        final Set<String> infoFields = new LinkedHashSet<>(fieldsToTake);
+        infoFields.removeAll(getters.keySet());
+        infoFields.addAll(asFieldsToTake);
+        return infoFields;
+    }
+
+    @Override
+    public boolean requiresGenotypes() {
+        return includesAllFields() || !genotypeFieldsToTake.isEmpty() || !asGenotypeFieldsToTake.isEmpty() ||
+                fieldsToTake.stream().anyMatch(GENOTYPE_DEPENDENT_GETTERS::contains);
+    }
+
+    /**
+     * @return true if no fields were specified, in which case all fields declared in the VCF header are included
+     */
+    private boolean includesAllFields() {
+        return fieldsToTake.isEmpty() && genotypeFieldsToTake.isEmpty() && asFieldsToTake.isEmpty() && asGenotypeFieldsToTake.isEmpty();
+    }
+
     @Override
     public void onTraversalStart() {
         inputHeader = getHeaderForVariants();
         outputStream = createPrintStream();
 
         // if no fields specified, default to include all fields listed in header into table
-        if(fieldsToTake.isEmpty() && genotypeFieldsToTake.isEmpty() && asFieldsToTake.isEmpty() && asGenotypeFieldsToTake.isEmpty()){
+        if(includesAllFields()){
             logger.warn("No fields were specified. All fields declared in the VCF header will be included in the output table.");
 
             // add all mandatory VCF fields (except INFO)
@@ -523,6 +550,12 @@ public final class VariantsToTable extends VariantWalker {
     //
     // ----------------------------------------------------------------------------------------------------
 
+    /**
+     * Names of the standard fields whose values are computed from the genotypes
+     */
+    private static final Set<String> GENOTYPE_DEPENDENT_GETTERS = new HashSet<>(Arrays.asList(
+            "HET", "HOM-REF", "HOM-VAR", "NO-CALL", "VAR", "NSAMPLES", "NCALLED", "SAMPLE_NAME"));
+
     private final Map<String, Function<VariantContext, String>> getters = new LinkedHashMap<>();
     {
         // #CHROM  POS     ID      REF     ALT     QUAL    FILTER  INFO    FORMAT
@@ -1,5 +1,6 @@
 package org.broadinstitute.hellbender.transformers;
 
+import com.google.common.annotations.VisibleForTesting;
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMTag;
 import htsjdk.samtools.SAMUtils;
@@ -16,6 +17,8 @@ import org.broadinstitute.hellbender.utils.recalibration.covariates.ReadCovariat
 import org.broadinstitute.hellbender.utils.recalibration.covariates.StandardCovariateList;
 
 import java.io.File;
+import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -42,6 +45,12 @@ public final class BQSRReadTransformer implements ReadTransformer {
 
     private static final int BASE_SUBSTITUTION_INDEX = EventType.BASE_SUBSTITUTION.ordinal();
 
+    /**
+     * Maximum number of entries of the precomputed {@link RecalibrationLookup}. Recalibration tables that would need
+     * more (e.g. thousands of read groups) are queried for every base instead.
+     */
+    private static final long DEFAULT_MAX_LOOKUP_ENTRIES = 1L << 24;
+
     //Note: varargs allocates a new array every time. We'll pre-allocate one array and reuse it to avoid object allocation for every base of every read.
     private final RecalDatum[] empiricalQualCovsArgs;
     private final boolean useOriginalBaseQualities;
@@ -49,6 +58,9 @@ public final class BQSRReadTransformer implements ReadTransformer {
     private byte[] staticQuantizedMapping;
     private final CovariateKeyCache keyCache;
 
+    // null if the recalibration tables are too large to be precomputed
+    private final RecalibrationLookup lookup;
+
     /**
      * Constructor using a GATK Report file
      *
@@ -69,7 +81,7 @@ public final class BQSRReadTransformer implements ReadTransformer {
      * @param covariates standard covariate set
      * @param args ApplyBQSR arguments
      */
-    private BQSRReadTransformer(final SAMFileHeader header, final RecalibrationTables recalibrationTables, final QuantizationInfo quantizationInfo, final StandardCovariateList covariates, final ApplyBQSRArgumentCollection args) {
+    private BQSRReadTransformer(final SAMFileHeader header, final RecalibrationTables recalibrationTables, final QuantizationInfo quantizationInfo, final StandardCovariateList covariates, final ApplyBQSRArgumentCollection args, final long maxLookupEntries) {
         this.header = header;
         this.recalibrationTables = recalibrationTables;
         this.covariates = covariates;
@@ -98,6 +110,9 @@ public final class BQSRReadTransformer implements ReadTransformer {
         //Note: We pre-create the varargs arrays that will be used in the calls. Otherwise we're spending a lot of time allocating those int[] objects
         empiricalQualCovsArgs = new RecalDatum[totalCovariateCount - specialCovariateCount];
         keyCache = new CovariateKeyCache();//one cache per transformer
+
+        lookup = RecalibrationLookup.create(recalibrationTables, quantizationInfo.getQuantizedQuals(), staticQuantizedMapping,
+                globalQScorePrior, specialCovariateCount, totalCovariateCount, maxLookupEntries);
     }
 
     /**
@@ -108,7 +123,49 @@ public final class BQSRReadTransformer implements ReadTransformer {
      * @param args a set of arguments to control how bqsr is applied
      */
     public BQSRReadTransformer(final SAMFileHeader header, final RecalibrationReport recalInfo, final ApplyBQSRArgumentCollection args) {
-        this(header, recalInfo.getRecalibrationTables(), recalInfo.getQuantizationInfo(), recalInfo.getCovariates(), args);
+        this(header, recalInfo, args, DEFAULT_MAX_LOOKUP_ENTRIES);
+    }
+
+    /**
+     * Constructor using a RecalibrationReport, precomputing the recalibration only if it needs at most maxLookupEntries entries
+     */
+    @VisibleForTesting
+    BQSRReadTransformer(final SAMFileHeader header, final RecalibrationReport recalInfo, final ApplyBQSRArgumentCollection args, final long maxLookupEntries) {
+        this(header, recalInfo.getRecalibrationTables(), recalInfo.getQuantizationInfo(), recalInfo.getCovariates(), args, maxLookupEntries);
+    }
+
+    /**
+     * Constructor for another transformer applying the same recalibration as other, e.g. on another thread. The
+     * recalibration tables and precomputed recalibration, which are only read, are shared with other rather than
+     * rebuilt, and only the per-read buffers (which are not thread-safe) are new.
+     *
+     * @param other the transformer to share the recalibration of
+     */
+    public BQSRReadTransformer(final BQSRReadTransformer other) {
+        Utils.nonNull(other);
+        this.header = other.header;
+        this.recalibrationTables = other.recalibrationTables;
+        this.covariates = other.covariates;
+        this.quantizationInfo = other.quantizationInfo;
+        this.preserveQLessThan = other.preserveQLessThan;
+        this.globalQScorePrior = other.globalQScorePrior;
+        this.emitOriginalQuals = other.emitOriginalQuals;
+        this.useOriginalBaseQualities = other.useOriginalBaseQualities;
+        this.staticQuantizedMapping = other.staticQuantizedMapping;
+        this.totalCovariateCount = other.totalCovariateCount;
+        this.specialCovariateCount = other.specialCovariateCount;
+        this.lookup = other.lookup;
+
+        empiricalQualCovsArgs = new RecalDatum[totalCovariateCount - specialCovariateCount];
+        keyCache = new CovariateKeyCache();
+    }
+
+    /**
+     * @return true if the recalibrated qualities are looked up in precomputed tables rather than computed for every base
+     */
+    @VisibleForTesting
+    boolean usesPrecomputedRecalibration() {
+        return lookup != null;
     }
 
     /**
@@ -161,6 +218,12 @@ public final class BQSRReadTransformer implements ReadTransformer {
         }
         final byte[] quals = read.getBaseQualities();
 
+        if (lookup != null) {
+            lookup.recalibrate(quals, fullReadKeySet, preserveQLessThan, specialCovariateCount, totalCovariateCount);
+            read.setBaseQualities(quals);
+            return read;
+        }
+
         final int readLength = quals.length;
         final double epsilon = globalQScorePrior > 0.0 ? globalQScorePrior : empiricalQualRG.getEstimatedQReported();
 
@@ -197,7 +260,7 @@ public final class BQSRReadTransformer implements ReadTransformer {
     }
 
     // recalibrated quality is bound between 1 and MAX_QUAL
-    private byte getRecalibratedQual(final double recalibratedQualDouble) {
+    private static byte getRecalibratedQual(final double recalibratedQualDouble) {
         return boundQual(fastRound(recalibratedQualDouble), MAX_RECALIBRATED_Q_SCORE);
     }
 
@@ -205,11 +268,8 @@ public final class BQSRReadTransformer implements ReadTransformer {
                                                               final RecalDatum empiricalQualRG,
                                                               final RecalDatum empiricalQualQS,
                                                               final RecalDatum... empiricalQualCovs ) {
-        final double globalDeltaQ = empiricalQualRG == null ? 0.0 : empiricalQualRG.getEmpiricalQuality(epsilon) - epsilon;
-        final double deltaQReported = empiricalQualQS == null ? 0.0 : empiricalQualQS.getEmpiricalQuality(globalDeltaQ + epsilon) - (globalDeltaQ + epsilon);
-
         double deltaQCovariates = 0.0;
-        final double conditionalPrior2 = deltaQReported + globalDeltaQ + epsilon;
+        final double conditionalPrior2 = conditionalPrior(epsilon, empiricalQualRG, empiricalQualQS);
         for( final RecalDatum empiricalQualCov : empiricalQualCovs ) {
             if (empiricalQualCov != null) {
                 deltaQCovariates += empiricalQualCov.getEmpiricalQuality(conditionalPrior2) - conditionalPrior2;
@@ -219,6 +279,16 @@ public final class BQSRReadTransformer implements ReadTransformer {
         return conditionalPrior2 + deltaQCovariates;
     }
 
+    /**
+     * @return the prior for the additional covariates in {@link #hierarchicalBayesianQualityEstimate}, i.e. the
+     *         estimate from the read group and quality score tables alone
+     */
+    private static double conditionalPrior(final double epsilon, final RecalDatum empiricalQualRG, final RecalDatum empiricalQualQS) {
+        final double globalDeltaQ = empiricalQualRG == null ? 0.0 : empiricalQualRG.getEmpiricalQuality(epsilon) - epsilon;
+        final double deltaQReported = empiricalQualQS == null ? 0.0 : empiricalQualQS.getEmpiricalQuality(globalDeltaQ + epsilon) - (globalDeltaQ + epsilon);
+        return deltaQReported + globalDeltaQ + epsilon;
+    }
+
     /**
      * Constructs an array that maps particular quantized values to a rounded value in staticQuantizedQuals
      *
@@ -289,4 +359,148 @@ public final class BQSRReadTransformer implements ReadTransformer {
         }
         return bytes;
     }
+
+    /**
+     * The recalibration of {@link #hierarchicalBayesianQualityEstimate}, precomputed for every combination of keys that
+     * occurs in the recalibration tables, so that recalibrating a base only takes a few array lookups.
+     *
+     * The estimate is the sum of a prior that depends only on the read group and quality score and of one delta per
+     * additional covariate that depends on the read group, quality score and covariate value, so those are tabulated
+     * separately rather than for every combination of covariate values, which for the standard context and cycle
+     * covariates would be far too many. The deltas are summed in the same order as in
+     * {@link #hierarchicalBayesianQualityEstimate}, and the deltas of missing RecalDatums are skipped rather than added
+     * as zeros, so the results are exactly the same. The final quantization, both dynamic and static, is a single
+     * table indexed by the rounded recalibrated quality.
+     */
+    private static final class RecalibrationLookup implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final int numQuals;
+
+        // estimate from the read group and quality score tables, indexed by read group * numQuals + quality score
+        private final double[] conditionalPriors;
+
+        // estimate from the read group table alone, used for quality scores beyond the quality score table, indexed by read group
+        private final double[] readGroupPriors;
+
+        // indexed by additional covariate, read group * numQuals + quality score, covariate value; null where there is no data
+        private final double[][][] covariateDeltas;
+
+        // final quality score, indexed by the rounded and bounded recalibrated quality
+        private final byte[] recalibratedQuals;
+
+        private RecalibrationLookup(final int numQuals, final double[] conditionalPriors, final double[] readGroupPriors,
+                                    final double[][][] covariateDeltas, final byte[] recalibratedQuals) {
+            this.numQuals = numQuals;
+            this.conditionalPriors = conditionalPriors;
+            this.readGroupPriors = readGroupPriors;
+            this.covariateDeltas = covariateDeltas;
+            this.recalibratedQuals = recalibratedQuals;
+        }
+
+        /**
+         * @return the precomputed recalibration, or null if it would need more than maxEntries entries or the
+         *         quantization does not cover every recalibrated quality
+         */
+        static RecalibrationLookup create(final RecalibrationTables recalibrationTables, final List<Byte> quantizedQuals,
+                                          final byte[] staticQuantizedMapping, final double globalQScorePrior,
+                                          final int specialCovariateCount, final int totalCovariateCount, final long maxEntries) {
+            final int numAdditionalCovariates = totalCovariateCount - specialCovariateCount;
+            final NestedIntegerArray<RecalDatum> readGroupTable = recalibrationTables.getReadGroupTable();
+            final NestedIntegerArray<RecalDatum> qualityScoreTable = recalibrationTables.getQualityScoreTable();
+            final int numReadGroups = readGroupTable.getDimensions()[0];
+            final int numQuals = qualityScoreTable.getDimensions()[1];
+            final int numRows = numReadGroups * numQuals;
+
+            // only the read group / quality score combinations with data get a row of deltas, so count those first
+            long numEntries = (long) numReadGroups * (numQuals + 1);
+            final List<List<NestedIntegerArray.Leaf<RecalDatum>>> covariateLeaves = new ArrayList<>(numAdditionalCovariates);
+            for (int i = 0; i < numAdditionalCovariates; i++) {
+                final NestedIntegerArray<RecalDatum> table = recalibrationTables.getTable(i + specialCovariateCount);
+                final List<NestedIntegerArray.Leaf<RecalDatum>> leaves = table.getAllLeaves();
+                covariateLeaves.add(leaves);
+                final boolean[] hasRow = new boolean[numRows];
+                for (final NestedIntegerArray.Leaf<RecalDatum> leaf : leaves) {
+                    final int row = leaf.keys[0] * numQuals + leaf.keys[1];
+                    if (leaf.keys[3] == BASE_SUBSTITUTION_INDEX && !hasRow[row]) {
+                        hasRow[row] = true;
+                        numEntries += table.getDimensions()[2];
+                    }
+                }
+            }
+            if (numEntries > maxEntries || quantizedQuals.size() <= MAX_RECALIBRATED_Q_SCORE) {
+                return null;
+            }
+
+            final double[] conditionalPriors = new double[numRows];
+            final double[] readGroupPriors = new double[numReadGroups];
+            Arrays.fill(conditionalPriors, Double.NaN);
+            Arrays.fill(readGroupPriors, Double.NaN);
+            for (int rgKey = 0; rgKey < numReadGroups; rgKey++) {
+                final RecalDatum empiricalQualRG = readGroupTable.get2Keys(rgKey, BASE_SUBSTITUTION_INDEX);
+                if (empiricalQualRG == null) {
+                    continue; // reads from this read group are not recalibrated
+                }
+                final double epsilon = globalQScorePrior > 0.0 ? globalQScorePrior : empiricalQualRG.getEstimatedQReported();
+                readGroupPriors[rgKey] = conditionalPrior(epsilon, empiricalQualRG, null);
+                for (int qualKey = 0; qualKey < numQuals; qualKey++) {
+                    conditionalPriors[rgKey * numQuals + qualKey] =
+                            conditionalPrior(epsilon, empiricalQualRG, qualityScoreTable.get3Keys(rgKey, qualKey, BASE_SUBSTITUTION_INDEX));
+                }
+            }
+
+            final double[][][] covariateDeltas = new double[numAdditionalCovariates][numRows][];
+            for (int i = 0; i < numAdditionalCovariates; i++) {
+                final int numCovariateValues = recalibrationTables.getTable(i + specialCovariateCount).getDimensions()[2];
+                for (final NestedIntegerArray.Leaf<RecalDatum> leaf : covariateLeaves.get(i)) {
+                    final int row = leaf.keys[0] * numQuals + leaf.keys[1];
+                    if (leaf.keys[3] != BASE_SUBSTITUTION_INDEX || Double.isNaN(conditionalPriors[row])) {
+                        continue;
+                    }
+                    if (covariateDeltas[i][row] == null) {
+                        covariateDeltas[i][row] = new double[numCovariateValues];
+                    }
+                    final double conditionalPrior2 = conditionalPriors[row];
+                    covariateDeltas[i][row][leaf.keys[2]] = leaf.value.getEmpiricalQuality(conditionalPrior2) - conditionalPrior2;
+                }
+            }
+
+            final byte[] recalibratedQuals = new byte[MAX_RECALIBRATED_Q_SCORE + 1];
+            for (int qual = 0; qual < recalibratedQuals.length; qual++) {
+                final byte quantizedQual = quantizedQuals.get(qual);
+                recalibratedQuals[qual] = staticQuantizedMapping == null ? quantizedQual : staticQuantizedMapping[quantizedQual];
+            }
+            return new RecalibrationLookup(numQuals, conditionalPriors, readGroupPriors, covariateDeltas, recalibratedQuals);
+        }
+
+        /**
+         * Recalibrate quals in place, exactly as the per-base computation in {@link #apply} does. The read group of
+         * the read must have data in the read group table.
+         */
+        void recalibrate(final byte[] quals, final int[][] fullReadKeySet, final int preserveQLessThan,
+                         final int specialCovariateCount, final int totalCovariateCount) {
+            //Note: this loop is under very heavy use in applyBQSR. Keep it slim.
+            for (int offset = 0; offset < quals.length; offset++) {
+                if (quals[offset] < preserveQLessThan) {
+                    continue;
+                }
+                final int[] keySet = fullReadKeySet[offset];
+                if (keySet[1] >= numQuals) {
+                    // no quality score or covariate data for this quality
+                    quals[offset] = recalibratedQuals[getRecalibratedQual(readGroupPriors[keySet[0]])];
+                    continue;
+                }
+                final int row = keySet[0] * numQuals + keySet[1];
+                double deltaQCovariates = 0.0;
+                for (int i = specialCovariateCount; i < totalCovariateCount; i++) {
+                    final double[] deltas = covariateDeltas[i - specialCovariateCount][row];
+                    final int covariateKey = keySet[i];
+                    if (deltas != null && covariateKey >= 0 && covariateKey < deltas.length) {
+                        deltaQCovariates += deltas[covariateKey];
+                    }
+                }
+                quals[offset] = recalibratedQuals[getRecalibratedQual(conditionalPriors[row] + deltaQCovariates)];
+            }
+        }
+    }
 }
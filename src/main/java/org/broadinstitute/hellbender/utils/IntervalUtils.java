@@ -1057,6 +1057,53 @@ public final class IntervalUtils {
         return intervalGroups;
     }
 
+    /**
+     * Accepts a sorted List of non-overlapping intervals, and divides it into at most {@code numShards} contiguous
+     * groups spanning roughly equal numbers of bases, cutting intervals at group boundaries where necessary.
+     * Concatenating the returned groups gives back the input territory, in the input order.
+     *
+     * @param sortedIntervals sorted List of non-overlapping intervals to divide
+     * @param numShards maximum number of groups to create. Must be > 0.
+     * @return A List of non-empty Lists of intervals, one List per group
+     */
+    public static List<List<SimpleInterval>> divideIntervalsIntoShards(final List<SimpleInterval> sortedIntervals, final int numShards) {
+        Utils.nonNull(sortedIntervals);
+        Utils.validateArg(numShards > 0, "numShards must be > 0");
+
+        final long totalSize = sortedIntervals.stream().mapToLong(SimpleInterval::size).sum();
+        final long targetShardSize = Math.max((totalSize + numShards - 1) / numShards, 1);
+
+        final List<List<SimpleInterval>> shards = new ArrayList<>(numShards);
+        List<SimpleInterval> currentShard = new ArrayList<>();
+        long currentShardSize = 0;
+
+        for ( final SimpleInterval interval : sortedIntervals ) {
+            int start = interval.getStart();
+            while ( start <= interval.getEnd() ) {
+                // the last shard gets all of the remaining territory, to deal with rounding issues
+                final boolean isLastShard = shards.size() == numShards - 1;
+                final int end = isLastShard ? interval.getEnd() :
+                        (int)Math.min(interval.getEnd(), start + (targetShardSize - currentShardSize) - 1);
+
+                currentShard.add(new SimpleInterval(interval.getContig(), start, end));
+                currentShardSize += end - start + 1;
+                start = end + 1;
+
+                if ( ! isLastShard && currentShardSize >= targetShardSize ) {
+                    shards.add(currentShard);
+                    currentShard = new ArrayList<>();
+                    currentShardSize = 0;
+                }
+            }
+        }
+
+        if ( ! currentShard.isEmpty() ) {
+            shards.add(currentShard);
+        }
+
+        return shards;
+    }
+
     private static LinkedHashMap<String, List<GenomeLoc>> splitByContig(final List<GenomeLoc> sorted) {
         final LinkedHashMap<String, List<GenomeLoc>> splits = new LinkedHashMap<>();
         GenomeLoc last = null;
@@ -0,0 +1,99 @@
+package org.broadinstitute.hellbender.utils;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Runs tasks on a fixed-size pool of worker threads while handing their results back to a consumer
+ * in exactly the order in which the tasks were submitted.
+ *
+ * Tasks are submitted from a single "driver" thread (typically a traversal), and the result consumer is
+ * always invoked on that same driver thread, so it can safely write to non-thread-safe outputs such as
+ * {@link htsjdk.variant.variantcontext.writer.VariantContextWriter}s. The number of tasks that are queued
+ * or running but whose results have not yet been consumed is bounded by {@code maxInFlight}: once that bound is
+ * reached, {@link #submit} blocks on the oldest outstanding task (the head of the reorder buffer) and consumes
+ * its result before accepting the new task.
+ *
+ * This class is not thread-safe: {@link #submit}, {@link #finish} and {@link #close} must all be called from the
+ * driver thread.
+ *
+ * @param <T> type of the task results
+ */
+public final class OrderedParallelExecutor<T> implements AutoCloseable {
+
+    private final ExecutorService executorService;
+    private final Deque<Future<T>> inFlight;
+    private final int maxInFlight;
+    private final Consumer<T> resultConsumer;
+
+    /**
+     * @param numThreads number of worker threads. Must be >= 1.
+     * @param maxInFlight maximum number of submitted tasks whose results have not yet been consumed. Must be >= numThreads.
+     * @param threadNamePrefix prefix for the names of the worker threads
+     * @param resultConsumer called on the submitting thread with the result of each task, in submission order
+     */
+    public OrderedParallelExecutor(final int numThreads, final int maxInFlight, final String threadNamePrefix, final Consumer<T> resultConsumer) {
+        Utils.validateArg(numThreads >= 1, "numThreads must be at least 1");
+        Utils.validateArg(maxInFlight >= numThreads, "maxInFlight must be at least numThreads");
+        Utils.nonNull(threadNamePrefix, "threadNamePrefix");
+        this.resultConsumer = Utils.nonNull(resultConsumer, "resultConsumer");
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new ArrayDeque<>(maxInFlight);
+        this.executorService = Executors.newFixedThreadPool(numThreads, new ThreadFactoryBuilder()
+                .setNameFormat(threadNamePrefix + "-thread-%d")
+                .setDaemon(true).build());
+    }
+
+    /**
+     * Submit a task for execution on the worker pool. If the maximum number of in-flight tasks has been reached,
+     * blocks until the oldest outstanding task completes and its result has been passed to the result consumer.
+     *
+     * @param task task to run on a worker thread
+     */
+    public void submit(final Callable<T> task) {
+        Utils.nonNull(task, "task");
+        while ( inFlight.size() >= maxInFlight ) {
+            consumeNext();
+        }
+        inFlight.add(executorService.submit(task));
+    }
+
+    /**
+     * Wait for all outstanding tasks to complete, passing their results to the result consumer in submission order.
+     * Further tasks may be submitted after this call.
+     */
+    public void finish() {
+        while ( ! inFlight.isEmpty() ) {
+            consumeNext();
+        }
+    }
+
+    /**
+     * @return the number of submitted tasks whose results have not yet been consumed
+     */
+    public int numInFlight() {
+        return inFlight.size();
+    }
+
+    /**
+     * Cancel any outstanding tasks without consuming their results, and shut down the worker pool.
+     * Call {@link #finish} first to consume all results.
+     */
+    @Override
+    public void close() {
+        inFlight.forEach(future -> future.cancel(true));
+        inFlight.clear();
+        executorService.shutdownNow();
+    }
+
+    private void consumeNext() {
+        resultConsumer.accept(Utils.getFutureResult(inFlight.remove()));
+    }
+}
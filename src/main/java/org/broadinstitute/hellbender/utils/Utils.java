@@ -1469,21 +1469,19 @@ public final class Utils {
     }
 
     /**
-     * Runs a task in parallel returning it returned result.
-     * <p> This call will wait until such task is completed.</p>
-     * @param threads number of threads requested. 0 would result in using a system default,
-     *                usually the host number of CPU cores.
-     * @param supplier the task to run.
-     * @param <T> the type of the return.
-     * @return whatever the input task returns in the end, it can be {@code null}.
-     * @throws GATKException if the run was interrupted or resulted in a checked exception. Unchecked exceptions and Error
-     *   progragate as they are.
+     * Waits for a task run on another thread to complete and returns its result.
+     *
+     * @param future the task to wait for
+     * @param <T> the type of the result
+     * @return the result of the task, it can be {@code null}.
+     * @throws GATKException if the wait was interrupted or the task threw a checked exception. Unchecked exceptions and
+     *   Errors thrown by the task propagate as they are, so that eg. UserExceptions raised on other threads surface unchanged.
      */
-    public static <T> T runInParallel(final int threads, final Supplier<T> supplier) {
-        final ForkJoinPool threadPool = threads == 0 ? new ForkJoinPool() : new ForkJoinPool(threads);
+    public static <T> T getFutureResult(final Future<T> future) {
         try {
-            return threadPool.submit(supplier::get).get();
+            return future.get();
         } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
             throw new GATKException("task interrupted", e);
         } catch (final ExecutionException e) {
             final Throwable cause = e.getCause();
@@ -1496,4 +1494,20 @@ public final class Utils {
             }
         }
     }
+
+    /**
+     * Runs a task in parallel returning it returned result.
+     * <p> This call will wait until such task is completed.</p>
+     * @param threads number of threads requested. 0 would result in using a system default,
+     *                usually the host number of CPU cores.
+     * @param supplier the task to run.
+     * @param <T> the type of the return.
+     * @return whatever the input task returns in the end, it can be {@code null}.
+     * @throws GATKException if the run was interrupted or resulted in a checked exception. Unchecked exceptions and Error
+     *   progragate as they are.
+     */
+    public static <T> T runInParallel(final int threads, final Supplier<T> supplier) {
+        final ForkJoinPool threadPool = threads == 0 ? new ForkJoinPool() : new ForkJoinPool(threads);
+        return getFutureResult(threadPool.submit(supplier::get));
+    }
 }
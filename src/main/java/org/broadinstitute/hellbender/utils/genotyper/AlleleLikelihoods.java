@@ -46,6 +46,14 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
     public boolean isNaturalLog() {
         return isNaturalLog;
     }
+
+    /**
+     * @return whether the likelihoods are kept in the compact {@code float} storage.
+     */
+    public boolean usesCompactStorage() {
+        return Arrays.stream(valuesBySampleIndex).anyMatch(LikelihoodValues::isCompact);
+    }
+
     private double getInformativeThreshold() {
         return isNaturalLog ? NATURAL_LOG_INFORMATIVE_THRESHOLD : LOG_10_INFORMATIVE_THRESHOLD;
     }
@@ -66,18 +74,15 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
     protected final List<List<EVIDENCE>> filteredEvidenceBySampleIndex;
 
     /**
-     * Indexed per sample, allele and finally evidence (within sample).
+     * Indexed per sample, then per allele and evidence (within sample).
      * <p>
-     *     valuesBySampleIndex[s][a][r] == lnLk(R_r | A_a) where R_r comes from Sample s.
+     *     valuesBySampleIndex[s].get(a, r) == lnLk(R_r | A_a) where R_r comes from Sample s.
+     * </p>
+     * <p>
+     *     The values of each sample also keep track of the maximum number of evidences that can be stored across all alleles.
      * </p>
      */
-    private final double[][][] valuesBySampleIndex;
-
-    /**
-     * Keeps track of the maximum number of evidences and likelihood values that can be stored
-     * stored across all alleles.
-     */
-    private final int[] likelihoodsMatrixEvidenceCapacityBySampleIndex;
+    private final LikelihoodValues[] valuesBySampleIndex;
 
     /**
      * Holds the number of evidence per sample.
@@ -130,10 +135,35 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
      * or {@code evidenceBySample} is {@code null},
      *  or if they contain null values.
      */
-    @SuppressWarnings({"rawtypes", "unchecked"})
     public AlleleLikelihoods(final SampleList samples,
                              final AlleleList<A> alleles,
                              final Map<String, List<EVIDENCE>> evidenceBySample) {
+        this(samples, alleles, evidenceBySample, false);
+    }
+
+    /**
+     * Constructs a new evidence-likelihood collection, optionally with a compact storage for the likelihoods.
+     *
+     * <p>
+     *     The compact storage keeps the likelihoods of each sample as {@code float}s in a single array, which halves
+     *     the memory used by large collections (e.g. reads by haplotypes at high depth) at the cost of some precision.
+     *     The collections derived from this one (by {@link #marginalize}, for example) use the same storage.
+     * </p>
+     *
+     * @param samples all supported samples in the collection.
+     * @param alleles all supported alleles in the collection.
+     * @param evidenceBySample evidence stratified per sample.
+     * @param compactStorage whether to store the likelihoods as {@code float}s.
+     *
+     * @throws IllegalArgumentException if any of {@code allele}, {@code samples}
+     * or {@code evidenceBySample} is {@code null},
+     *  or if they contain null values.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public AlleleLikelihoods(final SampleList samples,
+                             final AlleleList<A> alleles,
+                             final Map<String, List<EVIDENCE>> evidenceBySample,
+                             final boolean compactStorage) {
         Utils.nonNull(alleles);
         Utils.nonNull(samples);
         Utils.nonNull(evidenceBySample);
@@ -145,8 +175,7 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
         final int alleleCount = alleles.numberOfAlleles();
 
         evidenceBySampleIndex = new ArrayList<>(sampleCount);
-        valuesBySampleIndex = new double[sampleCount][][];
-        likelihoodsMatrixEvidenceCapacityBySampleIndex = new int[sampleCount]; // set to 0s; what we need.
+        valuesBySampleIndex = new LikelihoodValues[sampleCount];
         referenceAlleleIndex = findReferenceAllele(alleles);
         numberOfEvidences = new int[sampleCount];
 
@@ -154,7 +183,7 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
         filteredEvidenceBySampleIndex = new ArrayList<>();
         samples().forEach(s -> this.filteredEvidenceBySampleIndex.add(new ArrayList<>(2)));
 
-        setupIndexes(evidenceBySample, sampleCount, alleleCount);
+        setupIndexes(evidenceBySample, sampleCount, alleleCount, compactStorage);
 
         sampleMatrices = (LikelihoodMatrix<EVIDENCE, A>[]) new LikelihoodMatrix[sampleCount];
     }
@@ -166,7 +195,7 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
                       final SampleList samples,
                       final List<List<EVIDENCE>> evidenceBySampleIndex,
                       final List<List<EVIDENCE>> filteredEvidenceBySampleIndex,
-                      final double[][][] values) {
+                      final LikelihoodValues[] values) {
         this.samples = samples;
         this.alleles = alleles;
         this.evidenceBySampleIndex = evidenceBySampleIndex;
@@ -187,14 +216,6 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
         numberOfEvidences = IntStream.range(0, sampleCount)
           .map(i -> evidenceBySampleIndex.get(i).size())
           .toArray();
-
-        // We take the shortest allele's values array as the maximum evidence capacity for
-        // each sample.
-        likelihoodsMatrixEvidenceCapacityBySampleIndex = Arrays.stream(values)
-                .mapToInt(sampleValues -> Arrays.stream(sampleValues)
-                        .mapToInt(v -> v.length)
-                        .min().orElse(0))
-                .toArray();
     }
 
     /*
@@ -206,7 +227,9 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
                                             final List<List<EVIDENCE>> evidenceBySampleIndex,
                                             final List<List<EVIDENCE>> filteredEvidenceBySampleIndex,
                                             final double[][][] values) {
-        return new AlleleLikelihoods<>(alleles, samples, evidenceBySampleIndex, filteredEvidenceBySampleIndex, values);
+        // We take the shortest allele's values array as the maximum evidence capacity for each sample.
+        final LikelihoodValues[] likelihoodValues = Arrays.stream(values).map(LikelihoodValues::of).toArray(LikelihoodValues[]::new);
+        return new AlleleLikelihoods<>(alleles, samples, evidenceBySampleIndex, filteredEvidenceBySampleIndex, likelihoodValues);
     }
 
     /**
@@ -230,7 +253,7 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
     }
     
     // Add all the indices to alleles, sample and evidence in the look-up maps.
-    private void setupIndexes(final Map<String, List<EVIDENCE>> evidenceBySample, final int sampleCount, final int alleleCount) {
+    private void setupIndexes(final Map<String, List<EVIDENCE>> evidenceBySample, final int sampleCount, final int alleleCount, final boolean compactStorage) {
         for (int s = 0; s < sampleCount; s++) {
             final String sample = samples.getSample(s);
             final List<EVIDENCE> sampleEvidences = evidenceBySample.get(sample);
@@ -238,9 +261,7 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
             evidenceBySampleIndex.add(sampleEvidences == null ? new ArrayList<>() : new ArrayList<>(sampleEvidences));
             final int sampleEvidenceCount = evidenceBySampleIndex.get(s).size();
 
-            final double[][] sampleValues = new double[alleleCount][sampleEvidenceCount];
-            likelihoodsMatrixEvidenceCapacityBySampleIndex[s] = sampleEvidenceCount;
-            valuesBySampleIndex[s] = sampleValues;
+            valuesBySampleIndex[s] = LikelihoodValues.create(alleleCount, sampleEvidenceCount, compactStorage);
         }
     }
 
@@ -371,9 +392,10 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
 
         for (int s = 0; s < sampleCount; s++) {
             final int evidenceCount = sampleEvidenceCount(s);
+            final LikelihoodValues sampleValues = valuesBySampleIndex[s];
             for (int a = 0; a < alleleCount; a++) {
                 for (int e = 0; e < evidenceCount; e++) {
-                    valuesBySampleIndex[s][a][e] = MathUtils.log10ToLog(valuesBySampleIndex[s][a][e]);
+                    sampleValues.set(a, e, MathUtils.log10ToLog(sampleValues.get(a, e)));
                 }
             }
         }
@@ -429,7 +451,7 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
         }
 
         for (int s = 0; s < valuesBySampleIndex.length; s++) {
-            final double[][] sampleValues = valuesBySampleIndex[s];
+            final LikelihoodValues sampleValues = valuesBySampleIndex[s];
             final int evidenceCount = evidenceBySampleIndex.get(s).size();
             for (int r = 0; r < evidenceCount; r++) {
                 normalizeLikelihoodsPerEvidence(maximumLikelihoodDifferenceCap, sampleValues, s, r, symmetricallyNormalizeAllelesToReference);
@@ -439,7 +461,7 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
 
     // Does the normalizeLikelihoods job for each piece of evidence.
     private void normalizeLikelihoodsPerEvidence(final double maximumBestAltLikelihoodDifference,
-                                                 final double[][] sampleValues, final int sampleIndex, final int evidenceIndex, final boolean symmetricallyNormalizeAllelesToReference) {
+                                                 final LikelihoodValues sampleValues, final int sampleIndex, final int evidenceIndex, final boolean symmetricallyNormalizeAllelesToReference) {
 
         //allow the best allele to be the reference because asymmetry leads to strange artifacts like het calls with >90% alt reads
         final BestAllele bestAllele = searchBestAllele(sampleIndex,evidenceIndex,symmetricallyNormalizeAllelesToReference);
@@ -450,8 +472,8 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
 
         // Guarantee to be the case by enclosing code.
         for (int a = 0; a < alleleCount; a++) {
-            if (sampleValues[a][evidenceIndex] < worstLikelihoodCap) {
-                sampleValues[a][evidenceIndex] = worstLikelihoodCap;
+            if (sampleValues.get(a, evidenceIndex) < worstLikelihoodCap) {
+                sampleValues.set(a, evidenceIndex, worstLikelihoodCap);
             }
         }
 
@@ -509,18 +531,18 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
                     Double.NEGATIVE_INFINITY, MISSING_INDEX, Double.NEGATIVE_INFINITY);
         }
 
-        final double[][] sampleValues = valuesBySampleIndex[sampleIndex];
+        final LikelihoodValues sampleValues = valuesBySampleIndex[sampleIndex];
         int bestAlleleIndex = canBeReference || referenceAlleleIndex != 0 ? 0 : 1;
 
         int secondBestIndex = 0;
-        double bestLikelihood = sampleValues[bestAlleleIndex][evidenceIndex];
+        double bestLikelihood = sampleValues.get(bestAlleleIndex, evidenceIndex);
         double secondBestLikelihood = Double.NEGATIVE_INFINITY;
 
         for (int a = bestAlleleIndex + 1; a < alleleCount; a++) {
             if (!canBeReference && referenceAlleleIndex == a) {
                 continue;
             }
-            final double candidateLikelihood = sampleValues[a][evidenceIndex];
+            final double candidateLikelihood = sampleValues.get(a, evidenceIndex);
             if (candidateLikelihood > bestLikelihood) {
                 secondBestIndex = bestAlleleIndex;
                 bestAlleleIndex = a;
@@ -536,7 +558,7 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
             double bestPriority = priorities[bestAlleleIndex];
             double secondBestPriority = priorities[secondBestIndex];
             for (int a = 0; a < alleleCount; a++) {
-                final double candidateLikelihood = sampleValues[a][evidenceIndex];
+                final double candidateLikelihood = sampleValues.get(a, evidenceIndex);
                 if (a == bestAlleleIndex || (!canBeReference && a == referenceAlleleIndex) || bestLikelihood - candidateLikelihood > getInformativeThreshold()) {
                     continue;
                 }
@@ -554,8 +576,8 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
             }
         }
 
-        bestLikelihood = sampleValues[bestAlleleIndex][evidenceIndex];
-        secondBestLikelihood = secondBestIndex != bestAlleleIndex ? sampleValues[secondBestIndex][evidenceIndex] : Double.NEGATIVE_INFINITY;
+        bestLikelihood = sampleValues.get(bestAlleleIndex, evidenceIndex);
+        secondBestLikelihood = secondBestIndex != bestAlleleIndex ? sampleValues.get(secondBestIndex, evidenceIndex) : Double.NEGATIVE_INFINITY;
 
         return new BestAllele(sampleIndex, evidenceIndex, bestAlleleIndex, bestLikelihood, secondBestIndex, secondBestLikelihood);
     }
@@ -630,18 +652,10 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
         }
 
         //copy old allele likelihoods and set new allele likelihoods to the default value
+        // (the rest of the evidence capacity is filled with NaNs)
         for (int s = 0; s < samples.numberOfSamples(); s++) {
             final int sampleEvidenceCount = evidenceBySampleIndex.get(s).size();
-            final double[][] newValuesBySampleIndex = Arrays.copyOf(valuesBySampleIndex[s], newAlleleCount);
-            for (int a = oldAlleleCount; a < newAlleleCount; a++) {
-                newValuesBySampleIndex[a] = new double[likelihoodsMatrixEvidenceCapacityBySampleIndex[s]];
-                if (defaultLikelihood != 0.0) {
-                    Arrays.fill(newValuesBySampleIndex[a], 0, sampleEvidenceCount, defaultLikelihood);
-                }
-                // Fill the rest with NaNs
-                Arrays.fill(newValuesBySampleIndex[a], sampleEvidenceCount, newValuesBySampleIndex[a].length, Double.NaN);
-            }
-            valuesBySampleIndex[s] = newValuesBySampleIndex;
+            valuesBySampleIndex[s].addAlleles(newAlleleCount - oldAlleleCount, sampleEvidenceCount, defaultLikelihood);
         }
         return true;
     }
@@ -661,7 +675,7 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
      */
     public <U, NEW_EVIDENCE_TYPE extends Locatable> AlleleLikelihoods<NEW_EVIDENCE_TYPE, A> groupEvidence(final Function<EVIDENCE, U> groupingFunction, final Function<List<EVIDENCE>, NEW_EVIDENCE_TYPE> gather) {
         final int sampleCount = samples.numberOfSamples();
-        final double[][][] newLikelihoodValues = new double[sampleCount][][];
+        final LikelihoodValues[] newLikelihoodValues = new LikelihoodValues[sampleCount];
         final int alleleCount = alleles.numberOfAlleles();
 
         final List<List<NEW_EVIDENCE_TYPE>> newEvidenceBySampleIndex = new ArrayList<>(sampleCount);
@@ -675,16 +689,18 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
 
             final int newEvidenceCount = evidenceGroups.size();
 
-            final double[][] oldSampleValues = valuesBySampleIndex[s];
-            newLikelihoodValues[s] = new double[alleleCount][newEvidenceCount];
+            final LikelihoodValues oldSampleValues = valuesBySampleIndex[s];
+            final LikelihoodValues newSampleValues = newLikelihoodValues[s] = oldSampleValues.newValues(alleleCount, newEvidenceCount);
 
             // For each old allele and read we update the new table keeping the maximum likelihood.
             for (int newEvidenceIndex = 0; newEvidenceIndex < newEvidenceCount; newEvidenceIndex++) {
                 for (int a = 0; a < alleleCount; a++) {
+                    double likelihood = 0;
                     for (final EVIDENCE evidence : evidenceGroups.get(newEvidenceIndex)) {
                         final int oldEvidenceIndex = evidenceIndex(s, evidence);
-                        newLikelihoodValues[s][a][newEvidenceIndex] += oldSampleValues[a][oldEvidenceIndex];
+                        likelihood += oldSampleValues.get(a, oldEvidenceIndex);
                     }
+                    newSampleValues.set(a, newEvidenceIndex, likelihood);
                 }
             }
             newEvidenceBySampleIndex.add(evidenceGroups.stream().map(gather).collect(Collectors.toList()));
@@ -720,14 +736,13 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
 
         final B[] newAlleles = newToOldAlleleMap.keySet().toArray((B[]) new Allele[newToOldAlleleMap.size()]);
         final int oldAlleleCount = alleles.numberOfAlleles();
-        final int newAlleleCount = newAlleles.length;
 
         // we get the index correspondence between new old -> new allele, -1 entries mean that the old
         // allele does not map to any new; supported but typically not the case.
         final List<BitSet> newToOldAlleleIndex = this.newToOldAlleleIndexMap(newToOldAlleleMap, oldAlleleCount, newAlleles);
 
         // We calculate the marginal likelihoods.
-        final double[][][] newLikelihoodValues = marginalLikelihoodsDirect( newAlleleCount, newToOldAlleleIndex);
+        final LikelihoodValues[] newLikelihoodValues = marginalLikelihoodsDirect(newToOldAlleleIndex);
 
         final int sampleCount = samples.numberOfSamples();
 
@@ -749,58 +764,15 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
     }
 
     // Calculate the marginal likelihoods considering the old -> new allele index mapping.
-    private double[][][] marginalLikelihoods(final int oldAlleleCount, final int newAlleleCount,
-                                             final int[] oldToNewAlleleIndexMap) {
-        final int sampleCount = samples.numberOfSamples();
-        final double[][][] result = new double[sampleCount][][];
-
-        for (int s = 0; s < sampleCount; s++) {
-            final int sampleEvidenceCount = evidenceBySampleIndex.get(s).size();
-            final double[][] oldSampleValues = valuesBySampleIndex[s];
-            final double[][] newSampleValues = result[s] = new double[newAlleleCount][sampleEvidenceCount];
-            // We initiate all likelihoods to -Inf.
-            for (int a = 0; a < newAlleleCount; a++) {
-                Arrays.fill(newSampleValues[a], Double.NEGATIVE_INFINITY);
-            }
-            // For each old allele and read we update the new table keeping the maximum likelihood.
-            for (int r = 0; r < sampleEvidenceCount; r++) {
-                for (int a = 0; a < oldAlleleCount; a++) {
-                    final int newAlleleIndex = oldToNewAlleleIndexMap[a];
-                    if (newAlleleIndex == MISSING_INDEX) {
-                        continue;
-                    }
-                    final double likelihood = oldSampleValues[a][r];
-                    if (likelihood > newSampleValues[newAlleleIndex][r]) {
-                        newSampleValues[newAlleleIndex][r] = likelihood;
-                    }
-                }
-            }
-        }
-        return result;
-    }
-
-    // Calculate the marginal likelihoods considering the old -> new allele index mapping.
-    private double[][][] marginalLikelihoodsDirect(final int newAlleleCount, final List<BitSet> newToOldAlleleIndexMap) {
+    private LikelihoodValues[] marginalLikelihoodsDirect(final List<BitSet> newToOldAlleleIndexMap) {
+        final int[][] oldAllelesByNewAllele = newToOldAlleleIndexMap.stream().map(oldAlleles -> oldAlleles.stream().toArray()).toArray(int[][]::new);
 
         final int sampleCount = samples.numberOfSamples();
-        final double[][][] result = new double[sampleCount][][];
+        final LikelihoodValues[] result = new LikelihoodValues[sampleCount];
 
+        // For each new allele and unit of evidence we keep the maximum likelihood of the old alleles, one allele at a time.
         for (int s = 0; s < sampleCount; s++) {
-            final int sampleEvidenceCount = evidenceBySampleIndex.get(s).size();
-            final double[][] oldSampleValues = valuesBySampleIndex[s];
-            final double[][] newSampleValues = result[s] = new double[newAlleleCount][sampleEvidenceCount];
-
-            // For each old allele and unit of evidence we update the new table keeping the maximum likelihood.
-            for (int newAllele = 0; newAllele < newAlleleCount; newAllele++) {
-                final BitSet oldAlleleSet = newToOldAlleleIndexMap.get(newAllele);
-                for (int r = 0; r < sampleEvidenceCount; r++) {
-                    final int finalR = r;
-                    newSampleValues[newAllele][finalR] = oldAlleleSet.stream()
-                            .mapToDouble(oldA -> oldSampleValues[oldA][finalR])
-                            .max()
-                            .orElse(Double.NEGATIVE_INFINITY);
-                }
-            }
+            result[s] = valuesBySampleIndex[s].marginalize(oldAllelesByNewAllele, evidenceBySampleIndex.get(s).size());
         }
         return result;
     }
@@ -890,28 +862,12 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
 
     // Extends the likelihood arrays-matrices.
     private void extendsLikelihoodArrays(final double initialLikelihood, final int sampleIndex, final int oldEvidenceCount, final int newEvidenceCount) {
-        final double[][] sampleValues = valuesBySampleIndex[sampleIndex];
+        final LikelihoodValues sampleValues = valuesBySampleIndex[sampleIndex];
         final int numberOfAlleles = alleles.numberOfAlleles();
-        ensureLikelihoodsMatrixEvidenceCapacity(sampleIndex, newEvidenceCount, sampleValues, numberOfAlleles);
+        // the new capacity is doubled to avoid repetitive 1-element extensions resizing.
+        sampleValues.ensureEvidenceCapacity(newEvidenceCount);
         for (int a = 0; a < numberOfAlleles; a++) {
-            Arrays.fill(sampleValues[a], oldEvidenceCount, newEvidenceCount, initialLikelihood);
-        }
-    }
-
-    // Resizes the lk value holding arrays to be able to handle at least "x" amount of evidence.
-    private void ensureLikelihoodsMatrixEvidenceCapacity(final int sampleIndex, final int x,
-                                                         final double[][] sampleValues, final int numberOfAlleles) {
-        final int currentCapacity = likelihoodsMatrixEvidenceCapacityBySampleIndex[sampleIndex];
-        if (currentCapacity < x) {
-            final int newCapacity = Math.max(currentCapacity, x) << 1; // we double it to avoid repetitive 1-element extensions resizing.
-            for (int a  = 0; a < numberOfAlleles; a++) {
-                sampleValues[a] = Arrays.copyOf(sampleValues[a], newCapacity);
-                // We don't need the following fill for this to work as intended but
-                // with NaN we ensure some clear failure output in case there is a bug that
-                // uses "zombie" likelihoods (e.g. github issue {@link https://github.com/broadinstitute/gatk/pull/7153 #7153).
-                Arrays.fill(sampleValues[a], currentCapacity, newCapacity, Double.NaN);
-            }
-            likelihoodsMatrixEvidenceCapacityBySampleIndex[sampleIndex] = newCapacity;
+            sampleValues.fill(a, oldEvidenceCount, newEvidenceCount, initialLikelihood);
         }
     }
 
@@ -985,13 +941,13 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
         final double[] qualifiedAlleleLikelihoods = new double[nonSymbolicAlleleCount];
         final Median medianCalculator = new Median();
         for (int s = 0; s < samples.numberOfSamples(); s++) {
-            final double[][] sampleValues = valuesBySampleIndex[s];
+            final LikelihoodValues sampleValues = valuesBySampleIndex[s];
             final int evidenceCount = evidenceBySampleIndex.get(s).size();
             for (int r = 0; r < evidenceCount; r++) {
                 final BestAllele bestAllele = searchBestAllele(s, r, true);
                 int numberOfQualifiedAlleleLikelihoods = 0;
                 for (int i = 0; i < alleleCount; i++) {
-                    final double alleleLikelihood = sampleValues[i][r];
+                    final double alleleLikelihood = sampleValues.get(i, r);
                     if (i != nonRefAlleleIndex && alleleLikelihood < bestAllele.likelihood
                             && !Double.isNaN(alleleLikelihood) && allelesToConsider.indexOfAllele(alleles.getAllele(i)) != MISSING_INDEX) {
                         qualifiedAlleleLikelihoods[numberOfQualifiedAlleleLikelihoods++] = alleleLikelihood;
@@ -1002,8 +958,8 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
                 // so the evidence is not informative at all given the existing alleles. Unless there is only one (or zero) concrete
                 // alleles with give the same (the best) likelihood to the NON-REF. When there is only one (or zero) concrete
                 // alleles we set the NON-REF likelihood to NaN.
-                sampleValues[nonRefAlleleIndex][r] = !Double.isNaN(nonRefLikelihood) ? nonRefLikelihood
-                        : nonSymbolicAlleleCount <= 1 ? Double.NaN : bestAllele.likelihood;
+                sampleValues.set(nonRefAlleleIndex, r, !Double.isNaN(nonRefLikelihood) ? nonRefLikelihood
+                        : nonSymbolicAlleleCount <= 1 ? Double.NaN : bestAllele.likelihood);
             }
         }
     }
@@ -1198,10 +1154,10 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
     protected double maximumLikelihoodOverAllAlleles(final int sampleIndex, final int evidenceIndex) {
         double result = Double.NEGATIVE_INFINITY;
         final int alleleCount = alleles.numberOfAlleles();
-        final double[][] sampleValues = valuesBySampleIndex[sampleIndex];
+        final LikelihoodValues sampleValues = valuesBySampleIndex[sampleIndex];
         for (int a = 0; a < alleleCount; a++) {
-            if (sampleValues[a][evidenceIndex] > result) {
-                result = sampleValues[a][evidenceIndex];
+            if (sampleValues.get(a, evidenceIndex) > result) {
+                result = sampleValues.get(a, evidenceIndex);
             }
         }
         return result;
@@ -1313,17 +1269,10 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
                 numRemoved++;
             } else {
                 newEvidence.add(oldEvidence.get(n));
-
-                // update the likelihoods arrays in place
-                for (final double[] alleleValues : valuesBySampleIndex[sampleIndex]) {
-                    alleleValues[n - numRemoved] = alleleValues[n];
-                }
             }
         }
-        // set to NaN lks of the deleted positions in lk value arrays.
-        for (final double[] alleleValues : valuesBySampleIndex[sampleIndex]) {
-            Arrays.fill(alleleValues, newEvidenceCount, alleleValues.length, Double.NaN);
-        }
+        // update the likelihoods in place, setting to NaN the lks of the deleted positions.
+        valuesBySampleIndex[sampleIndex].removeEvidence(evidencesToRemove, oldEvidenceCount);
         evidenceBySampleIndex.set(sampleIndex, newEvidence);
         numberOfEvidences[sampleIndex] = newEvidenceCount;
         invalidateEvidenceToIndexCache(sampleIndex);
@@ -1416,16 +1365,16 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
 
         @Override
         public void set(final int alleleIndex, final int evidenceIndex, final double value) {
-            Utils.validIndex(alleleIndex, valuesBySampleIndex[sampleIndex].length);
+            Utils.validIndex(alleleIndex, valuesBySampleIndex[sampleIndex].numberOfAlleles());
             Utils.validIndex(evidenceIndex,  numberOfEvidences[sampleIndex]);
-            valuesBySampleIndex[sampleIndex][alleleIndex][evidenceIndex] = value;
+            valuesBySampleIndex[sampleIndex].set(alleleIndex, evidenceIndex, value);
         }
 
         @Override
         public double get(final int alleleIndex, final int evidenceIndex) {
-            Utils.validIndex(alleleIndex, valuesBySampleIndex[sampleIndex].length);
+            Utils.validIndex(alleleIndex, valuesBySampleIndex[sampleIndex].numberOfAlleles());
             Utils.validIndex(evidenceIndex, numberOfEvidences[sampleIndex]);
-            return valuesBySampleIndex[sampleIndex][alleleIndex][evidenceIndex];
+            return valuesBySampleIndex[sampleIndex].get(alleleIndex, evidenceIndex);
         }
 
         @Override
@@ -1465,8 +1414,8 @@ public class AlleleLikelihoods<EVIDENCE extends Locatable, A extends Allele> imp
         @Override
         public void copyAlleleLikelihoods(final int alleleIndex, final double[] dest, final int offset) {
             Utils.nonNull(dest);
-            Utils.validIndex(alleleIndex, valuesBySampleIndex[sampleIndex].length);
-            System.arraycopy(valuesBySampleIndex[sampleIndex][alleleIndex], 0, dest, offset, numberOfEvidences[sampleIndex]);
+            Utils.validIndex(alleleIndex, valuesBySampleIndex[sampleIndex].numberOfAlleles());
+            valuesBySampleIndex[sampleIndex].copyAlleleLikelihoods(alleleIndex, dest, offset, numberOfEvidences[sampleIndex]);
         }
     }
 }
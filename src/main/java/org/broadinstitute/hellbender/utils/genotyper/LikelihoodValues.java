@@ -0,0 +1,304 @@
+package org.broadinstitute.hellbender.utils.genotyper;
+
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.Arrays;
+
+/**
+ * Likelihood values of the evidence of one sample in {@link AlleleLikelihoods}, indexed by allele and evidence.
+ *
+ * <p>
+ *     Each allele has room for {@link #evidenceCapacity()} values, of which only the first ones (one per unit of evidence
+ *     of the sample) are meaningful. The others are set to NaN, so that a bug that uses these "zombie" likelihoods
+ *     produces a clear failure (e.g. github issue #7153).
+ * </p>
+ *
+ * <p>
+ *     There are two implementations: the default one keeps a {@code double[]} per allele, and the compact one keeps
+ *     all the values of the sample as {@code float}s in a single array, allele after allele (with a stride equal to the
+ *     evidence capacity), which halves the memory used by the likelihoods of large read/haplotype matrices at the cost
+ *     of some precision (about 7 significant digits).
+ * </p>
+ */
+abstract class LikelihoodValues {
+
+    /**
+     * Creates values initialized to 0.
+     *
+     * @param compact whether to use the compact {@code float} storage
+     */
+    static LikelihoodValues create(final int alleleCount, final int evidenceCapacity, final boolean compact) {
+        return compact ? new FloatValues(alleleCount, evidenceCapacity) : new DoubleValues(new double[alleleCount][evidenceCapacity], evidenceCapacity);
+    }
+
+    /**
+     * Wraps the values of each allele, with no copy. The evidence capacity is the length of the shortest array.
+     */
+    static LikelihoodValues of(final double[][] valuesByAllele) {
+        Utils.nonNull(valuesByAllele);
+        return new DoubleValues(valuesByAllele, Arrays.stream(valuesByAllele).mapToInt(v -> v.length).min().orElse(0));
+    }
+
+    abstract int numberOfAlleles();
+
+    abstract int evidenceCapacity();
+
+    /**
+     * @return whether the values are kept in the compact {@code float} storage
+     */
+    abstract boolean isCompact();
+
+    abstract double get(int alleleIndex, int evidenceIndex);
+
+    abstract void set(int alleleIndex, int evidenceIndex, double value);
+
+    abstract void fill(int alleleIndex, int fromEvidenceIndex, int toEvidenceIndex, double value);
+
+    abstract void copyAlleleLikelihoods(int alleleIndex, double[] dest, int offset, int evidenceCount);
+
+    /**
+     * Makes room for at least the given number of units of evidence, doubling the capacity to avoid repeated resizes.
+     */
+    abstract void ensureEvidenceCapacity(int evidenceCapacity);
+
+    /**
+     * Appends alleles whose likelihoods are defaultValue for the first evidenceCount units of evidence.
+     */
+    abstract void addAlleles(int alleleCount, int evidenceCount, double defaultValue);
+
+    /**
+     * Removes units of evidence, shifting the ones that follow them.
+     *
+     * @param evidenceToRemove sorted indices of the evidence to remove, without duplicates
+     * @param evidenceCount number of units of evidence before the removal
+     */
+    abstract void removeEvidence(int[] evidenceToRemove, int evidenceCount);
+
+    /**
+     * Computes the values of new alleles, each of them taking the maximum likelihood of the old alleles that map to it
+     * (or -Inf if there are none), for the first evidenceCount units of evidence. The result has the same storage as
+     * this, and an evidence capacity of evidenceCount.
+     *
+     * @param oldAllelesByNewAllele for each new allele, the indices of the old alleles that map to it
+     */
+    abstract LikelihoodValues marginalize(int[][] oldAllelesByNewAllele, int evidenceCount);
+
+    /**
+     * @return values initialized to 0, with the same storage as this
+     */
+    LikelihoodValues newValues(final int alleleCount, final int evidenceCapacity) {
+        return create(alleleCount, evidenceCapacity, isCompact());
+    }
+
+    private static final class DoubleValues extends LikelihoodValues {
+        private double[][] values;
+        private int evidenceCapacity;
+
+        private DoubleValues(final double[][] values, final int evidenceCapacity) {
+            this.values = values;
+            this.evidenceCapacity = evidenceCapacity;
+        }
+
+        @Override
+        int numberOfAlleles() {
+            return values.length;
+        }
+
+        @Override
+        int evidenceCapacity() {
+            return evidenceCapacity;
+        }
+
+        @Override
+        boolean isCompact() {
+            return false;
+        }
+
+        @Override
+        double get(final int alleleIndex, final int evidenceIndex) {
+            return values[alleleIndex][evidenceIndex];
+        }
+
+        @Override
+        void set(final int alleleIndex, final int evidenceIndex, final double value) {
+            values[alleleIndex][evidenceIndex] = value;
+        }
+
+        @Override
+        void fill(final int alleleIndex, final int fromEvidenceIndex, final int toEvidenceIndex, final double value) {
+            Arrays.fill(values[alleleIndex], fromEvidenceIndex, toEvidenceIndex, value);
+        }
+
+        @Override
+        void copyAlleleLikelihoods(final int alleleIndex, final double[] dest, final int offset, final int evidenceCount) {
+            System.arraycopy(values[alleleIndex], 0, dest, offset, evidenceCount);
+        }
+
+        @Override
+        void ensureEvidenceCapacity(final int capacity) {
+            if (evidenceCapacity < capacity) {
+                final int newCapacity = capacity << 1;
+                for (int a = 0; a < values.length; a++) {
+                    values[a] = Arrays.copyOf(values[a], newCapacity);
+                    Arrays.fill(values[a], evidenceCapacity, newCapacity, Double.NaN);
+                }
+                evidenceCapacity = newCapacity;
+            }
+        }
+
+        @Override
+        void addAlleles(final int alleleCount, final int evidenceCount, final double defaultValue) {
+            final int oldAlleleCount = values.length;
+            values = Arrays.copyOf(values, oldAlleleCount + alleleCount);
+            for (int a = oldAlleleCount; a < values.length; a++) {
+                values[a] = new double[evidenceCapacity];
+                if (defaultValue != 0.0) {
+                    Arrays.fill(values[a], 0, evidenceCount, defaultValue);
+                }
+                Arrays.fill(values[a], evidenceCount, evidenceCapacity, Double.NaN);
+            }
+        }
+
+        @Override
+        void removeEvidence(final int[] evidenceToRemove, final int evidenceCount) {
+            for (final double[] alleleValues : values) {
+                for (int n = 0, numRemoved = 0; n < evidenceCount; n++) {
+                    if (numRemoved < evidenceToRemove.length && n == evidenceToRemove[numRemoved]) {
+                        numRemoved++;
+                    } else {
+                        alleleValues[n - numRemoved] = alleleValues[n];
+                    }
+                }
+                Arrays.fill(alleleValues, evidenceCount - evidenceToRemove.length, alleleValues.length, Double.NaN);
+            }
+        }
+
+        @Override
+        LikelihoodValues marginalize(final int[][] oldAllelesByNewAllele, final int evidenceCount) {
+            final double[][] result = new double[oldAllelesByNewAllele.length][evidenceCount];
+            for (int newAllele = 0; newAllele < result.length; newAllele++) {
+                final double[] newValues = result[newAllele];
+                Arrays.fill(newValues, Double.NEGATIVE_INFINITY);
+                for (final int oldAllele : oldAllelesByNewAllele[newAllele]) {
+                    final double[] oldValues = values[oldAllele];
+                    for (int r = 0; r < evidenceCount; r++) {
+                        newValues[r] = Math.max(newValues[r], oldValues[r]);
+                    }
+                }
+            }
+            return new DoubleValues(result, evidenceCount);
+        }
+    }
+
+    private static final class FloatValues extends LikelihoodValues {
+        private float[] values;
+        private int alleleCount;
+        private int evidenceCapacity;
+
+        private FloatValues(final int alleleCount, final int evidenceCapacity) {
+            this.values = new float[Math.multiplyExact(alleleCount, evidenceCapacity)];
+            this.alleleCount = alleleCount;
+            this.evidenceCapacity = evidenceCapacity;
+        }
+
+        // the values of an allele are at [offset(allele), offset(allele) + evidenceCapacity)
+        private int offset(final int alleleIndex) {
+            return alleleIndex * evidenceCapacity;
+        }
+
+        @Override
+        int numberOfAlleles() {
+            return alleleCount;
+        }
+
+        @Override
+        int evidenceCapacity() {
+            return evidenceCapacity;
+        }
+
+        @Override
+        boolean isCompact() {
+            return true;
+        }
+
+        @Override
+        double get(final int alleleIndex, final int evidenceIndex) {
+            return values[offset(alleleIndex) + evidenceIndex];
+        }
+
+        @Override
+        void set(final int alleleIndex, final int evidenceIndex, final double value) {
+            values[offset(alleleIndex) + evidenceIndex] = (float) value;
+        }
+
+        @Override
+        void fill(final int alleleIndex, final int fromEvidenceIndex, final int toEvidenceIndex, final double value) {
+            Arrays.fill(values, offset(alleleIndex) + fromEvidenceIndex, offset(alleleIndex) + toEvidenceIndex, (float) value);
+        }
+
+        @Override
+        void copyAlleleLikelihoods(final int alleleIndex, final double[] dest, final int offset, final int evidenceCount) {
+            final int from = offset(alleleIndex);
+            for (int r = 0; r < evidenceCount; r++) {
+                dest[offset + r] = values[from + r];
+            }
+        }
+
+        @Override
+        void ensureEvidenceCapacity(final int capacity) {
+            if (evidenceCapacity < capacity) {
+                final int newCapacity = capacity << 1;
+                final float[] newValues = new float[Math.multiplyExact(alleleCount, newCapacity)];
+                for (int a = 0; a < alleleCount; a++) {
+                    System.arraycopy(values, offset(a), newValues, a * newCapacity, evidenceCapacity);
+                    Arrays.fill(newValues, a * newCapacity + evidenceCapacity, (a + 1) * newCapacity, Float.NaN);
+                }
+                values = newValues;
+                evidenceCapacity = newCapacity;
+            }
+        }
+
+        @Override
+        void addAlleles(final int newAlleleCount, final int evidenceCount, final double defaultValue) {
+            final int oldAlleleCount = alleleCount;
+            values = Arrays.copyOf(values, Math.multiplyExact(oldAlleleCount + newAlleleCount, evidenceCapacity));
+            alleleCount += newAlleleCount;
+            for (int a = oldAlleleCount; a < alleleCount; a++) {
+                Arrays.fill(values, offset(a), offset(a) + evidenceCount, (float) defaultValue);
+                Arrays.fill(values, offset(a) + evidenceCount, offset(a + 1), Float.NaN);
+            }
+        }
+
+        @Override
+        void removeEvidence(final int[] evidenceToRemove, final int evidenceCount) {
+            for (int a = 0; a < alleleCount; a++) {
+                final int from = offset(a);
+                for (int n = 0, numRemoved = 0; n < evidenceCount; n++) {
+                    if (numRemoved < evidenceToRemove.length && n == evidenceToRemove[numRemoved]) {
+                        numRemoved++;
+                    } else {
+                        values[from + n - numRemoved] = values[from + n];
+                    }
+                }
+                Arrays.fill(values, from + evidenceCount - evidenceToRemove.length, from + evidenceCapacity, Float.NaN);
+            }
+        }
+
+        @Override
+        LikelihoodValues marginalize(final int[][] oldAllelesByNewAllele, final int evidenceCount) {
+            final FloatValues result = new FloatValues(oldAllelesByNewAllele.length, evidenceCount);
+            final float[] newValues = result.values;
+            for (int newAllele = 0; newAllele < oldAllelesByNewAllele.length; newAllele++) {
+                final int to = result.offset(newAllele);
+                Arrays.fill(newValues, to, to + evidenceCount, Float.NEGATIVE_INFINITY);
+                for (final int oldAllele : oldAllelesByNewAllele[newAllele]) {
+                    final int from = offset(oldAllele);
+                    for (int r = 0; r < evidenceCount; r++) {
+                        newValues[to + r] = Math.max(newValues[to + r], values[from + r]);
+                    }
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -7,7 +7,6 @@ import htsjdk.samtools.seekablestream.SeekableBufferedStream;
 import htsjdk.samtools.seekablestream.SeekableStream;
 import htsjdk.samtools.seekablestream.SeekableStreamFactory;
 import htsjdk.samtools.util.BlockCompressedInputStream;
-import htsjdk.samtools.util.BlockCompressedOutputStream;
 import htsjdk.samtools.util.BlockCompressedStreamConstants;
 import htsjdk.tribble.*;
 import org.broadinstitute.hellbender.engine.FeatureInput;
@@ -23,7 +22,6 @@ import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.nio.file.Path;
 import java.util.*;
 
 public class BlockCompressedIntervalStream {
@@ -100,7 +98,7 @@ public class BlockCompressedIntervalStream {
         final SVFeaturesHeader header;
         final WriteFunc<F> writeFunc;
         final OutputStream os;
-        final BlockCompressedOutputStream bcos;
+        final ParallelBlockCompressedOutputStream bcos;
         final DataOutputStream dos;
         Feature lastInterval;
         final List<IndexEntry> indexEntries;
@@ -126,7 +124,8 @@ public class BlockCompressedIntervalStream {
             this.header = header;
             this.writeFunc = writeFunc;
             this.os = path.getOutputStream();
-            this.bcos = new BlockCompressedOutputStream(os, (Path)null, compressionLevel);
+            this.bcos = new ParallelBlockCompressedOutputStream(os, compressionLevel,
+                    ParallelBlockCompressedOutputStream.getDefaultCompressionThreads());
             this.dos = new DataOutputStream(bcos);
             this.lastInterval = null;
             this.indexEntries = new ArrayList<>();
@@ -143,7 +142,8 @@ public class BlockCompressedIntervalStream {
             this.header = header;
             this.writeFunc = writeFunc;
             this.os = os;
-            this.bcos = new BlockCompressedOutputStream(os, (Path)null, DEFAULT_COMPRESSION_LEVEL);
+            this.bcos = new ParallelBlockCompressedOutputStream(os, DEFAULT_COMPRESSION_LEVEL,
+                    ParallelBlockCompressedOutputStream.getDefaultCompressionThreads());
             this.dos = new DataOutputStream(bcos);
             this.lastInterval = null;
             this.indexEntries = new ArrayList<>();
@@ -210,7 +210,8 @@ public class BlockCompressedIntervalStream {
 
         @Override
         public void write( final F feature ) {
-            final long prevFilePosition = bcos.getPosition();
+            // block positions rather than file pointers, since blocks may still be compressing: they're resolved on close
+            final long prevFilePosition = bcos.getBlockPosition();
             // write the object
             try {
                 writeFunc.write(feature, this);
@@ -237,7 +238,7 @@ public class BlockCompressedIntervalStream {
             lastInterval = feature;
 
             // if writing this element caused a new block to be compressed and added to the file
-            if ( isNewBlock(prevFilePosition, bcos.getPosition()) ) {
+            if ( isNewBlock(prevFilePosition, bcos.getBlockPosition()) ) {
                 addIndexEntry();
                 firstBlockMember = true;
             }
@@ -253,12 +254,13 @@ public class BlockCompressedIntervalStream {
             try {
                 dos.flush(); // complete the data block
 
-                long indexPosition = bcos.getPosition(); // current position is the start of the index
+                // current position is the start of the index
+                long indexPosition = bcos.resolveFilePointer(bcos.getBlockPosition());
 
-                // write the index entries
+                // write the index entries, now that all of the data blocks have been written
                 dos.writeInt(indexEntries.size());
                 for ( final IndexEntry indexEntry : indexEntries ) {
-                    indexEntry.write(dos);
+                    new IndexEntry(indexEntry.getInterval(), bcos.resolveFilePointer(indexEntry.getFilePosition())).write(dos);
                 }
                 dos.flush(); // and complete the block
 
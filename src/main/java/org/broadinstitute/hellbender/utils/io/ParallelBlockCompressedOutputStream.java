@@ -0,0 +1,293 @@
+package org.broadinstitute.hellbender.utils.io;
+
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.samtools.util.BlockCompressedStreamConstants;
+import htsjdk.samtools.util.RuntimeIOException;
+import htsjdk.samtools.util.zip.DeflaterFactory;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.OrderedParallelExecutor;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes BGZF (block compressed) output, compressing blocks on multiple threads. Blocks are compressed independently,
+ * but are always written to the underlying stream in order, with the same block boundaries as an htsjdk
+ * {@link BlockCompressedOutputStream}. Deflaters are created by htsjdk's default {@link DeflaterFactory}.
+ *
+ * Because the compressed size of a block is only known once it has been compressed, the BGZF virtual file pointer
+ * of the current position is not known while writing. Instead, {@link #getBlockPosition} returns a position made
+ * of the block number and the offset within the block, encoded in the same way as a virtual file pointer, so that
+ * positions can be compared and block boundaries detected in the usual way. Block positions can be converted into
+ * virtual file pointers with {@link #resolveFilePointer} once the block has been written (eg., after {@link #flush}).
+ *
+ * Not thread-safe: a single thread must write to this stream.
+ */
+public final class ParallelBlockCompressedOutputStream extends OutputStream {
+
+    // number of blocks queued for compression per thread, so that threads don't wait on each other
+    private static final int BLOCKS_IN_FLIGHT_PER_THREAD = 4;
+
+    private static int defaultCompressionThreads = 1;
+
+    private final OutputStream out;
+    private final BlockingQueue<BlockCompressor> compressors;
+    private final OrderedParallelExecutor<byte[]> executor;
+
+    private byte[] uncompressedBuffer = new byte[BlockCompressedStreamConstants.DEFAULT_UNCOMPRESSED_BLOCK_SIZE];
+    private int numUncompressedBytes = 0;
+    private long numBlocksSubmitted = 0;
+
+    // compressed address of each block that has been written, indexed by block number
+    private final LongArrayList blockAddresses = new LongArrayList();
+    private long numCompressedBytesWritten = 0;
+    private boolean isClosed = false;
+
+    /**
+     * Sets the number of compression threads used by writers that don't specify one (see
+     * {@link #getDefaultCompressionThreads}). Set from the command line at startup, like htsjdk's default deflater.
+     */
+    public static void setDefaultCompressionThreads(final int numThreads) {
+        Utils.validateArg(numThreads >= 1, "numThreads must be at least 1");
+        defaultCompressionThreads = numThreads;
+    }
+
+    /**
+     * @return the default number of compression threads for block compressed output
+     */
+    public static int getDefaultCompressionThreads() {
+        return defaultCompressionThreads;
+    }
+
+    /**
+     * @param out stream to which the compressed blocks are written. Closed when this stream is closed.
+     * @param compressionLevel deflate compression level, 0-9
+     * @param numThreads number of compression threads. If 1, blocks are compressed on the writing thread.
+     */
+    public ParallelBlockCompressedOutputStream(final OutputStream out, final int compressionLevel, final int numThreads) {
+        Utils.nonNull(out);
+        Utils.validateArg(compressionLevel >= Deflater.NO_COMPRESSION && compressionLevel <= Deflater.BEST_COMPRESSION,
+                "compressionLevel must be between 0 and 9");
+        Utils.validateArg(numThreads >= 1, "numThreads must be at least 1");
+
+        this.out = out;
+        final DeflaterFactory deflaterFactory = BlockCompressedOutputStream.getDefaultDeflaterFactory();
+        this.compressors = new ArrayBlockingQueue<>(numThreads);
+        for ( int i = 0; i < numThreads; i++ ) {
+            compressors.add(new BlockCompressor(deflaterFactory, compressionLevel));
+        }
+        this.executor = numThreads == 1 ? null :
+                new OrderedParallelExecutor<>(numThreads, numThreads * BLOCKS_IN_FLIGHT_PER_THREAD, "bgzf", this::writeCompressedBlock);
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        uncompressedBuffer[numUncompressedBytes++] = (byte) b;
+        if ( numUncompressedBytes == uncompressedBuffer.length ) {
+            submitBlock();
+        }
+    }
+
+    @Override
+    public void write(final byte[] bytes, int offset, int length) throws IOException {
+        Utils.nonNull(bytes);
+        while ( length > 0 ) {
+            final int numToCopy = Math.min(length, uncompressedBuffer.length - numUncompressedBytes);
+            System.arraycopy(bytes, offset, uncompressedBuffer, numUncompressedBytes, numToCopy);
+            numUncompressedBytes += numToCopy;
+            offset += numToCopy;
+            length -= numToCopy;
+            if ( numUncompressedBytes == uncompressedBuffer.length ) {
+                submitBlock();
+            }
+        }
+    }
+
+    /**
+     * Ends the current block (if it isn't empty), and waits for all blocks to be compressed and written to
+     * the underlying stream. As with {@link BlockCompressedOutputStream#flush}, this forces a block boundary.
+     */
+    @Override
+    public void flush() throws IOException {
+        if ( numUncompressedBytes > 0 ) {
+            submitBlock();
+        }
+        if ( executor != null ) {
+            executor.finish();
+        }
+        out.flush();
+    }
+
+    /**
+     * @return the current position as block number and offset within the block, encoded like a BGZF virtual
+     * file pointer. Two positions are in the same block if and only if their upper 48 bits are equal.
+     */
+    public long getBlockPosition() {
+        return (numBlocksSubmitted << 16) | numUncompressedBytes;
+    }
+
+    /**
+     * Converts a position returned by {@link #getBlockPosition} into a BGZF virtual file pointer.
+     *
+     * @param blockPosition a position returned by {@link #getBlockPosition}, whose block has been written (or which is
+     *                      at the start of the next block to write, after a {@link #flush})
+     * @return the virtual file pointer of that position in the output
+     */
+    public long resolveFilePointer(final long blockPosition) {
+        final long blockNumber = blockPosition >>> 16;
+        final long blockAddress;
+        if ( blockNumber < blockAddresses.size() ) {
+            blockAddress = blockAddresses.getLong((int) blockNumber);
+        } else if ( blockNumber == blockAddresses.size() && blockNumber == numBlocksSubmitted ) {
+            blockAddress = numCompressedBytesWritten;
+        } else {
+            throw new IllegalStateException("Block " + blockNumber + " has not been written yet: call flush() before resolving its file pointers");
+        }
+        return (blockAddress << 16) | (blockPosition & 0xffffL);
+    }
+
+    /**
+     * Writes any remaining data, followed by the BGZF terminator block, and closes the underlying stream.
+     */
+    @Override
+    public void close() throws IOException {
+        close(true);
+    }
+
+    /**
+     * Writes any remaining data, optionally followed by the BGZF terminator block, and closes the underlying stream.
+     *
+     * @param writeTerminatorBlock if false, the caller is responsible for writing its own terminator block
+     */
+    public void close(final boolean writeTerminatorBlock) throws IOException {
+        if ( isClosed ) {
+            return;
+        }
+        try {
+            flush();
+            if ( writeTerminatorBlock ) {
+                out.write(BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK);
+            }
+            out.close();
+        } finally {
+            isClosed = true;
+            if ( executor != null ) {
+                executor.close();
+            }
+            compressors.forEach(BlockCompressor::end);
+            uncompressedBuffer = null;
+        }
+    }
+
+    private void submitBlock() {
+        final byte[] blockData = uncompressedBuffer;
+        final int blockLength = numUncompressedBytes;
+        uncompressedBuffer = new byte[BlockCompressedStreamConstants.DEFAULT_UNCOMPRESSED_BLOCK_SIZE];
+        numUncompressedBytes = 0;
+        numBlocksSubmitted++;
+
+        if ( executor == null ) {
+            writeCompressedBlock(compressBlock(blockData, blockLength));
+        } else {
+            executor.submit(() -> compressBlock(blockData, blockLength));
+        }
+    }
+
+    private byte[] compressBlock(final byte[] data, final int length) {
+        final BlockCompressor compressor = compressors.remove();
+        try {
+            return compressor.compress(data, length);
+        } finally {
+            compressors.add(compressor);
+        }
+    }
+
+    // called on the writing thread, in block order
+    private void writeCompressedBlock(final byte[] compressedBlock) {
+        try {
+            out.write(compressedBlock);
+        } catch ( final IOException e ) {
+            throw new RuntimeIOException("Error writing compressed block", e);
+        }
+        blockAddresses.add(numCompressedBytesWritten);
+        numCompressedBytesWritten += compressedBlock.length;
+    }
+
+    /**
+     * Compresses single BGZF blocks. Each instance is used by one thread at a time.
+     */
+    private static final class BlockCompressor {
+        private final Deflater deflater;
+        private final Deflater noCompressionDeflater;
+        private final CRC32 crc32 = new CRC32();
+        private final byte[] compressedBuffer = new byte[BlockCompressedStreamConstants.MAX_COMPRESSED_BLOCK_SIZE -
+                BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH];
+
+        BlockCompressor(final DeflaterFactory deflaterFactory, final int compressionLevel) {
+            this.deflater = deflaterFactory.makeDeflater(compressionLevel, true);
+            this.noCompressionDeflater = deflaterFactory.makeDeflater(Deflater.NO_COMPRESSION, true);
+        }
+
+        /**
+         * @return a complete BGZF block (header, compressed data and footer) for the given data
+         */
+        byte[] compress(final byte[] data, final int length) {
+            crc32.reset();
+            crc32.update(data, 0, length);
+
+            int compressedSize = deflate(deflater, data, length);
+            if ( compressedSize < 0 ) {
+                // data is not compressible: the uncompressed block size guarantees that it fits when stored
+                compressedSize = deflate(noCompressionDeflater, data, length);
+                if ( compressedSize < 0 ) {
+                    throw new GATKException.ShouldNeverReachHereException("Uncompressed data did not fit in a BGZF block");
+                }
+            }
+
+            final int totalBlockSize = compressedSize + BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH +
+                    BlockCompressedStreamConstants.BLOCK_FOOTER_LENGTH;
+            final ByteBuffer block = ByteBuffer.allocate(totalBlockSize).order(ByteOrder.LITTLE_ENDIAN);
+            block.put((byte) BlockCompressedStreamConstants.GZIP_ID1);
+            block.put((byte) BlockCompressedStreamConstants.GZIP_ID2);
+            block.put((byte) BlockCompressedStreamConstants.GZIP_CM_DEFLATE);
+            block.put((byte) BlockCompressedStreamConstants.GZIP_FLG);
+            block.putInt(0); // modification time
+            block.put((byte) BlockCompressedStreamConstants.GZIP_XFL);
+            block.put((byte) BlockCompressedStreamConstants.GZIP_OS_UNKNOWN);
+            block.putShort((short) BlockCompressedStreamConstants.GZIP_XLEN);
+            block.put((byte) BlockCompressedStreamConstants.BGZF_ID1);
+            block.put((byte) BlockCompressedStreamConstants.BGZF_ID2);
+            block.putShort((short) BlockCompressedStreamConstants.BGZF_LEN);
+            block.putShort((short) (totalBlockSize - 1));
+            block.put(compressedBuffer, 0, compressedSize);
+            block.putInt((int) crc32.getValue());
+            block.putInt(length);
+            return block.array();
+        }
+
+        /**
+         * @return the compressed size, or -1 if the compressed data doesn't fit in a block
+         */
+        private int deflate(final Deflater deflaterToUse, final byte[] data, final int length) {
+            deflaterToUse.reset();
+            deflaterToUse.setInput(data, 0, length);
+            deflaterToUse.finish();
+            final int compressedSize = deflaterToUse.deflate(compressedBuffer, 0,
+                    compressedBuffer.length - BlockCompressedStreamConstants.BLOCK_FOOTER_LENGTH);
+            return deflaterToUse.finished() ? compressedSize : -1;
+        }
+
+        void end() {
+            deflater.end();
+            noCompressionDeflater.end();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package org.broadinstitute.hellbender.utils.iterators;
+
+import htsjdk.samtools.util.CloseableIterator;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Iterator that pulls elements from an underlying iterator on a background thread, ahead of the consumer, and hands
+ * them over in batches through a bounded queue. Any work done by the underlying iterator (eg., decompression and
+ * decoding of records) therefore overlaps with the work done by the consumer.
+ *
+ * Elements are returned in the same order as by the underlying iterator, and exceptions thrown by the underlying
+ * iterator are rethrown to the consumer, after any elements that preceded them.
+ *
+ * The underlying iterator must not be used by anyone else until this iterator has been closed, and is not closed by
+ * this iterator. Not thread-safe: a single thread must consume the elements.
+ */
+public final class ReadAheadIterator<T> implements CloseableIterator<T> {
+
+    private static final long CLOSE_POLL_MILLISECONDS = 10;
+
+    private final Iterator<T> underlyingIterator;
+    private final int batchSize;
+    private final BlockingQueue<Batch<T>> batches;
+    private final Thread readAheadThread;
+
+    private Iterator<T> currentBatch = Collections.emptyIterator();
+    private boolean underlyingIteratorExhausted = false;
+    private Throwable pendingError = null;
+    private volatile boolean isClosed = false;
+
+    /**
+     * @param underlyingIterator iterator to read ahead from
+     * @param batchSize number of elements handed over to the consumer at a time. Must be > 0.
+     * @param numBatches maximum number of batches read ahead of the consumer. Must be > 0.
+     * @param threadName name of the background thread
+     */
+    public ReadAheadIterator(final Iterator<T> underlyingIterator, final int batchSize, final int numBatches, final String threadName) {
+        Utils.nonNull(underlyingIterator);
+        Utils.validateArg(batchSize > 0, "batchSize must be > 0");
+        Utils.validateArg(numBatches > 0, "numBatches must be > 0");
+        Utils.nonNull(threadName);
+
+        this.underlyingIterator = underlyingIterator;
+        this.batchSize = batchSize;
+        this.batches = new ArrayBlockingQueue<>(numBatches);
+        this.readAheadThread = new Thread(this::readAhead, threadName);
+        readAheadThread.setDaemon(true);
+        readAheadThread.start();
+    }
+
+    @Override
+    public boolean hasNext() {
+        while ( ! currentBatch.hasNext() ) {
+            if ( pendingError != null ) {
+                throwPendingError();
+            }
+            if ( underlyingIteratorExhausted || isClosed ) {
+                return false;
+            }
+            final Batch<T> batch = takeBatch();
+            currentBatch = batch.elements.iterator();
+            underlyingIteratorExhausted = batch.isLast;
+            pendingError = batch.error;
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if ( ! hasNext() ) {
+            throw new NoSuchElementException("next() called when there are no more elements");
+        }
+        return currentBatch.next();
+    }
+
+    /**
+     * Stop reading ahead, and wait for the background thread to finish its current batch. The background thread is
+     * not interrupted, since interrupting a thread blocked on a channel read closes the channel, and the underlying
+     * iterator's source may be reused after this iterator is closed.
+     */
+    @Override
+    public void close() {
+        if ( isClosed ) {
+            return;
+        }
+        isClosed = true;
+        currentBatch = Collections.emptyIterator();
+
+        boolean interrupted = false;
+        while ( readAheadThread.isAlive() ) {
+            // make room for a background thread that is blocked on a full queue
+            batches.clear();
+            try {
+                readAheadThread.join(CLOSE_POLL_MILLISECONDS);
+            } catch ( final InterruptedException e ) {
+                interrupted = true;
+            }
+        }
+        batches.clear();
+        if ( interrupted ) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void throwPendingError() {
+        final Throwable error = pendingError;
+        pendingError = null;
+        close();
+        if ( error instanceof RuntimeException ) {
+            throw (RuntimeException) error;
+        }
+        if ( error instanceof Error ) {
+            throw (Error) error;
+        }
+        throw new GATKException("Error while reading ahead", error);
+    }
+
+    private Batch<T> takeBatch() {
+        try {
+            return batches.take();
+        } catch ( final InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new GATKException("Interrupted while waiting for the read-ahead thread", e);
+        }
+    }
+
+    /**
+     * Body of the background thread.
+     */
+    private void readAhead() {
+        List<T> elements = new ArrayList<>(batchSize);
+        try {
+            boolean isLast = false;
+            while ( ! isLast && ! isClosed ) {
+                while ( elements.size() < batchSize && underlyingIterator.hasNext() ) {
+                    elements.add(underlyingIterator.next());
+                }
+                isLast = elements.size() < batchSize;
+                putBatch(new Batch<>(elements, isLast, null));
+                elements = new ArrayList<>(batchSize);
+            }
+        } catch ( final Throwable e ) {
+            // the elements that preceded the error are still handed over, before the error itself
+            putBatch(new Batch<>(elements, true, e));
+        }
+    }
+
+    private void putBatch(final Batch<T> batch) {
+        try {
+            while ( ! isClosed && ! batches.offer(batch, CLOSE_POLL_MILLISECONDS, TimeUnit.MILLISECONDS) ) {
+                // wait for the consumer, or for close()
+            }
+        } catch ( final InterruptedException e ) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Batch<T> {
+        private final List<T> elements;
+        private final boolean isLast;
+        private final Throwable error;
+
+        private Batch(final List<T> elements, final boolean isLast, final Throwable error) {
+            this.elements = elements;
+            this.isLast = isLast;
+            this.error = error;
+        }
+    }
+}
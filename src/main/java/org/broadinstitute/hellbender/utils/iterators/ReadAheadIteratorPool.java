@@ -0,0 +1,200 @@
+package org.broadinstitute.hellbender.utils.iterators;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import htsjdk.samtools.util.CloseableIterator;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Fixed pool of threads that pull elements from many underlying iterators ahead of their consumer, for traversals
+ * that merge more sources than it would be reasonable to give a thread each (see {@link ReadAheadIterator} for a
+ * single source).
+ *
+ * Each iterator returned by {@link #readAhead} holds at most two batches of elements: the one being consumed, and the
+ * next one, which is pulled from its underlying iterator by one of the threads of the pool as soon as the previous
+ * batch has been handed over. The underlying iterator is therefore never used by two threads at the same time.
+ * Elements are returned in the same order as by the underlying iterator, and exceptions thrown by the underlying
+ * iterator are rethrown to the consumer, after any elements that preceded them.
+ *
+ * The underlying iterators must not be used by anyone else until the iterators reading ahead of them have been
+ * closed (or exhausted), and are not closed by this class. The iterators returned are not thread-safe: a single
+ * thread must consume the elements of each of them.
+ */
+public final class ReadAheadIteratorPool implements AutoCloseable {
+
+    private final ExecutorService executorService;
+    private final int batchSize;
+
+    /**
+     * @param numThreads number of threads pulling elements from the underlying iterators. Must be > 0.
+     * @param batchSize number of elements pulled from an underlying iterator at a time. Must be > 0.
+     * @param threadNamePrefix prefix for the names of the threads
+     */
+    public ReadAheadIteratorPool(final int numThreads, final int batchSize, final String threadNamePrefix) {
+        Utils.validateArg(numThreads > 0, "numThreads must be > 0");
+        Utils.validateArg(batchSize > 0, "batchSize must be > 0");
+        Utils.nonNull(threadNamePrefix, "threadNamePrefix");
+        this.batchSize = batchSize;
+        this.executorService = Executors.newFixedThreadPool(numThreads, new ThreadFactoryBuilder()
+                .setNameFormat(threadNamePrefix + "-thread-%d")
+                .setDaemon(true).build());
+    }
+
+    /**
+     * @param underlyingIterator iterator to read ahead from
+     * @return an iterator over the elements of underlyingIterator, which are pulled ahead of the consumer by this pool
+     */
+    public <T> CloseableIterator<T> readAhead(final Iterator<T> underlyingIterator) {
+        return readAhead(underlyingIterator, element -> {});
+    }
+
+    /**
+     * @param underlyingIterator iterator to read ahead from
+     * @param prepareElement applied to each element by the thread of the pool that pulls it, before it is handed over
+     *                       (eg., to decode the parts of the element that are decoded lazily, so that the consumer
+     *                       doesn't have to). Exceptions thrown by it are rethrown to the consumer, like those thrown
+     *                       by the underlying iterator.
+     * @return an iterator over the elements of underlyingIterator, which are pulled and prepared ahead of the consumer
+     *         by this pool
+     */
+    public <T> CloseableIterator<T> readAhead(final Iterator<T> underlyingIterator, final Consumer<? super T> prepareElement) {
+        Utils.nonNull(underlyingIterator);
+        Utils.nonNull(prepareElement);
+        return new PooledReadAheadIterator<>(underlyingIterator, prepareElement);
+    }
+
+    /**
+     * Stop the threads of the pool once they have finished their current batches. Iterators that haven't been
+     * closed or exhausted are no longer usable after this call.
+     */
+    @Override
+    public void close() {
+        // as in ReadAheadIterator, don't interrupt threads that may be blocked on a channel read
+        executorService.shutdown();
+    }
+
+    private final class PooledReadAheadIterator<T> implements CloseableIterator<T> {
+        private final Iterator<T> underlyingIterator;
+        private final Consumer<? super T> prepareElement;
+
+        private Future<Batch<T>> nextBatch;
+        private Iterator<T> currentBatch = Collections.emptyIterator();
+        private Throwable pendingError = null;
+        private boolean isClosed = false;
+
+        private PooledReadAheadIterator(final Iterator<T> underlyingIterator, final Consumer<? super T> prepareElement) {
+            this.underlyingIterator = underlyingIterator;
+            this.prepareElement = prepareElement;
+            this.nextBatch = executorService.submit(this::pullBatch);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while ( ! currentBatch.hasNext() ) {
+                if ( pendingError != null ) {
+                    throwPendingError();
+                }
+                if ( nextBatch == null || isClosed ) {
+                    return false;
+                }
+                final Batch<T> batch = awaitBatch(nextBatch);
+                // the next batch is only requested once the underlying iterator is no longer in use
+                nextBatch = batch.isLast ? null : executorService.submit(this::pullBatch);
+                currentBatch = batch.elements.iterator();
+                pendingError = batch.error;
+            }
+            return true;
+        }
+
+        @Override
+        public T next() {
+            if ( ! hasNext() ) {
+                throw new NoSuchElementException("next() called when there are no more elements");
+            }
+            return currentBatch.next();
+        }
+
+        /**
+         * Stop reading ahead, and wait for the batch being pulled (if any), so that the underlying iterator may be
+         * reused as soon as this method returns.
+         */
+        @Override
+        public void close() {
+            if ( isClosed ) {
+                return;
+            }
+            isClosed = true;
+            currentBatch = Collections.emptyIterator();
+            if ( nextBatch != null ) {
+                awaitBatch(nextBatch);
+                nextBatch = null;
+            }
+        }
+
+        private void throwPendingError() {
+            final Throwable error = pendingError;
+            pendingError = null;
+            close();
+            if ( error instanceof RuntimeException ) {
+                throw (RuntimeException) error;
+            }
+            if ( error instanceof Error ) {
+                throw (Error) error;
+            }
+            throw new GATKException("Error while reading ahead", error);
+        }
+
+        /**
+         * Body of the tasks run by the pool.
+         */
+        private Batch<T> pullBatch() {
+            final List<T> elements = new ArrayList<>(batchSize);
+            try {
+                while ( elements.size() < batchSize && underlyingIterator.hasNext() ) {
+                    final T element = underlyingIterator.next();
+                    prepareElement.accept(element);
+                    elements.add(element);
+                }
+                return new Batch<>(elements, elements.size() < batchSize, null);
+            } catch ( final Throwable e ) {
+                // the elements that preceded the error are still handed over, before the error itself
+                return new Batch<>(elements, true, e);
+            }
+        }
+    }
+
+    private static <T> Batch<T> awaitBatch(final Future<Batch<T>> batch) {
+        try {
+            return batch.get();
+        } catch ( final InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new GATKException("Interrupted while waiting for the read-ahead pool", e);
+        } catch ( final ExecutionException e ) {
+            // pullBatch() catches everything, so this is only reachable if the task itself couldn't run
+            throw new GATKException("Error while reading ahead", e.getCause());
+        }
+    }
+
+    private static final class Batch<T> {
+        private final List<T> elements;
+        private final boolean isLast;
+        private final Throwable error;
+
+        private Batch(final List<T> elements, final boolean isLast, final Throwable error) {
+            this.elements = elements;
+            this.isLast = isLast;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,515 @@
+package org.broadinstitute.hellbender.utils.locusiterator;
+
+import htsjdk.samtools.Cigar;
+import htsjdk.samtools.CigarElement;
+import htsjdk.samtools.CigarOperator;
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.util.PeekableIterator;
+import org.broadinstitute.hellbender.engine.AlignmentContext;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.BaseUtils;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.pileup.PileupColumn;
+import org.broadinstitute.hellbender.utils.pileup.PileupElement;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
+
+import java.util.*;
+
+/**
+ * Pileup engine that traverses a coordinate-sorted stream of reads one locus at a time, as {@link LocusIteratorByState}
+ * does, but produces {@link PileupColumn}s rather than {@link AlignmentContext}s.
+ *
+ * Instead of an {@link AlignmentStateMachine} per read, the alignment state of the reads overlapping the current locus
+ * (current cigar element, offset into it and offset into the read) is kept in primitive arrays indexed by slot, and
+ * the same column is refilled at every locus, so that the traversal doesn't allocate anything per read per locus.
+ * Use it as:
+ *
+ * <pre>
+ *     while ( iterator.advance() ) {
+ *         final PileupColumn column = iterator.getColumn();
+ *         ...
+ *     }
+ * </pre>
+ *
+ * Without downsampling, the columns have exactly the same entries in the same order as the pileups of
+ * LocusIteratorByState with the same parameters: the entries are ordered by sample, in the order of the samples given
+ * at construction, and then by the order of the reads in the stream, and {@link #asAlignmentContextIterator()} returns
+ * the same AlignmentContexts. Downsampling is not supported, use LocusIteratorByState for that.
+ *
+ * Optionally, the loci can be restricted to a list of intervals, in which case no column is built at loci outside
+ * of them.
+ */
+public final class ColumnarLocusIterator {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final CigarOperator[] OPERATORS = CigarOperator.values();
+    private static final int OPERATOR_BITS = 4;
+    private static final int OPERATOR_MASK = (1 << OPERATOR_BITS) - 1;
+    private static final int NO_OPERATOR = -1;
+
+    private final PeekableIterator<GATKRead> pendingReads;
+    private final SAMFileHeader header;
+    private final boolean includeReadsWithDeletionAtLoci;
+    private final boolean includeReadsWithNsAtLoci;
+
+    private final Map<String, Integer> sampleIndices = new HashMap<>();
+    private final Map<String, Integer> sampleIndicesByReadGroup = new HashMap<>();
+    private final int numSamples;
+
+    // sorted intervals to build columns for, or null to build them everywhere
+    private final List<SimpleInterval> intervals;
+    private final SAMSequenceDictionary dictionary;
+    private int currentIntervalIndex = 0;
+
+    private String currentContig;
+    private int currentContigIndex;
+    private int currentPosition;
+
+    /*
+     * The reads that overlap the current locus, in slots 0..numReads-1 in the order they came from the stream, and
+     * their alignment state at the current locus, as in AlignmentStateMachine. The cigar elements of each read are
+     * packed as (length << OPERATOR_BITS | operator ordinal).
+     */
+    private int numReads = 0;
+    private GATKRead[] reads = new GATKRead[INITIAL_CAPACITY];
+    private byte[][] bases = new byte[INITIAL_CAPACITY][];
+    private byte[][] quals = new byte[INITIAL_CAPACITY][];
+    private int[][] cigars = new int[INITIAL_CAPACITY][];
+    private int[] readSampleIndices = new int[INITIAL_CAPACITY];
+    private int[] adaptorBoundaries = new int[INITIAL_CAPACITY];
+    private boolean[] reverseStrand = new boolean[INITIAL_CAPACITY];
+    private int[] cigarElementIndices = new int[INITIAL_CAPACITY];
+    private int[] offsetsIntoCigarElements = new int[INITIAL_CAPACITY];
+    private int[] readOffsets = new int[INITIAL_CAPACITY];
+    private int[] operators = new int[INITIAL_CAPACITY];
+
+    // scratch space for ordering the entries of a column by sample
+    private final int[] sampleCounts;
+    private int[] includedSlots = new int[INITIAL_CAPACITY];
+    private int[] orderedSlots = new int[INITIAL_CAPACITY];
+
+    private final PileupColumn column = new PileupColumn();
+
+    /**
+     * Create a new ColumnarLocusIterator that builds a column at every locus covered by the reads
+     *
+     * @param reads                          the reads to process into columns, ordered according to standard
+     *                                       coordinate-sorted BAM conventions
+     * @param samples                        a complete list of samples present in the read groups of the reads, as for
+     *                                       {@link LocusIteratorByState}. May contain a null element, to which reads
+     *                                       without read groups are mapped
+     * @param header                         header from the reads
+     * @param includeReadsWithDeletionAtLoci include reads with deletion at loci
+     * @param includeReadsWithNsAtLoci       include reads with Ns at loci
+     */
+    public ColumnarLocusIterator(final Iterator<GATKRead> reads,
+                                 final Collection<String> samples,
+                                 final SAMFileHeader header,
+                                 final boolean includeReadsWithDeletionAtLoci,
+                                 final boolean includeReadsWithNsAtLoci) {
+        this(reads, samples, header, includeReadsWithDeletionAtLoci, includeReadsWithNsAtLoci, null, null);
+    }
+
+    /**
+     * Create a new ColumnarLocusIterator that only builds columns at loci within intervals
+     *
+     * @param intervals  the intervals to build columns for, sorted according to dictionary and non-overlapping, or
+     *                   null to build a column at every locus covered by the reads
+     * @param dictionary the sequence dictionary that the intervals are sorted by. Must not be null if intervals isn't.
+     * @see #ColumnarLocusIterator(Iterator, Collection, SAMFileHeader, boolean, boolean)
+     */
+    public ColumnarLocusIterator(final Iterator<GATKRead> reads,
+                                 final Collection<String> samples,
+                                 final SAMFileHeader header,
+                                 final boolean includeReadsWithDeletionAtLoci,
+                                 final boolean includeReadsWithNsAtLoci,
+                                 final List<SimpleInterval> intervals,
+                                 final SAMSequenceDictionary dictionary) {
+        Utils.nonNull(reads, "reads cannot be null");
+        Utils.nonNull(samples, "Samples cannot be null");
+        Utils.nonNull(header, "header cannot be null");
+        Utils.validateArg(intervals == null || dictionary != null, "a sequence dictionary is required to traverse intervals");
+
+        // as in LocusIteratorByState, empty sample lists are only an error if there are reads
+        if (samples.isEmpty() && reads.hasNext()) {
+            throw new IllegalArgumentException("samples list must not be empty");
+        }
+
+        this.pendingReads = new PeekableIterator<>(reads);
+        this.header = header;
+        this.includeReadsWithDeletionAtLoci = includeReadsWithDeletionAtLoci;
+        this.includeReadsWithNsAtLoci = includeReadsWithNsAtLoci;
+        this.intervals = intervals;
+        this.dictionary = dictionary;
+
+        for (final String sample : samples) {
+            sampleIndices.putIfAbsent(sample, sampleIndices.size());
+        }
+        this.numSamples = sampleIndices.size();
+        this.sampleCounts = new int[numSamples];
+    }
+
+    /**
+     * Move to the next locus with a non-empty column
+     *
+     * @return true if there is such a locus, in which case its column is given by {@link #getColumn()}; false if
+     * the reads are exhausted
+     */
+    public boolean advance() {
+        while (numReads > 0 || pendingReads.hasNext()) {
+            if (numReads == 0) {
+                // there are no reads here, so our next locus is the start of the next read in the stream
+                final GATKRead nextRead = pendingReads.peek();
+                setCurrentLocus(nextRead.getContig(), nextRead.getStart());
+            }
+            addReadsStartingAtCurrentLocus();
+            if (numReads == 0) {
+                // all the new reads were insertions / soft clips
+                continue;
+            }
+
+            final boolean hasColumn = isWithinIntervals() && fillColumn();
+            stepForwardOnGenome();
+            currentPosition++;
+            if (hasColumn) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the column at the current locus. The same object is refilled by every call to {@link #advance()}.
+     */
+    public PileupColumn getColumn() {
+        return column;
+    }
+
+    /**
+     * Adapter for code that processes AlignmentContexts: the returned iterator produces, for each column, the
+     * corresponding AlignmentContext
+     *
+     * @return an iterator over the same AlignmentContexts as a LocusIteratorByState without downsampling
+     */
+    public Iterator<AlignmentContext> asAlignmentContextIterator() {
+        return new Iterator<AlignmentContext>() {
+            private AlignmentContext nextAlignmentContext = null;
+
+            @Override
+            public boolean hasNext() {
+                if (nextAlignmentContext == null && advance()) {
+                    nextAlignmentContext = column.toAlignmentContext();
+                }
+                return nextAlignmentContext != null;
+            }
+
+            @Override
+            public AlignmentContext next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("ColumnarLocusIterator: out of elements.");
+                }
+                final AlignmentContext alignmentContext = nextAlignmentContext;
+                nextAlignmentContext = null;
+                return alignmentContext;
+            }
+        };
+    }
+
+    private void setCurrentLocus(final String contig, final int position) {
+        if (!contig.equals(currentContig)) {
+            currentContig = contig;
+            currentContigIndex = dictionary == null ? -1 : dictionary.getSequenceIndex(contig);
+        }
+        currentPosition = position;
+    }
+
+    private boolean isWithinIntervals() {
+        if (intervals == null) {
+            return true;
+        }
+        // skip the intervals entirely before the current locus
+        while (currentIntervalIndex < intervals.size()) {
+            final SimpleInterval interval = intervals.get(currentIntervalIndex);
+            final int intervalContigIndex = dictionary.getSequenceIndex(interval.getContig());
+            if (intervalContigIndex < currentContigIndex || (intervalContigIndex == currentContigIndex && interval.getEnd() < currentPosition)) {
+                currentIntervalIndex++;
+            } else {
+                return intervalContigIndex == currentContigIndex && interval.getStart() <= currentPosition;
+            }
+        }
+        return false;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    //
+    // adding and stepping reads
+    //
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Pull all of the reads off the stream that start at the current locus
+     */
+    private void addReadsStartingAtCurrentLocus() {
+        while (pendingReads.hasNext() && pendingReads.peek().getStart() == currentPosition && pendingReads.peek().getContig().equals(currentContig)) {
+            addRead(pendingReads.next());
+        }
+    }
+
+    private void addRead(final GATKRead read) {
+        final int sampleIndex = getSampleIndex(read);
+        if (numReads == reads.length) {
+            grow();
+        }
+        final int slot = numReads;
+        reads[slot] = read;
+        bases[slot] = read.getBasesNoCopy();
+        quals[slot] = read.getBaseQualitiesNoCopy();
+        cigars[slot] = packCigar(read.getCigar());
+        readSampleIndices[slot] = sampleIndex;
+        adaptorBoundaries[slot] = ReadUtils.getAdaptorBoundaryForBaseFiltering(read);
+        reverseStrand[slot] = read.isReverseStrand();
+        // one bp before the start of the alignment
+        cigarElementIndices[slot] = -1;
+        offsetsIntoCigarElements[slot] = -1;
+        readOffsets[slot] = -1;
+
+        // explicitly filter out reads that are all insertions / soft clips
+        if (stepForwardOnGenome(slot) != NO_OPERATOR) {
+            numReads++;
+        } else {
+            clearSlot(slot);
+        }
+    }
+
+    private int getSampleIndex(final GATKRead read) {
+        final String readGroup = read.getReadGroup();
+        Integer sampleIndex = sampleIndicesByReadGroup.get(readGroup);
+        if (sampleIndex == null) {
+            final String sampleName = readGroup != null ? ReadUtils.getSampleName(read, header) : null;
+            sampleIndex = sampleIndices.get(sampleName);
+            Utils.validate(sampleIndex != null, () -> "Offered read with sample name " + sampleName + " to ColumnarLocusIterator " +
+                    "but this sample wasn't provided as one of possible samples at construction");
+            sampleIndicesByReadGroup.put(readGroup, sampleIndex);
+        }
+        return sampleIndex;
+    }
+
+    private static int[] packCigar(final Cigar cigar) {
+        final int[] packed = new int[cigar.numCigarElements()];
+        for (int i = 0; i < packed.length; i++) {
+            final CigarElement element = cigar.getCigarElement(i);
+            packed[i] = (element.getLength() << OPERATOR_BITS) | element.getOperator().ordinal();
+        }
+        return packed;
+    }
+
+    private void grow() {
+        final int capacity = reads.length * 2;
+        reads = Arrays.copyOf(reads, capacity);
+        bases = Arrays.copyOf(bases, capacity);
+        quals = Arrays.copyOf(quals, capacity);
+        cigars = Arrays.copyOf(cigars, capacity);
+        readSampleIndices = Arrays.copyOf(readSampleIndices, capacity);
+        adaptorBoundaries = Arrays.copyOf(adaptorBoundaries, capacity);
+        reverseStrand = Arrays.copyOf(reverseStrand, capacity);
+        cigarElementIndices = Arrays.copyOf(cigarElementIndices, capacity);
+        offsetsIntoCigarElements = Arrays.copyOf(offsetsIntoCigarElements, capacity);
+        readOffsets = Arrays.copyOf(readOffsets, capacity);
+        operators = Arrays.copyOf(operators, capacity);
+        includedSlots = new int[capacity];
+        orderedSlots = new int[capacity];
+    }
+
+    private void clearSlot(final int slot) {
+        reads[slot] = null;
+        bases[slot] = null;
+        quals[slot] = null;
+        cigars[slot] = null;
+    }
+
+    private void moveSlot(final int from, final int to) {
+        reads[to] = reads[from];
+        bases[to] = bases[from];
+        quals[to] = quals[from];
+        cigars[to] = cigars[from];
+        readSampleIndices[to] = readSampleIndices[from];
+        adaptorBoundaries[to] = adaptorBoundaries[from];
+        reverseStrand[to] = reverseStrand[from];
+        cigarElementIndices[to] = cigarElementIndices[from];
+        offsetsIntoCigarElements[to] = offsetsIntoCigarElements[from];
+        readOffsets[to] = readOffsets[from];
+        operators[to] = operators[from];
+    }
+
+    /**
+     * Advance all of the reads by one bp, removing those that end at the current locus while keeping the others in order
+     */
+    private void stepForwardOnGenome() {
+        int numRemaining = 0;
+        for (int slot = 0; slot < numReads; slot++) {
+            if (stepForwardOnGenome(slot) != NO_OPERATOR) {
+                if (slot != numRemaining) {
+                    moveSlot(slot, numRemaining);
+                }
+                numRemaining++;
+            }
+        }
+        for (int slot = numRemaining; slot < numReads; slot++) {
+            clearSlot(slot);
+        }
+        numReads = numRemaining;
+    }
+
+    /**
+     * Step the alignment of the read in slot forward to the next on-genome cigar element step, exactly as
+     * {@link AlignmentStateMachine#stepForwardOnGenome()} does
+     *
+     * @return the ordinal of the operator of the cigar element that the read stopped at, or NO_OPERATOR if it
+     * advanced off the end of the read
+     */
+    private int stepForwardOnGenome(final int slot) {
+        final int[] cigar = cigars[slot];
+        int cigarElementIndex = cigarElementIndices[slot];
+        int offsetIntoCigarElement = offsetsIntoCigarElements[slot];
+        int readOffset = readOffsets[slot];
+
+        while (true) {
+            if (cigarElementIndex < 0 || offsetIntoCigarElement + 1 >= (cigar[cigarElementIndex] >>> OPERATOR_BITS)) {
+                cigarElementIndex++;
+                if (cigarElementIndex < cigar.length) {
+                    // guards against cigar elements of length 0, as in AlignmentStateMachine
+                    offsetIntoCigarElement = -1;
+                    continue;
+                }
+                if (cigarElementIndex > 0 && OPERATORS[cigar[cigarElementIndex - 1] & OPERATOR_MASK] == CigarOperator.D) {
+                    final GATKRead read = reads[slot];
+                    throw new UserException.MalformedRead(read, "read ends with deletion. Cigar: " + read.getCigar().toString() + ". Although the SAM spec technically permits such reads, this is often indicative of malformed files.");
+                }
+                return NO_OPERATOR;
+            }
+
+            offsetIntoCigarElement++;
+            final int length = cigar[cigarElementIndex] >>> OPERATOR_BITS;
+            final CigarOperator operator = OPERATORS[cigar[cigarElementIndex] & OPERATOR_MASK];
+            switch (operator) {
+                case H: // ignore hard clips
+                case P: // ignore pads
+                    offsetIntoCigarElement = length;
+                    continue;
+                case I: // insertion w.r.t. the reference
+                case S: // soft clip
+                    offsetIntoCigarElement = length;
+                    readOffset += length;
+                    continue;
+                case D: // deletion w.r.t. the reference
+                    if (readOffset < 0) {
+                        final GATKRead read = reads[slot];
+                        throw new UserException.MalformedRead(read, "read starts with deletion. Cigar: " + read.getCigar().toString() + ". Although the SAM spec technically permits such reads, this is often indicative of malformed files.");
+                    }
+                    break;
+                case N: // reference skip (looks and gets processed just like a "deletion", just different logical meaning)
+                    break;
+                case M:
+                case EQ:
+                case X:
+                    readOffset++;
+                    break;
+                default:
+                    throw new IllegalStateException("Case statement didn't deal with cigar op: " + operator);
+            }
+
+            cigarElementIndices[slot] = cigarElementIndex;
+            offsetsIntoCigarElements[slot] = offsetIntoCigarElement;
+            readOffsets[slot] = readOffset;
+            operators[slot] = operator.ordinal();
+            return operator.ordinal();
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------------
+    //
+    // building columns
+    //
+    // -----------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Fill the column with the reads at the current locus
+     *
+     * @return true if the column is not empty
+     */
+    private boolean fillColumn() {
+        column.reset(currentContig, currentPosition);
+        if (numSamples <= 1) {
+            for (int slot = 0; slot < numReads; slot++) {
+                if (isIncludedInColumn(slot)) {
+                    addToColumn(slot);
+                }
+            }
+        } else {
+            // stable counting sort of the included reads by sample
+            int numIncluded = 0;
+            Arrays.fill(sampleCounts, 0);
+            for (int slot = 0; slot < numReads; slot++) {
+                if (isIncludedInColumn(slot)) {
+                    includedSlots[numIncluded++] = slot;
+                    sampleCounts[readSampleIndices[slot]]++;
+                }
+            }
+            int sampleStart = 0;
+            for (int sample = 0; sample < numSamples; sample++) {
+                final int count = sampleCounts[sample];
+                sampleCounts[sample] = sampleStart;
+                sampleStart += count;
+            }
+            for (int i = 0; i < numIncluded; i++) {
+                final int slot = includedSlots[i];
+                orderedSlots[sampleCounts[readSampleIndices[slot]]++] = slot;
+            }
+            for (int i = 0; i < numIncluded; i++) {
+                addToColumn(orderedSlots[i]);
+            }
+        }
+        return !column.isEmpty();
+    }
+
+    private boolean isIncludedInColumn(final int slot) {
+        final int operator = operators[slot];
+        if (!includeReadsWithNsAtLoci && operator == CigarOperator.N.ordinal()) {
+            return false;
+        }
+        if (isInsideAdaptor(slot)) {
+            return false;
+        }
+        return includeReadsWithDeletionAtLoci || operator != CigarOperator.D.ordinal();
+    }
+
+    /**
+     * The same as {@link ReadUtils#isBaseInsideAdaptor} at the current locus
+     */
+    private boolean isInsideAdaptor(final int slot) {
+        final int adaptorBoundary = adaptorBoundaries[slot];
+        if (adaptorBoundary == ReadUtils.CANNOT_COMPUTE_ADAPTOR_BOUNDARY) {
+            return false;
+        }
+        return reverseStrand[slot] ? currentPosition <= adaptorBoundary : currentPosition >= adaptorBoundary;
+    }
+
+    private void addToColumn(final int slot) {
+        final boolean isDeletion = operators[slot] == CigarOperator.D.ordinal();
+        final int readOffset = readOffsets[slot];
+        final byte base;
+        final byte qual;
+        if (isDeletion) {
+            base = PileupElement.DELETION_BASE;
+            qual = PileupElement.DELETION_QUAL;
+        } else {
+            // reads without base qualities, and reads at a reference skip before their first base, have no base or
+            // quality at this locus, for which PileupElement#getBase and #getQual would fail
+            base = readOffset >= 0 ? bases[slot][readOffset] : BaseUtils.Base.N.base;
+            qual = readOffset >= 0 && readOffset < quals[slot].length ? quals[slot][readOffset] : 0;
+        }
+        column.add(reads[slot], readOffset, isDeletion, base, qual, cigarElementIndices[slot], offsetsIntoCigarElements[slot]);
+    }
+}
@@ -0,0 +1,228 @@
+package org.broadinstitute.hellbender.utils.pairhmm;
+
+import org.broadinstitute.hellbender.utils.QualityUtils;
+
+/**
+ * Pure Java version of the LOGLESS_CACHING PairHMM that is laid out for SIMD execution, for use when the native
+ * AVX implementation ({@link VectorLoglessPairHMM}) cannot be loaded.
+ *
+ * Like the native kernel, the forward algorithm is computed one anti-diagonal of the read x haplotype matrix at a time.
+ * All of the cells on an anti-diagonal depend only on the two previous anti-diagonals, so the inner loops have no
+ * loop-carried dependencies, and operate on flat arrays indexed by read position that the JIT vectorizes. Also like
+ * the native kernel, the likelihood is first computed in single precision (twice as many values per vector register),
+ * and recomputed in double precision only if the single precision result underflows.
+ */
+public final class JavaVectorizedLoglessPairHMM extends PairHMM {
+
+    // initial conditions and minimum single precision result are the same as in the native implementation
+    static final float INITIAL_CONDITION_FLOAT = 0x1p120f;
+    static final double INITIAL_CONDITION_FLOAT_LOG10 = Math.log10(INITIAL_CONDITION_FLOAT);
+    static final float MIN_ACCEPTED_FLOAT = 1e-28f;
+
+    // per-read values, indexed by (1-based) read position
+    private byte[] readBases;
+    private double[] matchPrior, mismatchPrior, matchToMatch, indelToMatch, matchToInsertion, insertionToInsertion, matchToDeletion, deletionToDeletion;
+    private float[] matchPriorFloat, mismatchPriorFloat, matchToMatchFloat, indelToMatchFloat, matchToInsertionFloat, insertionToInsertionFloat, matchToDeletionFloat, deletionToDeletionFloat;
+    private final double[] transitionScratch = new double[PairHMMModel.TRANS_PROB_ARRAY_LENGTH];
+
+    // the current and two previous anti-diagonals of each matrix, indexed by read position
+    private double[][] matchDiagonals, insertionDiagonals, deletionDiagonals;
+    private double[] prior;
+    private float[][] matchDiagonalsFloat, insertionDiagonalsFloat, deletionDiagonalsFloat;
+    private float[] priorFloat;
+
+    @Override
+    public void initialize( final int readMaxLength, final int haplotypeMaxLength ) {
+        super.initialize(readMaxLength, haplotypeMaxLength);
+
+        readBases = new byte[paddedMaxReadLength];
+        matchPrior = new double[paddedMaxReadLength];
+        mismatchPrior = new double[paddedMaxReadLength];
+        matchToMatch = new double[paddedMaxReadLength];
+        indelToMatch = new double[paddedMaxReadLength];
+        matchToInsertion = new double[paddedMaxReadLength];
+        insertionToInsertion = new double[paddedMaxReadLength];
+        matchToDeletion = new double[paddedMaxReadLength];
+        deletionToDeletion = new double[paddedMaxReadLength];
+        matchPriorFloat = new float[paddedMaxReadLength];
+        mismatchPriorFloat = new float[paddedMaxReadLength];
+        matchToMatchFloat = new float[paddedMaxReadLength];
+        indelToMatchFloat = new float[paddedMaxReadLength];
+        matchToInsertionFloat = new float[paddedMaxReadLength];
+        insertionToInsertionFloat = new float[paddedMaxReadLength];
+        matchToDeletionFloat = new float[paddedMaxReadLength];
+        deletionToDeletionFloat = new float[paddedMaxReadLength];
+
+        matchDiagonals = new double[3][paddedMaxReadLength];
+        insertionDiagonals = new double[3][paddedMaxReadLength];
+        deletionDiagonals = new double[3][paddedMaxReadLength];
+        prior = new double[paddedMaxReadLength];
+        matchDiagonalsFloat = new float[3][paddedMaxReadLength];
+        insertionDiagonalsFloat = new float[3][paddedMaxReadLength];
+        deletionDiagonalsFloat = new float[3][paddedMaxReadLength];
+        priorFloat = new float[paddedMaxReadLength];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double subComputeReadLikelihoodGivenHaplotypeLog10( final byte[] haplotypeBases,
+                                                               final byte[] readBases,
+                                                               final byte[] readQuals,
+                                                               final byte[] insertionGOP,
+                                                               final byte[] deletionGOP,
+                                                               final byte[] overallGCP,
+                                                               final int hapStartIndex,
+                                                               final boolean recacheReadValues,
+                                                               final int nextHapStartIndex) {
+        if ( ! constantsAreInitialized || recacheReadValues ) {
+            initializeReadValues(readBases, readQuals, insertionGOP, deletionGOP, overallGCP);
+            constantsAreInitialized = true;
+        }
+
+        final float sumFloat = forwardFloat(haplotypeBases);
+        if ( sumFloat >= MIN_ACCEPTED_FLOAT ) {
+            return Math.log10(sumFloat) - INITIAL_CONDITION_FLOAT_LOG10;
+        }
+        // the single precision result underflowed: recompute in double precision
+        return Math.log10(forwardDouble(haplotypeBases)) - LoglessPairHMM.INITIAL_CONDITION_LOG10;
+    }
+
+    /**
+     * Caches the bases, priors and transition probabilities of the read, as flat arrays indexed by read position.
+     */
+    private void initializeReadValues(final byte[] bases, final byte[] quals, final byte[] insertionGOP, final byte[] deletionGOP, final byte[] overallGCP) {
+        final double tristateCorrection = doNotUseTristateCorrection ? 1.0 : LoglessPairHMM.TRISTATE_CORRECTION;
+        for ( int i = 1; i <= bases.length; i++ ) {
+            readBases[i] = bases[i - 1];
+            matchPrior[i] = QualityUtils.qualToProb(quals[i - 1]);
+            mismatchPrior[i] = QualityUtils.qualToErrorProb(quals[i - 1]) / tristateCorrection;
+
+            PairHMMModel.qualToTransProbs(transitionScratch, insertionGOP[i - 1], deletionGOP[i - 1], overallGCP[i - 1]);
+            matchToMatch[i] = transitionScratch[PairHMMModel.matchToMatch];
+            indelToMatch[i] = transitionScratch[PairHMMModel.indelToMatch];
+            matchToInsertion[i] = transitionScratch[PairHMMModel.matchToInsertion];
+            insertionToInsertion[i] = transitionScratch[PairHMMModel.insertionToInsertion];
+            matchToDeletion[i] = transitionScratch[PairHMMModel.matchToDeletion];
+            deletionToDeletion[i] = transitionScratch[PairHMMModel.deletionToDeletion];
+
+            matchPriorFloat[i] = (float) matchPrior[i];
+            mismatchPriorFloat[i] = (float) mismatchPrior[i];
+            matchToMatchFloat[i] = (float) matchToMatch[i];
+            indelToMatchFloat[i] = (float) indelToMatch[i];
+            matchToInsertionFloat[i] = (float) matchToInsertion[i];
+            insertionToInsertionFloat[i] = (float) insertionToInsertion[i];
+            matchToDeletionFloat[i] = (float) matchToDeletion[i];
+            deletionToDeletionFloat[i] = (float) deletionToDeletion[i];
+        }
+    }
+
+    private static boolean basesMatch(final byte readBase, final byte haplotypeBase) {
+        return readBase == haplotypeBase || readBase == (byte) 'N' || haplotypeBase == (byte) 'N';
+    }
+
+    /**
+     * Forward algorithm in single precision, one anti-diagonal at a time. Cell (i, j) of the matrices (read position i,
+     * haplotype position j, both 1-based) is stored at index i of the arrays for anti-diagonal d = i + j. Row 0 holds
+     * the initial condition (free deletions before the start of the read), and column 0 is all zeros.
+     *
+     * @return the sum of the probabilities of the paths ending in the match and insertion states of the last read
+     * position, scaled by {@link #INITIAL_CONDITION_FLOAT}
+     */
+    private float forwardFloat(final byte[] haplotypeBases) {
+        final int readLength = paddedReadLength - 1;
+        final int haplotypeLength = haplotypeBases.length;
+        final float initialDeletion = INITIAL_CONDITION_FLOAT / haplotypeLength;
+
+        // anti-diagonals d - 2, d - 1 and d, rotated after each anti-diagonal
+        float[] match2 = matchDiagonalsFloat[0], insertion2 = insertionDiagonalsFloat[0], deletion2 = deletionDiagonalsFloat[0];
+        float[] match1 = matchDiagonalsFloat[1], insertion1 = insertionDiagonalsFloat[1], deletion1 = deletionDiagonalsFloat[1];
+        float[] match = matchDiagonalsFloat[2], insertion = insertionDiagonalsFloat[2], deletion = deletionDiagonalsFloat[2];
+
+        // anti-diagonal 0 is cell (0, 0), and anti-diagonal 1 is cells (0, 1) and (1, 0)
+        match2[0] = 0.0f; insertion2[0] = 0.0f; deletion2[0] = initialDeletion;
+        match1[0] = 0.0f; insertion1[0] = 0.0f; deletion1[0] = initialDeletion;
+        if ( readLength >= 1 ) {
+            match1[1] = 0.0f; insertion1[1] = 0.0f; deletion1[1] = 0.0f;
+        }
+
+        float finalSumProbabilities = 0.0f;
+        for ( int d = 2; d <= readLength + haplotypeLength; d++ ) {
+            final int iStart = Math.max(1, d - haplotypeLength);
+            final int iEnd = Math.min(readLength, d - 1);
+
+            for ( int i = iStart; i <= iEnd; i++ ) {
+                priorFloat[i] = basesMatch(readBases[i], haplotypeBases[d - i - 1]) ? matchPriorFloat[i] : mismatchPriorFloat[i];
+            }
+            for ( int i = iStart; i <= iEnd; i++ ) {
+                match[i] = priorFloat[i] * (match2[i - 1] * matchToMatchFloat[i] + (insertion2[i - 1] + deletion2[i - 1]) * indelToMatchFloat[i]);
+                insertion[i] = match1[i - 1] * matchToInsertionFloat[i] + insertion1[i - 1] * insertionToInsertionFloat[i];
+                deletion[i] = match1[i] * matchToDeletionFloat[i] + deletion1[i] * deletionToDeletionFloat[i];
+            }
+
+            // boundary cells (0, d) and (d, 0)
+            match[0] = 0.0f; insertion[0] = 0.0f; deletion[0] = initialDeletion;
+            if ( d <= readLength ) {
+                match[d] = 0.0f; insertion[d] = 0.0f; deletion[d] = 0.0f;
+            }
+            if ( iEnd == readLength ) {
+                finalSumProbabilities += match[readLength] + insertion[readLength];
+            }
+
+            final float[] oldMatch = match2, oldInsertion = insertion2, oldDeletion = deletion2;
+            match2 = match1; insertion2 = insertion1; deletion2 = deletion1;
+            match1 = match; insertion1 = insertion; deletion1 = deletion;
+            match = oldMatch; insertion = oldInsertion; deletion = oldDeletion;
+        }
+        return finalSumProbabilities;
+    }
+
+    /**
+     * Double precision version of {@link #forwardFloat}, scaled by {@link LoglessPairHMM#INITIAL_CONDITION}.
+     */
+    private double forwardDouble(final byte[] haplotypeBases) {
+        final int readLength = paddedReadLength - 1;
+        final int haplotypeLength = haplotypeBases.length;
+        final double initialDeletion = LoglessPairHMM.INITIAL_CONDITION / haplotypeLength;
+
+        double[] match2 = matchDiagonals[0], insertion2 = insertionDiagonals[0], deletion2 = deletionDiagonals[0];
+        double[] match1 = matchDiagonals[1], insertion1 = insertionDiagonals[1], deletion1 = deletionDiagonals[1];
+        double[] match = matchDiagonals[2], insertion = insertionDiagonals[2], deletion = deletionDiagonals[2];
+
+        match2[0] = 0.0; insertion2[0] = 0.0; deletion2[0] = initialDeletion;
+        match1[0] = 0.0; insertion1[0] = 0.0; deletion1[0] = initialDeletion;
+        if ( readLength >= 1 ) {
+            match1[1] = 0.0; insertion1[1] = 0.0; deletion1[1] = 0.0;
+        }
+
+        double finalSumProbabilities = 0.0;
+        for ( int d = 2; d <= readLength + haplotypeLength; d++ ) {
+            final int iStart = Math.max(1, d - haplotypeLength);
+            final int iEnd = Math.min(readLength, d - 1);
+
+            for ( int i = iStart; i <= iEnd; i++ ) {
+                prior[i] = basesMatch(readBases[i], haplotypeBases[d - i - 1]) ? matchPrior[i] : mismatchPrior[i];
+            }
+            for ( int i = iStart; i <= iEnd; i++ ) {
+                match[i] = prior[i] * (match2[i - 1] * matchToMatch[i] + (insertion2[i - 1] + deletion2[i - 1]) * indelToMatch[i]);
+                insertion[i] = match1[i - 1] * matchToInsertion[i] + insertion1[i - 1] * insertionToInsertion[i];
+                deletion[i] = match1[i] * matchToDeletion[i] + deletion1[i] * deletionToDeletion[i];
+            }
+
+            match[0] = 0.0; insertion[0] = 0.0; deletion[0] = initialDeletion;
+            if ( d <= readLength ) {
+                match[d] = 0.0; insertion[d] = 0.0; deletion[d] = 0.0;
+            }
+            if ( iEnd == readLength ) {
+                finalSumProbabilities += match[readLength] + insertion[readLength];
+            }
+
+            final double[] oldMatch = match2, oldInsertion = insertion2, oldDeletion = deletion2;
+            match2 = match1; insertion2 = insertion1; deletion2 = deletion1;
+            match1 = match; insertion1 = insertion; deletion1 = deletion;
+            match = oldMatch; insertion = oldInsertion; deletion = oldDeletion;
+        }
+        return finalSumProbabilities;
+    }
+}
@@ -56,6 +56,12 @@ public abstract class PairHMM implements Closeable{
             logger.info("Using the non-hardware-accelerated Java LOGLESS_CACHING PairHMM implementation");
             return hmm;
         }),
+        /* Pure Java implementation of LOGLESS_CACHING that computes anti-diagonals in single precision (falling back to double precision) so that the JIT can vectorize it. Never chosen by FASTEST_AVAILABLE */
+        JAVA_VECTORIZED_LOGLESS_CACHING(args -> {
+            final JavaVectorizedLoglessPairHMM hmm = new JavaVectorizedLoglessPairHMM();
+            logger.info("Using the vectorized Java JAVA_VECTORIZED_LOGLESS_CACHING PairHMM implementation");
+            return hmm;
+        }),
         /* Optimized AVX implementation of LOGLESS_CACHING called through JNI. Throws if AVX is not available */
         AVX_LOGLESS_CACHING(args -> {
             // Constructor will throw a UserException if AVX is not available
@@ -247,6 +253,23 @@ public abstract class PairHMM implements Closeable{
     }
 
 
+    /**
+     * Compute the likelihoods of several sets of reads against the same haplotypes, such as the reads of each sample
+     * in a region. Equivalent to calling {@link #computeLog10Likelihoods} for each matrix in turn, which is what this
+     * default implementation does; implementations with a high per-call overhead may evaluate all of the reads together.
+     *
+     * @param logLikelihoods where to store the log likelihoods of each set of reads
+     * @param processedReads reads to analyze for each matrix, in the same order as {@code logLikelihoods}
+     */
+    public void batchComputeLog10Likelihoods(final List<? extends LikelihoodMatrix<GATKRead, Haplotype>> logLikelihoods,
+                                             final List<List<GATKRead>> processedReads,
+                                             final PairHMMInputScoreImputator inputScoreImputator) {
+        Utils.validateArg(logLikelihoods.size() == processedReads.size(), "there must be one list of processed reads per likelihood matrix");
+        for (int i = 0; i < logLikelihoods.size(); i++) {
+            computeLog10Likelihoods(logLikelihoods.get(i), processedReads.get(i), inputScoreImputator);
+        }
+    }
+
     /**
      * Compute the total probability of read arising from haplotypeBases given base substitution, insertion, and deletion
      * probabilities.
@@ -10,10 +10,12 @@ import org.broadinstitute.gatk.nativebindings.pairhmm.PairHMMNativeArguments;
 import org.broadinstitute.gatk.nativebindings.pairhmm.PairHMMNativeBinding;
 import org.broadinstitute.gatk.nativebindings.pairhmm.ReadDataHolder;
 import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.genotyper.LikelihoodMatrix;
 import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -107,25 +109,52 @@ public final class VectorLoglessPairHMM extends LoglessPairHMM {
     @Override
     public void computeLog10Likelihoods(final LikelihoodMatrix<GATKRead, Haplotype> logLikelihoods,
                                         final List<GATKRead> processedReads, final PairHMMInputScoreImputator inputScoreImputator) {
-        if (processedReads.isEmpty()) {
+        batchComputeLog10Likelihoods(Collections.singletonList(logLikelihoods), Collections.singletonList(processedReads), inputScoreImputator);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The reads of all matrices that share the same haplotypes are sent to the native PairHMM in a single call,
+     * so that small sets of reads (eg., the reads of each sample in a multi-sample region) don't leave it underfed.
+     */
+    @Override
+    public void batchComputeLog10Likelihoods(final List<? extends LikelihoodMatrix<GATKRead, Haplotype>> logLikelihoods,
+                                             final List<List<GATKRead>> processedReads, final PairHMMInputScoreImputator inputScoreImputator) {
+        Utils.validateArg(logLikelihoods.size() == processedReads.size(), "there must be one list of processed reads per likelihood matrix");
+        if (logLikelihoods.isEmpty()) {
+            return;
+        }
+        final List<Haplotype> haplotypes = logLikelihoods.get(0).alleles();
+        if (!logLikelihoods.stream().allMatch(matrix -> matrix.alleles().equals(haplotypes))) {
+            // the native PairHMM evaluates every read against every haplotype, so matrices with different haplotypes can't share a call
+            for (int i = 0; i < logLikelihoods.size(); i++) {
+                computeLog10Likelihoods(logLikelihoods.get(i), processedReads.get(i), inputScoreImputator);
+            }
+            return;
+        }
+
+        final int readListSize = processedReads.stream().mapToInt(List::size).sum();
+        if (readListSize == 0) {
             return;
         }
         if (doProfiling) {
             startTime = System.nanoTime();
         }
-        int readListSize = processedReads.size();
-        int numHaplotypes = logLikelihoods.numberOfAlleles();
+        int numHaplotypes = haplotypes.size();
         ReadDataHolder[] readDataArray = new ReadDataHolder[readListSize];
         int idx = 0;
-        for (GATKRead read : processedReads) {
-            final PairHMMInputScoreImputation inputScoreImputation = inputScoreImputator.impute(read);
-            readDataArray[idx] = new ReadDataHolder();
-            readDataArray[idx].readBases = read.getBases();
-            readDataArray[idx].readQuals = read.getBaseQualities();
-            readDataArray[idx].insertionGOP = inputScoreImputation.insOpenPenalties();
-            readDataArray[idx].deletionGOP = inputScoreImputation.delOpenPenalties();
-            readDataArray[idx].overallGCP = inputScoreImputation.gapContinuationPenalties();
-            ++idx;
+        for (final List<GATKRead> reads : processedReads) {
+            for (GATKRead read : reads) {
+                final PairHMMInputScoreImputation inputScoreImputation = inputScoreImputator.impute(read);
+                readDataArray[idx] = new ReadDataHolder();
+                readDataArray[idx].readBases = read.getBases();
+                readDataArray[idx].readQuals = read.getBaseQualities();
+                readDataArray[idx].insertionGOP = inputScoreImputation.insOpenPenalties();
+                readDataArray[idx].deletionGOP = inputScoreImputation.delOpenPenalties();
+                readDataArray[idx].overallGCP = inputScoreImputation.gapContinuationPenalties();
+                ++idx;
+            }
         }
 
         mLogLikelihoodArray = new double[readListSize * numHaplotypes];      //to store results
@@ -137,19 +166,28 @@ public final class VectorLoglessPairHMM extends LoglessPairHMM {
         //       compute_full_prob()
         pairHmm.computeLikelihoods(readDataArray, mHaplotypeDataArray, mLogLikelihoodArray);
 
+        //Since the order of haplotypes in the List<Haplotype> and alleleHaplotypeMap is different,
+        //get idx of current haplotype in the list and use this idx to get the right likelihoodValue
+        final int[] idxInsideHaplotypeList = new int[numHaplotypes];
+        for (int hapIdx = 0; hapIdx < numHaplotypes; hapIdx++) {
+            idxInsideHaplotypeList[hapIdx] = haplotypeToHaplotypeListIdxMap.get(haplotypes.get(hapIdx));
+        }
+
+        // split the results of the batch back into their matrices
         int readIdx = 0;
-        for (int r = 0; r < readListSize; r++) {
-            int hapIdx = 0;
-            for (final Haplotype haplotype : logLikelihoods.alleles()) {
-
-                //Since the order of haplotypes in the List<Haplotype> and alleleHaplotypeMap is different,
-                //get idx of current haplotype in the list and use this idx to get the right likelihoodValue
-                final int idxInsideHaplotypeList = haplotypeToHaplotypeListIdxMap.get(haplotype);
-                logLikelihoods.set(hapIdx, r, mLogLikelihoodArray[readIdx + idxInsideHaplotypeList]);
-                writeToResultsFileIfApplicable(readDataArray[r].readBases, readDataArray[r].readQuals, readDataArray[r].insertionGOP, readDataArray[r].deletionGOP, readDataArray[r].overallGCP, haplotype.getBases(), mLogLikelihoodArray[readIdx + idxInsideHaplotypeList]);
-                ++hapIdx;
+        int batchReadIndex = 0;
+        for (int m = 0; m < logLikelihoods.size(); m++) {
+            final LikelihoodMatrix<GATKRead, Haplotype> matrix = logLikelihoods.get(m);
+            final int matrixReadCount = processedReads.get(m).size();
+            for (int r = 0; r < matrixReadCount; r++, batchReadIndex++) {
+                final ReadDataHolder readData = readDataArray[batchReadIndex];
+                for (int hapIdx = 0; hapIdx < numHaplotypes; hapIdx++) {
+                    final double likelihood = mLogLikelihoodArray[readIdx + idxInsideHaplotypeList[hapIdx]];
+                    matrix.set(hapIdx, r, likelihood);
+                    writeToResultsFileIfApplicable(readData.readBases, readData.readQuals, readData.insertionGOP, readData.deletionGOP, readData.overallGCP, haplotypes.get(hapIdx).getBases(), likelihood);
+                }
+                readIdx += numHaplotypes;
             }
-            readIdx += numHaplotypes;
         }
         if (doProfiling) {
             threadLocalPairHMMComputeTimeDiff = (System.nanoTime() - startTime);
@@ -0,0 +1,274 @@
+package org.broadinstitute.hellbender.utils.pileup;
+
+import htsjdk.samtools.util.Locatable;
+import org.broadinstitute.hellbender.engine.AlignmentContext;
+import org.broadinstitute.hellbender.utils.BaseUtils;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The reads aligned to a single locus, stored column-wise in primitive arrays instead of as a list of
+ * {@link PileupElement}s.
+ *
+ * Entry i of the column holds the same information as the i-th PileupElement of the corresponding {@link ReadPileup}:
+ * its base and quality (which are {@link PileupElement#DELETION_BASE} and {@link PileupElement#DELETION_QUAL} for
+ * deletions), the mapping quality and strand of its read, and its offset into the read. Tools that only need those
+ * can read the arrays returned by {@link #getBases()}, {@link #getQuals()} etc. directly, and those that need the full
+ * PileupElements can get them from {@link #toReadPileup()} or {@link #toAlignmentContext()}.
+ *
+ * Columns are filled by pileup engines such as
+ * {@link org.broadinstitute.hellbender.utils.locusiterator.ColumnarLocusIterator}, which reuse the same column (and its
+ * arrays) for every locus, so a column is only valid until the engine moves on to the next locus.
+ */
+public final class PileupColumn implements Locatable {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private String contig;
+    private int position;
+    private int size;
+
+    private GATKRead[] reads;
+    private byte[] bases;
+    private byte[] quals;
+    private int[] mappingQuals;
+    private boolean[] reverseStrand;
+    private boolean[] deletions;
+    private int[] offsets;
+    private int[] cigarElementIndices;
+    private int[] offsetsIntoCigarElements;
+
+    /**
+     * Create an empty column, to be filled with {@link #reset} and {@link #add}
+     */
+    public PileupColumn() {
+        reads = new GATKRead[INITIAL_CAPACITY];
+        bases = new byte[INITIAL_CAPACITY];
+        quals = new byte[INITIAL_CAPACITY];
+        mappingQuals = new int[INITIAL_CAPACITY];
+        reverseStrand = new boolean[INITIAL_CAPACITY];
+        deletions = new boolean[INITIAL_CAPACITY];
+        offsets = new int[INITIAL_CAPACITY];
+        cigarElementIndices = new int[INITIAL_CAPACITY];
+        offsetsIntoCigarElements = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Adapter from the pileup of an {@link AlignmentContext}, for tools that process PileupColumns but are given
+     * AlignmentContexts (e.g., when downsampling with {@link org.broadinstitute.hellbender.utils.locusiterator.LocusIteratorByState})
+     *
+     * @param alignmentContext a single-base alignment context
+     * @return a new column with the elements of the pileup of alignmentContext, in the same order
+     */
+    public static PileupColumn of(final AlignmentContext alignmentContext) {
+        Utils.nonNull(alignmentContext);
+        final PileupColumn column = new PileupColumn();
+        column.reset(alignmentContext.getContig(), alignmentContext.getStart());
+        for ( final PileupElement element : alignmentContext.getBasePileup() ) {
+            column.add(element.getRead(), element.getOffset(), element.isDeletion(), element.getBase(), element.getQual(),
+                    element.getCurrentCigarOffset(), element.getOffsetInCurrentCigar());
+        }
+        return column;
+    }
+
+    /**
+     * Empty this column and move it to a new locus
+     */
+    public void reset(final String contig, final int position) {
+        this.contig = contig;
+        this.position = position;
+        // clear the references to the reads of the previous locus, so that they can be garbage collected
+        Arrays.fill(reads, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Add an entry for a read to this column
+     *
+     * @param read the read
+     * @param offset the offset of the entry into the read (for deletions, the offset of the last base before it)
+     * @param isDeletion is the read aligned to this locus with a deletion?
+     * @param base the base of the entry, {@link PileupElement#DELETION_BASE} for deletions
+     * @param qual the base quality of the entry, {@link PileupElement#DELETION_QUAL} for deletions
+     * @param cigarElementIndex the index of the cigar element of the read aligned to this locus
+     * @param offsetIntoCigarElement the offset of this locus into that cigar element
+     */
+    public void add(final GATKRead read, final int offset, final boolean isDeletion, final byte base, final byte qual,
+                    final int cigarElementIndex, final int offsetIntoCigarElement) {
+        if ( size == reads.length ) {
+            grow();
+        }
+        reads[size] = read;
+        bases[size] = base;
+        quals[size] = qual;
+        mappingQuals[size] = read.getMappingQuality();
+        reverseStrand[size] = read.isReverseStrand();
+        deletions[size] = isDeletion;
+        offsets[size] = offset;
+        cigarElementIndices[size] = cigarElementIndex;
+        offsetsIntoCigarElements[size] = offsetIntoCigarElement;
+        size++;
+    }
+
+    private void grow() {
+        final int capacity = reads.length * 2;
+        reads = Arrays.copyOf(reads, capacity);
+        bases = Arrays.copyOf(bases, capacity);
+        quals = Arrays.copyOf(quals, capacity);
+        mappingQuals = Arrays.copyOf(mappingQuals, capacity);
+        reverseStrand = Arrays.copyOf(reverseStrand, capacity);
+        deletions = Arrays.copyOf(deletions, capacity);
+        offsets = Arrays.copyOf(offsets, capacity);
+        cigarElementIndices = Arrays.copyOf(cigarElementIndices, capacity);
+        offsetsIntoCigarElements = Arrays.copyOf(offsetsIntoCigarElements, capacity);
+    }
+
+    @Override
+    public String getContig() {
+        return contig;
+    }
+
+    @Override
+    public int getStart() {
+        return position;
+    }
+
+    @Override
+    public int getEnd() {
+        return position;
+    }
+
+    /**
+     * @return the number of entries in this column
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public GATKRead getRead(final int i) {
+        return reads[i];
+    }
+
+    public byte getBase(final int i) {
+        return bases[i];
+    }
+
+    public byte getQual(final int i) {
+        return quals[i];
+    }
+
+    public int getMappingQual(final int i) {
+        return mappingQuals[i];
+    }
+
+    public boolean isReverseStrand(final int i) {
+        return reverseStrand[i];
+    }
+
+    public boolean isDeletion(final int i) {
+        return deletions[i];
+    }
+
+    public int getOffset(final int i) {
+        return offsets[i];
+    }
+
+    /**
+     * @return the bases of the entries.  Only the first {@link #size()} values are valid.  DO NOT MODIFY
+     */
+    public byte[] getBases() {
+        return bases;
+    }
+
+    /**
+     * @return the base qualities of the entries.  Only the first {@link #size()} values are valid.  DO NOT MODIFY
+     */
+    public byte[] getQuals() {
+        return quals;
+    }
+
+    /**
+     * @return the mapping qualities of the entries.  Only the first {@link #size()} values are valid.  DO NOT MODIFY
+     */
+    public int[] getMappingQuals() {
+        return mappingQuals;
+    }
+
+    /**
+     * @return whether the read of each entry is on the reverse strand.  Only the first {@link #size()} values are valid.  DO NOT MODIFY
+     */
+    public boolean[] getReverseStrand() {
+        return reverseStrand;
+    }
+
+    /**
+     * @return whether each entry is a deletion.  Only the first {@link #size()} values are valid.  DO NOT MODIFY
+     */
+    public boolean[] getDeletions() {
+        return deletions;
+    }
+
+    /**
+     * @return the offsets of the entries into their reads.  Only the first {@link #size()} values are valid.  DO NOT MODIFY
+     */
+    public int[] getOffsets() {
+        return offsets;
+    }
+
+    /**
+     * The same as {@link ReadPileup#getBaseCounts()}
+     *
+     * @return the number of A, C, G and T bases in this column, excluding deletions
+     */
+    public int[] getBaseCounts() {
+        final int[] counts = new int[4];
+        for ( int i = 0; i < size; i++ ) {
+            if ( !deletions[i] ) {
+                final int index = BaseUtils.simpleBaseToBaseIndex(bases[i]);
+                if ( index != -1 ) {
+                    counts[index]++;
+                }
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * @return a new pileup with the PileupElements of this column, in the same order
+     */
+    public ReadPileup toReadPileup() {
+        return toReadPileup(new SimpleInterval(contig, position, position));
+    }
+
+    private ReadPileup toReadPileup(final SimpleInterval location) {
+        final List<PileupElement> elements = new ArrayList<>(size);
+        for ( int i = 0; i < size; i++ ) {
+            elements.add(new PileupElement(reads[i], offsets[i], reads[i].getCigar().getCigarElement(cigarElementIndices[i]),
+                    cigarElementIndices[i], offsetsIntoCigarElements[i]));
+        }
+        return new ReadPileup(location, elements);
+    }
+
+    /**
+     * Adapter to {@link AlignmentContext}, for tools that process AlignmentContexts
+     *
+     * @return a new alignment context with the pileup of this column
+     */
+    public AlignmentContext toAlignmentContext() {
+        final SimpleInterval location = new SimpleInterval(contig, position, position);
+        return new AlignmentContext(location, toReadPileup(location));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s:%d (%d reads)", contig, position, size);
+    }
+}
@@ -948,8 +948,34 @@ public final class ReadUtils {
         final Path referenceFile,
         final SAMFileHeader header,
         final boolean preSorted,
-        boolean createOutputBamIndex,
+        final boolean createOutputBamIndex,
         final boolean createMD5)
+    {
+        return createCommonSAMWriter(outputPath, referenceFile, header, preSorted, createOutputBamIndex, createMD5,
+                Defaults.USE_ASYNC_IO_WRITE_FOR_SAMTOOLS);
+    }
+
+    /**
+     * Create a common SAMFileWriter for use with GATK tools.
+     *
+     * @param outputPath - if this file has a .cram extension then a reference is required. Can not be null.
+     * @param referenceFile - the reference source to use. Can not be null if a output file has a .cram extension.
+     * @param header - header to be used for the output writer
+     * @param preSorted - if true then the records must already be sorted to match the header sort order
+     * @param createOutputBamIndex - if true an index will be created for .BAM and .CRAM files
+     * @param createMD5 - if true an MD5 file will be created
+     * @param useAsyncIo - if true records will be encoded and written on a separate writer thread
+     *
+     * @return SAMFileWriter
+     */
+    public static SAMFileWriter createCommonSAMWriter(
+        final Path outputPath,
+        final Path referenceFile,
+        final SAMFileHeader header,
+        final boolean preSorted,
+        boolean createOutputBamIndex,
+        final boolean createMD5,
+        final boolean useAsyncIo)
     {
         Utils.nonNull(outputPath);
         Utils.nonNull(header);
@@ -960,7 +986,10 @@ public final class ReadUtils {
             createOutputBamIndex = false;
         }
 
-        final SAMFileWriterFactory factory = new SAMFileWriterFactory().setCreateIndex(createOutputBamIndex).setCreateMd5File(createMD5);
+        final SAMFileWriterFactory factory = new SAMFileWriterFactory()
+                .setCreateIndex(createOutputBamIndex)
+                .setCreateMd5File(createMD5)
+                .setUseAsyncIo(useAsyncIo);
         return ReadUtils.createCommonSAMWriterFromFactory(factory, outputPath, referenceFile, header, preSorted);
     }
 
@@ -1064,13 +1093,26 @@ public final class ReadUtils {
      * @return whether or not the base is in the adaptor
      */
     public static boolean isBaseInsideAdaptor(final GATKRead read, long basePos) {
-        final int adaptorBoundary = read.getAdaptorBoundary();
-        if (adaptorBoundary == CANNOT_COMPUTE_ADAPTOR_BOUNDARY || read.getFragmentLength() > DEFAULT_ADAPTOR_SIZE)
+        final int adaptorBoundary = getAdaptorBoundaryForBaseFiltering(read);
+        if (adaptorBoundary == CANNOT_COMPUTE_ADAPTOR_BOUNDARY)
             return false;
 
         return read.isReverseStrand() ? basePos <= adaptorBoundary : basePos >= adaptorBoundary;
     }
 
+    /**
+     * The adaptor boundary used by {@link #isBaseInsideAdaptor}, for callers that test many bases of the same read
+     *
+     * @param read the read
+     * @return the adaptor boundary of the read, or {@link #CANNOT_COMPUTE_ADAPTOR_BOUNDARY} if none of its bases is
+     * inside the adaptor
+     */
+    public static int getAdaptorBoundaryForBaseFiltering(final GATKRead read) {
+        final int adaptorBoundary = read.getAdaptorBoundary();
+        return adaptorBoundary == CANNOT_COMPUTE_ADAPTOR_BOUNDARY || read.getFragmentLength() > DEFAULT_ADAPTOR_SIZE
+                ? CANNOT_COMPUTE_ADAPTOR_BOUNDARY : adaptorBoundary;
+    }
+
     /**
      * Pull out the sample names from a SAMFileHeader
      *
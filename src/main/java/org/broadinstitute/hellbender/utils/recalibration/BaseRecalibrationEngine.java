@@ -64,6 +64,12 @@ public final class BaseRecalibrationEngine implements Serializable {
 
     private RecalibrationTables recalTables;
 
+    /**
+     * Counts for each table of recalTables (except for the read group table, which is derived from the quality score
+     * table), which are added into recalTables when the tables are requested
+     */
+    private RecalDatumCountTable[] countTables;
+
     private SAMFileHeader readsHeader;
 
     /**
@@ -98,6 +104,11 @@ public final class BaseRecalibrationEngine implements Serializable {
             throw new UserException("Number of read groups must be >= 1, but is " + numReadGroups);
         }
         recalTables = new RecalibrationTables(covariates, numReadGroups);
+        countTables = new RecalDatumCountTable[recalTables.numTables()];
+        // the read group table (table 0) is not counted, but derived from the quality score table (table 1)
+        for ( int i = 1; i < countTables.length; i++ ) {
+            countTables[i] = new RecalDatumCountTable(recalTables.getTable(i).getDimensions());
+        }
         keyCache = new CovariateKeyCache();
         cachedEventTypes = recalArgs.computeIndelBQSRTables ? EventType.values() : new EventType[]{EventType.BASE_SUBSTITUTION};
     }
@@ -149,6 +160,33 @@ public final class BaseRecalibrationEngine implements Serializable {
         numReadsProcessed++;
     }
 
+    /**
+     * Add the data collected by other, an engine with the same arguments and reads header that has processed a disjoint
+     * set of reads, into this engine. Used to merge the work of engines running on separate threads.
+     *
+     * Observation counts are integers, and without BAQ every base contributes an error of exactly 0 or 1, so merged
+     * engines end up with exactly the same tables as a single engine that processed all of the reads. With BAQ, the
+     * fractional errors are summed in a different order, so the number of mismatches can differ in the last bits.
+     *
+     * Must be called before {@link #finalizeData} is called on either engine.
+     *
+     * @param other engine whose data is added into this one
+     */
+    public void combine( final BaseRecalibrationEngine other ) {
+        Utils.nonNull(other);
+        Utils.validate(!finalized && !other.finalized, "Cannot combine engines after finalizeData() has been called");
+        for ( int i = 0; i < countTables.length; i++ ) {
+            if ( countTables[i] != null ) {
+                countTables[i].combine(other.countTables[i]);
+            }
+        }
+        // data that other has already added into its tables (see getRecalibrationTables())
+        if ( ! other.recalTables.isEmpty() ) {
+            recalTables.combine(other.recalTables);
+        }
+        numReadsProcessed += other.numReadsProcessed;
+    }
+
     /**
      * Finalize, if appropriate, all derived data in recalibrationTables.
      *
@@ -159,6 +197,7 @@ public final class BaseRecalibrationEngine implements Serializable {
      */
     public void finalizeData() {
         Utils.validate(!finalized, "FinalizeData() has already been called");
+        addCountsToRecalibrationTables();
         finalizeRecalibrationTables(recalTables);
         finalized = true;
     }
@@ -212,9 +251,24 @@ public final class BaseRecalibrationEngine implements Serializable {
      * Get a possibly not-final recalibration table, to deal with distributed execution.
      */
     public RecalibrationTables getRecalibrationTables() {
+        if ( ! finalized ) {
+            addCountsToRecalibrationTables();
+        }
         return recalTables;
     }
 
+    /**
+     * Add the counts accumulated since the last call into recalTables
+     */
+    private void addCountsToRecalibrationTables() {
+        for ( int i = 0; i < countTables.length; i++ ) {
+            if ( countTables[i] != null && ! countTables[i].isEmpty() ) {
+                countTables[i].addTo(recalTables.getTable(i));
+                countTables[i].clear();
+            }
+        }
+    }
+
     /**
      * Get the final recalibration tables, after finalizeData() has been called
      *
@@ -246,7 +300,7 @@ public final class BaseRecalibrationEngine implements Serializable {
 
         final GATKRead read = recalInfo.getRead();
         final ReadCovariates readCovariates = recalInfo.getCovariatesValues();
-        final NestedIntegerArray<RecalDatum> qualityScoreTable = recalTables.getQualityScoreTable();
+        final RecalDatumCountTable qualityScoreCounts = countTables[1];
 
         final int nCovariates = covariates.size();
         final int nSpecialCovariates = covariates.numberOfSpecialCovariates();
@@ -257,18 +311,18 @@ public final class BaseRecalibrationEngine implements Serializable {
                     final EventType eventType = cachedEventTypes[idx];
                     final int[] keys = readCovariates.getKeySet(offset, eventType);
                     final int eventIndex = eventType.ordinal();
-                    final byte qual = recalInfo.getQual(eventType, offset);
                     final double isError = recalInfo.getErrorFraction(eventType, offset);
 
+                    // key1 is the quality score of the event, and so its reported quality
                     final int key0 = keys[0];
                     final int key1 = keys[1];
 
-                    RecalUtils.incrementDatumOrPutIfNecessary3keys(qualityScoreTable, qual, isError, key0, key1, eventIndex);
+                    qualityScoreCounts.increment3Keys(key0, key1, eventIndex, isError);
 
                     for (int i = nSpecialCovariates; i < nCovariates; i++) {
                         final int keyi = keys[i];
                         if (keyi >= 0) {
-                            RecalUtils.incrementDatumOrPutIfNecessary4keys(recalTables.getTable(i), qual, isError, key0, key1, keyi, eventIndex);
+                            countTables[i].increment4Keys(key0, key1, keyi, eventIndex, isError);
                         }
                     }
                 }
@@ -86,6 +86,37 @@ public final class RecalDatum implements Serializable {
         this.empiricalQuality = copy.empiricalQuality;
     }
 
+    /**
+     * Create a new RecalDatum from counts accumulated outside of a RecalDatum (see {@link RecalDatumCountTable}).
+     * The mismatches must have been accumulated with {@link #scaleMismatches}, so that the result is exactly the same
+     * as a RecalDatum that was incremented with each observation in turn.
+     *
+     * @param numObservations       observations
+     * @param scaledNumMismatches   sum of the scaled mismatches
+     * @param reportedQuality       Qreported
+     */
+    static RecalDatum fromScaledCounts(final long numObservations, final double scaledNumMismatches, final byte reportedQuality) {
+        final RecalDatum datum = new RecalDatum(numObservations, 0.0, reportedQuality);
+        datum.numMismatches = scaledNumMismatches;
+        return datum;
+    }
+
+    /**
+     * @return the (fractional) number of mismatches, scaled as they are stored internally
+     */
+    static double scaleMismatches(final double numMismatches) {
+        return numMismatches*MULTIPLIER;
+    }
+
+    /**
+     * Add in counts accumulated outside of a RecalDatum, with the mismatches scaled by {@link #scaleMismatches}
+     */
+    void incrementScaled(final long incObservations, final double incScaledMismatches) {
+        numObservations += incObservations;
+        numMismatches += incScaledMismatches;
+        empiricalQuality = UNINITIALIZED;
+    }
+
     /**
      * Add in all of the data from other into this object, updating the reported quality from the expected
      * error rate implied by the two reported qualities
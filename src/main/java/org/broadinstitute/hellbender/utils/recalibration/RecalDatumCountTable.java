@@ -0,0 +1,217 @@
+package org.broadinstitute.hellbender.utils.recalibration;
+
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.collections.NestedIntegerArray;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Observation and mismatch counts for one of the tables of {@link RecalibrationTables}, stored in primitive arrays
+ * instead of one {@link RecalDatum} per cell, so that {@link BaseRecalibrationEngine} can count every base without
+ * allocating objects or traversing nested arrays.
+ *
+ * The table has the same dimensions as the {@link NestedIntegerArray} it counts for: read group, quality score,
+ * optionally the value of an additional covariate, and event type. Cells are addressed by a linear index computed
+ * from the keys, laid out so that the cells of consecutive covariate values are adjacent, and the counts are held in
+ * fixed-size pages that are allocated on first use, so that the memory used is proportional to the combinations of
+ * read group, quality and event type actually seen rather than to the full size of the table.
+ *
+ * The reported quality of each cell is its quality score key, which is how {@link BaseRecalibrationEngine} keys
+ * its tables. Not thread-safe.
+ */
+public final class RecalDatumCountTable implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final int PAGE_BITS = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private final int[] dimensions;
+    private final int numReadGroups;
+    private final int numQuals;
+    private final int numCovariateValues;
+    private final int numEvents;
+
+    private final long[][] observationPages;
+    private final double[][] scaledMismatchPages;
+
+    /**
+     * @param dimensions the dimensions of the table to count for: read group, quality score and event type, or read
+     *                   group, quality score, covariate value and event type (see {@link NestedIntegerArray#getDimensions})
+     */
+    public RecalDatumCountTable(final int... dimensions) {
+        Utils.nonNull(dimensions);
+        Utils.validateArg(dimensions.length == 3 || dimensions.length == 4, "dimensions must be read group, quality, [covariate,] event");
+        for ( final int dimension : dimensions ) {
+            Utils.validateArg(dimension > 0, () -> "dimensions must be positive but are " + Arrays.toString(dimensions));
+        }
+        this.dimensions = dimensions.clone();
+        this.numReadGroups = dimensions[0];
+        this.numQuals = dimensions[1];
+        this.numCovariateValues = dimensions.length == 4 ? dimensions[2] : 1;
+        this.numEvents = dimensions[dimensions.length - 1];
+
+        final long numCells = (long) numReadGroups * numQuals * numEvents * numCovariateValues;
+        final long numPages = (numCells + PAGE_SIZE - 1) >>> PAGE_BITS;
+        Utils.validateArg(numPages < Integer.MAX_VALUE, () -> "table with dimensions " + Arrays.toString(dimensions) + " is too large");
+        this.observationPages = new long[(int) numPages][];
+        this.scaledMismatchPages = new double[(int) numPages][];
+    }
+
+    /**
+     * @return the dimensions of the table.  DO NOT MODIFY
+     */
+    public int[] getDimensions() {
+        return dimensions;
+    }
+
+    /**
+     * Count an observation in a table without an additional covariate
+     *
+     * Note: we intentionally do not use varargs here to avoid the performance cost of allocating an array on every call.
+     *
+     * @param readGroupKey read group key
+     * @param qualKey quality score key, which is also the reported quality of the observation
+     * @param eventIndex event type ordinal
+     * @param isError error value for this event
+     */
+    public void increment3Keys(final int readGroupKey, final int qualKey, final int eventIndex, final double isError) {
+        Utils.validate(dimensions.length == 3, "this table needs a covariate key");
+        increment(cellIndex(readGroupKey, qualKey, 0, eventIndex), isError);
+    }
+
+    /**
+     * Count an observation in a table with an additional covariate
+     *
+     * Note: we intentionally do not use varargs here to avoid the performance cost of allocating an array on every call.
+     *
+     * @param readGroupKey read group key
+     * @param qualKey quality score key, which is also the reported quality of the observation
+     * @param covariateKey key of the additional covariate
+     * @param eventIndex event type ordinal
+     * @param isError error value for this event
+     */
+    public void increment4Keys(final int readGroupKey, final int qualKey, final int covariateKey, final int eventIndex, final double isError) {
+        increment(cellIndex(readGroupKey, qualKey, covariateKey, eventIndex), isError);
+    }
+
+    private long cellIndex(final int readGroupKey, final int qualKey, final int covariateKey, final int eventIndex) {
+        if ( readGroupKey < 0 || readGroupKey >= numReadGroups || qualKey < 0 || qualKey >= numQuals
+                || covariateKey < 0 || covariateKey >= numCovariateValues || eventIndex < 0 || eventIndex >= numEvents ) {
+            throw new IllegalArgumentException(String.format("Keys (%d, %d, %d, %d) are out of range for a table with dimensions %s",
+                    readGroupKey, qualKey, covariateKey, eventIndex, Arrays.toString(dimensions)));
+        }
+        return (((long) readGroupKey * numQuals + qualKey) * numEvents + eventIndex) * numCovariateValues + covariateKey;
+    }
+
+    private void increment(final long cellIndex, final double isError) {
+        final int page = (int) (cellIndex >>> PAGE_BITS);
+        final int offset = (int) cellIndex & PAGE_MASK;
+        if ( observationPages[page] == null ) {
+            observationPages[page] = new long[PAGE_SIZE];
+            scaledMismatchPages[page] = new double[PAGE_SIZE];
+        }
+        observationPages[page][offset]++;
+        scaledMismatchPages[page][offset] += RecalDatum.scaleMismatches(isError);
+    }
+
+    /**
+     * @return true if no observations have been counted
+     */
+    public boolean isEmpty() {
+        for ( final long[] page : observationPages ) {
+            if ( page != null ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Add the counts of other, which must have the same dimensions, into this table
+     *
+     * @return this table
+     */
+    public RecalDatumCountTable combine(final RecalDatumCountTable other) {
+        Utils.nonNull(other);
+        Utils.validateArg(Arrays.equals(dimensions, other.dimensions), () -> "Attempting to combine tables with dimensions "
+                + Arrays.toString(dimensions) + " and " + Arrays.toString(other.dimensions));
+
+        for ( int page = 0; page < observationPages.length; page++ ) {
+            final long[] otherObservations = other.observationPages[page];
+            if ( otherObservations == null ) {
+                continue;
+            }
+            final double[] otherScaledMismatches = other.scaledMismatchPages[page];
+            if ( observationPages[page] == null ) {
+                observationPages[page] = otherObservations.clone();
+                scaledMismatchPages[page] = otherScaledMismatches.clone();
+            } else {
+                final long[] observations = observationPages[page];
+                final double[] scaledMismatches = scaledMismatchPages[page];
+                for ( int offset = 0; offset < PAGE_SIZE; offset++ ) {
+                    observations[offset] += otherObservations[offset];
+                    scaledMismatches[offset] += otherScaledMismatches[offset];
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Add the counts of this table into the corresponding RecalDatums of table, creating the RecalDatums that don't
+     * exist yet. A table that has not been incremented otherwise ends up with exactly the same RecalDatums as if it
+     * had been incremented one observation at a time with {@link RecalUtils#incrementDatumOrPutIfNecessary3keys} or
+     * {@link RecalUtils#incrementDatumOrPutIfNecessary4keys}.
+     *
+     * @param table a table with the same dimensions as this one
+     */
+    public void addTo(final NestedIntegerArray<RecalDatum> table) {
+        Utils.nonNull(table);
+        Utils.validateArg(Arrays.equals(dimensions, table.getDimensions()), () -> "Attempting to add counts with dimensions "
+                + Arrays.toString(dimensions) + " to a table with dimensions " + Arrays.toString(table.getDimensions()));
+
+        for ( int page = 0; page < observationPages.length; page++ ) {
+            final long[] observations = observationPages[page];
+            if ( observations == null ) {
+                continue;
+            }
+            final double[] scaledMismatches = scaledMismatchPages[page];
+            for ( int offset = 0; offset < PAGE_SIZE; offset++ ) {
+                if ( observations[offset] == 0 ) {
+                    continue;
+                }
+                // invert cellIndex
+                final long cellIndex = ((long) page << PAGE_BITS) + offset;
+                final int covariateKey = (int) (cellIndex % numCovariateValues);
+                final long readGroupQualEvent = cellIndex / numCovariateValues;
+                final int eventIndex = (int) (readGroupQualEvent % numEvents);
+                final long readGroupQual = readGroupQualEvent / numEvents;
+                final int qualKey = (int) (readGroupQual % numQuals);
+                final int readGroupKey = (int) (readGroupQual / numQuals);
+
+                final RecalDatum existingDatum = dimensions.length == 3 ? table.get3Keys(readGroupKey, qualKey, eventIndex)
+                        : table.get4Keys(readGroupKey, qualKey, covariateKey, eventIndex);
+                if ( existingDatum != null ) {
+                    existingDatum.incrementScaled(observations[offset], scaledMismatches[offset]);
+                } else {
+                    final RecalDatum datum = RecalDatum.fromScaledCounts(observations[offset], scaledMismatches[offset], (byte) qualKey);
+                    if ( dimensions.length == 3 ) {
+                        table.put(datum, readGroupKey, qualKey, eventIndex);
+                    } else {
+                        table.put(datum, readGroupKey, qualKey, covariateKey, eventIndex);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Discard all of the counts
+     */
+    public void clear() {
+        Arrays.fill(observationPages, null);
+        Arrays.fill(scaledMismatchPages, null);
+    }
+}
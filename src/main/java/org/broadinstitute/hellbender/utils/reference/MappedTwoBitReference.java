@@ -0,0 +1,305 @@
+package org.broadinstitute.hellbender.utils.reference;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.reference.ReferenceSequence;
+import htsjdk.samtools.reference.ReferenceSequenceFile;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A class for reading a genomic reference stored in .2bit format (see {@link TwoBitReference} for a description of the
+ * format), that maps the file into memory instead of loading it onto the heap.
+ *
+ * The bases are decoded from the mapped file at each query, 4 bases per packed byte at a time, directly into the
+ * array returned. Since the mapped pages belong to the OS page cache, they are shared by all the processes that read
+ * the same reference on a machine, and don't count towards the heap of any of them. Only the sequence records (and the
+ * blocks of N's, plus the masked blocks if the case of the bases is preserved) are kept on the heap.
+ *
+ * Files on the default file system are memory-mapped. Files on other file systems (eg., Google Cloud Storage) can't
+ * be, so they are loaded onto the heap instead, as with {@link TwoBitReference}.
+ *
+ * Implements {@link ReferenceSequenceFile}, so that it can be used wherever a fasta reader would be. Instances are
+ * safe to query from multiple threads.
+ */
+public final class MappedTwoBitReference implements ReferenceSequenceFile {
+
+    /**
+     * The file is mapped in segments of this size, since a single mapping can't be larger than 2GB
+     */
+    private static final int SEGMENT_SIZE_LOG2 = 30;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SIZE_LOG2;
+
+    /**
+     * DECODED_BYTES[4 * b + i] is the i-th base packed into the byte b. The bases are packed as T - 00, C - 01, A - 10, G - 11,
+     * the first base in the most significant bits.
+     */
+    private static final byte[] DECODED_BYTES = new byte[256 * 4];
+    static {
+        final byte[] twoBitEncodingToBase = { 'T', 'C', 'A', 'G' };
+        for ( int packedByte = 0; packedByte < 256; packedByte++ ) {
+            for ( int i = 0; i < 4; i++ ) {
+                DECODED_BYTES[4 * packedByte + i] = twoBitEncodingToBase[(packedByte >> (6 - 2 * i)) & 3];
+            }
+        }
+    }
+
+    private final Path referencePath;
+
+    // If true, preserve lowercase (masked) bases, otherwise uppercase all bases
+    private final boolean preserveCase;
+
+    // The contents of the file, SEGMENT_SIZE bytes per buffer (except for the last one)
+    private final ByteBuffer[] segments;
+
+    // LinkedHashMap because the order of the sequence records does matter
+    private final Map<String, TwoBitIndex.SequenceRecord> sequenceRecords;
+
+    private final SAMSequenceDictionary sequenceDictionary;
+
+    // index in the sequence dictionary of the sequence returned by the next call to nextSequence()
+    private int nextSequenceIndex = 0;
+
+    /**
+     * Creates a MappedTwoBitReference that will uppercase all bases
+     *
+     * @param referencePath path to the 2bit reference
+     */
+    public MappedTwoBitReference( final Path referencePath ) {
+        this(referencePath, false);
+    }
+
+    /**
+     * Creates a MappedTwoBitReference, and specifies whether bases should be uppercased
+     *
+     * @param referencePath path to the 2bit reference
+     * @param preserveCase if true, preserve lowercase (masked) bases, otherwise uppercase all bases
+     */
+    public MappedTwoBitReference( final Path referencePath, final boolean preserveCase ) {
+        this.referencePath = Utils.nonNull(referencePath);
+        this.preserveCase = preserveCase;
+        this.segments = mapFile(referencePath);
+
+        // the masked blocks are only needed to preserve the case of the bases
+        final TwoBitIndex index = new TwoBitIndex(referencePath, this::getByte, getFileSize(), preserveCase);
+        sequenceRecords = new LinkedHashMap<>();
+        sequenceDictionary = new SAMSequenceDictionary();
+        for ( final TwoBitIndex.SequenceRecord sequenceRecord : index.getSequenceRecords() ) {
+            sequenceRecords.put(sequenceRecord.name, sequenceRecord);
+            sequenceDictionary.addSequence(new SAMSequenceRecord(sequenceRecord.name, sequenceRecord.length));
+        }
+    }
+
+    /**
+     * @return true if the path has the 2bit extension
+     */
+    public static boolean isTwoBit( final Path path ) {
+        return path.getFileName() != null && path.getFileName().toString().endsWith(TwoBitReference.TWO_BIT_EXTENSION);
+    }
+
+    private static ByteBuffer[] mapFile( final Path referencePath ) {
+        final boolean canMap = referencePath.getFileSystem() == FileSystems.getDefault();
+        try ( final SeekableByteChannel channel = canMap ? FileChannel.open(referencePath, StandardOpenOption.READ) : Files.newByteChannel(referencePath) ) {
+            final long size = channel.size();
+            final ByteBuffer[] segments = new ByteBuffer[(int)((size + SEGMENT_SIZE - 1) >>> SEGMENT_SIZE_LOG2)];
+            for ( int i = 0; i < segments.length; i++ ) {
+                final long segmentStart = (long)i << SEGMENT_SIZE_LOG2;
+                final int segmentSize = (int)Math.min(SEGMENT_SIZE, size - segmentStart);
+                if ( canMap ) {
+                    // the mapping remains valid once the channel is closed
+                    segments[i] = ((FileChannel)channel).map(FileChannel.MapMode.READ_ONLY, segmentStart, segmentSize);
+                } else {
+                    final ByteBuffer segment = ByteBuffer.allocate(segmentSize);
+                    channel.position(segmentStart);
+                    while ( segment.hasRemaining() ) {
+                        if ( channel.read(segment) < 0 ) {
+                            throw new UserException.CouldNotReadInputFile(referencePath, "Unexpected end of file while loading the 2bit reference");
+                        }
+                    }
+                    segments[i] = segment;
+                }
+            }
+            return segments;
+        } catch ( final IOException e ) {
+            throw new UserException.CouldNotReadInputFile(referencePath, "Unable to map the 2bit reference file", e);
+        }
+    }
+
+    /**
+     * @return The sequence dictionary for this 2bit reference
+     */
+    @Override
+    public SAMSequenceDictionary getSequenceDictionary() {
+        return sequenceDictionary;
+    }
+
+    /**
+     * @param contig contig to query
+     * @param start 1-based inclusive start of the query
+     * @param stop 1-based inclusive stop of the query (must be at most the length of the contig, and at least start - 1)
+     * @return the reference bases covering the specified interval
+     */
+    public ReferenceSequence getReferenceBases( final String contig, final long start, final long stop ) {
+        final TwoBitIndex.SequenceRecord sequenceRecord = sequenceRecords.get(contig);
+        if ( sequenceRecord == null ) {
+            throw new IllegalArgumentException("Sequence " + contig + " not present in 2bit file " + referencePath);
+        }
+        if ( start < 1 || stop < start - 1 || stop > sequenceRecord.length ) {
+            throw new IllegalArgumentException("Query interval " + contig + ":" + start + "-" + stop + " is not valid for sequence " +
+                    contig + " (length " + sequenceRecord.length + ")");
+        }
+
+        final byte[] bases = new byte[(int)(stop - start + 1)];
+        decodeBases(sequenceRecord, (int)(start - 1), bases);
+        return new ReferenceSequence(sequenceRecord.name, sequenceRecord.index, bases);
+    }
+
+    /**
+     * Decodes bases.length bases of the sequence, starting at the 0-based position offset, into bases
+     */
+    private void decodeBases( final TwoBitIndex.SequenceRecord sequenceRecord, final int offset, final byte[] bases ) {
+        final int length = bases.length;
+        if ( length == 0 ) {
+            return;
+        }
+
+        // copy the packed bytes in bulk, then expand each of them into 4 bases
+        final int firstPackedByte = offset >>> 2;
+        final byte[] packed = new byte[((offset + length - 1) >>> 2) - firstPackedByte + 1];
+        getBytes(sequenceRecord.basesOffset + firstPackedByte, packed);
+
+        int written = 0;
+        int skipped = offset & 3;
+        for ( final byte packedByte : packed ) {
+            final int decodedOffset = (packedByte & 0xff) << 2;
+            if ( skipped == 0 && length - written >= 4 ) {
+                bases[written] = DECODED_BYTES[decodedOffset];
+                bases[written + 1] = DECODED_BYTES[decodedOffset + 1];
+                bases[written + 2] = DECODED_BYTES[decodedOffset + 2];
+                bases[written + 3] = DECODED_BYTES[decodedOffset + 3];
+                written += 4;
+            } else {
+                for ( int i = skipped; i < 4 && written < length; i++ ) {
+                    bases[written++] = DECODED_BYTES[decodedOffset + i];
+                }
+                skipped = 0;
+            }
+        }
+
+        // masked bases are lowercased, then N's replace any base (masked N's are not supported)
+        if ( preserveCase ) {
+            applyBlocks(sequenceRecord.maskBlockStarts, sequenceRecord.maskBlockEnds, offset, bases, false);
+        }
+        applyBlocks(sequenceRecord.nBlockStarts, sequenceRecord.nBlockEnds, offset, bases, true);
+    }
+
+    private static void applyBlocks( final int[] blockStarts, final int[] blockEnds, final int offset, final byte[] bases, final boolean isNBlock ) {
+        final int end = offset + bases.length;
+        for ( int block = firstBlockEndingAfter(blockEnds, offset); block < blockStarts.length && blockStarts[block] < end; block++ ) {
+            final int from = Math.max(blockStarts[block], offset) - offset;
+            final int to = Math.min(blockEnds[block], end) - offset;
+            for ( int i = from; i < to; i++ ) {
+                bases[i] = isNBlock ? (byte)'N' : (byte)Character.toLowerCase(bases[i]);
+            }
+        }
+    }
+
+    private static int firstBlockEndingAfter( final int[] blockEnds, final int position ) {
+        int low = 0;
+        int high = blockEnds.length;
+        while ( low < high ) {
+            final int mid = (low + high) >>> 1;
+            if ( blockEnds[mid] <= position ) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private long getFileSize() {
+        return segments.length == 0 ? 0 : ((long)(segments.length - 1) << SEGMENT_SIZE_LOG2) + segments[segments.length - 1].capacity();
+    }
+
+    private byte getByte( final long position ) {
+        return segments[(int)(position >>> SEGMENT_SIZE_LOG2)].get((int)(position & (SEGMENT_SIZE - 1)));
+    }
+
+    /**
+     * Copies dest.length bytes starting at position into dest, using independent views of the segments so that
+     * concurrent queries don't interfere with each other
+     */
+    private void getBytes( final long position, final byte[] dest ) {
+        int copied = 0;
+        long current = position;
+        while ( copied < dest.length ) {
+            final ByteBuffer segment = segments[(int)(current >>> SEGMENT_SIZE_LOG2)].duplicate();
+            segment.position((int)(current & (SEGMENT_SIZE - 1)));
+            final int count = Math.min(segment.remaining(), dest.length - copied);
+            segment.get(dest, copied, count);
+            copied += count;
+            current += count;
+        }
+    }
+
+    /**
+     * Returns the sequences in the order of the file. Unlike queries, iteration is not safe from multiple threads.
+     */
+    @Override
+    public ReferenceSequence nextSequence() {
+        if ( nextSequenceIndex >= sequenceDictionary.size() ) {
+            return null;
+        }
+        return getSequence(sequenceDictionary.getSequence(nextSequenceIndex++).getSequenceName());
+    }
+
+    @Override
+    public void reset() {
+        nextSequenceIndex = 0;
+    }
+
+    /**
+     * A 2bit file is always indexed.
+     */
+    @Override
+    public boolean isIndexed() {
+        return true;
+    }
+
+    @Override
+    public ReferenceSequence getSequence( final String contig ) {
+        final SAMSequenceRecord sequence = sequenceDictionary.getSequence(contig);
+        if ( sequence == null ) {
+            throw new IllegalArgumentException("Sequence " + contig + " not present in 2bit file " + referencePath);
+        }
+        return getReferenceBases(contig, 1, sequence.getSequenceLength());
+    }
+
+    @Override
+    public ReferenceSequence getSubsequenceAt( final String contig, final long start, final long stop ) {
+        return getReferenceBases(contig, start, stop);
+    }
+
+    @Override
+    public String toString() {
+        return referencePath.toUri().toString();
+    }
+
+    @Override
+    public void close() {
+        // The mappings are released when the buffers are garbage-collected: there's no supported way to unmap them,
+        // and doing so while another thread is still decoding bases would crash the JVM.
+    }
+}
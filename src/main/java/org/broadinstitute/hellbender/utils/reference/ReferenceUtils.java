@@ -104,9 +104,14 @@ public final class ReferenceUtils {
         return header.getSequenceDictionary();
     }
 
-    public static CachingIndexedFastaSequenceFile createReferenceReader(final GATKPath referenceInput) {
+    /**
+     * @return a reader for the reference: a {@link MappedTwoBitReference} for a .2bit reference, and a
+     *         {@link CachingIndexedFastaSequenceFile} otherwise
+     */
+    public static ReferenceSequenceFile createReferenceReader(final GATKPath referenceInput) {
         // fasta reference reader to supplement the edges of the reference sequence
-        return new CachingIndexedFastaSequenceFile(referenceInput.toPath());
+        return MappedTwoBitReference.isTwoBit(referenceInput.toPath()) ? new MappedTwoBitReference(referenceInput.toPath())
+                : new CachingIndexedFastaSequenceFile(referenceInput.toPath());
     }
 
     public static byte[] getRefBaseAtPosition(final ReferenceSequenceFile reference, final String contig, final int start) {
@@ -0,0 +1,230 @@
+package org.broadinstitute.hellbender.utils.reference;
+
+import org.broadinstitute.hellbender.exceptions.UserException;
+
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The header and sequence records of a .2bit file (see {@link TwoBitReference} for a description of the format),
+ * parsed from any random-access view of the bytes of the file.
+ *
+ * Shared by {@link TwoBitReference}, which holds the whole file on the heap, and {@link MappedTwoBitReference}, which
+ * maps it into memory.
+ */
+final class TwoBitIndex {
+
+    /**
+     * Random access to the bytes of a 2bit file
+     */
+    @FunctionalInterface
+    interface ByteSource {
+        byte getByte( long position );
+    }
+
+    private final Path referencePath;
+    private final ByteSource bytes;
+    private final long fileSize;
+
+    private final ByteOrder byteOrder;
+
+    // In the order of the file index
+    private final List<SequenceRecord> sequenceRecords;
+
+    /**
+     * Reads the header and the sequence records of a 2bit file
+     *
+     * @param referencePath path to the 2bit reference, for error messages
+     * @param bytes the bytes of the file
+     * @param fileSize the size of the file in bytes
+     * @param readMaskBlocks if false, skip the masked blocks (they are only needed to preserve the case of the bases)
+     */
+    TwoBitIndex( final Path referencePath, final ByteSource bytes, final long fileSize, final boolean readMaskBlocks ) {
+        this.referencePath = referencePath;
+        this.bytes = bytes;
+        this.fileSize = fileSize;
+        this.byteOrder = readByteOrderAndValidateHeader();
+        this.sequenceRecords = readSequenceRecords(readMaskBlocks);
+    }
+
+    /**
+     * @return the byte order of the file, as given by its signature
+     */
+    ByteOrder getByteOrder() {
+        return byteOrder;
+    }
+
+    /**
+     * @return the sequence records, in the order of the file index
+     */
+    List<SequenceRecord> getSequenceRecords() {
+        return sequenceRecords;
+    }
+
+    /**
+     * Reads the 16-byte 2bit header (signature, version, sequence count and a reserved value), and returns the
+     * byte order of the file given by the signature
+     */
+    private ByteOrder readByteOrderAndValidateHeader() {
+        if ( fileSize < TwoBitReference.HEADER_LENGTH_IN_BYTES ) {
+            throw new UserException.MalformedFile(referencePath, "File is too small to be a 2bit file");
+        }
+        final ByteOrder order;
+        if ( getInt(0, ByteOrder.LITTLE_ENDIAN) == TwoBitReference.TWO_BIT_SIGNATURE ) {
+            order = ByteOrder.LITTLE_ENDIAN;
+        } else if ( getInt(0, ByteOrder.BIG_ENDIAN) == TwoBitReference.TWO_BIT_SIGNATURE ) {
+            order = ByteOrder.BIG_ENDIAN;
+        } else {
+            throw new UserException.MalformedFile(referencePath,
+                    "File does not start with the required 2bit signature value " + TwoBitReference.TWO_BIT_SIGNATURE);
+        }
+
+        final int version = getInt(4, order);
+        if ( version != TwoBitReference.TWO_BIT_SUPPORTED_VERSION ) {
+            throw new UserException.CouldNotReadInputFile(referencePath,
+                    "File is version " + version + ", but we only support version " + TwoBitReference.TWO_BIT_SUPPORTED_VERSION);
+        }
+        final int reservedValue = getInt(12, order);
+        if ( reservedValue != 0 ) {
+            throw new UserException.MalformedFile(referencePath,
+                    "Reserved header value must be 0 according to the 2bit spec, but found " + reservedValue);
+        }
+        return order;
+    }
+
+    /**
+     * Reads the file index (name and offset of each sequence record), and the metadata at the start of each sequence
+     * record (DNA size, N blocks, masked blocks)
+     */
+    private List<SequenceRecord> readSequenceRecords( final boolean readMaskBlocks ) {
+        final int sequenceCount = getInt(8, byteOrder);
+        if ( sequenceCount < 0 ) {
+            throw new UserException.MalformedFile(referencePath, "Negative sequence count in 2bit header: " + sequenceCount);
+        }
+
+        final List<SequenceRecord> records = new ArrayList<>(sequenceCount);
+        long indexOffset = TwoBitReference.HEADER_LENGTH_IN_BYTES;
+        for ( int i = 0; i < sequenceCount; i++ ) {
+            final int nameSize = bytes.getByte(indexOffset) & 0xff;
+            final byte[] nameBytes = new byte[nameSize];
+            for ( int j = 0; j < nameSize; j++ ) {
+                nameBytes[j] = bytes.getByte(indexOffset + 1 + j);
+            }
+            final String name = new String(nameBytes, StandardCharsets.US_ASCII);
+            final long recordOffset = Integer.toUnsignedLong(getInt(indexOffset + 1 + nameSize, byteOrder));
+            indexOffset += 1 + nameSize + Integer.BYTES;
+
+            records.add(readSequenceRecord(name, i, recordOffset, readMaskBlocks));
+        }
+        return Collections.unmodifiableList(records);
+    }
+
+    private SequenceRecord readSequenceRecord( final String name, final int index, final long recordOffset, final boolean readMaskBlocks ) {
+        long offset = recordOffset;
+        final int length = getInt(offset, byteOrder);
+        offset += Integer.BYTES;
+
+        final int nBlockCount = getInt(offset, byteOrder);
+        final int[][] nBlocks = readBlocks(offset + Integer.BYTES, nBlockCount);
+        offset += Integer.BYTES + 2L * Integer.BYTES * nBlockCount;
+
+        final int maskBlockCount = getInt(offset, byteOrder);
+        final int[][] maskBlocks = readMaskBlocks ? readBlocks(offset + Integer.BYTES, maskBlockCount) : new int[][] { new int[0], new int[0] };
+        offset += Integer.BYTES + 2L * Integer.BYTES * maskBlockCount;
+
+        if ( getInt(offset, byteOrder) != 0 ) {
+            throw new UserException.MalformedFile(referencePath,
+                    "Reserved value for sequence " + name + " must be zero, but is non-zero");
+        }
+        offset += Integer.BYTES;
+
+        if ( length < 0 || offset + (length + 3L) / 4 > fileSize ) {
+            throw new UserException.MalformedFile(referencePath, "Sequence " + name + " extends past the end of the file");
+        }
+        return new SequenceRecord(name, index, length, offset, nBlocks[0], nBlocks[1], maskBlocks[0], maskBlocks[1]);
+    }
+
+    /**
+     * @return the blocks stored at offset (an array of 0-based starts followed by an array of sizes), sorted and
+     *         merged (including abutting blocks), as {0-based starts, 0-based exclusive ends}. Empty blocks are dropped.
+     */
+    private int[][] readBlocks( final long offset, final int blockCount ) {
+        if ( blockCount < 0 ) {
+            throw new UserException.MalformedFile(referencePath, "Negative block count in 2bit sequence record: " + blockCount);
+        }
+        final long[] blocks = new long[blockCount];
+        int nonEmptyBlockCount = 0;
+        for ( int i = 0; i < blockCount; i++ ) {
+            final long start = Integer.toUnsignedLong(getInt(offset + (long)Integer.BYTES * i, byteOrder));
+            final long size = Integer.toUnsignedLong(getInt(offset + (long)Integer.BYTES * (blockCount + i), byteOrder));
+            if ( size > 0 ) {
+                // pack start and end into a long so that sorting by start is a plain sort
+                blocks[nonEmptyBlockCount++] = (start << 32) | Math.min(start + size, 0xffffffffL);
+            }
+        }
+        Arrays.sort(blocks, 0, nonEmptyBlockCount);
+
+        final List<long[]> merged = new ArrayList<>();
+        for ( int i = 0; i < nonEmptyBlockCount; i++ ) {
+            final long start = blocks[i] >>> 32;
+            final long end = blocks[i] & 0xffffffffL;
+            if ( ! merged.isEmpty() && start <= merged.get(merged.size() - 1)[1] ) {
+                merged.get(merged.size() - 1)[1] = Math.max(merged.get(merged.size() - 1)[1], end);
+            } else {
+                merged.add(new long[] { start, end });
+            }
+        }
+
+        final int[] starts = new int[merged.size()];
+        final int[] ends = new int[merged.size()];
+        for ( int i = 0; i < merged.size(); i++ ) {
+            starts[i] = (int)Math.min(merged.get(i)[0], Integer.MAX_VALUE);
+            ends[i] = (int)Math.min(merged.get(i)[1], Integer.MAX_VALUE);
+        }
+        return new int[][] { starts, ends };
+    }
+
+    private int getInt( final long position, final ByteOrder order ) {
+        int value = 0;
+        for ( int i = 0; i < Integer.BYTES; i++ ) {
+            final int b = bytes.getByte(position + i) & 0xff;
+            value |= order == ByteOrder.LITTLE_ENDIAN ? b << (8 * i) : b << (8 * (Integer.BYTES - 1 - i));
+        }
+        return value;
+    }
+
+    /**
+     * The metadata of a sequence of the 2bit file
+     */
+    static final class SequenceRecord {
+        final String name;
+        final int index;
+        final int length;
+
+        // offset of the packed bases in the file
+        final long basesOffset;
+
+        // 0-based starts and exclusive ends of the sorted, merged blocks
+        final int[] nBlockStarts;
+        final int[] nBlockEnds;
+        final int[] maskBlockStarts;
+        final int[] maskBlockEnds;
+
+        private SequenceRecord( final String name, final int index, final int length, final long basesOffset,
+                                final int[] nBlockStarts, final int[] nBlockEnds, final int[] maskBlockStarts, final int[] maskBlockEnds ) {
+            this.name = name;
+            this.index = index;
+            this.length = length;
+            this.basesOffset = basesOffset;
+            this.nBlockStarts = nBlockStarts;
+            this.nBlockEnds = nBlockEnds;
+            this.maskBlockStarts = maskBlockStarts;
+            this.maskBlockEnds = maskBlockEnds;
+        }
+    }
+}
@@ -7,8 +7,6 @@ import htsjdk.samtools.reference.ReferenceSequence;
 import htsjdk.samtools.util.PeekableIterator;
 import org.broadinstitute.hellbender.engine.GATKPath;
 import org.broadinstitute.hellbender.exceptions.UserException;
-import org.broadinstitute.hellbender.utils.IntervalMergingRule;
-import org.broadinstitute.hellbender.utils.IntervalUtils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
@@ -25,6 +23,33 @@ import java.util.*;
  *
  *     http://genome.ucsc.edu/FAQ/FAQformat.html#format7
  *
+ * The file begins with a 16-byte header containing the following fields:
+ *
+ * signature - the number 0x1A412743 in the architecture of the machine that created the file
+ * version - zero for now. Readers should abort if they see a version number higher than 0
+ * sequenceCount - the number of sequences in the file
+ * reserved - always zero for now
+ *
+ * The header is followed by a file index, which contains one entry for each sequence. Each index entry contains three fields:
+ *
+ * nameSize - a byte containing the length of the name field
+ * name - the sequence name itself (in ASCII-compatible byte string), of variable length depending on nameSize
+ * offset - the 32-bit offset of the sequence data relative to the start of the file, not aligned to any 4-byte padding boundary
+ *
+ * The index is followed by the sequence records, which contain nine fields:
+ *
+ * dnaSize - number of bases of DNA in the sequence
+ * nBlockCount - the number of blocks of Ns in the file (representing unknown sequence)
+ * nBlockStarts - an array of length nBlockCount of 32 bit integers indicating the (0-based) starting position of a block of Ns
+ * nBlockSizes - an array of length nBlockCount of 32 bit integers indicating the length of a block of Ns
+ * maskBlockCount - the number of masked (lower-case) blocks
+ * maskBlockStarts - an array of length maskBlockCount of 32 bit integers indicating the (0-based) starting position of a masked block
+ * maskBlockSizes - an array of length maskBlockCount of 32 bit integers indicating the length of a masked block
+ * reserved - always zero for now
+ * packedDna - the DNA packed to two bits per base, represented as so: T - 00, C - 01, A - 10, G - 11. The first base is in the most significant 2-bit byte; the last base is in the least significant 2 bits. For example, the sequence TCAG is represented as 00011011.
+ *
+ * The header and sequence records are parsed by {@link TwoBitIndex}, which is shared with {@link MappedTwoBitReference}.
+ *
  * Note that this class stores the entire .2bit reference in memory (in packed form) to facilitate
  * Spark broadcasts.
  *
@@ -60,15 +85,12 @@ public class TwoBitReference implements Serializable, AutoCloseable {
     private final ByteBuffer rawBytes;
 
     // Byte order to use, as defined in the 2bit header
-    private ByteOrder byteOrder;
-
-    // The total number of sequences in the file
-    private int sequenceCount;
+    private final ByteOrder byteOrder;
 
     // LinkedHashMap because the order of the sequence records does matter
-    private LinkedHashMap<String, TwoBitSequenceRecord> sequenceRecords;
+    private final LinkedHashMap<String, TwoBitSequenceRecord> sequenceRecords;
 
-    private SAMSequenceDictionary sequenceDictionary;
+    private final SAMSequenceDictionary sequenceDictionary;
 
     /**
      * Creates a TwoBitReference that will uppercase all bases
@@ -114,149 +136,28 @@ public class TwoBitReference implements Serializable, AutoCloseable {
             throw new UserException.CouldNotReadInputFile(referencePath, "Unable to load bytes from 2bit input file", e);
         }
 
+        final TwoBitIndex index = new TwoBitIndex(referencePath.toPath(), position -> rawBytes.get((int)position), rawBytes.capacity(), true);
+        byteOrder = index.getByteOrder();
         sequenceRecords = new LinkedHashMap<>();
-
-        readHeader();
-        readSequenceRecordIndexAndMetadata();
-
         sequenceDictionary = new SAMSequenceDictionary();
-        for ( final TwoBitSequenceRecord twoBitSequenceRecord : sequenceRecords.values() ) {
+        for ( final TwoBitIndex.SequenceRecord record : index.getSequenceRecords() ) {
+            final TwoBitSequenceRecord twoBitSequenceRecord = new TwoBitSequenceRecord(record.name, record.index, (int)record.basesOffset, record.length,
+                    convertBlocksToIntervals(record.name, record.nBlockStarts, record.nBlockEnds),
+                    convertBlocksToIntervals(record.name, record.maskBlockStarts, record.maskBlockEnds));
+            sequenceRecords.put(record.name, twoBitSequenceRecord);
             sequenceDictionary.addSequence(new SAMSequenceRecord(twoBitSequenceRecord.getSequenceName(), twoBitSequenceRecord.getDNASize()));
         }
     }
 
     /**
-     * Reads the 2bit file header, and sets byte order for the rest of the file
-     *
-     * The file begins with a 16-byte header containing the following fields:
-     *
-     * signature - the number 0x1A412743 in the architecture of the machine that created the file
-     * version - zero for now. Readers should abort if they see a version number higher than 0
-     * sequenceCount - the number of sequences in the file
-     * reserved - always zero for now
+     * @return the sorted, merged blocks given by their 0-based starts and exclusive ends, as 1-based intervals
      */
-    private void readHeader() {
-        setByteOrder(ByteOrder.LITTLE_ENDIAN);
-        int signature = rawBytes.getInt();
-        if ( signature != TWO_BIT_SIGNATURE ) {
-            setByteOrder(ByteOrder.BIG_ENDIAN);
-            rawBytes.position(0);
-            signature = rawBytes.getInt();
-
-            if ( signature != TWO_BIT_SIGNATURE ) {
-                throw new UserException.MalformedFile(referencePath,
-                        "File does not start with the required 2bit signature value " + TWO_BIT_SIGNATURE);
-            }
-        }
-
-        final int version = rawBytes.getInt();
-        if ( version != TWO_BIT_SUPPORTED_VERSION ) {
-            throw new UserException.CouldNotReadInputFile(referencePath,
-                    "File is version " + version + ", but we only support version " + TWO_BIT_SUPPORTED_VERSION);
-        }
-
-        this.sequenceCount = rawBytes.getInt();
-        if ( sequenceCount < 0 ) {
-            throw new UserException.MalformedFile(referencePath,
-                    "Negative sequence count in 2bit header: " + sequenceCount);
-        }
-
-        final int reservedValue = rawBytes.getInt();
-        if ( reservedValue != 0 ) {
-            throw new UserException.MalformedFile(referencePath,
-                "Reserved header value must be 0 according to the 2bit spec, but found " + reservedValue);
-        }
-    }
-
-    /**
-     * Reads and parses the sequence record index and metadata
-     *
-     * The header is followed by a file index, which contains one entry for each sequence. Each index entry contains three fields:
-     *
-     * nameSize - a byte containing the length of the name field
-     * name - the sequence name itself (in ASCII-compatible byte string), of variable length depending on nameSize
-     * offset - the 32-bit offset of the sequence data relative to the start of the file, not aligned to any 4-byte padding boundary
-     *
-     * The index is followed by the sequence records, which contain nine fields:
-     *
-     * dnaSize - number of bases of DNA in the sequence
-     * nBlockCount - the number of blocks of Ns in the file (representing unknown sequence)
-     * nBlockStarts - an array of length nBlockCount of 32 bit integers indicating the (0-based) starting position of a block of Ns
-     * nBlockSizes - an array of length nBlockCount of 32 bit integers indicating the length of a block of Ns
-     * maskBlockCount - the number of masked (lower-case) blocks
-     * maskBlockStarts - an array of length maskBlockCount of 32 bit integers indicating the (0-based) starting position of a masked block
-     * maskBlockSizes - an array of length maskBlockCount of 32 bit integers indicating the length of a masked block
-     * reserved - always zero for now
-     * packedDna - the DNA packed to two bits per base, represented as so: T - 00, C - 01, A - 10, G - 11. The first base is in the most significant 2-bit byte; the last base is in the least significant 2 bits. For example, the sequence TCAG is represented as 00011011.
-     */
-    private void readSequenceRecordIndexAndMetadata() {
-        final ByteBuffer bytes = independentBufferView();
-        bytes.position(HEADER_LENGTH_IN_BYTES);  // seek past the header
-
-        // First read the index, with the names of each sequence and start offsets for the sequence records
-        for ( int i = 0; i < sequenceCount; i++ ) {
-            final byte nameSize = rawBytes.get();
-            final byte[] nameBytes = new byte[nameSize];
-            rawBytes.get(nameBytes);
-            final String sequenceName = new String(nameBytes);
-            final int sequenceRecordStartOffset = rawBytes.getInt();
-
-            sequenceRecords.put(sequenceName, new TwoBitSequenceRecord(sequenceName, i, sequenceRecordStartOffset));
-        }
-
-        // Next read the metadata for each sequence (DNA size, N blocks, masked blocks, and start offset for the
-        // actual bases) from the sequence records
-        for ( final TwoBitSequenceRecord sequenceRecord : sequenceRecords.values() ) {
-            bytes.position(sequenceRecord.getSequenceRecordStartOffset());
-
-            sequenceRecord.setDNASize(bytes.getInt());
-
-            final int nBlockCount = bytes.getInt();
-            final int[] nBlockStarts = new int[nBlockCount];
-            final int[] nBlockSizes = new int[nBlockCount];
-            for ( int i = 0; i < nBlockCount; i++ ) {
-                nBlockStarts[i] = bytes.getInt();
-            }
-            for ( int i = 0; i < nBlockCount; i++ ) {
-                nBlockSizes[i] = bytes.getInt();
-            }
-            sequenceRecord.setNBlocks(convertTwoBitBlocksToSortedMergedIntervals(sequenceRecord.getSequenceName(), nBlockStarts, nBlockSizes));
-
-            final int maskBlockCount = bytes.getInt();
-            final int[] maskBlockStarts = new int[maskBlockCount];
-            final int[] maskBlockSizes = new int[maskBlockCount];
-            for ( int i = 0; i < maskBlockCount; i++ ) {
-                maskBlockStarts[i] = bytes.getInt();
-            }
-            for ( int i = 0; i < maskBlockCount; i++ ) {
-                maskBlockSizes[i] = bytes.getInt();
-            }
-            sequenceRecord.setMaskedBlocks(convertTwoBitBlocksToSortedMergedIntervals(sequenceRecord.getSequenceName(), maskBlockStarts, maskBlockSizes));
-
-            final int reservedValue = bytes.getInt();
-            if ( reservedValue != 0 ) {
-                throw new UserException.MalformedFile(referencePath,
-                        "Reserved value for sequence " + sequenceRecord.getSequenceName() + " must be zero, but is non-zero");
-            }
-
-            sequenceRecord.setSequenceBasesStartOffset(bytes.position());
-        }
-    }
-
-    private List<SimpleInterval> convertTwoBitBlocksToSortedMergedIntervals( final String contig, final int[] zeroBasedBlockStarts, final int[] blockSizes ) {
-        final List<SimpleInterval> intervals = new ArrayList<>();
+    private static List<SimpleInterval> convertBlocksToIntervals( final String contig, final int[] zeroBasedBlockStarts, final int[] blockEnds ) {
+        final List<SimpleInterval> intervals = new ArrayList<>(zeroBasedBlockStarts.length);
         for ( int i = 0; i < zeroBasedBlockStarts.length; i++ ) {
-            final int oneBasedInclusiveStart = zeroBasedBlockStarts[i] + 1;
-            final int oneBasedInclusiveEnd = oneBasedInclusiveStart + blockSizes[i] - 1;
-            intervals.add(new SimpleInterval(contig, oneBasedInclusiveStart, oneBasedInclusiveEnd));
+            intervals.add(new SimpleInterval(contig, zeroBasedBlockStarts[i] + 1, blockEnds[i]));
         }
-
-        return IntervalUtils.sortAndMergeIntervalsFromSameContig(intervals, IntervalMergingRule.ALL);
-    }
-
-    private void setByteOrder( final ByteOrder byteOrder ) {
-        this.byteOrder = byteOrder;
-        rawBytes.order(byteOrder);
+        return intervals;
     }
 
     /**
@@ -472,20 +373,22 @@ public class TwoBitReference implements Serializable, AutoCloseable {
 
         private final int sequenceIndex;
 
-        private final int sequenceRecordStartOffset;
-
-        private int sequenceBasesStartOffset;
+        private final int sequenceBasesStartOffset;
 
-        private int dnaSize;
+        private final int dnaSize;
 
-        private List<SimpleInterval> nBlocks;
+        private final List<SimpleInterval> nBlocks;
 
-        private List<SimpleInterval> maskedBlocks;
+        private final List<SimpleInterval> maskedBlocks;
 
-        public TwoBitSequenceRecord( final String sequenceName, final int sequenceIndex, final int sequenceRecordStartOffset ) {
+        public TwoBitSequenceRecord( final String sequenceName, final int sequenceIndex, final int sequenceBasesStartOffset, final int dnaSize,
+                                     final List<SimpleInterval> nBlocks, final List<SimpleInterval> maskedBlocks ) {
             this.sequenceName = sequenceName;
             this.sequenceIndex = sequenceIndex;
-            this.sequenceRecordStartOffset = sequenceRecordStartOffset;
+            this.sequenceBasesStartOffset = sequenceBasesStartOffset;
+            this.dnaSize = dnaSize;
+            this.nBlocks = nBlocks;
+            this.maskedBlocks = maskedBlocks;
         }
 
         public String getSequenceName() {
@@ -496,38 +399,18 @@ public class TwoBitReference implements Serializable, AutoCloseable {
             return sequenceIndex;
         }
 
-        public int getSequenceRecordStartOffset() {
-            return sequenceRecordStartOffset;
-        }
-
-        public void setDNASize( final int dnaSize ) {
-            this.dnaSize = dnaSize;
-        }
-
         public int getDNASize() {
             return dnaSize;
         }
 
-        public void setSequenceBasesStartOffset( final int sequenceBasesStartOffset ) {
-            this.sequenceBasesStartOffset = sequenceBasesStartOffset;
-        }
-
         public int getSequenceBasesStartOffset() {
             return sequenceBasesStartOffset;
         }
 
-        public void setNBlocks( final List<SimpleInterval> nBlocks ) {
-            this.nBlocks = nBlocks;
-        }
-
         public List<SimpleInterval> getNBlocks() {
             return nBlocks;
         }
 
-        public void setMaskedBlocks( final List<SimpleInterval> maskedBlocks ) {
-            this.maskedBlocks = maskedBlocks;
-        }
-
         public List<SimpleInterval> getMaskedBlocks() {
             return maskedBlocks;
         }
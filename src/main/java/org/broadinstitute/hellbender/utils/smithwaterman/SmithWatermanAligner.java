@@ -65,7 +65,13 @@ public interface SmithWatermanAligner extends Closeable {
         /**
          * use the pure java implementation of Smith-Waterman, works on all hardware
          */
-        JAVA(SmithWatermanJavaAligner::getInstance);
+        JAVA(SmithWatermanJavaAligner::getInstance),
+
+        /**
+         * use the pure java implementation of Smith-Waterman laid out for SIMD execution, works on all hardware and
+         * gives the same alignments as JAVA. Never chosen by FASTEST_AVAILABLE
+         */
+        JAVA_VECTORIZED(SmithWatermanJavaVectorizedAligner::getInstance);
 
         private final Supplier<SmithWatermanAligner> alignerSupplier;
 
@@ -0,0 +1,209 @@
+package org.broadinstitute.hellbender.utils.smithwaterman;
+
+import org.broadinstitute.gatk.nativebindings.smithwaterman.SWOverhangStrategy;
+import org.broadinstitute.gatk.nativebindings.smithwaterman.SWParameters;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.Arrays;
+
+/**
+ * Pairwise discrete smith-waterman alignment implemented in pure java, laid out for SIMD execution.
+ *
+ * Computes exactly the same Smith-Waterman and back track matrices as {@link SmithWatermanJavaAligner} (including the
+ * gap length bookkeeping and the tie-breaking between steps), and therefore returns identical alignments, but fills
+ * them one anti-diagonal at a time. All of the cells on an anti-diagonal depend only on the two previous anti-diagonals,
+ * so the inner loop has no loop-carried dependencies, and operates on flat arrays that the JIT vectorizes:
+ * the scores of the anti-diagonals are indexed by reference position, and the per-column state (vertical gaps and
+ * the alternate bases) is stored in reverse column order, so that it is also accessed at consecutive indices.
+ * The back track values are stored anti-diagonal by anti-diagonal, and only the last column and bottom row of the
+ * Smith-Waterman matrix are kept, since those are all that the traceback needs.
+ *
+ * ************************************************************************
+ * ****                    IMPORTANT NOTE:                             ****
+ * ****  This class assumes that all bytes come from UPPERCASED chars! ****
+ * ************************************************************************
+ */
+public final class SmithWatermanJavaVectorizedAligner implements SmithWatermanAligner {
+    private static final SmithWatermanJavaVectorizedAligner ALIGNER = new SmithWatermanJavaVectorizedAligner();
+
+    private static final int MATRIX_MIN_CUTOFF = (int) -1.0e8;   // never let matrix elements drop below this cutoff
+    private static final int LOW_INIT_VALUE = Integer.MIN_VALUE/2;
+
+    private long totalComputeTime = 0;
+
+    /**
+     * return the stateless singleton instance of SmithWatermanJavaVectorizedAligner
+     */
+    public static SmithWatermanJavaVectorizedAligner getInstance() {
+        return ALIGNER;
+    }
+
+    private SmithWatermanJavaVectorizedAligner(){}
+
+    /**
+     * Aligns the alternate sequence to the reference sequence
+     *
+     * @param reference  ref sequence
+     * @param alternate  alt sequence
+     */
+    @Override
+    public SmithWatermanAlignment align(final byte[] reference, final byte[] alternate, final SWParameters parameters, final SWOverhangStrategy overhangStrategy) {
+        final long startTime = System.nanoTime();
+
+        if ( reference == null || reference.length == 0 || alternate == null || alternate.length == 0 ) {
+            throw new IllegalArgumentException("Non-null, non-empty sequences are required for the Smith-Waterman calculation");
+        }
+        Utils.nonNull(parameters);
+        Utils.nonNull(overhangStrategy);
+
+        // avoid running full Smith-Waterman if there is an exact match of alternate in reference
+        final SmithWatermanAlignment exactMatch = SmithWatermanJavaAligner.findExactMatch(reference, alternate, overhangStrategy);
+        final SmithWatermanAlignment alignmentResult = exactMatch != null ? exactMatch
+                : new AntiDiagonalMatrices(reference, alternate, parameters, overhangStrategy).calculateCigar(overhangStrategy);
+
+        totalComputeTime += System.nanoTime() - startTime;
+        return alignmentResult;
+    }
+
+    /**
+     * The parts of the Smith-Waterman and back track matrices needed to compute the alignment.
+     *
+     * Rows i = 0..refLength correspond to the reference, columns j = 0..altLength to the alternate, as in
+     * {@link SmithWatermanJavaAligner}. Anti-diagonal d contains the cells with i + j = d, and the cells of anti-diagonal
+     * d that are computed (i.e., excluding row and column 0) are those with firstRow(d) <= i <= lastRow(d).
+     */
+    private static final class AntiDiagonalMatrices {
+        private final int refLength;
+        private final int altLength;
+        private final int[] lastColumnScores;
+        private final int[] bottomRowScores;
+        private final int[] backTrack;
+        private final int[] backTrackOffsets;
+
+        AntiDiagonalMatrices(final byte[] reference, final byte[] alternate, final SWParameters parameters, final SWOverhangStrategy overhangStrategy) {
+            refLength = reference.length;
+            altLength = alternate.length;
+            lastColumnScores = new int[refLength + 1];
+            bottomRowScores = new int[altLength + 1];
+            backTrack = new int[refLength * altLength];
+            backTrackOffsets = new int[refLength + altLength + 1];
+            calculateMatrices(reference, alternate, parameters, overhangStrategy);
+        }
+
+        private int firstRow(final int d) {
+            return Math.max(1, d - altLength);
+        }
+
+        private int lastRow(final int d) {
+            return Math.min(refLength, d - 1);
+        }
+
+        private void calculateMatrices(final byte[] reference, final byte[] alternate, final SWParameters parameters, final SWOverhangStrategy overhangStrategy) {
+            //access is pricey if done enough times so we extract those out
+            final int w_open = parameters.getGapOpenPenalty();
+            final int w_extend = parameters.getGapExtendPenalty();
+            final int w_match = parameters.getMatchValue();
+            final int w_mismatch = parameters.getMismatchPenalty();
+
+            // the column of the cell at row i of anti-diagonal d is j = d - i, which is stored at index altLength - d + i
+            // of the per-column arrays
+            final byte[] reversedAlternate = new byte[altLength];
+            for ( int j = 1; j <= altLength; j++ ) {
+                reversedAlternate[altLength - j] = alternate[j - 1];
+            }
+            final int[] best_gap_v = new int[altLength];
+            Arrays.fill(best_gap_v, LOW_INIT_VALUE);
+            final int[] gap_size_v = new int[altLength];
+            final int[] best_gap_h = new int[refLength + 1];
+            Arrays.fill(best_gap_h, LOW_INIT_VALUE);
+            final int[] gap_size_h = new int[refLength + 1];
+
+            // we need to initialize the SW matrix with gap penalties if we want to keep track of indels at the edges of alignments
+            final boolean penalizeEdges = overhangStrategy == SWOverhangStrategy.INDEL || overhangStrategy == SWOverhangStrategy.LEADING_INDEL;
+
+            // scores of anti-diagonals d - 2, d - 1 and d, indexed by row, rotated after each anti-diagonal
+            int[] diagonal2 = new int[refLength + 1];
+            int[] diagonal1 = new int[refLength + 1];
+            int[] diagonal = new int[refLength + 1];
+
+            // anti-diagonal 1 is cells (0, 1) and (1, 0), anti-diagonal 0 is cell (0, 0) which is always 0
+            diagonal1[0] = edgeScore(1, penalizeEdges, w_open, w_extend);
+            diagonal1[1] = edgeScore(1, penalizeEdges, w_open, w_extend);
+
+            int offset = 0;
+            for ( int d = 2; d <= refLength + altLength; d++ ) {
+                final int firstRow = firstRow(d);
+                final int lastRow = lastRow(d);
+                final int columnIndexShift = altLength - d;
+                backTrackOffsets[d] = offset - firstRow;
+
+                for ( int i = firstRow; i <= lastRow; i++ ) {
+                    final int k = columnIndexShift + i;
+                    final int step_diag = diagonal2[i - 1] + (reference[i - 1] == reversedAlternate[k] ? w_match : w_mismatch);
+
+                    // best gap ending in this cell coming down from above (see SmithWatermanJavaAligner)
+                    final int extended_gap_v = best_gap_v[k] + w_extend;
+                    final int prev_gap_v = diagonal1[i - 1] + w_open;
+                    final boolean opened_v = prev_gap_v > extended_gap_v;
+                    final int step_down = opened_v ? prev_gap_v : extended_gap_v;
+                    final int kd = opened_v ? 1 : gap_size_v[k] + 1;
+                    best_gap_v[k] = step_down;
+                    gap_size_v[k] = kd;
+
+                    // best gap ending in this cell coming from the left
+                    final int extended_gap_h = best_gap_h[i] + w_extend;
+                    final int prev_gap_h = diagonal1[i] + w_open;
+                    final boolean opened_h = prev_gap_h > extended_gap_h;
+                    final int step_right = opened_h ? prev_gap_h : extended_gap_h;
+                    final int ki = opened_h ? 1 : gap_size_h[i] + 1;
+                    best_gap_h[i] = step_right;
+                    gap_size_h[i] = ki;
+
+                    //priority here will be step diagonal, step right, step down
+                    final boolean diagHighestOrEqual = step_diag >= step_down && step_diag >= step_right;
+                    final boolean rightHigherOrEqual = step_right >= step_down;
+                    final int score = diagHighestOrEqual ? step_diag : (rightHigherOrEqual ? step_right : step_down);
+                    diagonal[i] = Math.max(MATRIX_MIN_CUTOFF, score);
+                    backTrack[offset + i - firstRow] = diagHighestOrEqual ? 0 : (rightHigherOrEqual ? -ki : kd);
+                }
+                offset += lastRow - firstRow + 1;
+
+                // edge cells (0, d) and (d, 0), needed by the next two anti-diagonals
+                diagonal[0] = d <= altLength ? edgeScore(d, penalizeEdges, w_open, w_extend) : 0;
+                if ( d <= refLength ) {
+                    diagonal[d] = edgeScore(d, penalizeEdges, w_open, w_extend);
+                }
+
+                // keep the scores needed for the traceback
+                if ( lastRow == refLength ) {
+                    bottomRowScores[d - refLength] = diagonal[refLength];
+                }
+                if ( d > altLength ) {
+                    lastColumnScores[d - altLength] = diagonal[d - altLength];
+                }
+
+                final int[] oldDiagonal = diagonal2;
+                diagonal2 = diagonal1;
+                diagonal1 = diagonal;
+                diagonal = oldDiagonal;
+            }
+        }
+
+        /**
+         * @return the score of cell (0, n) or (n, 0) of the Smith-Waterman matrix, for n > 0
+         */
+        private static int edgeScore(final int n, final boolean penalizeEdges, final int w_open, final int w_extend) {
+            return penalizeEdges ? w_open + (n - 1) * w_extend : 0;
+        }
+
+        SmithWatermanAlignment calculateCigar(final SWOverhangStrategy overhangStrategy) {
+            return SmithWatermanJavaAligner.calculateCigar(refLength, altLength, i -> lastColumnScores[i], j -> bottomRowScores[j],
+                    (i, j) -> backTrack[backTrackOffsets[i + j] + i], overhangStrategy);
+        }
+    }
+
+    @Override
+    public void close() {
+        logger.info(String.format("Total compute time in vectorized java Smith-Waterman : %.2f sec", totalComputeTime * 1e-9));
+    }
+}
@@ -0,0 +1,137 @@
+package org.broadinstitute.hellbender.utils.variant;
+
+import htsjdk.tribble.readers.LineIterator;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFCodec;
+import htsjdk.variant.vcf.VCFConstants;
+import htsjdk.variant.vcf.VCFHeader;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * VCF codec that only decodes the fields of the records that are needed by a tool, as given by a
+ * {@link VCFFieldProjection}. The text of the other fields is dropped from each line before it is decoded:
+ *
+ * - INFO fields that are not in the projection are dropped, except for END, which determines the end of the record.
+ * - If the genotypes are not in the projection, the FORMAT and sample columns are dropped, and the records are decoded
+ *   as if the file were sites-only: they have no genotypes at all. The header returned by the codec still has the
+ *   samples of the file.
+ *
+ * The fixed columns (CHROM to FILTER) are always decoded. Tools using this codec must not write the records they
+ * get to an output that expects the dropped fields.
+ *
+ * This class lives outside of the codec packages searched by {@link org.broadinstitute.hellbender.engine.FeatureManager},
+ * so that it is never chosen over {@link VCFCodec} when discovering the codec of a file.
+ */
+public final class ProjectedVCFCodec extends VCFCodec {
+
+    private static final char INFO_FIELD_SEPARATOR_CHAR = ';';
+
+    /**
+     * Keys of the INFO fields to keep (END included), or null to keep all of them
+     */
+    private final String[] infoFieldsToKeep;
+    private final boolean keepGenotypes;
+
+    /**
+     * @param projection the fields to decode
+     */
+    public ProjectedVCFCodec(final VCFFieldProjection projection) {
+        Utils.nonNull(projection);
+        if (projection.includesAllInfoFields()) {
+            infoFieldsToKeep = null;
+        } else {
+            final List<String> keys = new ArrayList<>(projection.getInfoFields());
+            if (!keys.contains(VCFConstants.END_KEY)) {
+                keys.add(VCFConstants.END_KEY);
+            }
+            infoFieldsToKeep = keys.toArray(new String[0]);
+        }
+        keepGenotypes = projection.includesGenotypes();
+    }
+
+    @Override
+    public Object readActualHeader(final LineIterator lineIterator) {
+        final Object fileHeader = super.readActualHeader(lineIterator);
+        if (!keepGenotypes && header.hasGenotypingData()) {
+            // decode the records with a sites-only copy of the header, since they will have no sample columns
+            header = new VCFHeader(header.getMetaDataInInputOrder(), Collections.emptySet());
+        }
+        return fileHeader;
+    }
+
+    @Override
+    public VariantContext decode(final String line) {
+        return super.decode(project(line));
+    }
+
+    /**
+     * @return line without the fields that are not in the projection
+     */
+    String project(final String line) {
+        if (line.isEmpty() || line.charAt(0) == VCFHeader.HEADER_INDICATOR.charAt(0)) {
+            return line;
+        }
+
+        // find the INFO column, the 8th
+        int infoStart = 0;
+        for (int column = 1; column < 8; column++) {
+            final int tab = line.indexOf(VCFConstants.FIELD_SEPARATOR_CHAR, infoStart);
+            if (tab < 0) {
+                // malformed line: leave it to the codec to report
+                return line;
+            }
+            infoStart = tab + 1;
+        }
+        final int tabAfterInfo = line.indexOf(VCFConstants.FIELD_SEPARATOR_CHAR, infoStart);
+        final int infoEnd = tabAfterInfo < 0 ? line.length() : tabAfterInfo;
+
+        if (infoFieldsToKeep == null) {
+            return keepGenotypes ? line : line.substring(0, infoEnd);
+        }
+
+        final int end = keepGenotypes ? line.length() : infoEnd;
+        final StringBuilder projected = new StringBuilder(end);
+        projected.append(line, 0, infoStart);
+        appendInfoFieldsToKeep(line, infoStart, infoEnd, projected);
+        projected.append(line, infoEnd, end);
+        return projected.toString();
+    }
+
+    private void appendInfoFieldsToKeep(final String line, final int infoStart, final int infoEnd, final StringBuilder projected) {
+        final int projectedInfoStart = projected.length();
+        int fieldStart = infoStart;
+        while (fieldStart < infoEnd) {
+            int fieldEnd = line.indexOf(INFO_FIELD_SEPARATOR_CHAR, fieldStart);
+            if (fieldEnd < 0 || fieldEnd > infoEnd) {
+                fieldEnd = infoEnd;
+            }
+            int keyEnd = line.indexOf('=', fieldStart);
+            if (keyEnd < 0 || keyEnd > fieldEnd) {
+                keyEnd = fieldEnd;
+            }
+            if (isInfoFieldToKeep(line, fieldStart, keyEnd - fieldStart)) {
+                if (projected.length() > projectedInfoStart) {
+                    projected.append(INFO_FIELD_SEPARATOR_CHAR);
+                }
+                projected.append(line, fieldStart, fieldEnd);
+            }
+            fieldStart = fieldEnd + 1;
+        }
+        if (projected.length() == projectedInfoStart) {
+            projected.append(VCFConstants.EMPTY_INFO_FIELD);
+        }
+    }
+
+    private boolean isInfoFieldToKeep(final String line, final int keyStart, final int keyLength) {
+        for (final String key : infoFieldsToKeep) {
+            if (key.length() == keyLength && line.regionMatches(keyStart, key, 0, keyLength)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
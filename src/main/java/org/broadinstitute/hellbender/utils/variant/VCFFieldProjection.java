@@ -0,0 +1,74 @@
+package org.broadinstitute.hellbender.utils.variant;
+
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The fields of VCF records that a consumer of the records needs, so that the others don't have to be decoded.
+ * See {@link ProjectedVCFCodec}.
+ */
+public final class VCFFieldProjection {
+
+    /**
+     * Projection that decodes every field
+     */
+    public static final VCFFieldProjection ALL_FIELDS = new VCFFieldProjection(null, true);
+
+    private final Set<String> infoFields;
+    private final boolean includesGenotypes;
+
+    private VCFFieldProjection(final Set<String> infoFields, final boolean includesGenotypes) {
+        this.infoFields = infoFields;
+        this.includesGenotypes = includesGenotypes;
+    }
+
+    /**
+     * @param infoFields keys of the INFO fields to decode, or null to decode all of them
+     * @param includesGenotypes whether to decode the genotypes
+     * @return a projection decoding the given fields, in addition to the fixed columns of the records
+     */
+    public static VCFFieldProjection of(final Set<String> infoFields, final boolean includesGenotypes) {
+        if (infoFields == null && includesGenotypes) {
+            return ALL_FIELDS;
+        }
+        return new VCFFieldProjection(infoFields == null ? null : Collections.unmodifiableSet(new LinkedHashSet<>(infoFields)),
+                includesGenotypes);
+    }
+
+    /**
+     * @return true if every field is decoded
+     */
+    public boolean includesAllFields() {
+        return infoFields == null && includesGenotypes;
+    }
+
+    /**
+     * @return true if every INFO field is decoded
+     */
+    public boolean includesAllInfoFields() {
+        return infoFields == null;
+    }
+
+    /**
+     * @return the keys of the INFO fields that are decoded. Only valid if not {@link #includesAllInfoFields()}.
+     */
+    public Set<String> getInfoFields() {
+        Utils.validate(infoFields != null, "all INFO fields are decoded");
+        return infoFields;
+    }
+
+    /**
+     * @return true if the genotypes are decoded
+     */
+    public boolean includesGenotypes() {
+        return includesGenotypes;
+    }
+
+    @Override
+    public String toString() {
+        return "VCFFieldProjection{INFO: " + (infoFields == null ? "all" : infoFields) + ", genotypes: " + includesGenotypes + "}";
+    }
+}
@@ -0,0 +1,149 @@
+package org.broadinstitute.hellbender.utils.variant.writers;
+
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.writer.Options;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.vcf.VCFFileReader;
+import htsjdk.variant.vcf.VCFHeader;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Variant writer that holds on to the records added to it until they are replayed, in the same order, into another
+ * writer with {@link #replayTo}. This lets the workers of multi-threaded traversals produce the output of their shards
+ * independently while the output file is written in shard order by a single thread.
+ *
+ * Up to a given number of records are held in memory; once there are more, all of the records are written to a
+ * temporary (uncompressed, unindexed) VCF instead, so that the memory used by a shard doesn't depend on its size.
+ * Records read back from that VCF keep their genotypes unparsed, so replaying them costs little more than
+ * writing the text of their genotypes. The header must be set with {@link #setHeader} or {@link #writeHeader}
+ * before the first record is added.
+ *
+ * Not thread-safe: each instance is meant to be written by one worker thread and then replayed by another.
+ */
+public final class DeferredVariantContextWriter implements VariantContextWriter {
+
+    /**
+     * Default maximum number of records held in memory
+     */
+    public static final int DEFAULT_MAX_RECORDS_IN_MEMORY = 10_000;
+
+    private final int maxRecordsInMemory;
+    private final List<VariantContext> records = new ArrayList<>();
+    private VCFHeader header;
+    private Path spillPath;
+    private VariantContextWriter spillWriter;
+    private boolean closed = false;
+
+    public DeferredVariantContextWriter() {
+        this(DEFAULT_MAX_RECORDS_IN_MEMORY);
+    }
+
+    /**
+     * @param maxRecordsInMemory maximum number of records held in memory before spilling all of them to a temporary file
+     */
+    public DeferredVariantContextWriter(final int maxRecordsInMemory) {
+        Utils.validateArg(maxRecordsInMemory >= 0, "maxRecordsInMemory must be non-negative");
+        this.maxRecordsInMemory = maxRecordsInMemory;
+    }
+
+    @Override
+    public void writeHeader(final VCFHeader header) {
+        setHeader(header);
+    }
+
+    @Override
+    public void setHeader(final VCFHeader header) {
+        Utils.nonNull(header);
+        Utils.validate(this.header == null, "the header has already been set");
+        this.header = header;
+    }
+
+    @Override
+    public void add(final VariantContext vc) {
+        Utils.nonNull(vc);
+        Utils.validate(header != null, "the header must be set before adding records");
+        Utils.validate(!closed, "the writer has already been closed or replayed");
+        if (spillWriter == null && records.size() >= maxRecordsInMemory) {
+            spill();
+        }
+        if (spillWriter != null) {
+            spillWriter.add(vc);
+        } else {
+            records.add(vc);
+        }
+    }
+
+    private void spill() {
+        spillPath = IOUtils.createTempPath("deferredVariants", ".vcf");
+        // the final writer validates the records against its header, so don't fail on missing fields here
+        spillWriter = GATKVariantContextUtils.createVCFWriter(spillPath, null, false, Options.ALLOW_MISSING_FIELDS_IN_HEADER);
+        spillWriter.writeHeader(header);
+        records.forEach(spillWriter::add);
+        records.clear();
+    }
+
+    /**
+     * @return true if the records have been written to a temporary file rather than held in memory
+     */
+    public boolean hasSpilled() {
+        return spillPath != null;
+    }
+
+    /**
+     * Add all of the records added to this writer to another writer, in the order in which they were added, and close
+     * this writer.
+     *
+     * @param writer the writer to which the records are added
+     */
+    public void replayTo(final VariantContextWriter writer) {
+        Utils.nonNull(writer);
+        Utils.validate(!closed, "the writer has already been closed or replayed");
+        if (spillWriter != null) {
+            spillWriter.close();
+            spillWriter = null;
+            try (final VCFFileReader reader = new VCFFileReader(spillPath, false)) {
+                for (final VariantContext vc : reader) {
+                    writer.add(vc);
+                }
+            }
+        } else {
+            records.forEach(writer::add);
+        }
+        close();
+    }
+
+    @Override
+    public boolean checkError() {
+        return spillWriter != null && spillWriter.checkError();
+    }
+
+    /**
+     * Discard the records that haven't been replayed, and delete the temporary file if there is one
+     */
+    @Override
+    public void close() {
+        closed = true;
+        records.clear();
+        if (spillWriter != null) {
+            spillWriter.close();
+            spillWriter = null;
+        }
+        if (spillPath != null) {
+            try {
+                Files.deleteIfExists(spillPath);
+            } catch (final IOException e) {
+                throw new GATKException("Unable to delete temporary file " + spillPath, e);
+            }
+            spillPath = null;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.broadinstitute.hellbender.utils.variant.writers;
 
+import htsjdk.samtools.reference.ReferenceSequenceFile;
 import htsjdk.variant.variantcontext.*;
 import htsjdk.variant.vcf.VCFConstants;
 import org.apache.logging.log4j.LogManager;
@@ -9,7 +10,6 @@ import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.tools.walkers.variantutils.ReblockGVCF;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
-import org.broadinstitute.hellbender.utils.fasta.CachingIndexedFastaSequenceFile;
 import org.broadinstitute.hellbender.utils.iterators.PushPullTransformer;
 import org.broadinstitute.hellbender.utils.reference.ReferenceUtils;
 
@@ -25,7 +25,7 @@ public class ReblockingGVCFBlockCombiner extends GVCFBlockCombiner implements Pu
     private final List<VariantContextBuilder> homRefBlockBuffer = new ArrayList<>(10);  //10 is a generous estimate for the number of overlapping deletions
     private static final Comparator<? super VariantContextBuilder> VCB_COMPARATOR = Comparator.comparingLong(VariantContextBuilder::getStart);
 
-    final private CachingIndexedFastaSequenceFile referenceReader;
+    final private ReferenceSequenceFile referenceReader;
 
     /**
      * fields updated on the fly during GVCFWriter operation
@@ -38,7 +38,7 @@ public class ReblockingGVCFBlockCombiner extends GVCFBlockCombiner implements Pu
     private String currentContig = null;
 
     ReblockingGVCFBlockCombiner(final List<? extends Number> gqPartitions, final boolean floorBlocks,
-                                       final CachingIndexedFastaSequenceFile referenceReader, final ReblockingOptions options) {
+                                       final ReferenceSequenceFile referenceReader, final ReblockingOptions options) {
         super(gqPartitions, floorBlocks);
         this.referenceReader = referenceReader;
         this.dropLowQuals = options.getDropLowQualsOpt();
@@ -239,7 +239,7 @@ public class ReblockingGVCFBlockCombiner extends GVCFBlockCombiner implements Pu
      * @param builder   a builder for a reference block, contains only NON_REF, no other ALTs
      * @param newStart  the new position for the reference block
      */
-    public static void moveBuilderStart(final VariantContextBuilder builder, final int newStart, final CachingIndexedFastaSequenceFile referenceReader) {
+    public static void moveBuilderStart(final VariantContextBuilder builder, final int newStart, final ReferenceSequenceFile referenceReader) {
         final byte[] newRef = ReferenceUtils.getRefBaseAtPosition(referenceReader, builder.getContig(), newStart);
         final Allele newRefAllele = Allele.create(newRef, true);
         final ArrayList<Genotype> genotypesArray = new ArrayList<>();
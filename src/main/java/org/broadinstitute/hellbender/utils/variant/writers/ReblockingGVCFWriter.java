@@ -1,17 +1,17 @@
 package org.broadinstitute.hellbender.utils.variant.writers;
 
+import htsjdk.samtools.reference.ReferenceSequenceFile;
 import htsjdk.samtools.util.Locatable;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.writer.VariantContextWriter;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
-import org.broadinstitute.hellbender.utils.fasta.CachingIndexedFastaSequenceFile;
 
 import java.util.List;
 
 public class ReblockingGVCFWriter extends GVCFWriter {
 
     public ReblockingGVCFWriter(final VariantContextWriter underlyingWriter, final List<? extends Number> gqPartitions,
-                                final boolean floorBlocks, final CachingIndexedFastaSequenceFile referenceReader,
+                                final boolean floorBlocks, final ReferenceSequenceFile referenceReader,
                                 final ReblockingOptions reblockingOptions) {
         super(underlyingWriter, gqPartitions, floorBlocks);
         this.gvcfBlockCombiner = new ReblockingGVCFBlockCombiner(gqPartitions, floorBlocks, referenceReader, reblockingOptions);
@@ -385,6 +385,56 @@ public final class FeatureDataSourceUnitTest extends GATKBaseTest {
         }
     }
 
+    /**
+     * Runs the same queries as {@link #testSingleDataSourceMultipleQueries}, with the Features of the queried regions
+     * read ahead of the queries
+     */
+    @Test(dataProvider = "SingleDataSourceMultipleQueriesTestData")
+    public void testSingleDataSourceMultipleQueriesWithPrefetching( final List<Pair<SimpleInterval, List<String>>> testQueries ) {
+        // prefetch one interval per contig, spanning all queries on that contig
+        final Map<String, SimpleInterval> spanByContig = new LinkedHashMap<>();
+        for ( Pair<SimpleInterval, List<String>> testQuery : testQueries ) {
+            spanByContig.merge(testQuery.getLeft().getContig(), testQuery.getLeft(), SimpleInterval::spanWith);
+        }
+
+        try (final FeatureDataSource<VariantContext> featureSource = new FeatureDataSource<>(QUERY_TEST_VCF)) {
+            featureSource.setIntervalsForPrefetching(new ArrayList<>(spanByContig.values()));
+
+            for ( Pair<SimpleInterval, List<String>> testQuery : testQueries ) {
+                final SimpleInterval queryInterval = testQuery.getLeft();
+                final List<String> expectedVariantIDs = testQuery.getRight();
+
+                final List<VariantContext> queryResults = featureSource.queryAndPrefetch(queryInterval);
+                checkVariantQueryResults(queryResults, expectedVariantIDs, queryInterval);
+            }
+        }
+    }
+
+    @DataProvider(name = "PrefetchChunksTestData")
+    public Object[][] getPrefetchChunksTestData() {
+        return new Object[][] {
+                { Arrays.asList(new SimpleInterval("1", 1, 10)), 10,
+                  Arrays.asList(new SimpleInterval("1", 1, 10), new SimpleInterval("1", 11, 20)) },
+                { Arrays.asList(new SimpleInterval("1", 100, 100)), 50,
+                  Arrays.asList(new SimpleInterval("1", 50, 99), new SimpleInterval("1", 100, 149), new SimpleInterval("1", 150, 150)) },
+                // padded intervals that overlap are merged
+                { Arrays.asList(new SimpleInterval("1", 100, 100), new SimpleInterval("1", 150, 150)), 50,
+                  Arrays.asList(new SimpleInterval("1", 50, 99), new SimpleInterval("1", 100, 149), new SimpleInterval("1", 150, 199), new SimpleInterval("1", 200, 200)) },
+                { Arrays.asList(new SimpleInterval("1", 100, 100), new SimpleInterval("1", 300, 300), new SimpleInterval("2", 100, 100)), 100,
+                  Arrays.asList(new SimpleInterval("1", 1, 100), new SimpleInterval("1", 101, 200),
+                                new SimpleInterval("1", 201, 300), new SimpleInterval("1", 301, 400),
+                                new SimpleInterval("2", 1, 100), new SimpleInterval("2", 101, 200)) }
+        };
+    }
+
+    @Test(dataProvider = "PrefetchChunksTestData")
+    public void testPrefetchChunks( final List<SimpleInterval> intervals, final int chunkSize, final List<SimpleInterval> expectedChunks ) {
+        final List<SimpleInterval> chunks = new ArrayList<>();
+        new FeaturePrefetcher.ChunkIterator(FeaturePrefetcher.padIntervals(intervals, chunkSize), chunkSize)
+                .forEachRemaining(chunk -> chunks.add(chunk.getInterval()));
+        Assert.assertEquals(chunks, expectedChunks);
+    }
+
     @DataProvider(name = "GVCFQueryTestData")
     public Object[][] getGVCFQueryTestData() {
 
@@ -489,7 +539,7 @@ public final class FeatureDataSourceUnitTest extends GATKBaseTest {
     public void testCacheFill( final List<ArtificialTestFeature> features, final String cacheContig, final int cacheStart, final int cacheEnd) {
         FeatureCache<ArtificialTestFeature> cache = initializeFeatureCache(features, cacheContig, cacheStart, cacheEnd);
 
-        List<ArtificialTestFeature> cachedFeatures = cache.getCachedFeaturesUpToStopPosition(cacheEnd);
+        List<ArtificialTestFeature> cachedFeatures = cache.getCachedFeaturesOverlapping(new SimpleInterval(cacheContig, cacheStart, cacheEnd));
         Assert.assertEquals(cache.getContig(), cacheContig, "Wrong contig reported by cache after fill");
         Assert.assertEquals(cache.getCacheStart(), cacheStart, "Wrong start position reported by cache after fill");
         Assert.assertEquals(cache.getCacheEnd(), cacheEnd, "Wrong stop position reported by cache after fill");
@@ -532,10 +582,10 @@ public final class FeatureDataSourceUnitTest extends GATKBaseTest {
                             "Cache hit detection failed for interval " + testInterval);
     }
 
-    @DataProvider(name = "FeatureCacheTrimmingDataProvider")
-    public Object[][] getFeatureCacheTrimmingData() {
+    @DataProvider(name = "FeatureCacheIncreasingStartDataProvider")
+    public Object[][] getFeatureCacheIncreasingStartData() {
         // Features are required to always be sorted by start position, but stop positions need not be sorted.
-        // This complicates cache trimming.
+        // This complicates finding the Features that overlap a query.
         List<ArtificialTestFeature> feats = Arrays.asList(
                 new ArtificialTestFeature("1", 1, 1),     // Feature 0
                 new ArtificialTestFeature("1", 1, 100),   // Feature 1
@@ -557,9 +607,8 @@ public final class FeatureDataSourceUnitTest extends GATKBaseTest {
         );
         FeatureCache<ArtificialTestFeature> cache = initializeFeatureCache(feats, "1", 1, 200);
 
-        // Pairing of start position to which to trim the cache with the List of Features we expect to see
-        // in the cache after trimming
-        List<Pair<Integer, List<ArtificialTestFeature>>> trimOperations = Arrays.asList(
+        // Pairing of the start of a query running to the end of the cache with the List of Features we expect it to return
+        List<Pair<Integer, List<ArtificialTestFeature>>> queryStarts = Arrays.asList(
                 Pair.of(1, Arrays.asList(feats.get(0), feats.get(1), feats.get(2), feats.get(3), feats.get(4), feats.get(5), feats.get(6), feats.get(7), feats.get(8), feats.get(9), feats.get(10), feats.get(11), feats.get(12), feats.get(13), feats.get(14), feats.get(15), feats.get(16))),
                 Pair.of(2, Arrays.asList(feats.get(1), feats.get(3), feats.get(4), feats.get(5), feats.get(6), feats.get(7), feats.get(8), feats.get(9), feats.get(10), feats.get(11), feats.get(12), feats.get(13), feats.get(14), feats.get(15), feats.get(16))),
                 Pair.of(3, Arrays.asList(feats.get(1), feats.get(3), feats.get(4), feats.get(5), feats.get(6), feats.get(7), feats.get(8), feats.get(9), feats.get(10), feats.get(11), feats.get(12), feats.get(13), feats.get(14), feats.get(15), feats.get(16))),
@@ -579,22 +628,21 @@ public final class FeatureDataSourceUnitTest extends GATKBaseTest {
         );
 
         return new Object[][] {
-                { cache, trimOperations }
+                { cache, queryStarts }
         };
     }
 
-    @Test(dataProvider = "FeatureCacheTrimmingDataProvider")
-    public void testCacheTrimming( final FeatureCache<ArtificialTestFeature> cache, final List<Pair<Integer, List<ArtificialTestFeature>>> trimOperations ) {
-        // Repeatedly trim the cache to ever-increasing start positions, and verify after each trim operation
-        // that the cache holds the correct Features in the correc order
-        for ( Pair<Integer, List<ArtificialTestFeature>> trimOperation : trimOperations ) {
-            final int trimPosition = trimOperation.getLeft();
-            final List<ArtificialTestFeature> expectedFeatures = trimOperation.getRight();
+    @Test(dataProvider = "FeatureCacheIncreasingStartDataProvider")
+    public void testCacheQueriesWithIncreasingStart( final FeatureCache<ArtificialTestFeature> cache, final List<Pair<Integer, List<ArtificialTestFeature>>> queryStarts ) {
+        // Repeatedly query the cache from ever-increasing start positions to its end, and verify after each query
+        // that the cache returns the correct Features in the correct order
+        for ( Pair<Integer, List<ArtificialTestFeature>> queryStart : queryStarts ) {
+            final SimpleInterval queryInterval = new SimpleInterval("1", queryStart.getLeft(), cache.getCacheEnd());
+            final List<ArtificialTestFeature> expectedFeatures = queryStart.getRight();
 
-            cache.trimToNewStartPosition(trimPosition);
-
-            final List<ArtificialTestFeature> actualFeatures = cache.getCachedFeaturesUpToStopPosition(cache.getCacheEnd());
-            Assert.assertEquals(actualFeatures, expectedFeatures, "Wrong Features in cache after trimming start position to " + trimPosition);
+            Assert.assertTrue(cache.cacheHit(queryInterval), "Unexpected cache miss for " + queryInterval);
+            final List<ArtificialTestFeature> actualFeatures = cache.getCachedFeaturesOverlapping(queryInterval);
+            Assert.assertEquals(actualFeatures, expectedFeatures, "Wrong Features returned by query " + queryInterval);
         }
     }
 
@@ -615,8 +663,7 @@ public final class FeatureDataSourceUnitTest extends GATKBaseTest {
         );
         FeatureCache<ArtificialTestFeature> cache = initializeFeatureCache(feats, "1", 1, 100);
 
-        // Pairing of end position with which to bound cache retrieval with the List of Features we expect to see
-        // after retrieval
+        // Pairing of the end of a query running from the start of the cache with the List of Features we expect it to return
         List<Pair<Integer, List<ArtificialTestFeature>>> retrievalOperations = Arrays.asList(
                 Pair.of(100, Arrays.asList(feats.get(0), feats.get(1), feats.get(2), feats.get(3), feats.get(4), feats.get(5), feats.get(6), feats.get(7), feats.get(8), feats.get(9), feats.get(10))),
                 Pair.of(80, Arrays.asList(feats.get(0), feats.get(1), feats.get(2), feats.get(3), feats.get(4), feats.get(5), feats.get(6), feats.get(7), feats.get(8), feats.get(9), feats.get(10))),
@@ -644,11 +691,12 @@ public final class FeatureDataSourceUnitTest extends GATKBaseTest {
     @Test(dataProvider = "FeatureCacheRetrievalDataProvider")
     public void testCacheFeatureRetrieval( final FeatureCache<ArtificialTestFeature> cache, final List<Pair<Integer, List<ArtificialTestFeature>>> retrievalOperations ) {
         for ( Pair<Integer, List<ArtificialTestFeature>> retrievalOperation: retrievalOperations ) {
-            final int stopPosition = retrievalOperation.getLeft();
+            final SimpleInterval queryInterval = new SimpleInterval("1", cache.getCacheStart(), retrievalOperation.getLeft());
             final List<ArtificialTestFeature> expectedFeatures = retrievalOperation.getRight();
 
-            final List<ArtificialTestFeature> actualFeatures = cache.getCachedFeaturesUpToStopPosition(stopPosition);
-            Assert.assertEquals(actualFeatures, expectedFeatures, "Wrong Features returned in retrieval operation with stop position " + stopPosition);
+            Assert.assertTrue(cache.cacheHit(queryInterval), "Unexpected cache miss for " + queryInterval);
+            final List<ArtificialTestFeature> actualFeatures = cache.getCachedFeaturesOverlapping(queryInterval);
+            Assert.assertEquals(actualFeatures, expectedFeatures, "Wrong Features returned in retrieval operation with stop position " + queryInterval.getEnd());
         }
     }
 
@@ -667,10 +715,59 @@ public final class FeatureDataSourceUnitTest extends GATKBaseTest {
         Assert.assertTrue(cache.cacheHit(new SimpleInterval("1", 1, 100)), "Unexpected cache miss");
         Assert.assertTrue(cache.cacheHit(new SimpleInterval("1", 2, 99)), "Unexpected cache miss");
 
-        Assert.assertEquals(cache.getCachedFeaturesUpToStopPosition(100), emptyRegion, "Should get back empty List for empty region");
-        cache.trimToNewStartPosition(2);
+        Assert.assertEquals(cache.getCachedFeaturesOverlapping(new SimpleInterval("1", 1, 100)), emptyRegion, "Should get back empty List for empty region");
         Assert.assertTrue(cache.cacheHit(new SimpleInterval("1", 2, 100)), "Unexpected cache miss");
-        Assert.assertEquals(cache.getCachedFeaturesUpToStopPosition(100), emptyRegion, "Should get back empty List for empty region");
+        Assert.assertEquals(cache.getCachedFeaturesOverlapping(new SimpleInterval("1", 2, 100)), emptyRegion, "Should get back empty List for empty region");
+    }
+
+    @Test
+    public void testCachedFeaturesOverlapping() {
+        final List<ArtificialTestFeature> feats = Arrays.asList(
+                new ArtificialTestFeature("1", 1, 100),    // Feature 0
+                new ArtificialTestFeature("1", 5, 5),      // Feature 1
+                new ArtificialTestFeature("1", 10, 20),    // Feature 2
+                new ArtificialTestFeature("1", 30, 30),    // Feature 3
+                new ArtificialTestFeature("1", 40, 60),    // Feature 4
+                new ArtificialTestFeature("1", 50, 50)     // Feature 5
+        );
+        final FeatureCache<ArtificialTestFeature> cache = initializeFeatureCache(feats, "1", 1, 100);
+
+        Assert.assertEquals(cache.getCachedFeaturesOverlapping(new SimpleInterval("1", 50, 100)), Arrays.asList(feats.get(0), feats.get(4), feats.get(5)));
+        Assert.assertEquals(cache.getCachedFeaturesOverlapping(new SimpleInterval("1", 6, 25)), Arrays.asList(feats.get(0), feats.get(2)));
+        Assert.assertEquals(cache.getCachedFeaturesOverlapping(new SimpleInterval("1", 1, 5)), Arrays.asList(feats.get(0), feats.get(1)));
+        Assert.assertEquals(cache.getCachedFeaturesOverlapping(new SimpleInterval("1", 61, 100)), Arrays.asList(feats.get(0)));
+
+        // going back to an earlier position doesn't depend on the previous queries
+        Assert.assertTrue(cache.cacheHit(new SimpleInterval("1", 30, 30)), "Unexpected cache miss");
+        Assert.assertEquals(cache.getCachedFeaturesOverlapping(new SimpleInterval("1", 30, 30)), Arrays.asList(feats.get(0), feats.get(3)));
+    }
+
+    @Test
+    public void testCacheHitInEarlierWindow() {
+        final FeatureCache<ArtificialTestFeature> cache = new FeatureCache<>(2);
+        final ArtificialTestFeature first = new ArtificialTestFeature("1", 10, 20);
+        final ArtificialTestFeature second = new ArtificialTestFeature("1", 1010, 1020);
+        final ArtificialTestFeature third = new ArtificialTestFeature("2", 10, 20);
+
+        cache.fill(Collections.singletonList(first).iterator(), new SimpleInterval("1", 1, 1000));
+        cache.fill(Collections.singletonList(second).iterator(), new SimpleInterval("1", 1001, 2000));
+        Assert.assertEquals(cache.getCacheStart(), 1001);
+
+        // jumping back to the first window makes it the current one
+        Assert.assertTrue(cache.cacheHit(new SimpleInterval("1", 5, 50)), "Unexpected cache miss");
+        Assert.assertEquals(cache.getCacheStart(), 1);
+        Assert.assertEquals(cache.getCachedFeaturesOverlapping(new SimpleInterval("1", 5, 50)), Collections.singletonList(first));
+
+        // the least recently used window is evicted to make room for a new one
+        Assert.assertFalse(cache.cacheHit(new SimpleInterval("2", 5, 50)), "Unexpected cache hit");
+        cache.fill(Collections.singletonList(third).iterator(), new SimpleInterval("2", 1, 1000));
+        Assert.assertTrue(cache.cacheHit(new SimpleInterval("1", 5, 50)), "Unexpected cache miss");
+        Assert.assertFalse(cache.cacheHit(new SimpleInterval("1", 1005, 1050)), "Unexpected cache hit");
+
+        Assert.assertEquals(cache.getNumCacheHits(), 2);
+        Assert.assertEquals(cache.getNumCacheMisses(), 2);
+        Assert.assertEquals(cache.getNumWindowsAdded(), 3);
+        Assert.assertEquals(cache.getNumFeaturesAdded(), 3);
     }
 
     /*********************************************************
@@ -161,6 +161,63 @@ public final class MultiVariantDataSourceUnitTest extends GATKBaseTest {
         }
     }
 
+    @Test
+    public void testIteratorOverlappingWithReadAhead() {
+        List<FeatureInput<VariantContext>> featureInputs = new ArrayList<>();
+        featureInputs.add(new FeatureInput<>(
+                new File(MULTI_VARIANT_TEST_DIRECTORY, "interleavedVariants_1_WithOverlap.vcf").getAbsolutePath(),
+                "interleavedVariants_1_WithOverlap"));
+        featureInputs.add(new FeatureInput<>(
+                new File(MULTI_VARIANT_TEST_DIRECTORY, "interleavedVariants_2_WithOverlap.vcf").getAbsolutePath(),
+                "interleavedVariants_2_WithOverlap"));
+
+        final List<String> expectedIDs = new ArrayList<>();
+        try (final MultiVariantDataSource multiVariantSource =
+                     new MultiVariantDataSource(featureInputs, FeatureDataSource.DEFAULT_QUERY_LOOKAHEAD_BASES)) {
+            multiVariantSource.forEach(vc -> expectedIDs.add(vc.getID()));
+        }
+
+        try (final MultiVariantDataSource multiVariantSource =
+                     new MultiVariantDataSource(featureInputs, FeatureDataSource.DEFAULT_QUERY_LOOKAHEAD_BASES)) {
+            multiVariantSource.setReadAheadThreads(2);
+            // iterate twice, to check that the sources can be reused after a read-ahead traversal
+            for (int i = 0; i < 2; i++) {
+                final List<String> actualIDs = new ArrayList<>();
+                multiVariantSource.forEach(vc -> actualIDs.add(vc.getID()));
+                Assert.assertEquals(actualIDs, expectedIDs);
+            }
+
+            // queries are not read ahead
+            int count = 0;
+            final Iterator<VariantContext> it = multiVariantSource.query(new SimpleInterval("1", 1, 1200));
+            while (it.hasNext()) {
+                it.next();
+                count++;
+            }
+            Assert.assertTrue(count > 0);
+        }
+    }
+
+    @Test
+    public void testReadAheadDecodesGenotypes() {
+        final List<FeatureInput<VariantContext>> featureInputs = Collections.singletonList(new FeatureInput<>(
+                toolsTestDir + "walkers/GenotypeGVCFs/spanningDel.combined.g.vcf", "spanningDel"));
+
+        try (final MultiVariantDataSource multiVariantSource =
+                     new MultiVariantDataSource(featureInputs, FeatureDataSource.DEFAULT_QUERY_LOOKAHEAD_BASES)) {
+            // without read-ahead, the genotypes are left for the traversal thread to decode
+            multiVariantSource.forEach(vc -> Assert.assertTrue(vc.getGenotypes().isLazyWithData()));
+
+            multiVariantSource.setReadAheadThreads(2);
+            int count = 0;
+            for (final VariantContext vc : multiVariantSource) {
+                Assert.assertFalse(vc.getGenotypes().isLazyWithData(), "genotypes of " + vc + " were not decoded ahead");
+                count++;
+            }
+            Assert.assertTrue(count > 0);
+        }
+    }
+
     @Test
     public void testSerialQueries() {
         List<FeatureInput<VariantContext>> featureInputs = new ArrayList<>();
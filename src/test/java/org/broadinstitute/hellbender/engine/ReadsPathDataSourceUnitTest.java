@@ -133,6 +133,41 @@ public final class ReadsPathDataSourceUnitTest extends GATKBaseTest {
         }
     }
 
+    @Test(dataProvider = "SingleFileCompleteTraversalData")
+    public void testSingleFileSerialTraversalWithReadAhead( final Path samFile, final List<String> expectedReadNames ) {
+        try (ReadsPathDataSource readsSource = new ReadsPathDataSource(samFile)) {
+            readsSource.setReadAheadBatches(2);
+
+            traverseOnce(readsSource, samFile, expectedReadNames);
+            traverseOnce(readsSource, samFile, expectedReadNames);
+        }
+    }
+
+    @Test(dataProvider = "TraversalWithUnmappedReadsTestData")
+    public void testTraversalWithUnmappedReadsWithReadAhead( final Path samFile, final List<SimpleInterval> queryIntervals, final boolean queryUnmapped, final List<String> expectedReadNames ) {
+        try (ReadsPathDataSource readsSource = new ReadsPathDataSource(samFile)) {
+            readsSource.setReadAheadBatches(1);
+            readsSource.setTraversalBounds(queryIntervals, queryUnmapped);
+
+            traverseOnce(readsSource, samFile, expectedReadNames);
+        }
+    }
+
+    @Test
+    public void testQueryDuringReadAheadTraversal() {
+        try (ReadsPathDataSource readsSource = new ReadsPathDataSource(FIRST_TEST_BAM)) {
+            readsSource.setReadAheadBatches(1);
+
+            final Iterator<GATKRead> traversal = readsSource.iterator();
+            Assert.assertTrue(traversal.hasNext());
+
+            // starting a query stops the read-ahead traversal, as for any other traversal
+            final List<GATKRead> queried = new ArrayList<>();
+            readsSource.query(new SimpleInterval("1", 200, 210)).forEachRemaining(queried::add);
+            Assert.assertFalse(queried.isEmpty());
+        }
+    }
+
     private void traverseOnce(final ReadsDataSource readsSource, final Path samFile, final List<String> expectedReadNames) {
         List<GATKRead> reads = new ArrayList<>();
         for ( GATKRead read : readsSource ) {
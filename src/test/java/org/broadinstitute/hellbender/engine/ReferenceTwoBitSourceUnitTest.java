@@ -0,0 +1,127 @@
+package org.broadinstitute.hellbender.engine;
+
+import com.google.common.jimfs.Configuration;
+import com.google.common.jimfs.Jimfs;
+import htsjdk.samtools.SAMSequenceDictionary;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+public class ReferenceTwoBitSourceUnitTest extends GATKBaseTest {
+
+    private static final Path FASTA = Paths.get(v37_chr17_1Mb_Reference);
+    private static final Path TWO_BIT = Paths.get(publicTestDir + "human_g1k_v37.chr17_1Mb.2bit");
+
+    // See TwoBitReferenceUnitTest for the contents of this file
+    private static final Path MASKED_TWO_BIT = Paths.get(packageRootTestDir + "utils/reference/masked.2bit");
+    private static final String MASKED_BASES = "TTCCAttgTTGTGATTTTGTGctaTTAAAATGATCAAAACANNNCCCTTAAAAATCTTATTCTAACCTCTCAANNNCTTTTAAAaatgaNNNATTTCAGTACAGTCGGATGCATCTGTAAAAGATAAAAAtaTaACATTGATTAGTTTgCAAAAATAATTGTTTGACCCCAGTTAAGNga";
+
+    @Test
+    public void testOfTwoBitPath() {
+        try ( final ReferenceDataSource twoBitSource = ReferenceDataSource.of(TWO_BIT) ) {
+            Assert.assertTrue(twoBitSource instanceof ReferenceTwoBitSource);
+        }
+    }
+
+    @Test
+    public void testGetSequenceDictionary() {
+        try ( final ReferenceDataSource fastaSource = ReferenceDataSource.of(FASTA);
+              final ReferenceDataSource twoBitSource = new ReferenceTwoBitSource(TWO_BIT) ) {
+            final SAMSequenceDictionary fastaDictionary = fastaSource.getSequenceDictionary();
+            final SAMSequenceDictionary twoBitDictionary = twoBitSource.getSequenceDictionary();
+
+            Assert.assertEquals(twoBitDictionary.size(), fastaDictionary.size());
+            for ( int i = 0; i < fastaDictionary.size(); i++ ) {
+                Assert.assertEquals(twoBitDictionary.getSequence(i).getSequenceName(), fastaDictionary.getSequence(i).getSequenceName());
+                Assert.assertEquals(twoBitDictionary.getSequence(i).getSequenceLength(), fastaDictionary.getSequence(i).getSequenceLength());
+            }
+        }
+    }
+
+    @DataProvider(name = "queryIntervals")
+    public Object[][] queryIntervals() {
+        return new Object[][] {
+                { new SimpleInterval("17", 1, 1000000) },
+                { new SimpleInterval("17", 1, 1) },
+                { new SimpleInterval("17", 1000000, 1000000) },
+                // starting and ending in the middle of a packed byte
+                { new SimpleInterval("17", 70002, 70003) },
+                { new SimpleInterval("17", 70003, 70110) },
+                { new SimpleInterval("17", 500001, 501000) }
+        };
+    }
+
+    @Test(dataProvider = "queryIntervals")
+    public void testQueryMatchesFasta( final SimpleInterval interval ) {
+        try ( final ReferenceDataSource fastaSource = ReferenceDataSource.of(FASTA);
+              final ReferenceDataSource twoBitSource = new ReferenceTwoBitSource(TWO_BIT) ) {
+            Assert.assertEquals(twoBitSource.queryAndPrefetch(interval).getBases(), fastaSource.queryAndPrefetch(interval).getBases(),
+                    "Wrong bases returned for " + interval);
+        }
+    }
+
+    @Test
+    public void testQueryOnNonDefaultFileSystem() throws IOException {
+        final SimpleInterval interval = new SimpleInterval("17", 70003, 70110);
+        try ( final FileSystem jimfs = Jimfs.newFileSystem(Configuration.unix()) ) {
+            final Path copy = jimfs.getPath("reference.2bit");
+            Files.copy(TWO_BIT, copy);
+
+            try ( final ReferenceDataSource twoBitSource = ReferenceDataSource.of(copy);
+                  final ReferenceDataSource mappedSource = ReferenceDataSource.of(TWO_BIT) ) {
+                Assert.assertEquals(twoBitSource.queryAndPrefetch(interval).getBases(), mappedSource.queryAndPrefetch(interval).getBases());
+            }
+        }
+    }
+
+    @DataProvider(name = "maskedIntervals")
+    public Object[][] maskedIntervals() {
+        return new Object[][] {
+                { 1, 180 },
+                { 6, 8 },
+                { 5, 9 },
+                { 7, 23 },
+                { 85, 92 },
+                { 42, 44 },
+                { 179, 180 }
+        };
+    }
+
+    @Test(dataProvider = "maskedIntervals")
+    public void testMaskedBases( final int start, final int end ) {
+        final String expectedBases = MASKED_BASES.substring(start - 1, end);
+        try ( final ReferenceDataSource preservingSource = ReferenceDataSource.of(MASKED_TWO_BIT, true);
+              final ReferenceDataSource uppercasingSource = ReferenceDataSource.of(MASKED_TWO_BIT, false) ) {
+            Assert.assertEquals(new String(preservingSource.queryAndPrefetch("chrMaskTest", start, end).getBases(), StandardCharsets.US_ASCII),
+                    expectedBases);
+            Assert.assertEquals(new String(uppercasingSource.queryAndPrefetch("chrMaskTest", start, end).getBases(), StandardCharsets.US_ASCII),
+                    expectedBases.toUpperCase());
+        }
+    }
+
+    @DataProvider(name = "invalidIntervals")
+    public Object[][] invalidIntervals() {
+        return new Object[][] {
+                { "1", 1, 100 },
+                { "17", 0, 100 },
+                { "17", 1, 1000001 },
+                { "17", 1000001, 1000010 }
+        };
+    }
+
+    @Test(dataProvider = "invalidIntervals", expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidIntervals( final String contig, final int start, final int end ) {
+        try ( final ReferenceDataSource twoBitSource = new ReferenceTwoBitSource(TWO_BIT) ) {
+            twoBitSource.queryAndPrefetch(contig, start, end);
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package org.broadinstitute.hellbender.tools;
 
+import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.hellbender.CommandLineProgramTest;
+import org.broadinstitute.hellbender.engine.WalkerBase;
 import org.broadinstitute.hellbender.testutils.ArgumentsBuilder;
 import org.testng.Assert;
 import org.testng.annotations.DataProvider;
@@ -54,4 +56,16 @@ public final class CountBasesIntegrationTest extends CommandLineProgramTest {
 
         Assert.assertEquals(Files.readAllBytes(output.toPath()), "808".getBytes());
     }
+
+    @Test
+    public void testLocalShardsRejectedAtStartup() {
+        final File output = new File(createTempDir("testLocalShardsRejectedAtStartup"), "count.txt");
+        final ArgumentsBuilder args = new ArgumentsBuilder();
+        args.addInput(new File(getTestDataDir(), "count_bases.bam"));
+        args.addOutput(output);
+        args.add(WalkerBase.LOCAL_SHARDS_LONG_NAME, 2);
+
+        Assert.assertThrows(CommandLineException.BadArgumentValue.class, () -> runCommandLine(args));
+        Assert.assertFalse(output.exists());
+    }
 }
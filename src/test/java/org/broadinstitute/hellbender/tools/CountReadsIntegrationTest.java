@@ -3,6 +3,7 @@ package org.broadinstitute.hellbender.tools;
 import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.hellbender.CommandLineProgramTest;
 import org.broadinstitute.hellbender.cmdline.argumentcollections.IntervalArgumentCollection;
+import org.broadinstitute.hellbender.engine.WalkerBase;
 import org.broadinstitute.hellbender.testutils.ArgumentsBuilder;
 import org.testng.Assert;
 import org.testng.annotations.DataProvider;
@@ -89,6 +90,11 @@ public final class CountReadsIntegrationTest extends CommandLineProgramTest {
         countReads(interval_args, "count_reads_sorted.cram", "count_reads.fasta", count);
     }
 
+    @Test(dataProvider = "intervals")
+    public void testCountBAMReadsWithIntervalsInLocalShards(final String interval_args, final long count) throws Exception {
+        countReads(interval_args + " --" + WalkerBase.LOCAL_SHARDS_LONG_NAME + " 3", "count_reads_sorted.bam", null, count);
+    }
+
     private void countReads(final String interval_args, final String fileName, final String referenceName, final long count) {
         final File ORIG_BAM = new File(getTestDataDir(), fileName);
         final ArgumentsBuilder args = new ArgumentsBuilder();
@@ -1,6 +1,7 @@
 package org.broadinstitute.hellbender.tools;
 
 import org.broadinstitute.hellbender.CommandLineProgramTest;
+import org.broadinstitute.hellbender.engine.WalkerBase;
 import org.broadinstitute.hellbender.tools.walkers.CountVariants;
 import org.broadinstitute.hellbender.testutils.ArgumentsBuilder;
 import org.testng.Assert;
@@ -41,6 +42,29 @@ public final class CountVariantsIntegrationTest extends CommandLineProgramTest {
         Assert.assertEquals(Files.readAllBytes(output.toPath()), Long.toString(expectedCount).getBytes());
     }
 
+    @DataProvider(name="indexedCountVariantsVCFInputs")
+    public Object[][] indexedCountVariantsVCFInputs() {
+        return new Object[][]{
+                {new File(getTestDataDir(), "count_variants_withSequenceDict.vcf"), ""},
+                {new File(getTestDataDir(), "count_variants_withSequenceDict.vcf"), "-L 1"},
+                {new File(dbsnp_138_b37_1_65M_vcf), ""},
+        };
+    }
+
+    @Test(dataProvider = "indexedCountVariantsVCFInputs")
+    public void testCountVariantsInLocalShards(final File fileIn, final String moreArgs) throws Exception {
+        final ArgumentsBuilder serialArgs = new ArgumentsBuilder();
+        serialArgs.addVCF(fileIn);
+        serialArgs.addRaw(moreArgs);
+        final Object serial = runCommandLine(serialArgs);
+
+        final ArgumentsBuilder shardedArgs = new ArgumentsBuilder();
+        shardedArgs.addVCF(fileIn);
+        shardedArgs.addRaw(moreArgs);
+        shardedArgs.add(WalkerBase.LOCAL_SHARDS_LONG_NAME, 4);
+        Assert.assertEquals(runCommandLine(shardedArgs), serial);
+    }
+
     @DataProvider(name="countVariantsVCFInputs")
     public Object[][] countVariantsVCFInputs() {
         return new Object[][]{
@@ -1,6 +1,7 @@
 package org.broadinstitute.hellbender.tools;
 
 import org.broadinstitute.hellbender.CommandLineProgramTest;
+import org.broadinstitute.hellbender.engine.WalkerBase;
 import org.broadinstitute.hellbender.testutils.ArgumentsBuilder;
 import org.testng.Assert;
 import org.testng.annotations.DataProvider;
@@ -53,6 +54,14 @@ public final class FlagStatIntegrationTest extends CommandLineProgramTest{
     }
 
 
+    @Test
+    public void testLocalShardsMatchSerialTraversal() throws Exception {
+        final File input = new File(getTestDataDir(), "flag_stat.bam");
+        final Object serial = runCommandLine(new ArgumentsBuilder().addInput(input));
+        final Object sharded = runCommandLine(new ArgumentsBuilder().addInput(input).add(WalkerBase.LOCAL_SHARDS_LONG_NAME, 4));
+        Assert.assertEquals(sharded, serial);
+    }
+
     @DataProvider(name="filenames")
     public Object[][] filenames() {
         return new String[][]{
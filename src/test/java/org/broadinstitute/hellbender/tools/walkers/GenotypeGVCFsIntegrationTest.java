@@ -15,6 +15,7 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.hellbender.CommandLineProgramTest;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
+import org.broadinstitute.hellbender.engine.WalkerBase;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.testutils.ArgumentsBuilder;
 import org.broadinstitute.hellbender.testutils.GenomicsDBTestUtils;
@@ -463,6 +464,20 @@ public class GenotypeGVCFsIntegrationTest extends CommandLineProgramTest {
         assertVariantContextsMatch(input, expected, extraArgs, reference);
     }
 
+    @Test(dataProvider = "gvcfsToGenotype")
+    public void testEntireVariantContextInLocalShards(File input, File expected, List<String> extraArgs, String reference) throws IOException {
+        final List<String> extra = new ArrayList<>(extraArgs);
+        extra.add("--" + WalkerBase.LOCAL_SHARDS_LONG_NAME + " 3");
+        assertVariantContextsMatch(input, expected, extra, reference);
+    }
+
+    @Test
+    public void testSpanningDeletionAcrossLocalShards() throws IOException {
+        // each base is a shard of its own, so the spanning deletion alleles are in other shards than the deletion at 69511
+        assertVariantContextsMatch(getTestFile("spanningDel.combined.g.vcf"), getTestFile("spanningDel.combined.gatk3.7_30_ga4f720357.expected.vcf"),
+                Arrays.asList("-L", "20:69511-69515", "--" + WalkerBase.LOCAL_SHARDS_LONG_NAME, "2"), b37_reference_20_21);
+    }
+
     private void assertVariantContextsMatch(File input, File expected, List<String> extraArgs, String reference) throws IOException {
         try {
             final VCFHeader header = VCFHeaderReader.readHeaderFrom(new SeekablePathStream(IOUtils.getPath(expected.getAbsolutePath())));
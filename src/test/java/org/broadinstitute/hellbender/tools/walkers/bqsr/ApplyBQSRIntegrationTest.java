@@ -81,6 +81,7 @@ public final class ApplyBQSRIntegrationTest extends CommandLineProgramTest {
         //CRAM - input and output crams generated by direct conversion of the corresponding BAM test files with samtools 1.3
         tests.add(new Object[]{new ABQSRTest(hiSeqCram, hg18Reference, ".cram", new String[] {"--" + StandardArgumentDefinitions.DISABLE_SEQUENCE_DICT_VALIDATION_NAME, "true"}, resourceDir + "expected.HiSeq.1mb.1RG.2k_lines.alternate.recalibrated.DIQ.cram")});
         tests.add(new Object[]{new ABQSRTest(hiSeqCramAligned, hg18Reference, ".cram", new String[] {"--quantize-quals", "6", "--" + StandardArgumentDefinitions.DISABLE_SEQUENCE_DICT_VALIDATION_NAME, "true"}, resourceDir + "expected.HiSeq.1mb.1RG.2k_lines.alternate_allaligned.recalibrated.DIQ.qq6.cram")});
+        tests.add(new Object[]{new ABQSRTest(hiSeqCramAligned, hg18Reference, ".cram", new String[] {"--quantize-quals", "6", "--" + StandardArgumentDefinitions.DISABLE_SEQUENCE_DICT_VALIDATION_NAME, "true", "--" + ApplyBQSR.RECALIBRATION_THREADS_LONG_NAME, "3"}, resourceDir + "expected.HiSeq.1mb.1RG.2k_lines.alternate_allaligned.recalibrated.DIQ.qq6.cram")});
 
         return tests.toArray(new Object[][]{});
     }
@@ -91,6 +92,9 @@ public final class ApplyBQSRIntegrationTest extends CommandLineProgramTest {
 
         //Note: these outputs were created using GATK3
         tests.add(new Object[]{new ABQSRTest(hiSeqBam, null, ".bam", null, resourceDir + "expected.HiSeq.1mb.1RG.2k_lines.alternate.recalibrated.DIQ.bam")});
+        // the output must be identical when reads are recalibrated on several threads
+        tests.add(new Object[]{new ABQSRTest(hiSeqBam, null, ".bam", new String[] {"--" + ApplyBQSR.RECALIBRATION_THREADS_LONG_NAME, "3"}, resourceDir + "expected.HiSeq.1mb.1RG.2k_lines.alternate.recalibrated.DIQ.bam")});
+        tests.add(new Object[]{new ABQSRTest(hiSeqBamAligned, null, ".bam", new String[] {"-OQ", "--" + ApplyBQSR.RECALIBRATION_THREADS_LONG_NAME, "4"}, resourceDir + "expected.HiSeq.1mb.1RG.2k_lines.alternate_allaligned.recalibrated.DIQ.OQ.bam")});
 
         return tests.toArray(new Object[][]{});
     }
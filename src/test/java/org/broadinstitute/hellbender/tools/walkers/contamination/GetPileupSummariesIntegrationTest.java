@@ -2,12 +2,14 @@ package org.broadinstitute.hellbender.tools.walkers.contamination;
 
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.broadinstitute.hellbender.CommandLineProgramTest;
+import org.broadinstitute.hellbender.engine.WalkerBase;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.testutils.ArgumentsBuilder;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import java.io.File;
+import java.nio.file.Files;
 import java.util.List;
 
 /**
@@ -65,6 +67,27 @@ public class GetPileupSummariesIntegrationTest extends CommandLineProgramTest {
 
     }
 
+    @Test
+    public void testLocalShardsMatchSerialTraversal() throws Exception {
+        final File serialOutput = createTempFile("serial", ".table");
+        final File shardedOutput = createTempFile("sharded", ".table");
+
+        for (final File output : new File[] { serialOutput, shardedOutput }) {
+            final ArgumentsBuilder args = new ArgumentsBuilder()
+                    .addInput(NA12878)
+                    .addVCF(new File(thousandGenomes))
+                    .addIntervals(new File(thousandGenomes))
+                    .addOutput(output)
+                    .add(GetPileupSummaries.MAX_SITE_AF_SHORT_NAME, 0.9);
+            if (output == shardedOutput) {
+                args.add(WalkerBase.LOCAL_SHARDS_LONG_NAME, 3);
+            }
+            runCommandLine(args);
+        }
+
+        Assert.assertEquals(Files.readAllLines(shardedOutput.toPath()), Files.readAllLines(serialOutput.toPath()));
+    }
+
     @Test(expectedExceptions = UserException.BadInput.class)
     public void testNoAFFieldInHeader() {
         final File vcfWithoutAF = new File(publicTestDir, "empty.vcf");
@@ -5,7 +5,13 @@ import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public final class GenotypesCacheUnitTest extends GATKBaseTest {
 
@@ -52,4 +58,82 @@ public final class GenotypesCacheUnitTest extends GATKBaseTest {
         Assert.assertTrue(nextNext.equals(GenotypesCache.get(ploidy, genotypeIndex+2)));
     }
 
+    private static int[] alleleCountsOf(final GenotypeAlleleCounts gac) {
+        final int[] result = new int[2 * gac.distinctAlleleCount()];
+        for (int rank = 0; rank < gac.distinctAlleleCount(); rank++) {
+            result[2 * rank] = gac.alleleIndexAt(rank);
+            result[2 * rank + 1] = gac.alleleCountAt(rank);
+        }
+        return result;
+    }
+
+    // ploidy, allele count
+    @DataProvider(name = "ploidyAndAlleleCount")
+    public Object[][] ploidyAndAlleleCount() {
+        return new Object[][] {
+                {0, 3}, {1, 1}, {1, 10}, {2, 2}, {2, 120}, {3, 40}, {4, 25}, {6, 15}, {10, 8}, {20, 4},
+                // more genotypes than MAX_PACKED_CACHE_SIZE
+                {2, 520}
+        };
+    }
+
+    @Test(dataProvider = "ploidyAndAlleleCount")
+    public void testForEachGenotype(final int ploidy, final int alleleCount) {
+        final List<int[]> expected = new ArrayList<>();
+        for (final GenotypeAlleleCounts gac : GenotypeAlleleCounts.iterable(ploidy, alleleCount)) {
+            expected.add(alleleCountsOf(gac));
+        }
+
+        final int[] numVisited = {0};
+        GenotypesCache.forEachGenotype(ploidy, alleleCount, (index, sortedAlleleCounts, offset, distinctAlleleCount) -> {
+            Assert.assertEquals(index, numVisited[0]++);
+            Assert.assertEquals(Arrays.copyOfRange(sortedAlleleCounts, offset, offset + 2 * distinctAlleleCount), expected.get(index));
+        });
+        Assert.assertEquals(numVisited[0], expected.size());
+
+        // a range that starts in the middle
+        final int from = expected.size() / 3;
+        numVisited[0] = from;
+        GenotypesCache.forEachGenotypeInRange(ploidy, from, expected.size(), (index, sortedAlleleCounts, offset, distinctAlleleCount) -> {
+            Assert.assertEquals(index, numVisited[0]++);
+            Assert.assertEquals(Arrays.copyOfRange(sortedAlleleCounts, offset, offset + 2 * distinctAlleleCount), expected.get(index));
+        });
+        Assert.assertEquals(numVisited[0], expected.size());
+
+        // random access within and beyond the caches
+        for (int index = 0; index < expected.size(); index += 1 + index / 7) {
+            final GenotypeAlleleCounts gac = GenotypesCache.get(ploidy, index);
+            Assert.assertEquals(gac.index(), index);
+            Assert.assertEquals(gac.ploidy(), ploidy);
+            Assert.assertEquals(alleleCountsOf(gac), expected.get(index));
+        }
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        final int[] ploidies = {1, 2, 3, 5, 8};
+        final int numThreads = 8;
+        final ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < numThreads; thread++) {
+                final long seed = thread;
+                futures.add(executor.submit(() -> {
+                    final Random random = new Random(seed);
+                    for (int i = 0; i < 2000; i++) {
+                        final int ploidy = ploidies[random.nextInt(ploidies.length)];
+                        final int index = random.nextInt(20000);
+                        final GenotypeAlleleCounts gac = GenotypesCache.get(ploidy, index);
+                        Assert.assertEquals(gac.index(), index);
+                        Assert.assertEquals(GenotypeIndexCalculator.alleleCountsToIndex(alleleCountsOf(gac)), index);
+                    }
+                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 }
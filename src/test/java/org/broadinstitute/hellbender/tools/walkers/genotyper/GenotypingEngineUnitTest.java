@@ -117,6 +117,43 @@ public class GenotypingEngineUnitTest extends GATKBaseTest {
         Assert.assertTrue(vcOut2 == null);
     }
 
+    @Test
+    public void testUpstreamDeletionLogDetectsDroppedSpanningDeletion() {
+        final VariantContext deletionVC = new VariantContextBuilder("testDeletion", "1", 1, refAllele.length(), allelesDel).make();
+        final VariantContext spannedVC = new VariantContextBuilder("test", "1", 2, 2, Arrays.asList(Allele.create("C", true), Allele.SPAN_DEL)).make();
+
+        // the engine that genotyped the preceding regions, in order, emitted the deletion
+        final GenotypingEngine<?> orderedEngine = getGenotypingEngine();
+        orderedEngine.recordDeletions(deletionVC, Collections.singletonList(altT));
+
+        // an engine genotyping the next region on its own forgets what it recorded for other regions
+        final GenotypingEngine<?> regionEngine = getGenotypingEngine();
+        regionEngine.recordDeletions(deletionVC, Collections.singletonList(altT));
+        regionEngine.startUpstreamDeletionLog();
+        Assert.assertFalse(regionEngine.isVcCoveredByDeletion(spannedVC));
+        final GenotypingEngine.UpstreamDeletionLog log = regionEngine.stopUpstreamDeletionLog();
+
+        Assert.assertTrue(log.dependsOnDeletionsRecordedBy(orderedEngine));
+        Assert.assertFalse(log.dependsOnDeletionsRecordedBy(getGenotypingEngine()));
+    }
+
+    @Test
+    public void testUpstreamDeletionLogReplaysRecordedDeletions() {
+        final VariantContext deletionVC = new VariantContextBuilder("testDeletion", "1", 1, refAllele.length(), allelesDel).make();
+        final VariantContext spannedVC = new VariantContextBuilder("test", "1", 2, 2, Arrays.asList(Allele.create("C", true), Allele.SPAN_DEL)).make();
+
+        final GenotypingEngine<?> regionEngine = getGenotypingEngine();
+        regionEngine.startUpstreamDeletionLog();
+        regionEngine.recordDeletions(deletionVC, Collections.singletonList(altT));
+        Assert.assertTrue(regionEngine.isVcCoveredByDeletion(spannedVC));
+        final GenotypingEngine.UpstreamDeletionLog log = regionEngine.stopUpstreamDeletionLog();
+
+        final GenotypingEngine<?> orderedEngine = getGenotypingEngine();
+        Assert.assertFalse(log.dependsOnDeletionsRecordedBy(orderedEngine));
+        log.replay(orderedEngine);
+        Assert.assertTrue(orderedEngine.isVcCoveredByDeletion(spannedVC));
+    }
+
     @Test //test for https://github.com/broadinstitute/gatk/issues/2530
     public void testNoIndexOutOfBoundsExceptionWhenSubsettingToNoAlleles(){
         final VariantContext vc = new VariantContextBuilder(null, "1", 100, 100, Arrays.asList(refA, altT))
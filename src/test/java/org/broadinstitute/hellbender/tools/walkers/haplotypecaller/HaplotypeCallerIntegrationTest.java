@@ -15,6 +15,7 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.broadinstitute.hellbender.CommandLineProgramTest;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.cmdline.argumentcollections.IntervalArgumentCollection;
+import org.broadinstitute.hellbender.engine.AssemblyRegionWalker;
 import org.broadinstitute.hellbender.engine.FeatureDataSource;
 import org.broadinstitute.hellbender.engine.ReadsDataSource;
 import org.broadinstitute.hellbender.engine.ReadsPathDataSource;
@@ -102,6 +103,81 @@ public class HaplotypeCallerIntegrationTest extends CommandLineProgramTest {
         }
     }
 
+    /*
+     * Test that processing assembly regions on multiple threads gives the same results, in the same order, as the
+     * single-threaded traversal, up to the jitter of high QDs, which is drawn per region in multi-threaded mode and so
+     * doesn't depend on the number of threads
+     */
+    @Test
+    public void testMultiThreadedRegionProcessingIsConsistentWithPastResults() throws Exception {
+        final File expected = new File(TEST_FILES_DIR, "expected.testVCFMode.gatk4.vcf");
+
+        final File twoThreadsOutput = runWithAssemblyRegionThreads(2, "20:10000000-10100000");
+        final File fourThreadsOutput = runWithAssemblyRegionThreads(4, "20:10000000-10100000");
+
+        assertSameCallsUpToQDJitter(fourThreadsOutput, expected);
+        IntegrationTestSpec.assertEqualTextFiles(twoThreadsOutput, fourThreadsOutput);
+    }
+
+    /*
+     * Test that a spanning deletion allele covered by a deletion called in the preceding region is kept on multiple
+     * threads, as in the single-threaded traversal. The gap between the intervals ends the region holding the deletion
+     * at 20:10068158 right before the spanning deletion allele at 20:10068160, so the two are called by different workers.
+     */
+    @Test
+    public void testMultiThreadedRegionProcessingKeepsSpanningDeletionFromPrecedingRegion() {
+        final String[] intervals = { "20:10067900-10068158", "20:10068160-10068400" };
+
+        final File serialOutput = runWithAssemblyRegionThreads(1, intervals);
+        final File multiThreadedOutput = runWithAssemblyRegionThreads(4, intervals);
+
+        Assert.assertTrue(VariantContextTestUtils.getVariantContexts(serialOutput).stream()
+                        .anyMatch(vc -> vc.getStart() == 10068160 && vc.getAlternateAlleles().contains(Allele.SPAN_DEL)),
+                "the test expects a spanning deletion allele covered by the deletion of the preceding region");
+        assertSameCallsUpToQDJitter(multiThreadedOutput, serialOutput);
+    }
+
+    private File runWithAssemblyRegionThreads(final int threads, final String... intervals) {
+        Utils.resetRandomGenerator();
+        final File output = createTempFile("testMultiThreadedRegionProcessing", ".vcf");
+
+        final ArgumentsBuilder args = new ArgumentsBuilder()
+                .addInput(NA12878_20_21_WGS_bam)
+                .addReference(b37_reference_20_21)
+                .addOutput(output)
+                .add(LikelihoodEngineArgumentCollection.PAIR_HMM_IMPLEMENTATION_LONG_NAME, PairHMM.Implementation.AVX_LOGLESS_CACHING)
+                .add(AssemblyRegionWalker.ASSEMBLY_REGION_THREADS_LONG_NAME, threads)
+                .add(StandardArgumentDefinitions.ADD_OUTPUT_VCF_COMMANDLINE, false);
+        Arrays.stream(intervals).forEach(args::addInterval);
+
+        runCommandLine(args);
+        return output;
+    }
+
+    private static void assertSameCallsUpToQDJitter(final File actual, final File expected) {
+        final List<VariantContext> actualCalls = VariantContextTestUtils.getVariantContexts(actual);
+        final List<VariantContext> expectedCalls = VariantContextTestUtils.getVariantContexts(expected);
+        Assert.assertEquals(actualCalls.size(), expectedCalls.size());
+        for ( int i = 0; i < actualCalls.size(); i++ ) {
+            VariantContextTestUtils.assertVariantContextsAreEqual(actualCalls.get(i), expectedCalls.get(i),
+                    Collections.emptyList(), Collections.singletonList(GATKVCFConstants.QUAL_BY_DEPTH_KEY));
+        }
+    }
+
+    @Test(expectedExceptions = UserException.class)
+    public void testMultiThreadedRegionProcessingRejectsBamout() {
+        final String[] args = {
+                "-I", NA12878_20_21_WGS_bam,
+                "-R", b37_reference_20_21,
+                "-L", "20:10000000-10001000",
+                "-O", createTempFile("testMultiThreadedRegionProcessingRejectsBamout", ".vcf").getAbsolutePath(),
+                "-bamout", createTempFile("testMultiThreadedRegionProcessingRejectsBamout", ".bam").getAbsolutePath(),
+                "--" + AssemblyRegionWalker.ASSEMBLY_REGION_THREADS_LONG_NAME, "2"
+        };
+
+        runCommandLine(args);
+    }
+
     /*
      * Test that minimap2 data are supported and consistent with past results
      */
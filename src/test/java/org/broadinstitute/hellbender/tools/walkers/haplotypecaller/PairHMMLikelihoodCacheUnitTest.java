@@ -0,0 +1,179 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
+
+import org.broadinstitute.gatk.nativebindings.pairhmm.PairHMMNativeArguments;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.genotyper.AlleleLikelihoods;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedAlleleList;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedSampleList;
+import org.broadinstitute.hellbender.utils.genotyper.LikelihoodMatrix;
+import org.broadinstitute.hellbender.utils.genotyper.SampleList;
+import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.broadinstitute.hellbender.utils.pairhmm.PairHMM;
+import org.broadinstitute.hellbender.utils.pairhmm.PairHMMInputScoreImputator;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+public final class PairHMMLikelihoodCacheUnitTest extends GATKBaseTest {
+
+    private static final String[] SAMPLES = {"sample1", "sample2"};
+    private static final int READ_LENGTH = 30;
+    private static final int HAPLOTYPE_LENGTH = 60;
+
+    private final PairHMMInputScoreImputator inputScoreImputator = StandardPairHMMInputScoreImputator.newInstance((byte) 10);
+
+    private static byte[] randomBases(final Random random, final int length) {
+        final byte[] bases = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bases[i] = (byte) "ACGT".charAt(random.nextInt(4));
+        }
+        return bases;
+    }
+
+    private static List<Haplotype> randomHaplotypes(final Random random, final int count) {
+        final List<Haplotype> haplotypes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            haplotypes.add(new Haplotype(randomBases(random, HAPLOTYPE_LENGTH), i == 0));
+        }
+        return haplotypes;
+    }
+
+    private static List<GATKRead> randomReads(final Random random, final int count, final List<Haplotype> haplotypes) {
+        final List<GATKRead> reads = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            // reads from the haplotypes with a few errors, so that their likelihoods differ
+            final byte[] haplotypeBases = haplotypes.get(random.nextInt(haplotypes.size())).getBases();
+            final byte[] bases = Arrays.copyOfRange(haplotypeBases, random.nextInt(HAPLOTYPE_LENGTH - READ_LENGTH), HAPLOTYPE_LENGTH);
+            final byte[] readBases = Arrays.copyOf(bases, READ_LENGTH);
+            readBases[random.nextInt(READ_LENGTH)] = 'A';
+            final byte[] quals = new byte[READ_LENGTH];
+            for (int j = 0; j < READ_LENGTH; j++) {
+                quals[j] = (byte) (20 + random.nextInt(20));
+            }
+            reads.add(ArtificialReadUtils.createArtificialRead(readBases, quals, READ_LENGTH + "M"));
+        }
+        return reads;
+    }
+
+    private static Map<String, List<GATKRead>> readsBySample(final List<GATKRead> reads) {
+        final Map<String, List<GATKRead>> result = new LinkedHashMap<>();
+        for (final String sample : SAMPLES) {
+            result.put(sample, new ArrayList<>());
+        }
+        for (int r = 0; r < reads.size(); r++) {
+            result.get(SAMPLES[r % SAMPLES.length]).add(reads.get(r));
+        }
+        return result;
+    }
+
+    /**
+     * Compute the likelihoods of the reads with the PairHMM, and with the cache, and check that they are the same
+     */
+    private void assertSameLikelihoods(final PairHMMLikelihoodCache cache, final List<Haplotype> haplotypes, final Map<String, List<GATKRead>> reads) {
+        final SampleList samples = new IndexedSampleList(SAMPLES);
+        final IndexedAlleleList<Haplotype> haplotypeList = new IndexedAlleleList<>(haplotypes);
+        final AlleleLikelihoods<GATKRead, Haplotype> expected = new AlleleLikelihoods<>(samples, haplotypeList, reads);
+        final AlleleLikelihoods<GATKRead, Haplotype> actual = new AlleleLikelihoods<>(samples, haplotypeList, reads);
+        final List<List<GATKRead>> processedReads = Arrays.stream(SAMPLES).map(reads::get).collect(Collectors.toList());
+
+        final PairHMM pairHMM = PairHMM.Implementation.LOGLESS_CACHING.makeNewHMM(new PairHMMNativeArguments());
+        pairHMM.batchComputeLog10Likelihoods(Arrays.asList(expected.sampleMatrix(0), expected.sampleMatrix(1)), processedReads, inputScoreImputator);
+        cache.computeLog10Likelihoods(pairHMM, haplotypeList, Arrays.asList(actual.sampleMatrix(0), actual.sampleMatrix(1)), processedReads, inputScoreImputator);
+
+        for (int s = 0; s < SAMPLES.length; s++) {
+            final LikelihoodMatrix<GATKRead, Haplotype> expectedMatrix = expected.sampleMatrix(s);
+            final LikelihoodMatrix<GATKRead, Haplotype> actualMatrix = actual.sampleMatrix(s);
+            for (int h = 0; h < haplotypes.size(); h++) {
+                for (int r = 0; r < expectedMatrix.evidenceCount(); r++) {
+                    Assert.assertEquals(actualMatrix.get(h, r), expectedMatrix.get(h, r), "haplotype " + h + ", read " + r);
+                }
+            }
+        }
+    }
+
+    @DataProvider(name = "cacheSizes")
+    public Object[][] cacheSizes() {
+        return new Object[][] {{1}, {10}, {100_000}};
+    }
+
+    @Test(dataProvider = "cacheSizes")
+    public void testOverlappingRegions(final int cacheSize) {
+        final Random random = new Random(cacheSize);
+        final PairHMMLikelihoodCache cache = new PairHMMLikelihoodCache(cacheSize);
+        final List<Haplotype> haplotypes = randomHaplotypes(random, 4);
+        final List<GATKRead> reads = randomReads(random, 40, haplotypes);
+
+        assertSameLikelihoods(cache, haplotypes, readsBySample(reads));
+        Assert.assertEquals(cache.getLookups(), 40 * 4);
+        Assert.assertEquals(cache.getHits(), 0);
+        Assert.assertEquals(cache.size(), Math.min(cacheSize, 40 * 4));
+        Assert.assertEquals(cache.getEvictions(), 40 * 4 - cache.size());
+
+        // the next region shares half of the reads and some of the haplotypes
+        final List<Haplotype> nextHaplotypes = new ArrayList<>(haplotypes.subList(0, 2));
+        nextHaplotypes.addAll(randomHaplotypes(random, 2));
+        final List<GATKRead> nextReads = new ArrayList<>(reads.subList(20, 40));
+        nextReads.addAll(randomReads(random, 20, nextHaplotypes));
+        assertSameLikelihoods(cache, nextHaplotypes, readsBySample(nextReads));
+        Assert.assertEquals(cache.getLookups(), 80 * 4);
+        Assert.assertTrue(cache.size() <= cacheSize);
+
+        // the same region again
+        final long hits = cache.getHits();
+        assertSameLikelihoods(cache, nextHaplotypes, readsBySample(nextReads));
+        if (cacheSize >= 80 * 4) {
+            Assert.assertEquals(cache.getHits(), hits + 40 * 4);
+            Assert.assertEquals(cache.getEvictions(), 0);
+        }
+    }
+
+    @Test
+    public void testDuplicateReadsAreEvaluatedOnce() {
+        final Random random = new Random(13);
+        final PairHMMLikelihoodCache cache = new PairHMMLikelihoodCache(1000);
+        final List<Haplotype> haplotypes = randomHaplotypes(random, 3);
+        final List<GATKRead> reads = new ArrayList<>();
+        for (final GATKRead read : randomReads(random, 5, haplotypes)) {
+            for (int i = 0; i < 4; i++) {
+                reads.add(read.copy());
+            }
+        }
+
+        assertSameLikelihoods(cache, haplotypes, readsBySample(reads));
+        Assert.assertEquals(cache.size(), 5 * 3);
+        Assert.assertEquals(cache.getLookups(), 5 * 3);
+        Assert.assertEquals(cache.getHits(), 0);
+    }
+
+    @Test
+    public void testDifferentQualitiesAreDifferentResults() {
+        final Random random = new Random(17);
+        final PairHMMLikelihoodCache cache = new PairHMMLikelihoodCache(1000);
+        final List<Haplotype> haplotypes = randomHaplotypes(random, 2);
+        final GATKRead read = randomReads(random, 1, haplotypes).get(0);
+        final GATKRead otherQualitiesRead = read.copy();
+        final byte[] quals = otherQualitiesRead.getBaseQualities();
+        quals[0]++;
+        otherQualitiesRead.setBaseQualities(quals);
+
+        assertSameLikelihoods(cache, haplotypes, readsBySample(Arrays.asList(read, otherQualitiesRead)));
+        Assert.assertEquals(cache.size(), 2 * 2);
+        assertSameLikelihoods(cache, haplotypes, readsBySample(Arrays.asList(otherQualitiesRead, read)));
+        Assert.assertEquals(cache.getHits(), 2 * 2);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testBadCacheSize() {
+        new PairHMMLikelihoodCache(0);
+    }
+}
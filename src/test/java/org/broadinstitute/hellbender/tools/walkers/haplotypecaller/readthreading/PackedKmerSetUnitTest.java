@@ -0,0 +1,116 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.readthreading;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.Kmer;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+public final class PackedKmerSetUnitTest extends GATKBaseTest {
+
+    private static byte[] randomBases(final Random random, final int length, final String alphabet) {
+        final byte[] bases = new byte[length];
+        for ( int i = 0; i < length; i++ ) {
+            bases[i] = (byte) alphabet.charAt(random.nextInt(alphabet.length()));
+        }
+        return bases;
+    }
+
+    @DataProvider(name = "kmerSizesAndAlphabets")
+    public Object[][] kmerSizesAndAlphabets() {
+        return new Object[][] {
+                {1, "ACGT"},
+                {3, "ACGT"},
+                {10, "ACGTN"},
+                {25, "ACGT"},
+                {PackedKmerSet.MAX_PACKED_KMER_SIZE, "ACGTN"},
+                {PackedKmerSet.MAX_PACKED_KMER_SIZE + 1, "ACGT"},
+                {40, "ACGTN"},
+        };
+    }
+
+    @Test(dataProvider = "kmerSizesAndAlphabets")
+    public void testAddAndContains(final int kmerSize, final String alphabet) {
+        final Random random = new Random(kmerSize);
+        // small alphabets and lengths so that many kmers repeat
+        final byte[] bases = randomBases(random, 2000, kmerSize < 5 ? alphabet : alphabet.substring(0, 2));
+        final PackedKmerSet set = new PackedKmerSet(kmerSize);
+        final Set<Kmer> expected = new HashSet<>();
+        for ( int i = 0; i + kmerSize <= bases.length; i += 2 ) {
+            final Kmer kmer = new Kmer(bases, i, kmerSize);
+            Assert.assertEquals(set.add(bases, i), expected.add(kmer), "add of " + kmer);
+        }
+        Assert.assertEquals(set.size(), expected.size());
+        Assert.assertEquals(set.toKmers(), expected);
+        for ( int i = 0; i + kmerSize <= bases.length; i++ ) {
+            final Kmer kmer = new Kmer(bases, i, kmerSize);
+            Assert.assertEquals(set.contains(bases, i), expected.contains(kmer), "contains of " + kmer);
+            Assert.assertEquals(set.contains(kmer), expected.contains(kmer), "contains of " + kmer);
+        }
+
+        set.clear();
+        Assert.assertEquals(set.size(), 0);
+        Assert.assertFalse(set.contains(bases, 0));
+        Assert.assertTrue(set.toKmers().isEmpty());
+    }
+
+    @Test(dataProvider = "kmerSizesAndAlphabets")
+    public void testAddAll(final int kmerSize, final String alphabet) {
+        final Random random = new Random(kmerSize);
+        final PackedKmerSet set = new PackedKmerSet(kmerSize);
+        final PackedKmerSet duplicates = new PackedKmerSet(kmerSize);
+        final Set<Kmer> expected = new HashSet<>();
+        final Set<Kmer> expectedDuplicates = new HashSet<>();
+        for ( int n = 0; n < 20; n++ ) {
+            final byte[] bases = randomBases(random, 50 + random.nextInt(100), alphabet);
+            // repeat a part of the sequence, and sometimes put an N in it
+            System.arraycopy(bases, 0, bases, bases.length - kmerSize - 5, kmerSize + 5);
+            if ( random.nextBoolean() ) {
+                bases[random.nextInt(bases.length)] = 'N';
+            }
+            final int from = random.nextInt(10);
+            final int lastStart = bases.length - kmerSize - random.nextInt(10);
+
+            set.addAll(bases, from, lastStart, duplicates);
+            for ( int i = from; i <= lastStart; i++ ) {
+                final Kmer kmer = new Kmer(bases, i, kmerSize);
+                if ( ! expected.add(kmer) ) {
+                    expectedDuplicates.add(kmer);
+                }
+            }
+            Assert.assertEquals(set.toKmers(), expected);
+            Assert.assertEquals(duplicates.toKmers(), expectedDuplicates);
+            Assert.assertEquals(duplicates.size(), expectedDuplicates.size());
+        }
+    }
+
+    @Test
+    public void testAddAllWithNoKmers() {
+        final PackedKmerSet set = new PackedKmerSet(5);
+        final PackedKmerSet duplicates = new PackedKmerSet(5);
+        set.addAll("ACGT".getBytes(), 0, -1, duplicates);
+        Assert.assertEquals(set.size(), 0);
+        Assert.assertEquals(duplicates.size(), 0);
+    }
+
+    @Test
+    public void testNonACGTBasesAreDistinct() {
+        final PackedKmerSet set = new PackedKmerSet(3);
+        Assert.assertTrue(set.add("ACA".getBytes(), 0));
+        Assert.assertTrue(set.add("ANA".getBytes(), 0));
+        Assert.assertTrue(set.add("AaA".getBytes(), 0));
+        Assert.assertFalse(set.add("ANA".getBytes(), 0));
+        Assert.assertEquals(set.size(), 3);
+        Assert.assertFalse(set.contains(new Kmer("AGA")));
+        Assert.assertTrue(set.contains(new Kmer("ANA")));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testBadKmerSize() {
+        new PackedKmerSet(0);
+    }
+}
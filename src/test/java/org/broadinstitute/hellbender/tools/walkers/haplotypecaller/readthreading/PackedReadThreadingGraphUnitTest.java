@@ -0,0 +1,216 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.readthreading;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.Kmer;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.graphs.*;
+import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+public final class PackedReadThreadingGraphUnitTest extends GATKBaseTest {
+    private static final byte[] BASES = {'A', 'C', 'G', 'T'};
+
+    private static String randomBases(final Random random, final int length) {
+        final byte[] bases = new byte[length];
+        for ( int i = 0; i < length; i++ ) {
+            bases[i] = BASES[random.nextInt(BASES.length)];
+        }
+        return new String(bases);
+    }
+
+    /**
+     * @return reads from the haplotypes of the samples, at random positions and with random substitution errors
+     */
+    private static List<List<String>> simulateReads(final Random random, final List<List<String>> haplotypesBySample,
+                                                    final int readsPerSample, final int readLength, final double errorRate) {
+        final List<List<String>> readsBySample = new ArrayList<>();
+        for ( final List<String> haplotypes : haplotypesBySample ) {
+            final List<String> reads = new ArrayList<>();
+            for ( int i = 0; i < readsPerSample; i++ ) {
+                final String haplotype = haplotypes.get(random.nextInt(haplotypes.size()));
+                final int start = random.nextInt(haplotype.length() - readLength + 1);
+                final byte[] read = haplotype.substring(start, start + readLength).getBytes();
+                for ( int j = 0; j < read.length; j++ ) {
+                    if ( random.nextDouble() < errorRate ) {
+                        read[j] = BASES[(Arrays.binarySearch(BASES, read[j]) + 1 + random.nextInt(3)) % BASES.length];
+                    }
+                }
+                reads.add(new String(read));
+            }
+            readsBySample.add(reads);
+        }
+        return readsBySample;
+    }
+
+    @DataProvider(name = "GraphData")
+    public Object[][] makeGraphData() {
+        final List<Object[]> tests = new ArrayList<>();
+        final Random random = new Random(13);
+
+        final String ref = randomBases(random, 300);
+        final String snp = ref.substring(0, 150) + (ref.charAt(150) == 'A' ? 'C' : 'A') + ref.substring(151);
+        final String deletion = ref.substring(0, 100) + ref.substring(106);
+        final String insertion = ref.substring(0, 200) + "GATTACA" + ref.substring(200);
+        // a 20bp unit repeated in the reference, which makes small kmers non-unique
+        final String repeatedRef = ref.substring(0, 120) + ref.substring(100, 120) + ref.substring(100, 120) + ref.substring(120, 250);
+        final String repeatedAlt = repeatedRef.substring(0, 180) + 'G' + repeatedRef.substring(181);
+
+        final List<List<String>> oneSample = Collections.singletonList(Arrays.asList(ref, snp));
+        final List<List<String>> threeSamples = Arrays.asList(Arrays.asList(ref, snp), Arrays.asList(ref, deletion, insertion), Collections.singletonList(ref));
+        final List<List<String>> repeats = Arrays.asList(Arrays.asList(repeatedRef, repeatedAlt), Collections.singletonList(repeatedRef));
+
+        for ( final int kmerSize : Arrays.asList(10, 25, 31) ) {
+            for ( final double errorRate : Arrays.asList(0.0, 0.01, 0.05) ) {
+                tests.add(new Object[]{ref, simulateReads(random, oneSample, 60, 80, errorRate), kmerSize});
+                tests.add(new Object[]{ref, simulateReads(random, threeSamples, 60, 80, errorRate), kmerSize});
+                tests.add(new Object[]{repeatedRef, simulateReads(random, repeats, 60, 80, errorRate), kmerSize});
+            }
+        }
+        // small kmers make cycles through the repeat
+        tests.add(new Object[]{repeatedRef, simulateReads(random, repeats, 60, 80, 0.01), 5});
+        tests.add(new Object[]{ref, simulateReads(random, threeSamples, 60, 80, 0.01), 7});
+
+        return tests.toArray(new Object[][]{});
+    }
+
+    private static ReadThreadingGraph makeGraph(final String ref, final List<List<String>> readsBySample, final int kmerSize,
+                                                final boolean startThreadingOnlyAtExistingVertex, final boolean increaseCountsThroughBranches) {
+        final ReadThreadingGraph graph = new ReadThreadingGraph(kmerSize, false, (byte) 6, 2, -1);
+        graph.setThreadingStartOnlyAtExistingVertex(startThreadingOnlyAtExistingVertex);
+        graph.setIncreaseCountsThroughBranches(increaseCountsThroughBranches);
+        graph.addSequence("ref", "ref", ref.getBytes(), 0, ref.length(), 1, true);
+        for ( int sample = 0; sample < readsBySample.size(); sample++ ) {
+            for ( final String read : readsBySample.get(sample) ) {
+                graph.addSequence("read", "sample" + sample, read.getBytes(), 0, read.length(), 1, false);
+            }
+        }
+        return graph;
+    }
+
+    private static List<Supplier<ChainPruner<MultiDeBruijnVertex, MultiSampleEdge>>> makePruners() {
+        return Arrays.asList(() -> new LowWeightChainPruner<>(2), () -> new LowWeightChainPruner<>(0),
+                () -> new AdaptiveChainPruner<>(0.001, 2.302, 9.21, 100), () -> new AdaptiveChainPruner<>(0.01, 1.0, 4.0, 2));
+    }
+
+    @Test(dataProvider = "GraphData")
+    public void testSameGraphAndHaplotypes(final String ref, final List<List<String>> readsBySample, final int kmerSize) {
+        for ( final boolean startThreadingOnlyAtExistingVertex : Arrays.asList(false, true) ) {
+            for ( final boolean increaseCountsThroughBranches : Arrays.asList(false, true) ) {
+                for ( final Supplier<ChainPruner<MultiDeBruijnVertex, MultiSampleEdge>> pruner : makePruners() ) {
+                    final ReadThreadingGraph expected = makeGraph(ref, readsBySample, kmerSize, startThreadingOnlyAtExistingVertex, increaseCountsThroughBranches);
+                    expected.buildGraphIfNecessary();
+                    pruner.get().pruneLowWeightChains(expected);
+
+                    final ReadThreadingGraph actual = makeGraph(ref, readsBySample, kmerSize, startThreadingOnlyAtExistingVertex, increaseCountsThroughBranches);
+                    final PackedReadThreadingGraph packedGraph = actual.buildPackedGraph();
+                    Assert.assertNotNull(packedGraph);
+                    pruner.get().pruneLowWeightChains(packedGraph);
+
+                    Assert.assertEquals(packedGraph.hasCycles(), expected.hasCycles());
+                    assertSameHaplotypes(packedGraph, expected);
+
+                    packedGraph.copyInto(actual);
+                    assertSameGraph(actual, expected);
+                }
+            }
+        }
+    }
+
+    private static void assertSameHaplotypes(final PackedReadThreadingGraph packedGraph, final ReadThreadingGraph graph) {
+        for ( final int maxNumberOfHaplotypes : Arrays.asList(1, 10, 128) ) {
+            List<Haplotype> expected;
+            try {
+                expected = new GraphBasedKBestHaplotypeFinder<>(graph).findBestHaplotypes(maxNumberOfHaplotypes).stream()
+                        .map(KBestHaplotype::haplotype).collect(Collectors.toList());
+            } catch ( final IllegalStateException | IllegalArgumentException e ) {
+                // the cycles couldn't be removed, or removing them removed a source
+                Assert.assertThrows(e.getClass(), () -> packedGraph.findBestHaplotypes(maxNumberOfHaplotypes));
+                continue;
+            }
+            final List<Haplotype> actual = packedGraph.findBestHaplotypes(maxNumberOfHaplotypes);
+
+            Assert.assertEquals(actual.size(), expected.size());
+            for ( int i = 0; i < expected.size(); i++ ) {
+                Assert.assertEquals(actual.get(i).getBases(), expected.get(i).getBases());
+                Assert.assertEquals(actual.get(i).isReference(), expected.get(i).isReference());
+                Assert.assertEquals(actual.get(i).getScore(), expected.get(i).getScore());
+            }
+        }
+    }
+
+    private static void assertSameGraph(final ReadThreadingGraph actual, final ReadThreadingGraph expected) {
+        final List<MultiDeBruijnVertex> actualVertices = new ArrayList<>(actual.vertexSet());
+        final List<MultiDeBruijnVertex> expectedVertices = new ArrayList<>(expected.vertexSet());
+        Assert.assertEquals(actualVertices.size(), expectedVertices.size());
+        for ( int i = 0; i < expectedVertices.size(); i++ ) {
+            Assert.assertEquals(actualVertices.get(i).getSequenceString(), expectedVertices.get(i).getSequenceString());
+            Assert.assertEquals(actualVertices.get(i).getAdditionalInfo(), expectedVertices.get(i).getAdditionalInfo());
+            Assert.assertEquals(indicesOfTargets(actual, actualVertices, actualVertices.get(i)), indicesOfTargets(expected, expectedVertices, expectedVertices.get(i)));
+        }
+
+        final List<MultiSampleEdge> actualEdges = new ArrayList<>(actual.edgeSet());
+        final List<MultiSampleEdge> expectedEdges = new ArrayList<>(expected.edgeSet());
+        Assert.assertEquals(actualEdges.size(), expectedEdges.size());
+        for ( int i = 0; i < expectedEdges.size(); i++ ) {
+            final MultiSampleEdge actualEdge = actualEdges.get(i);
+            final MultiSampleEdge expectedEdge = expectedEdges.get(i);
+            Assert.assertEquals(actualVertices.indexOf(actual.getEdgeSource(actualEdge)), expectedVertices.indexOf(expected.getEdgeSource(expectedEdge)));
+            Assert.assertEquals(actualVertices.indexOf(actual.getEdgeTarget(actualEdge)), expectedVertices.indexOf(expected.getEdgeTarget(expectedEdge)));
+            Assert.assertEquals(actualEdge.getMultiplicity(), expectedEdge.getMultiplicity());
+            Assert.assertEquals(actualEdge.getPruningMultiplicity(), expectedEdge.getPruningMultiplicity());
+            Assert.assertEquals(actualEdge.isRef(), expectedEdge.isRef());
+        }
+
+        final List<Map.Entry<Kmer, MultiDeBruijnVertex>> actualKmers = new ArrayList<>(actual.kmerToVertexMap.entrySet());
+        final List<Map.Entry<Kmer, MultiDeBruijnVertex>> expectedKmers = new ArrayList<>(expected.kmerToVertexMap.entrySet());
+        Assert.assertEquals(actualKmers.size(), expectedKmers.size());
+        for ( int i = 0; i < expectedKmers.size(); i++ ) {
+            Assert.assertEquals(actualKmers.get(i).getKey(), expectedKmers.get(i).getKey());
+            Assert.assertEquals(actualVertices.indexOf(actualKmers.get(i).getValue()), expectedVertices.indexOf(expectedKmers.get(i).getValue()));
+        }
+
+        Assert.assertEquals(actual.referencePath.stream().map(MultiDeBruijnVertex::getSequenceString).collect(Collectors.toList()),
+                expected.referencePath.stream().map(MultiDeBruijnVertex::getSequenceString).collect(Collectors.toList()));
+        Assert.assertEquals(actual.isLowQualityGraph(), expected.isLowQualityGraph());
+        Assert.assertEquals(actual.getNonUniqueKmers().toKmers(), expected.getNonUniqueKmers().toKmers());
+    }
+
+    private static List<Integer> indicesOfTargets(final ReadThreadingGraph graph, final List<MultiDeBruijnVertex> vertices, final MultiDeBruijnVertex vertex) {
+        return graph.outgoingEdgesOf(vertex).stream().map(e -> vertices.indexOf(graph.getEdgeTarget(e))).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testCannotThread() {
+        final String ref = "CATGCACTTTAAAACTTGCCTTTTTAACAAGACTTCCAGATG";
+
+        final ReadThreadingGraph withN = new ReadThreadingGraph(11, false, (byte) 6, 1, -1);
+        withN.addSequence("ref", ref.getBytes(), true);
+        withN.addSequence("read", ref.replace('G', 'N').getBytes(), false);
+        Assert.assertNull(withN.buildPackedGraph());
+
+        final ReadThreadingGraph largeKmers = new ReadThreadingGraph(PackedKmerSet.MAX_PACKED_KMER_SIZE + 1, false, (byte) 6, 1, -1);
+        largeKmers.addSequence("ref", ref.getBytes(), true);
+        Assert.assertNull(largeKmers.buildPackedGraph());
+
+        final ReadThreadingGraph debugGraph = new ReadThreadingGraph(11, true, (byte) 6, 1, -1);
+        debugGraph.addSequence("ref", ref.getBytes(), true);
+        Assert.assertNull(debugGraph.buildPackedGraph());
+
+        final ReadThreadingGraph shortRef = new ReadThreadingGraph(11, false, (byte) 6, 1, -1);
+        shortRef.addSequence("ref", ref.substring(0, 10).getBytes(), true);
+        Assert.assertNull(shortRef.buildPackedGraph());
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testTwoRefSources() {
+        final ReadThreadingGraph graph = new ReadThreadingGraph(11, false, (byte) 6, 1, -1);
+        graph.addSequence("ref", "CATGCACTTTAAAACTTGCCTTTTTAACAAG".getBytes(), true);
+        graph.addSequence("ref", "TTTTTAACAAGACTTCCAGATG".getBytes(), true);
+        graph.buildPackedGraph();
+    }
+}
@@ -11,6 +11,7 @@ import htsjdk.variant.variantcontext.VariantContextBuilder;
 import org.broadinstitute.gatk.nativebindings.smithwaterman.SWParameters;
 import org.broadinstitute.hellbender.GATKBaseTest;
 import org.broadinstitute.hellbender.engine.AssemblyRegion;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.AssemblyResult;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.AssemblyResultSet;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.graphs.*;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
@@ -31,6 +32,9 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
 
 public final class ReadThreadingAssemblerUnitTest extends GATKBaseTest {
     private static final SWParameters DANGLING_END_SW_PARAMETERS = SmithWatermanAlignmentConstants.STANDARD_NGS;
@@ -246,6 +250,88 @@ public final class ReadThreadingAssemblerUnitTest extends GATKBaseTest {
         Assert.assertTrue(haplotypes_hash.contains(altHaplotype), "Alternate haplotype missing");
     }
 
+    @DataProvider(name = "KmerAssemblyThreadsData")
+    public Object[][] makeKmerAssemblyThreadsData() {
+        final String ref = new String(seq.getSubsequenceAt("1", 100000, 100200).getBases());
+        // a 30bp unit repeated in the reference makes the default kmer sizes fail, so the larger ones are tried
+        final String repeatedRef = ref.substring(0, 80) + ref.substring(80, 110) + ref.substring(80, 110) + ref.substring(110, 160);
+        return new Object[][] {
+                {ref, ref.substring(0, 100) + 'A' + ref.substring(101)},
+                {ref, ref.substring(0, 90) + ref.substring(95)},
+                {repeatedRef, repeatedRef.substring(0, 130) + 'C' + repeatedRef.substring(131)},
+                {repeatedRef, repeatedRef.substring(0, 40) + "TTT" + repeatedRef.substring(40)}
+        };
+    }
+
+    @Test(dataProvider = "KmerAssemblyThreadsData")
+    public void testKmerAssemblyThreads(final String ref, final String alt) {
+        final SimpleInterval loc = new SimpleInterval("1", 100000, 100000 + ref.length() - 1);
+        final byte[] refBases = ref.getBytes();
+        final List<GATKRead> reads = new LinkedList<>();
+        for ( int i = 0; i < 10; i++ ) {
+            final byte[] bases = alt.getBytes();
+            reads.add(ArtificialReadUtils.createArtificialRead(header, "read" + i, loc.getContig(), loc.getStart(), bases, Utils.dupBytes((byte) 30, bases.length), bases.length + "M"));
+        }
+
+        final List<List<Haplotype>> haplotypesByThreads = new ArrayList<>();
+        final List<List<Integer>> kmerSizesByThreads = new ArrayList<>();
+        final ExecutorService kmerAssemblyPool = Executors.newFixedThreadPool(4);
+        try {
+            for ( final ExecutorService pool : Arrays.asList(null, kmerAssemblyPool) ) {
+                final ReadThreadingAssembler assembler = new ReadThreadingAssembler(ReadThreadingAssembler.DEFAULT_NUM_PATHS_PER_GRAPH, Arrays.asList(10, 25),
+                        false, false, 1, 2, false, 0.001, 2, 2, Integer.MAX_VALUE, false, false, 3);
+                assembler.setKmerAssemblyPool(pool);
+                final Haplotype refHaplotype = new Haplotype(refBases, true);
+                refHaplotype.setGenomeLocation(loc);
+                final List<Integer> kmerSizes = new ArrayList<>();
+                for ( final AssemblyResult result : assembler.assemble(reads, refHaplotype, header, SmithWatermanJavaAligner.getInstance(), DANGLING_END_SW_PARAMETERS) ) {
+                    kmerSizes.add(result.getKmerSize());
+                }
+                kmerSizesByThreads.add(kmerSizes);
+                haplotypesByThreads.add(assemble(assembler, refBases, loc, reads));
+            }
+        } finally {
+            kmerAssemblyPool.shutdownNow();
+        }
+
+        Assert.assertFalse(kmerSizesByThreads.get(0).isEmpty());
+        Assert.assertEquals(kmerSizesByThreads.get(1), kmerSizesByThreads.get(0));
+        Assert.assertEquals(haplotypesByThreads.get(1), haplotypesByThreads.get(0));
+    }
+
+    @Test(dataProvider = "KmerAssemblyThreadsData")
+    public void testPackedAssemblyGraph(final String ref, final String alt) {
+        final SimpleInterval loc = new SimpleInterval("1", 100000, 100000 + ref.length() - 1);
+        final byte[] refBases = ref.getBytes();
+        final Random random = new Random(7);
+        final List<GATKRead> reads = new LinkedList<>();
+        for ( int i = 0; i < 40; i++ ) {
+            // reads of both haplotypes with a few sequencing errors, which make chains to prune
+            final byte[] bases = (i % 3 == 0 ? ref : alt).getBytes();
+            for ( int j = 0; j < bases.length; j++ ) {
+                if ( random.nextDouble() < 0.005 ) {
+                    bases[j] = bases[j] == 'A' ? (byte) 'T' : (byte) 'A';
+                }
+            }
+            reads.add(ArtificialReadUtils.createArtificialRead(header, "read" + i, loc.getContig(), loc.getStart(), bases, Utils.dupBytes((byte) 30, bases.length), bases.length + "M"));
+        }
+
+        for ( final boolean useAdaptivePruning : Arrays.asList(false, true) ) {
+            final List<List<Haplotype>> haplotypesByGraph = new ArrayList<>();
+            for ( final boolean usePackedAssemblyGraph : Arrays.asList(false, true) ) {
+                final ReadThreadingAssembler assembler = new ReadThreadingAssembler(ReadThreadingAssembler.DEFAULT_NUM_PATHS_PER_GRAPH, Arrays.asList(10, 25),
+                        false, false, 1, 2, useAdaptivePruning, 0.001, 2, 2, Integer.MAX_VALUE, false, false, 3);
+                assembler.setUsePackedAssemblyGraph(usePackedAssemblyGraph);
+                haplotypesByGraph.add(assemble(assembler, refBases, loc, reads));
+            }
+
+            Assert.assertFalse(haplotypesByGraph.get(0).isEmpty());
+            Assert.assertEquals(haplotypesByGraph.get(1), haplotypesByGraph.get(0));
+            Assert.assertEquals(haplotypesByGraph.get(1).stream().map(Haplotype::getScore).collect(Collectors.toList()),
+                    haplotypesByGraph.get(0).stream().map(Haplotype::getScore).collect(Collectors.toList()));
+        }
+    }
+
     private static class TestAssembler {
         final ReadThreadingAssembler assembler;
         private final SAMFileHeader header;
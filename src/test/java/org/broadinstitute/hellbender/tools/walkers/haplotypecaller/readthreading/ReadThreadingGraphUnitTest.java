@@ -31,7 +31,7 @@ public final class ReadThreadingGraphUnitTest extends GATKBaseTest {
     private void assertNonUniques(final ReadThreadingGraph assembler, String... nonUniques) {
         final Set<String> actual = new HashSet<>();
         assembler.buildGraphIfNecessary();
-        for ( final Kmer kmer : assembler.getNonUniqueKmers() ) actual.add(new String(kmer.bases()));
+        for ( final Kmer kmer : assembler.getNonUniqueKmers().toKmers() ) actual.add(new String(kmer.bases()));
         final Set<String> expected = new HashSet<>(Arrays.asList(nonUniques));
         Assert.assertEquals(actual, expected);
     }
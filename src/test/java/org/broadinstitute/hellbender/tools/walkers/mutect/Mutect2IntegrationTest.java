@@ -13,9 +13,11 @@ import org.broadinstitute.hellbender.CommandLineProgramTest;
 import org.broadinstitute.hellbender.Main;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.cmdline.argumentcollections.IntervalArgumentCollection;
+import org.broadinstitute.hellbender.engine.AssemblyRegionWalker;
 import org.broadinstitute.hellbender.engine.FeatureDataSource;
 import org.broadinstitute.hellbender.engine.filters.ReadFilterLibrary;
 import org.broadinstitute.hellbender.engine.spark.AssemblyRegionArgumentCollection;
+import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.testutils.ArgumentsBuilder;
 import org.broadinstitute.hellbender.testutils.IntegrationTestSpec;
 import org.broadinstitute.hellbender.testutils.VariantContextTestUtils;
@@ -284,6 +286,36 @@ public class Mutect2IntegrationTest extends CommandLineProgramTest {
         Assert.assertTrue(numVariants < 4);
     }
 
+    // processing assembly regions on multiple threads must give the same calls, in the same order, and the same stats
+    // as the single-threaded traversal
+    @Test
+    public void testMultiThreadedRegionProcessing() throws IOException {
+        final List<File> tumor = Collections.singletonList(new File(DREAM_BAMS_DIR, "tumor.bam"));
+        final List<File> normals = Arrays.asList(new File(DREAM_BAMS_DIR, "normal.bam"), DREAM_2_NORMAL);
+        final File singleThreadedVcf = createTempFile("single-threaded", ".vcf");
+        final File multiThreadedVcf = createTempFile("multi-threaded", ".vcf");
+
+        for (final Pair<File, Integer> outputAndThreads : Arrays.asList(Pair.of(singleThreadedVcf, 1), Pair.of(multiThreadedVcf, 4))) {
+            Utils.resetRandomGenerator();
+            runMutect2(tumor, normals, outputAndThreads.getLeft(), "20:10000000-10100000", b37Reference, Optional.empty(),
+                    args -> args.add(AssemblyRegionWalker.ASSEMBLY_REGION_THREADS_LONG_NAME, outputAndThreads.getRight())
+                            .add(M2ArgumentCollection.F1R2_TAR_GZ_NAME, createTempFile("f1r2", ".tar.gz"))
+                            .add(StandardArgumentDefinitions.ADD_OUTPUT_VCF_COMMANDLINE, false));
+        }
+
+        IntegrationTestSpec.assertEqualTextFiles(multiThreadedVcf, singleThreadedVcf);
+        IntegrationTestSpec.assertEqualTextFiles(new File(multiThreadedVcf + Mutect2.DEFAULT_STATS_EXTENSION),
+                new File(singleThreadedVcf + Mutect2.DEFAULT_STATS_EXTENSION));
+    }
+
+    @Test(expectedExceptions = UserException.class)
+    public void testMultiThreadedRegionProcessingRejectsBamout() {
+        final File tumor = new File(NA12878_20_21_WGS_bam);
+        runMutect2(tumor, createTempFile("output", ".vcf"), "20:10000000-10001000", b37Reference, Optional.empty(),
+                args -> args.add(AssemblyRegionWalker.ASSEMBLY_REGION_THREADS_LONG_NAME, 2)
+                        .add(AssemblyBasedCallerArgumentCollection.BAM_OUTPUT_LONG_NAME, createTempFile("bamout", ".bam")));
+    }
+
     // run tumor-only using our mini gnomAD on NA12878, which is not a tumor
     @Test
     public void testTumorOnly() {
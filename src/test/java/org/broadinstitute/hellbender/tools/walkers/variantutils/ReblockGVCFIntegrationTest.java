@@ -43,6 +43,8 @@ public class ReblockGVCFIntegrationTest extends CommandLineProgramTest {
                 {getTestFile("gvcfForReblocking.g.vcf"), getTestFile("testJustOneSample.expected.g.vcf"), " -L chr20:69771 -rgq-threshold 19", hg38_reference_20_21},
                 //Broad production arguments on WGS data
                 {getTestFile("prodWgsInput.g.vcf "), getTestFile("prodWgsOutput.g.vcf"), WARP_PROD_REBLOCKING_ARGS, hg38Reference},
+                //same, re-genotyping on multiple threads
+                {getTestFile("prodWgsInput.g.vcf "), getTestFile("prodWgsOutput.g.vcf"), WARP_PROD_REBLOCKING_ARGS + " --" + ReblockGVCF.REBLOCKING_THREADS_LONG_NAME + " 3", hg38Reference},
                 //Exome data with AS annotations and zero DP regression test
                 {getTestFile("prodWesInput.g.vcf "), getTestFile("prodWesOutput.g.vcf"), WARP_PROD_REBLOCKING_ARGS, hg38Reference}
         };
@@ -218,6 +220,19 @@ public class ReblockGVCFIntegrationTest extends CommandLineProgramTest {
         spec.executeTest("testVariantQualFiltering", this);
     }
 
+    @Test
+    public void testAggressiveQualFilteringOnMultipleThreads() throws Exception {
+        final IntegrationTestSpec spec = new IntegrationTestSpec(
+                "-O %s -R " + hg38_reference_20_21 +
+                        " -drop-low-quals -do-qual-approx -V " + getToolTestDataDir() + "gvcfForReblocking.g.vcf" +
+                        " --" + StandardArgumentDefinitions.ADD_OUTPUT_VCF_COMMANDLINE + " false" +
+                        " --floor-blocks" +
+                        " --" + GenotypeCalculationArgumentCollection.CALL_CONFIDENCE_LONG_NAME + " 65.0" +
+                        " --" + ReblockGVCF.REBLOCKING_THREADS_LONG_NAME + " 4",
+                Arrays.asList(getToolTestDataDir() + "expected.aggressiveQualFiltering.g.vcf"));
+        spec.executeTest("testAggressiveQualFilteringOnMultipleThreads", this);
+    }
+
     @Test
     public void testMQHeadersAreUpdated() throws Exception {
         final File output = createTempFile("reblockedgvcf", ".vcf");
@@ -294,6 +309,36 @@ public class ReblockGVCFIntegrationTest extends CommandLineProgramTest {
         Assert.assertEquals(variants.get(1).getGenotype(0).getAllele(0), Allele.SPAN_DEL);
     }
 
+    @Test
+    public void testSpanningDeletionAcrossBatchesOnMultipleThreads() throws IOException {
+        final File serialOutput = createTempFile("reblockedgvcf", ".vcf");
+        final File threadedOutput = createTempFile("reblockedgvcf", ".vcf");
+        for (final File output : Arrays.asList(serialOutput, threadedOutput)) {
+            final ArgumentsBuilder args = new ArgumentsBuilder();
+            args.add("V", getToolTestDataDir() + "overlappingDels2.vcf" )
+                    .addReference(hg38Reference)
+                    .addOutput(output)
+                    .addFlag(ReblockGVCF.DROP_LOW_QUALS_ARG_NAME)
+                    .add(StandardArgumentDefinitions.ADD_OUTPUT_VCF_COMMANDLINE, false);
+            final ReblockGVCF reblocker = new ReblockGVCF();
+            if (output == threadedOutput) {
+                // put the deletion and the spanning deletion alleles it covers in different batches
+                args.add(ReblockGVCF.REBLOCKING_THREADS_LONG_NAME, 2);
+                reblocker.variantsPerBatch = 1;
+            }
+            reblocker.instanceMain(args.getArgsArray());
+        }
+
+        final List<VariantContext> expected = VariantContextTestUtils.readEntireVCFIntoMemory(serialOutput.getAbsolutePath()).getRight();
+        final List<VariantContext> actual = VariantContextTestUtils.readEntireVCFIntoMemory(threadedOutput.getAbsolutePath()).getRight();
+        //the span del allele covered by the upstream deletion must survive
+        Assert.assertTrue(expected.stream().anyMatch(vc -> vc.hasAllele(Allele.SPAN_DEL)));
+        Assert.assertEquals(actual.size(), expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            VariantContextTestUtils.assertVariantContextsAreEqual(actual.get(i), expected.get(i), Collections.emptyList(), Collections.emptyList());
+        }
+    }
+
     @Test
     public void testHomRefCalls() throws IOException {
         final File input = new File(getToolTestDataDir() + "dropGQ0Dels.g.vcf");
@@ -1,11 +1,18 @@
 package org.broadinstitute.hellbender.transformers;
 
+import org.broadinstitute.hellbender.engine.ReadsPathDataSource;
+import org.broadinstitute.hellbender.tools.ApplyBQSRArgumentCollection;
 import org.broadinstitute.hellbender.utils.QualityUtils;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.recalibration.RecalDatum;
 import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.recalibration.RecalibrationReport;
 import org.testng.Assert;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.io.File;
 import java.util.Arrays;
 import java.util.List;
 
@@ -89,4 +96,62 @@ public final class BQSRReadTransformerUnitTest extends GATKBaseTest {
             }
         }
     }
+
+    @DataProvider(name = "precomputedRecalibrationArgs")
+    public Object[][] precomputedRecalibrationArgs() {
+        final ApplyBQSRArgumentCollection defaults = new ApplyBQSRArgumentCollection();
+
+        final ApplyBQSRArgumentCollection quantized = new ApplyBQSRArgumentCollection();
+        quantized.quantizationLevels = 6;
+
+        final ApplyBQSRArgumentCollection staticQuantized = new ApplyBQSRArgumentCollection();
+        staticQuantized.staticQuantizationQuals = Arrays.asList(10, 20, 30);
+
+        final ApplyBQSRArgumentCollection globalPrior = new ApplyBQSRArgumentCollection();
+        globalPrior.globalQScorePrior = 30.0;
+        globalPrior.PRESERVE_QSCORES_LESS_THAN = 10;
+
+        return new Object[][] { { defaults }, { quantized }, { staticQuantized }, { globalPrior } };
+    }
+
+    @Test(dataProvider = "precomputedRecalibrationArgs")
+    public void testPrecomputedRecalibrationMatchesPerBaseRecalibration(final ApplyBQSRArgumentCollection args) {
+        final String resourceDir = toolsTestDir + "BQSR/";
+        final File recalFile = new File(resourceDir + "HiSeq.20mb.1RG.table.gz");
+        try ( final ReadsPathDataSource reads = new ReadsPathDataSource(IOUtils.getPath(resourceDir + "HiSeq.1mb.1RG.2k_lines.alternate.bam")) ) {
+            final BQSRReadTransformer precomputed = new BQSRReadTransformer(reads.getHeader(), new RecalibrationReport(recalFile), args, Long.MAX_VALUE);
+            final BQSRReadTransformer perBase = new BQSRReadTransformer(reads.getHeader(), new RecalibrationReport(recalFile), args, 0L);
+            Assert.assertTrue(precomputed.usesPrecomputedRecalibration());
+            Assert.assertFalse(perBase.usesPrecomputedRecalibration());
+
+            int numReads = 0;
+            for ( final GATKRead read : reads ) {
+                final GATKRead expected = perBase.apply(read.copy());
+                final GATKRead actual = precomputed.apply(read.copy());
+                Assert.assertEquals(actual.getBaseQualities(), expected.getBaseQualities(), "wrong qualities for read " + read.getName());
+                numReads++;
+            }
+            Assert.assertTrue(numReads > 0);
+        }
+    }
+
+    @Test
+    public void testCopyAppliesSameRecalibration() {
+        final String resourceDir = toolsTestDir + "BQSR/";
+        final File recalFile = new File(resourceDir + "HiSeq.20mb.1RG.table.gz");
+        try ( final ReadsPathDataSource reads = new ReadsPathDataSource(IOUtils.getPath(resourceDir + "HiSeq.1mb.1RG.2k_lines.alternate.bam")) ) {
+            final BQSRReadTransformer original = new BQSRReadTransformer(reads.getHeader(), recalFile, new ApplyBQSRArgumentCollection());
+            final BQSRReadTransformer copy = new BQSRReadTransformer(original);
+            Assert.assertEquals(copy.usesPrecomputedRecalibration(), original.usesPrecomputedRecalibration());
+
+            int numReads = 0;
+            for ( final GATKRead read : reads ) {
+                final GATKRead expected = original.apply(read.copy());
+                final GATKRead actual = copy.apply(read.copy());
+                Assert.assertEquals(actual.getBaseQualities(), expected.getBaseQualities(), "wrong qualities for read " + read.getName());
+                numReads++;
+            }
+            Assert.assertTrue(numReads > 0);
+        }
+    }
 }
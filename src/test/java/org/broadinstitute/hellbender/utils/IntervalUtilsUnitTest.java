@@ -2319,6 +2319,37 @@ public final class IntervalUtilsUnitTest extends GATKBaseTest {
         Assert.assertEquals(result, expectedResult);
     }
 
+    @DataProvider
+    public Object[][] divideIntervalsIntoShardsTestData() {
+        return new Object[][] {
+                { Arrays.asList(new SimpleInterval("1", 1, 100)), 1,
+                        Arrays.asList(Arrays.asList(new SimpleInterval("1", 1, 100))) },
+                { Arrays.asList(new SimpleInterval("1", 1, 100)), 4,
+                        Arrays.asList(Arrays.asList(new SimpleInterval("1", 1, 25)), Arrays.asList(new SimpleInterval("1", 26, 50)),
+                                Arrays.asList(new SimpleInterval("1", 51, 75)), Arrays.asList(new SimpleInterval("1", 76, 100))) },
+                { Arrays.asList(new SimpleInterval("1", 1, 10), new SimpleInterval("1", 21, 30), new SimpleInterval("2", 1, 20)), 2,
+                        Arrays.asList(Arrays.asList(new SimpleInterval("1", 1, 10), new SimpleInterval("1", 21, 30)),
+                                Arrays.asList(new SimpleInterval("2", 1, 20))) },
+                { Arrays.asList(new SimpleInterval("1", 1, 10), new SimpleInterval("2", 1, 20)), 3,
+                        Arrays.asList(Arrays.asList(new SimpleInterval("1", 1, 10)), Arrays.asList(new SimpleInterval("2", 1, 10)),
+                                Arrays.asList(new SimpleInterval("2", 11, 20))) },
+                // fewer bases than shards
+                { Arrays.asList(new SimpleInterval("1", 5, 6)), 4,
+                        Arrays.asList(Arrays.asList(new SimpleInterval("1", 5, 5)), Arrays.asList(new SimpleInterval("1", 6, 6))) },
+                // rounding remainder goes to the last shard
+                { Arrays.asList(new SimpleInterval("1", 1, 10)), 3,
+                        Arrays.asList(Arrays.asList(new SimpleInterval("1", 1, 4)), Arrays.asList(new SimpleInterval("1", 5, 8)),
+                                Arrays.asList(new SimpleInterval("1", 9, 10))) },
+                { Collections.emptyList(), 2, Collections.emptyList() }
+        };
+    }
+
+    @Test(dataProvider = "divideIntervalsIntoShardsTestData")
+    public void testDivideIntervalsIntoShards(final List<SimpleInterval> inputIntervals, final int numShards, final List<List<SimpleInterval>> expectedResult) {
+        final List<List<SimpleInterval>> result = IntervalUtils.divideIntervalsIntoShards(inputIntervals, numShards);
+        Assert.assertEquals(result, expectedResult);
+    }
+
     @DataProvider
     public Object[][] provideReciprocalOverlapTestData(){
         return new Object[][] {
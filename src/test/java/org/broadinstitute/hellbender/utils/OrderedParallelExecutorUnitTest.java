@@ -0,0 +1,56 @@
+package org.broadinstitute.hellbender.utils;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public final class OrderedParallelExecutorUnitTest extends GATKBaseTest {
+
+    @DataProvider(name = "threadsAndInFlight")
+    public Object[][] threadsAndInFlight() {
+        return new Object[][] {
+                {1, 1}, {1, 4}, {2, 2}, {4, 8}, {8, 32}
+        };
+    }
+
+    @Test(dataProvider = "threadsAndInFlight")
+    public void testResultsAreConsumedInSubmissionOrder(final int numThreads, final int maxInFlight) {
+        final List<Integer> consumed = new ArrayList<>();
+        try ( final OrderedParallelExecutor<Integer> executor = new OrderedParallelExecutor<>(numThreads, maxInFlight, "test", consumed::add) ) {
+            for ( int i = 0; i < 200; i++ ) {
+                final int value = i;
+                executor.submit(() -> {
+                    // randomize completion order
+                    Thread.sleep(ThreadLocalRandom.current().nextInt(3));
+                    return value;
+                });
+                Assert.assertTrue(executor.numInFlight() <= maxInFlight);
+            }
+            executor.finish();
+            Assert.assertEquals(executor.numInFlight(), 0);
+        }
+        Assert.assertEquals(consumed, IntStream.range(0, 200).boxed().collect(Collectors.toList()));
+    }
+
+    @Test(expectedExceptions = UserException.class)
+    public void testTaskExceptionsArePropagatedUnchanged() {
+        try ( final OrderedParallelExecutor<Integer> executor = new OrderedParallelExecutor<>(2, 2, "test", i -> {}) ) {
+            executor.submit(() -> 1);
+            executor.submit(() -> { throw new UserException("bad input"); });
+            executor.finish();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInFlightSmallerThanThreads() {
+        new OrderedParallelExecutor<Integer>(4, 2, "test", i -> {});
+    }
+}
@@ -353,6 +353,73 @@ public final class AlleleLikelihoodsUnitTest {
         }
     }
 
+    @Test(dataProvider = "marginalizationDataSets")
+    public void testCompactStorageMarginalization(final String[] samples, final Allele[] alleles, final Map<String,List<GATKRead>> reads, final Map<Allele,List<Allele>> newToOldAlleleMapping) {
+        final AlleleLikelihoods<GATKRead, Allele> original = new AlleleLikelihoods<>(new IndexedSampleList(samples), new IndexedAlleleList<>(alleles), reads);
+        final AlleleLikelihoods<GATKRead, Allele> compact = new AlleleLikelihoods<>(new IndexedSampleList(samples), new IndexedAlleleList<>(alleles), reads, true);
+        fillWithRandomLikelihoods(samples, alleles, original, compact);
+        final AlleleLikelihoods<GATKRead, Allele> marginalized = original.marginalize(newToOldAlleleMapping);
+        final AlleleLikelihoods<GATKRead, Allele> compactMarginalized = compact.marginalize(newToOldAlleleMapping);
+        Assert.assertEquals(compactMarginalized.usesCompactStorage(), samples.length > 0);
+        Assert.assertEquals(compactMarginalized.alleles(), marginalized.alleles());
+        for (int s = 0; s < samples.length; s++) {
+            // the maximum of float values is the float value of the maximum
+            final LikelihoodMatrix<GATKRead, Allele> sampleLikelihoods = marginalized.sampleMatrix(s);
+            final LikelihoodMatrix<GATKRead, Allele> compactSampleLikelihoods = compactMarginalized.sampleMatrix(s);
+            Assert.assertEquals(compactSampleLikelihoods.evidenceCount(), sampleLikelihoods.evidenceCount());
+            for (int a = 0; a < sampleLikelihoods.numberOfAlleles(); a++) {
+                for (int r = 0; r < sampleLikelihoods.evidenceCount(); r++) {
+                    Assert.assertEquals(compactSampleLikelihoods.get(a, r), (double) (float) sampleLikelihoods.get(a, r));
+                }
+            }
+        }
+    }
+
+    @Test(dataProvider = "dataSets")
+    public void testCompactStorageMatchesDoubleStorage(final String[] samples, final Allele[] alleles, final Map<String,List<GATKRead>> reads) {
+        final AlleleLikelihoods<GATKRead, Allele> original = new AlleleLikelihoods<>(new IndexedSampleList(samples), new IndexedAlleleList<>(alleles), reads);
+        final AlleleLikelihoods<GATKRead, Allele> compact = new AlleleLikelihoods<>(new IndexedSampleList(samples), new IndexedAlleleList<>(alleles), reads, true);
+        Assert.assertFalse(original.usesCompactStorage());
+        Assert.assertEquals(compact.usesCompactStorage(), samples.length > 0);
+        fillWithRandomLikelihoods(samples, alleles, original, compact);
+        assertLikelihoodsAreClose(compact, original);
+
+        for (final AlleleLikelihoods<GATKRead, Allele> likelihoods : Arrays.asList(original, compact)) {
+            likelihoods.addMissingAlleles(Arrays.asList(Allele.create("ACCCCCAAAATTTAAAGGG".getBytes(), false)), -12345.6);
+            likelihoods.retainEvidence(read -> read.getStart() == EVEN_READ_START);
+            final Map<String, List<GATKRead>> newReads = new LinkedHashMap<>();
+            for (final String sample : samples) {
+                newReads.put(sample, IntStream.range(0, 30).mapToObj(r -> ArtificialReadUtils.createArtificialRead(SAM_HEADER,
+                        "NNN" + sample + "00" + r, 0, ODD_READ_START, "AAAAA".getBytes(), new byte[]{30, 30, 30, 30, 30}, "5M"))
+                        .collect(Collectors.toList()));
+            }
+            likelihoods.addEvidence(newReads, -2.5);
+            likelihoods.normalizeLikelihoods(-0.5, true);
+        }
+        assertLikelihoodsAreClose(compact, original);
+        Assert.assertEquals(compact.bestAllelesBreakingTies().size(), original.bestAllelesBreakingTies().size());
+    }
+
+    private void assertLikelihoodsAreClose(final AlleleLikelihoods<GATKRead, Allele> actual, final AlleleLikelihoods<GATKRead, Allele> expected) {
+        Assert.assertEquals(actual.alleles(), expected.alleles());
+        Assert.assertEquals(actual.samples(), expected.samples());
+        for (int s = 0; s < expected.numberOfSamples(); s++) {
+            final LikelihoodMatrix<GATKRead, Allele> expectedLikelihoods = expected.sampleMatrix(s);
+            final LikelihoodMatrix<GATKRead, Allele> actualLikelihoods = actual.sampleMatrix(s);
+            Assert.assertEquals(actualLikelihoods.evidence(), expectedLikelihoods.evidence());
+            final double[] actualValues = new double[actualLikelihoods.evidenceCount()];
+            for (int a = 0; a < expectedLikelihoods.numberOfAlleles(); a++) {
+                actualLikelihoods.copyAlleleLikelihoods(a, actualValues, 0);
+                for (int r = 0; r < expectedLikelihoods.evidenceCount(); r++) {
+                    final double expectedValue = expectedLikelihoods.get(a, r);
+                    // floats have a precision of about 7 significant digits
+                    Assert.assertEquals(actualLikelihoods.get(a, r), expectedValue, Math.abs(expectedValue) * 1e-6);
+                    Assert.assertEquals(actualValues[r], actualLikelihoods.get(a, r));
+                }
+            }
+        }
+    }
+
     @Test(dataProvider = "dataSets")
     public void testNormalizeCapWorstLK(final String[] samples, final Allele[] alleles, final Map<String,List<GATKRead>> reads) {
         final AlleleLikelihoods<GATKRead, Allele> original = new AlleleLikelihoods<>(new IndexedSampleList(samples), new IndexedAlleleList<>(alleles), reads);
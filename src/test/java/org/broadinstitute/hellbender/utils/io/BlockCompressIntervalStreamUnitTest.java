@@ -10,6 +10,7 @@ import org.broadinstitute.hellbender.tools.sv.SVFeaturesHeader;
 import org.broadinstitute.hellbender.utils.io.BlockCompressedIntervalStream.Reader;
 import org.broadinstitute.hellbender.utils.io.BlockCompressedIntervalStream.Writer;
 import org.testng.Assert;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import java.io.*;
@@ -116,8 +117,23 @@ public class BlockCompressIntervalStreamUnitTest extends GATKBaseTest {
         reader.close();
     }
 
-    @Test
-    public void testQuery() throws IOException {
+    @DataProvider(name = "compressionThreads")
+    public Object[][] compressionThreads() {
+        return new Object[][] { { 1 }, { 4 } };
+    }
+
+    @Test(dataProvider = "compressionThreads")
+    public void testQuery( final int compressionThreads ) throws IOException {
+        final int defaultCompressionThreads = ParallelBlockCompressedOutputStream.getDefaultCompressionThreads();
+        ParallelBlockCompressedOutputStream.setDefaultCompressionThreads(compressionThreads);
+        try {
+            writeAndQuery();
+        } finally {
+            ParallelBlockCompressedOutputStream.setDefaultCompressionThreads(defaultCompressionThreads);
+        }
+    }
+
+    private void writeAndQuery() throws IOException {
         final ByteArrayOutputStream os = new ByteArrayOutputStream(200000);
         final SVFeaturesHeader header =
                 new SVFeaturesHeader(SimpleFeature.class.getSimpleName(), "1", dict, Collections.singletonList("sample"));
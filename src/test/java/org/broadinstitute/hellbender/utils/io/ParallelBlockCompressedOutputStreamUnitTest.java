@@ -0,0 +1,112 @@
+package org.broadinstitute.hellbender.utils.io;
+
+import htsjdk.samtools.seekablestream.ByteArraySeekableStream;
+import htsjdk.samtools.util.BlockCompressedInputStream;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class ParallelBlockCompressedOutputStreamUnitTest extends GATKBaseTest {
+
+    private static final int RECORD_LENGTH = 1000;
+
+    @DataProvider(name = "compressionData")
+    public Object[][] compressionData() {
+        return new Object[][] {
+                // number of records, compression level, threads
+                { 0, 5, 1 },
+                { 1, 5, 1 },
+                { 1, 5, 4 },
+                { 500, 5, 1 },
+                { 500, 5, 4 },
+                { 500, 0, 3 },
+                { 500, 9, 8 },
+        };
+    }
+
+    /**
+     * Records are partly random, so that some blocks compress well and others don't compress at all.
+     */
+    private static List<byte[]> makeRecords(final int numRecords) {
+        final Random random = new Random(1L);
+        final List<byte[]> records = new ArrayList<>(numRecords);
+        for ( int i = 0; i < numRecords; i++ ) {
+            final byte[] record = new byte[RECORD_LENGTH];
+            if ( (i / 100) % 2 == 0 ) {
+                random.nextBytes(record);
+            } else {
+                for ( int j = 0; j < record.length; j++ ) {
+                    record[j] = (byte) "ACGT".charAt(random.nextInt(4));
+                }
+            }
+            records.add(record);
+        }
+        return records;
+    }
+
+    @Test(dataProvider = "compressionData")
+    public void testSameOutputAsBlockCompressedOutputStream(final int numRecords, final int compressionLevel, final int numThreads) throws IOException {
+        final List<byte[]> records = makeRecords(numRecords);
+
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        try ( final BlockCompressedOutputStream bcos = new BlockCompressedOutputStream(expected, (Path)null, compressionLevel) ) {
+            for ( final byte[] record : records ) {
+                bcos.write(record);
+            }
+        }
+
+        final ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        try ( final ParallelBlockCompressedOutputStream pbcos = new ParallelBlockCompressedOutputStream(actual, compressionLevel, numThreads) ) {
+            for ( final byte[] record : records ) {
+                pbcos.write(record);
+            }
+        }
+
+        Assert.assertEquals(actual.toByteArray(), expected.toByteArray());
+    }
+
+    @Test(dataProvider = "compressionData")
+    public void testResolvedFilePointers(final int numRecords, final int compressionLevel, final int numThreads) throws IOException {
+        final List<byte[]> records = makeRecords(numRecords);
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final List<Long> filePointers = new ArrayList<>(numRecords);
+        try ( final ParallelBlockCompressedOutputStream pbcos = new ParallelBlockCompressedOutputStream(output, compressionLevel, numThreads) ) {
+            final List<Long> blockPositions = new ArrayList<>(numRecords);
+            for ( final byte[] record : records ) {
+                blockPositions.add(pbcos.getBlockPosition());
+                pbcos.write(record);
+            }
+            pbcos.flush();
+            blockPositions.forEach(position -> filePointers.add(pbcos.resolveFilePointer(position)));
+        }
+
+        try ( final BlockCompressedInputStream bcis = new BlockCompressedInputStream(new ByteArraySeekableStream(output.toByteArray())) ) {
+            // read the records in reverse order, so that every read requires a seek
+            final byte[] buffer = new byte[RECORD_LENGTH];
+            for ( int i = numRecords - 1; i >= 0; i-- ) {
+                bcis.seek(filePointers.get(i));
+                Assert.assertEquals(bcis.read(buffer), RECORD_LENGTH);
+                Assert.assertEquals(buffer, records.get(i), "wrong data at the file pointer of record " + i);
+            }
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testUnwrittenBlockCannotBeResolved() throws IOException {
+        try ( final ParallelBlockCompressedOutputStream pbcos = new ParallelBlockCompressedOutputStream(new ByteArrayOutputStream(), 5, 2) ) {
+            // more than one block, so that the first block is still waiting to be written
+            pbcos.write(new byte[100000]);
+            pbcos.resolveFilePointer(pbcos.getBlockPosition());
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package org.broadinstitute.hellbender.utils.iterators;
+
+import htsjdk.samtools.util.CloseableIterator;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class ReadAheadIteratorPoolUnitTest extends GATKBaseTest {
+
+    @DataProvider(name = "readAheadData")
+    public Object[][] readAheadData() {
+        return new Object[][] {
+                // numIterators, numElements, numThreads, batchSize
+                { 1, 0, 1, 1 },
+                { 1, 10, 1, 3 },
+                { 3, 10, 1, 10 },
+                { 10, 1000, 2, 7 },
+                { 100, 250, 4, 100 },
+        };
+    }
+
+    @Test(dataProvider = "readAheadData")
+    public void testInterleavedIteratorsReturnElementsInOrder(final int numIterators, final int numElements, final int numThreads, final int batchSize) {
+        final List<Integer> expected = IntStream.range(0, numElements).boxed().collect(Collectors.toList());
+
+        try ( final ReadAheadIteratorPool pool = new ReadAheadIteratorPool(numThreads, batchSize, "testReadAheadPool") ) {
+            final List<CloseableIterator<Integer>> iterators = new ArrayList<>();
+            final List<List<Integer>> actual = new ArrayList<>();
+            for ( int i = 0; i < numIterators; i++ ) {
+                iterators.add(pool.readAhead(expected.iterator()));
+                actual.add(new ArrayList<>());
+            }
+
+            // consume the iterators in turn, as a merge would
+            for ( int n = 0; n < numElements; n++ ) {
+                for ( int i = 0; i < numIterators; i++ ) {
+                    actual.get(i).add(iterators.get(i).next());
+                }
+            }
+            for ( int i = 0; i < numIterators; i++ ) {
+                Assert.assertFalse(iterators.get(i).hasNext());
+                Assert.assertEquals(actual.get(i), expected);
+                iterators.get(i).close();
+            }
+        }
+    }
+
+    @Test(expectedExceptions = NoSuchElementException.class)
+    public void testNextPastEnd() {
+        try ( final ReadAheadIteratorPool pool = new ReadAheadIteratorPool(1, 2, "testReadAheadPool");
+              final CloseableIterator<Integer> iterator = pool.readAhead(IntStream.range(0, 3).iterator()) ) {
+            for ( int i = 0; i < 4; i++ ) {
+                iterator.next();
+            }
+        }
+    }
+
+    @Test
+    public void testExceptionRethrownAfterPrecedingElements() {
+        final Iterator<Integer> failingIterator = new Iterator<Integer>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                if ( next == 5 ) {
+                    throw new UserException("bad record");
+                }
+                return next++;
+            }
+        };
+
+        final List<Integer> actual = new ArrayList<>();
+        try ( final ReadAheadIteratorPool pool = new ReadAheadIteratorPool(2, 2, "testReadAheadPool");
+              final CloseableIterator<Integer> iterator = pool.readAhead(failingIterator) ) {
+            iterator.forEachRemaining(actual::add);
+            Assert.fail("expected an exception");
+        } catch ( final UserException e ) {
+            Assert.assertEquals(e.getMessage(), "bad record");
+        }
+        Assert.assertEquals(actual, IntStream.range(0, 5).boxed().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testElementsArePreparedByThePoolBeforeHandover() {
+        final List<String> preparingThreads = new ArrayList<>();
+        try ( final ReadAheadIteratorPool pool = new ReadAheadIteratorPool(2, 3, "testReadAheadPool");
+              final CloseableIterator<StringBuilder> iterator = pool.readAhead(
+                      IntStream.range(0, 10).mapToObj(i -> new StringBuilder()).iterator(),
+                      element -> element.append(Thread.currentThread().getName())) ) {
+            iterator.forEachRemaining(element -> preparingThreads.add(element.toString()));
+        }
+        Assert.assertEquals(preparingThreads.size(), 10);
+        preparingThreads.forEach(thread -> Assert.assertTrue(thread.startsWith("testReadAheadPool-thread-"), thread));
+    }
+
+    @Test(timeOut = 10000)
+    public void testCloseBeforeExhaustion() {
+        try ( final ReadAheadIteratorPool pool = new ReadAheadIteratorPool(1, 10, "testReadAheadPool") ) {
+            final Iterator<Integer> infiniteIterator = IntStream.iterate(0, i -> i + 1).iterator();
+            final CloseableIterator<Integer> iterator = pool.readAhead(infiniteIterator);
+            Assert.assertEquals(iterator.next(), Integer.valueOf(0));
+            iterator.close();
+            Assert.assertFalse(iterator.hasNext());
+            // the underlying iterator is no longer in use, and continues after the batches that were pulled
+            Assert.assertEquals(infiniteIterator.next(), Integer.valueOf(20));
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidNumThreads() {
+        new ReadAheadIteratorPool(0, 1, "testReadAheadPool");
+    }
+}
@@ -0,0 +1,95 @@
+package org.broadinstitute.hellbender.utils.iterators;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class ReadAheadIteratorUnitTest extends GATKBaseTest {
+
+    @DataProvider(name = "readAheadData")
+    public Object[][] readAheadData() {
+        return new Object[][] {
+                // numElements, batchSize, numBatches
+                { 0, 1, 1 },
+                { 1, 1, 1 },
+                { 10, 1, 1 },
+                { 10, 10, 2 },
+                { 10, 3, 2 },
+                { 1000, 7, 4 },
+                { 1000, 100, 10 },
+        };
+    }
+
+    @Test(dataProvider = "readAheadData")
+    public void testElementsReturnedInOrder(final int numElements, final int batchSize, final int numBatches) {
+        final List<Integer> expected = IntStream.range(0, numElements).boxed().collect(Collectors.toList());
+
+        final List<Integer> actual = new ArrayList<>();
+        try ( final ReadAheadIterator<Integer> iterator = new ReadAheadIterator<>(expected.iterator(), batchSize, numBatches, "testReadAhead") ) {
+            iterator.forEachRemaining(actual::add);
+            Assert.assertFalse(iterator.hasNext());
+        }
+        Assert.assertEquals(actual, expected);
+    }
+
+    @Test(expectedExceptions = NoSuchElementException.class)
+    public void testNextPastEnd() {
+        try ( final ReadAheadIterator<Integer> iterator = new ReadAheadIterator<>(IntStream.range(0, 3).iterator(), 2, 1, "testReadAhead") ) {
+            for ( int i = 0; i < 4; i++ ) {
+                iterator.next();
+            }
+        }
+    }
+
+    @Test
+    public void testExceptionRethrownAfterPrecedingElements() {
+        final Iterator<Integer> failingIterator = new Iterator<Integer>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                if ( next == 5 ) {
+                    throw new UserException("bad record");
+                }
+                return next++;
+            }
+        };
+
+        final List<Integer> actual = new ArrayList<>();
+        try ( final ReadAheadIterator<Integer> iterator = new ReadAheadIterator<>(failingIterator, 2, 2, "testReadAhead") ) {
+            iterator.forEachRemaining(actual::add);
+            Assert.fail("expected an exception");
+        } catch ( final UserException e ) {
+            Assert.assertEquals(e.getMessage(), "bad record");
+        }
+        Assert.assertEquals(actual, IntStream.range(0, 5).boxed().collect(Collectors.toList()));
+    }
+
+    @Test(timeOut = 10000)
+    public void testCloseBeforeExhaustion() {
+        final Iterator<Integer> infiniteIterator = IntStream.iterate(0, i -> i + 1).iterator();
+        final ReadAheadIterator<Integer> iterator = new ReadAheadIterator<>(infiniteIterator, 10, 2, "testReadAhead");
+        Assert.assertEquals(iterator.next(), Integer.valueOf(0));
+        iterator.close();
+        Assert.assertFalse(iterator.hasNext());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidBatchSize() {
+        new ReadAheadIterator<>(IntStream.range(0, 3).iterator(), 0, 1, "testReadAhead");
+    }
+}
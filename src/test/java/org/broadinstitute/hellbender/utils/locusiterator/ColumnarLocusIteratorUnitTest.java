@@ -0,0 +1,227 @@
+package org.broadinstitute.hellbender.utils.locusiterator;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMReadGroupRecord;
+import org.broadinstitute.hellbender.engine.AlignmentContext;
+import org.broadinstitute.hellbender.engine.ReadsPathDataSource;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.iterators.IntervalOverlappingIterator;
+import org.broadinstitute.hellbender.utils.pileup.PileupColumn;
+import org.broadinstitute.hellbender.utils.pileup.PileupElement;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadCoordinateComparator;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.nio.file.Paths;
+import java.util.*;
+
+public final class ColumnarLocusIteratorUnitTest extends LocusIteratorByStateBaseTest {
+
+    private static final String[] CIGARS = {"30M", "10M2D20M", "5S25M", "10M5N20M", "12M3I15M", "2H28M", "15M1I1D14M", "28M2S"};
+
+    /**
+     * Asserts that the entries of column are the same as the elements of the pileup of context, in the same order
+     */
+    private static void assertSameColumn(final PileupColumn column, final AlignmentContext context) {
+        Assert.assertEquals(column.getContig(), context.getContig());
+        Assert.assertEquals(column.getStart(), context.getStart());
+        final List<PileupElement> elements = context.getBasePileup().getPileupElements();
+        Assert.assertEquals(column.size(), elements.size(), "wrong number of reads at " + column);
+
+        final List<PileupElement> columnElements = column.toReadPileup().getPileupElements();
+        for ( int i = 0; i < elements.size(); i++ ) {
+            final PileupElement element = elements.get(i);
+            Assert.assertSame(column.getRead(i), element.getRead());
+            Assert.assertEquals(column.getOffset(i), element.getOffset());
+            Assert.assertEquals(column.isDeletion(i), element.isDeletion());
+            Assert.assertEquals(column.getBase(i), element.getBase());
+            Assert.assertEquals(column.getQual(i), element.getQual());
+            Assert.assertEquals(column.getMappingQual(i), element.getMappingQual());
+            Assert.assertEquals(column.isReverseStrand(i), element.getRead().isReverseStrand());
+
+            final PileupElement columnElement = columnElements.get(i);
+            Assert.assertSame(columnElement.getRead(), element.getRead());
+            Assert.assertEquals(columnElement.getOffset(), element.getOffset());
+            Assert.assertEquals(columnElement.getCurrentCigarElement(), element.getCurrentCigarElement());
+            Assert.assertEquals(columnElement.getCurrentCigarOffset(), element.getCurrentCigarOffset());
+            Assert.assertEquals(columnElement.getOffsetInCurrentCigar(), element.getOffsetInCurrentCigar());
+        }
+    }
+
+    private static void assertSameLoci(final ColumnarLocusIterator columns, final Iterator<AlignmentContext> contexts) {
+        while ( columns.advance() ) {
+            Assert.assertTrue(contexts.hasNext(), "extra column at " + columns.getColumn());
+            assertSameColumn(columns.getColumn(), contexts.next());
+        }
+        Assert.assertFalse(contexts.hasNext(), "missing column at " + (contexts.hasNext() ? contexts.next().getLocation() : null));
+        Assert.assertFalse(columns.advance());
+    }
+
+    @Test(dataProvider = "MyColumnarLIBSTest")
+    public void testSameColumnsAsLIBSForCigar(final LIBSTest params) {
+        final List<GATKRead> reads = Collections.singletonList(params.makeRead());
+        for ( final boolean includeNs : new boolean[]{ false, true } ) {
+            final LocusIteratorByState libs = new LocusIteratorByState(reads.iterator(), LocusIteratorByState.NO_DOWNSAMPLING,
+                    sampleListForSAMWithoutReadGroups(), header, true, includeNs);
+            final ColumnarLocusIterator columns = new ColumnarLocusIterator(reads.iterator(), sampleListForSAMWithoutReadGroups(),
+                    header, true, includeNs);
+            assertSameLoci(columns, libs);
+        }
+    }
+
+    @DataProvider(name = "MyColumnarLIBSTest")
+    public Object[][] makeColumnarLIBSTest() {
+        return createLIBSTests(Arrays.asList(1, 2), Arrays.asList(1, 2, 3));
+    }
+
+    @DataProvider(name = "includeDeletionsAndNs")
+    public Object[][] includeDeletionsAndNs() {
+        return new Object[][] { { false, false }, { true, false }, { false, true }, { true, true } };
+    }
+
+    /**
+     * Reads from several samples, with all sorts of cigars, strands and adaptor boundaries
+     */
+    private static List<GATKRead> makeMultiSampleReads(final SAMFileHeader header, final int numReads) {
+        final Random random = new Random(13L);
+        final List<SAMReadGroupRecord> readGroups = header.getReadGroups();
+        final List<GATKRead> reads = new ArrayList<>(numReads);
+        for ( int i = 0; i < numReads; i++ ) {
+            final GATKRead read = ArtificialReadUtils.createArtificialRead(header, "read" + i, random.nextInt(2), 1 + random.nextInt(300), 30);
+            final byte[] bases = new byte[30];
+            final byte[] quals = new byte[30];
+            for ( int j = 0; j < 30; j++ ) {
+                bases[j] = (byte) "ACGTN".charAt(random.nextInt(5));
+                quals[j] = (byte) random.nextInt(41);
+            }
+            read.setBases(bases);
+            read.setBaseQualities(quals);
+            read.setCigar(CIGARS[random.nextInt(CIGARS.length)]);
+            read.setReadGroup(readGroups.get(random.nextInt(readGroups.size())).getId());
+            read.setMappingQuality(random.nextInt(61));
+            read.setIsReverseStrand(random.nextBoolean());
+            if ( random.nextBoolean() ) {
+                read.setIsPaired(true);
+                read.setMatePosition(read.getContig(), Math.max(1, read.getStart() + random.nextInt(40) - 20));
+                read.setMateIsReverseStrand(!read.isReverseStrand());
+                read.setFragmentLength((read.isReverseStrand() ? -1 : 1) * (10 + random.nextInt(40)));
+            }
+            reads.add(read);
+        }
+        reads.sort(new ReadCoordinateComparator(header));
+        return reads;
+    }
+
+    private static SAMFileHeader makeMultiSampleHeader() {
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader(2, 1, 1000);
+        final List<SAMReadGroupRecord> readGroups = new ArrayList<>();
+        for ( int i = 0; i < 6; i++ ) {
+            final SAMReadGroupRecord readGroup = new SAMReadGroupRecord("rg" + i);
+            readGroup.setSample("sample" + (i % 3));
+            readGroups.add(readGroup);
+        }
+        header.setReadGroups(readGroups);
+        return header;
+    }
+
+    @Test(dataProvider = "includeDeletionsAndNs")
+    public void testSameColumnsAsLIBSForMultipleSamples(final boolean includeDeletions, final boolean includeNs) {
+        final SAMFileHeader header = makeMultiSampleHeader();
+        final List<GATKRead> reads = makeMultiSampleReads(header, 500);
+        // not the order of the reads, so that the columns must be reordered by sample
+        final List<String> samples = Arrays.asList("sample2", "sample0", "sample1");
+
+        final LocusIteratorByState libs = new LocusIteratorByState(reads.iterator(), LocusIteratorByState.NO_DOWNSAMPLING,
+                samples, header, includeDeletions, includeNs);
+        final ColumnarLocusIterator columns = new ColumnarLocusIterator(reads.iterator(), samples, header, includeDeletions, includeNs);
+        assertSameLoci(columns, libs);
+    }
+
+    @Test
+    public void testSameColumnsAsLIBSWithinIntervals() {
+        final SAMFileHeader header = makeMultiSampleHeader();
+        final List<GATKRead> reads = makeMultiSampleReads(header, 500);
+        final List<String> samples = Arrays.asList("sample0", "sample1", "sample2");
+        final List<SimpleInterval> intervals = Arrays.asList(new SimpleInterval("1", 5, 20), new SimpleInterval("1", 100, 100),
+                new SimpleInterval("1", 250, 400), new SimpleInterval("2", 1, 50), new SimpleInterval("2", 320, 1000));
+
+        final LocusIteratorByState libs = new LocusIteratorByState(reads.iterator(), LocusIteratorByState.NO_DOWNSAMPLING,
+                samples, header, true, false);
+        final ColumnarLocusIterator columns = new ColumnarLocusIterator(reads.iterator(), samples, header, true, false,
+                intervals, header.getSequenceDictionary());
+        assertSameLoci(columns, new IntervalOverlappingIterator<>(libs, intervals, header.getSequenceDictionary()));
+    }
+
+    @Test(dataProvider = "includeDeletionsAndNs")
+    public void testSameColumnsAsLIBSForBam(final boolean includeDeletions, final boolean includeNs) {
+        final List<GATKRead> reads = new ArrayList<>();
+        final SAMFileHeader header;
+        try ( final ReadsPathDataSource readsSource = new ReadsPathDataSource(Paths.get(publicTestDir + "NA12878.chr17_69k_70k.dictFix.bam")) ) {
+            header = readsSource.getHeader();
+            for ( final GATKRead read : readsSource ) {
+                if ( !read.isUnmapped() ) {
+                    reads.add(read);
+                }
+            }
+        }
+        final Set<String> samples = ReadUtils.getSamplesFromHeader(header);
+
+        final LocusIteratorByState libs = new LocusIteratorByState(reads.iterator(), LocusIteratorByState.NO_DOWNSAMPLING,
+                samples, header, includeDeletions, includeNs);
+        final ColumnarLocusIterator columns = new ColumnarLocusIterator(reads.iterator(), samples, header, includeDeletions, includeNs);
+        assertSameLoci(columns, libs);
+    }
+
+    @Test
+    public void testAlignmentContextAdapters() {
+        final SAMFileHeader header = makeMultiSampleHeader();
+        final List<GATKRead> reads = makeMultiSampleReads(header, 200);
+        final List<String> samples = Arrays.asList("sample0", "sample1", "sample2");
+
+        final LocusIteratorByState libs = new LocusIteratorByState(reads.iterator(), LocusIteratorByState.NO_DOWNSAMPLING,
+                samples, header, true, false);
+        final Iterator<AlignmentContext> adapted = new ColumnarLocusIterator(reads.iterator(), samples, header, true, false)
+                .asAlignmentContextIterator();
+        while ( libs.hasNext() ) {
+            final AlignmentContext expected = libs.next();
+            Assert.assertTrue(adapted.hasNext());
+            final AlignmentContext actual = adapted.next();
+            Assert.assertEquals(actual.getLocation(), expected.getLocation());
+            assertSameColumn(PileupColumn.of(actual), expected);
+            assertSameColumn(PileupColumn.of(expected), actual);
+        }
+        Assert.assertFalse(adapted.hasNext());
+    }
+
+    @Test
+    public void testBaseCounts() {
+        final SAMFileHeader header = makeMultiSampleHeader();
+        final List<GATKRead> reads = makeMultiSampleReads(header, 200);
+        final List<String> samples = Arrays.asList("sample0", "sample1", "sample2");
+
+        final LocusIteratorByState libs = new LocusIteratorByState(reads.iterator(), LocusIteratorByState.NO_DOWNSAMPLING,
+                samples, header, true, false);
+        final ColumnarLocusIterator columns = new ColumnarLocusIterator(reads.iterator(), samples, header, true, false);
+        while ( columns.advance() ) {
+            Assert.assertEquals(columns.getColumn().getBaseCounts(), libs.next().getBasePileup().getBaseCounts());
+        }
+    }
+
+    @Test
+    public void testNoReads() {
+        final ColumnarLocusIterator columns = new ColumnarLocusIterator(Collections.emptyIterator(), Collections.emptyList(), header, true, false);
+        Assert.assertFalse(columns.advance());
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testUnknownSample() {
+        final SAMFileHeader header = makeMultiSampleHeader();
+        final List<GATKRead> reads = makeMultiSampleReads(header, 10);
+        final ColumnarLocusIterator columns = new ColumnarLocusIterator(reads.iterator(), Collections.singletonList("another sample"), header, true, false);
+        columns.advance();
+    }
+}
@@ -4,6 +4,7 @@ import htsjdk.variant.variantcontext.Allele;
 import org.broadinstitute.gatk.nativebindings.pairhmm.PairHMMNativeArguments;
 import org.broadinstitute.hellbender.GATKBaseTest;
 import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.genotyper.LikelihoodMatrix;
 import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
 import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
@@ -16,6 +17,8 @@ import picard.util.BasicInputParser;
 
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -105,6 +108,86 @@ public final class VectorPairHMMUnitTest extends GATKBaseTest {
         }
     }
 
+    @Test
+    public void testBatchedLikelihoodsMatchUnbatched() {
+        final PairHMMNativeArguments args = new PairHMMNativeArguments();
+        args.useDoublePrecision = false;
+        args.maxNumberOfThreads = 1;
+
+        final PairHMM hmm;
+        try {
+            hmm = new VectorLoglessPairHMM(VectorLoglessPairHMM.Implementation.AVX, args);
+        } catch (final UserException.HardwareFeatureException e ) {
+            throw new SkipException("AVX PairHMM not available");
+        }
+
+        final List<Haplotype> haplotypes = Arrays.asList(
+                new Haplotype("ACGTACGTACGTTTGACCATTACGGATTACAGATTACA".getBytes(), true),
+                new Haplotype("ACGTACGTACGTTTGACCTTTACGGATTACAGATTACA".getBytes(), false),
+                new Haplotype("ACGTACGTACGTTTGACCATTACGGATTACAGGATTACA".getBytes(), false));
+        // reads for two "samples", with different numbers of reads
+        final List<List<GATKRead>> readsPerMatrix = Arrays.asList(
+                Arrays.asList(makeRead("ACGTTTGACCATTACGGATT"), makeRead("TTGACCTTTACGGATTACAG")),
+                Arrays.asList(makeRead("CGGATTACAGGATTACA"), makeRead("ACGTACGTACGTTTGACC"), makeRead("GACCATTACGGATTACAGA")));
+        final PairHMMInputScoreImputator inputScoreImputator = read -> new PairHMMInputScoreImputation() {
+            @Override
+            public byte[] delOpenPenalties() {
+                return Utils.dupBytes((byte) 45, read.getLength());
+            }
+
+            @Override
+            public byte[] insOpenPenalties() {
+                return Utils.dupBytes((byte) 45, read.getLength());
+            }
+
+            @Override
+            public byte[] gapContinuationPenalties() {
+                return Utils.dupBytes((byte) 10, read.getLength());
+            }
+        };
+
+        hmm.initialize(haplotypes, null, 0, 0);
+        final List<RecordingMatrix> unbatched = new ArrayList<>();
+        for (final List<GATKRead> reads : readsPerMatrix) {
+            final RecordingMatrix matrix = new RecordingMatrix(haplotypes, reads.size());
+            hmm.computeLog10Likelihoods(matrix, reads, inputScoreImputator);
+            unbatched.add(matrix);
+        }
+
+        final List<RecordingMatrix> batched = Arrays.asList(
+                new RecordingMatrix(haplotypes, readsPerMatrix.get(0).size()),
+                new RecordingMatrix(haplotypes, readsPerMatrix.get(1).size()));
+        hmm.batchComputeLog10Likelihoods(batched, readsPerMatrix, inputScoreImputator);
+        hmm.close();
+
+        for (int m = 0; m < batched.size(); m++) {
+            for (int h = 0; h < haplotypes.size(); h++) {
+                Assert.assertEquals(batched.get(m).values[h], unbatched.get(m).values[h]);
+            }
+        }
+    }
+
+    private static GATKRead makeRead(final String bases) {
+        return ArtificialReadUtils.createArtificialRead(bases.getBytes(), Utils.dupBytes((byte) 30, bases.length()), bases.length() + "M");
+    }
+
+    /**
+     * Likelihood matrix that only records the likelihoods set by the PairHMM.
+     */
+    private final class RecordingMatrix extends UnsupportedLikelihoodMatrix {
+        private final double[][] values;
+
+        RecordingMatrix(final List<Haplotype> haplotypes, final int readCount) {
+            super(haplotypes);
+            values = new double[haplotypes.size()][readCount];
+        }
+
+        @Override
+        public void set(int alleleIndex, int evidenceIndex, double value) {
+            values[alleleIndex][evidenceIndex] = value;
+        }
+    }
+
     private static byte[] normalize(byte[] scores) {
         return normalize(scores, 0);
     }
@@ -118,62 +201,73 @@ public final class VectorPairHMMUnitTest extends GATKBaseTest {
     }
 
     private LikelihoodMatrix<GATKRead, Haplotype> matrix(final List<Haplotype> haplotypes) {
-        return new LikelihoodMatrix<GATKRead, Haplotype>() {
-            @Override
-            public List<GATKRead> evidence() {
-                throw new UnsupportedOperationException();
-            }
+        return new UnsupportedLikelihoodMatrix(haplotypes);
+    }
 
-            @Override
-            public List<Haplotype> alleles() {
-                return haplotypes;
-            }
+    /**
+     * Likelihood matrix that supports only the methods used by the PairHMM, and discards the likelihoods.
+     */
+    private class UnsupportedLikelihoodMatrix implements LikelihoodMatrix<GATKRead, Haplotype> {
+        private final List<Haplotype> haplotypes;
 
-            @Override
-            public void set(int alleleIndex, int evidenceIndex, double value) {
+        UnsupportedLikelihoodMatrix(final List<Haplotype> haplotypes) {
+            this.haplotypes = haplotypes;
+        }
+
+        @Override
+        public List<GATKRead> evidence() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<Haplotype> alleles() {
+            return haplotypes;
+        }
+
+        @Override
+        public void set(int alleleIndex, int evidenceIndex, double value) {
 //                throw new UnsupportedOperationException();
-            }
+        }
 
-            @Override
-            public double get(int alleleIndex, int evidenceIndex) {
-                throw new UnsupportedOperationException();
-            }
+        @Override
+        public double get(int alleleIndex, int evidenceIndex) {
+            throw new UnsupportedOperationException();
+        }
 
-            @Override
-            public int indexOfAllele(final Allele allele) {
-                throw new UnsupportedOperationException();
-            }
+        @Override
+        public int indexOfAllele(final Allele allele) {
+            throw new UnsupportedOperationException();
+        }
 
-            @Override
-            public int indexOfEvidence(GATKRead evidence) {
-                throw new UnsupportedOperationException();
-            }
+        @Override
+        public int indexOfEvidence(GATKRead evidence) {
+            throw new UnsupportedOperationException();
+        }
 
-            @Override
-            public int numberOfAlleles() {
-                return haplotypes.size();
-            }
+        @Override
+        public int numberOfAlleles() {
+            return haplotypes.size();
+        }
 
-            @Override
-            public int evidenceCount() {
-                throw new UnsupportedOperationException();
-            }
+        @Override
+        public int evidenceCount() {
+            throw new UnsupportedOperationException();
+        }
 
-            @Override
-            public Haplotype getAllele(int alleleIndex) {
-                throw new UnsupportedOperationException();
-            }
+        @Override
+        public Haplotype getAllele(int alleleIndex) {
+            throw new UnsupportedOperationException();
+        }
 
-            @Override
-            public GATKRead getEvidence(int evidenceIndex) {
-                throw new UnsupportedOperationException();
-            }
+        @Override
+        public GATKRead getEvidence(int evidenceIndex) {
+            throw new UnsupportedOperationException();
+        }
 
-            @Override
-            public void copyAlleleLikelihoods(int alleleIndex, double[] dest, int offset) {
-                throw new UnsupportedOperationException();
-            }
-        };
+        @Override
+        public void copyAlleleLikelihoods(int alleleIndex, double[] dest, int offset) {
+            throw new UnsupportedOperationException();
+        }
     }
 
 }
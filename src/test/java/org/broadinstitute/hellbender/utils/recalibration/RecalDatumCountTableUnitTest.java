@@ -0,0 +1,123 @@
+package org.broadinstitute.hellbender.utils.recalibration;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.collections.NestedIntegerArray;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Random;
+
+public final class RecalDatumCountTableUnitTest extends GATKBaseTest {
+
+    private static final int NUM_OBSERVATIONS = 20000;
+
+    @DataProvider(name = "dimensions")
+    public Object[][] dimensions() {
+        return new Object[][] {
+                { new int[] {3, 94, 3} },
+                { new int[] {3, 94, 1002, 3} },
+                { new int[] {1, 60, 5000, 1} },
+        };
+    }
+
+    /**
+     * Random observations, with fractional errors as produced by BAQ, concentrated on a few qualities as in real data
+     */
+    private static void countRandomObservations(final int[] dimensions, final long seed, final NestedIntegerArray<RecalDatum> table, final RecalDatumCountTable counts) {
+        final Random random = new Random(seed);
+        for ( int i = 0; i < NUM_OBSERVATIONS; i++ ) {
+            final int readGroup = random.nextInt(dimensions[0]);
+            final int qual = dimensions[1] - 1 - random.nextInt(Math.min(10, dimensions[1]));
+            final int event = random.nextInt(dimensions[dimensions.length - 1]);
+            final double isError = random.nextInt(10) == 0 ? random.nextDouble() : 0.0;
+            if ( dimensions.length == 3 ) {
+                RecalUtils.incrementDatumOrPutIfNecessary3keys(table, (byte) qual, isError, readGroup, qual, event);
+                counts.increment3Keys(readGroup, qual, event, isError);
+            } else {
+                final int covariate = random.nextInt(dimensions[2]);
+                RecalUtils.incrementDatumOrPutIfNecessary4keys(table, (byte) qual, isError, readGroup, qual, covariate, event);
+                counts.increment4Keys(readGroup, qual, covariate, event, isError);
+            }
+        }
+    }
+
+    private static void assertSameData(final NestedIntegerArray<RecalDatum> actual, final NestedIntegerArray<RecalDatum> expected) {
+        final List<NestedIntegerArray.Leaf<RecalDatum>> expectedLeaves = expected.getAllLeaves();
+        Assert.assertEquals(actual.getAllLeaves().size(), expectedLeaves.size());
+        for ( final NestedIntegerArray.Leaf<RecalDatum> leaf : expectedLeaves ) {
+            final RecalDatum actualDatum = actual.get(leaf.keys);
+            Assert.assertNotNull(actualDatum);
+            Assert.assertEquals(actualDatum.getNumObservations(), leaf.value.getNumObservations());
+            Assert.assertEquals(actualDatum.getNumMismatches(), leaf.value.getNumMismatches());
+            Assert.assertEquals(actualDatum.getEstimatedQReported(), leaf.value.getEstimatedQReported());
+        }
+    }
+
+    @Test(dataProvider = "dimensions")
+    public void testAddToMatchesIncrementalDatums(final int[] dimensions) {
+        final NestedIntegerArray<RecalDatum> expected = new NestedIntegerArray<>(dimensions);
+        final RecalDatumCountTable counts = new RecalDatumCountTable(dimensions);
+        Assert.assertTrue(counts.isEmpty());
+        countRandomObservations(dimensions, 1L, expected, counts);
+        Assert.assertFalse(counts.isEmpty());
+
+        final NestedIntegerArray<RecalDatum> actual = new NestedIntegerArray<>(dimensions);
+        counts.addTo(actual);
+        assertSameData(actual, expected);
+
+        counts.clear();
+        Assert.assertTrue(counts.isEmpty());
+        counts.addTo(actual);
+        assertSameData(actual, expected);
+    }
+
+    @Test(dataProvider = "dimensions")
+    public void testCombine(final int[] dimensions) {
+        final NestedIntegerArray<RecalDatum> expected = new NestedIntegerArray<>(dimensions);
+        final RecalDatumCountTable counts1 = new RecalDatumCountTable(dimensions);
+        final RecalDatumCountTable counts2 = new RecalDatumCountTable(dimensions);
+        countRandomObservations(dimensions, 1L, expected, counts1);
+        countRandomObservations(dimensions, 2L, expected, counts2);
+
+        final NestedIntegerArray<RecalDatum> actual = new NestedIntegerArray<>(dimensions);
+        counts1.combine(counts2).addTo(actual);
+        for ( final NestedIntegerArray.Leaf<RecalDatum> leaf : expected.getAllLeaves() ) {
+            final RecalDatum actualDatum = actual.get(leaf.keys);
+            Assert.assertEquals(actualDatum.getNumObservations(), leaf.value.getNumObservations());
+            Assert.assertEquals(actualDatum.getNumMismatches(), leaf.value.getNumMismatches(), 1e-9);
+            Assert.assertEquals(actualDatum.getEstimatedQReported(), leaf.value.getEstimatedQReported());
+        }
+        Assert.assertEquals(actual.getAllLeaves().size(), expected.getAllLeaves().size());
+    }
+
+    @Test
+    public void testAddToExistingDatums() {
+        final int[] dimensions = {2, 10, 3};
+        final NestedIntegerArray<RecalDatum> table = new NestedIntegerArray<>(dimensions);
+        table.put(new RecalDatum(10L, 2.0, (byte) 5), 1, 5, 0);
+
+        final RecalDatumCountTable counts = new RecalDatumCountTable(dimensions);
+        counts.increment3Keys(1, 5, 0, 1.0);
+        counts.increment3Keys(1, 5, 0, 0.0);
+        counts.increment3Keys(0, 7, 2, 0.5);
+        counts.addTo(table);
+
+        Assert.assertEquals(table.get3Keys(1, 5, 0).getNumObservations(), 12L);
+        Assert.assertEquals(table.get3Keys(1, 5, 0).getNumMismatches(), 3.0, 1e-9);
+        Assert.assertEquals(table.get3Keys(0, 7, 2).getNumObservations(), 1L);
+        Assert.assertEquals(table.get3Keys(0, 7, 2).getNumMismatches(), 0.5, 1e-9);
+        Assert.assertEquals(table.get3Keys(0, 7, 2).getEstimatedQReported(), 7.0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testKeyOutOfRange() {
+        new RecalDatumCountTable(2, 10, 4, 3).increment4Keys(0, 5, 4, 0, 0.0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testCombineDifferentDimensions() {
+        new RecalDatumCountTable(2, 10, 3).combine(new RecalDatumCountTable(3, 10, 3));
+    }
+}
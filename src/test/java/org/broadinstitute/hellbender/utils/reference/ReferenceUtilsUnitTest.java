@@ -2,10 +2,12 @@ package org.broadinstitute.hellbender.utils.reference;
 
 import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.reference.ReferenceSequenceFile;
 import org.broadinstitute.hellbender.engine.GATKPath;
 import org.broadinstitute.hellbender.engine.ReferenceDataSource;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.fasta.CachingIndexedFastaSequenceFile;
 import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
 import org.broadinstitute.hellbender.GATKBaseTest;
 import org.testng.Assert;
@@ -119,4 +121,17 @@ public class ReferenceUtilsUnitTest extends GATKBaseTest {
             }
         }
     }
+
+    @Test
+    public void testCreateReferenceReaderForTwoBit() throws IOException {
+        try ( final ReferenceSequenceFile fastaReader = ReferenceUtils.createReferenceReader(new GATKPath(v37_chr17_1Mb_Reference));
+              final ReferenceSequenceFile twoBitReader = ReferenceUtils.createReferenceReader(new GATKPath(publicTestDir + "human_g1k_v37.chr17_1Mb.2bit")) ) {
+            Assert.assertTrue(fastaReader instanceof CachingIndexedFastaSequenceFile);
+            Assert.assertTrue(twoBitReader instanceof MappedTwoBitReference);
+            Assert.assertEquals(twoBitReader.getSequenceDictionary().size(), fastaReader.getSequenceDictionary().size());
+            Assert.assertEquals(twoBitReader.getSubsequenceAt("17", 70003, 70110).getBases(), fastaReader.getSubsequenceAt("17", 70003, 70110).getBases());
+            Assert.assertEquals(twoBitReader.getSequence("17").getBases(), fastaReader.getSequence("17").getBases());
+            Assert.assertEquals(twoBitReader.nextSequence().getName(), "17");
+        }
+    }
 }
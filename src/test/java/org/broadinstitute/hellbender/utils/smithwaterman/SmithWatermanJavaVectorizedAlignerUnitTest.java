@@ -0,0 +1,85 @@
+package org.broadinstitute.hellbender.utils.smithwaterman;
+
+import org.broadinstitute.gatk.nativebindings.smithwaterman.SWOverhangStrategy;
+import org.broadinstitute.gatk.nativebindings.smithwaterman.SWParameters;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public final class SmithWatermanJavaVectorizedAlignerUnitTest extends SmithWatermanAlignerAbstractUnitTest {
+
+    @Override
+    protected SmithWatermanJavaVectorizedAligner getAligner() {
+        return SmithWatermanJavaVectorizedAligner.getInstance();
+    }
+
+    @DataProvider(name = "differentialTestData")
+    public Object[][] differentialTestData() {
+        final List<Object[]> tests = new ArrayList<>();
+        final SWParameters[] parameters = {
+                SmithWatermanAlignmentConstants.ORIGINAL_DEFAULT,
+                SmithWatermanAlignmentConstants.STANDARD_NGS,
+                SmithWatermanAlignmentConstants.NEW_SW_PARAMETERS,
+                SmithWatermanAlignmentConstants.ALIGNMENT_TO_BEST_HAPLOTYPE_SW_PARAMETERS,
+                new SWParameters(5, -4, -12, -1)
+        };
+        for ( final SWParameters swParameters : parameters ) {
+            for ( final SWOverhangStrategy overhangStrategy : SWOverhangStrategy.values() ) {
+                tests.add(new Object[]{swParameters, overhangStrategy});
+            }
+        }
+        return tests.toArray(new Object[][]{});
+    }
+
+    /**
+     * Alignments of random sequences, and of mutated subsequences of random sequences, must be identical to those of
+     * {@link SmithWatermanJavaAligner}
+     */
+    @Test(dataProvider = "differentialTestData")
+    public void testSameAlignmentsAsJavaAligner(final SWParameters parameters, final SWOverhangStrategy overhangStrategy) {
+        final Random random = new Random(13);
+        final SmithWatermanAligner expectedAligner = SmithWatermanJavaAligner.getInstance();
+        final SmithWatermanAligner aligner = getAligner();
+        for ( int n = 0; n < 500; n++ ) {
+            final byte[] reference = randomBases(random, 1 + random.nextInt(100));
+            final byte[] alternate;
+            if ( random.nextBoolean() ) {
+                alternate = randomBases(random, 1 + random.nextInt(100));
+            } else {
+                // a piece of the reference with some substitutions, insertions and deletions
+                final int start = random.nextInt(reference.length);
+                final int end = start + 1 + random.nextInt(reference.length - start);
+                final StringBuilder builder = new StringBuilder();
+                for ( int i = start; i < end; i++ ) {
+                    final int event = random.nextInt(20);
+                    if ( event == 0 ) {
+                        builder.append("ACGT".charAt(random.nextInt(4)));
+                    } else if ( event == 1 ) {
+                        builder.append((char) reference[i]).append("ACGT".charAt(random.nextInt(4)));
+                    } else if ( event != 2 ) {
+                        builder.append((char) reference[i]);
+                    }
+                }
+                alternate = builder.length() == 0 ? new byte[]{reference[start]} : builder.toString().getBytes();
+            }
+
+            final SmithWatermanAlignment expected = expectedAligner.align(reference, alternate, parameters, overhangStrategy);
+            final SmithWatermanAlignment actual = aligner.align(reference, alternate, parameters, overhangStrategy);
+            final String message = String.format("ref=%s alt=%s", new String(reference), new String(alternate));
+            Assert.assertEquals(actual.getCigar(), expected.getCigar(), message);
+            Assert.assertEquals(actual.getAlignmentOffset(), expected.getAlignmentOffset(), message);
+        }
+    }
+
+    private static byte[] randomBases(final Random random, final int length) {
+        final byte[] bases = new byte[length];
+        for ( int i = 0; i < length; i++ ) {
+            bases[i] = (byte) "ACGT".charAt(random.nextInt(4));
+        }
+        return bases;
+    }
+}
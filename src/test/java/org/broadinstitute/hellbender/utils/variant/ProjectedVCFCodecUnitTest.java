@@ -0,0 +1,109 @@
+package org.broadinstitute.hellbender.utils.variant;
+
+import htsjdk.tribble.readers.LineIterator;
+import htsjdk.tribble.readers.LineIteratorImpl;
+import htsjdk.tribble.readers.SynchronousLineReader;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFHeader;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+
+public final class ProjectedVCFCodecUnitTest extends GATKBaseTest {
+
+    private static final String SITES = "1\t100\trs1\tA\tC\t50\tPASS";
+    private static final String GENOTYPES = "GT:DP\t0/1:10\t1/1:12";
+
+    private static final String VCF_HEADER =
+            "##fileformat=VCFv4.2\n" +
+            "##INFO=<ID=AC,Number=A,Type=Integer,Description=\"Allele count\">\n" +
+            "##INFO=<ID=DP,Number=1,Type=Integer,Description=\"Depth\">\n" +
+            "##INFO=<ID=DB,Number=0,Type=Flag,Description=\"dbSNP\">\n" +
+            "##INFO=<ID=END,Number=1,Type=Integer,Description=\"End\">\n" +
+            "##FORMAT=<ID=GT,Number=1,Type=String,Description=\"Genotype\">\n" +
+            "##FORMAT=<ID=DP,Number=1,Type=Integer,Description=\"Depth\">\n" +
+            "##contig=<ID=1,length=1000>\n" +
+            "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\ts1\ts2\n";
+
+    private static ProjectedVCFCodec codec(final VCFFieldProjection projection) {
+        return new ProjectedVCFCodec(projection);
+    }
+
+    private static VCFFieldProjection infoOnly(final String... infoFields) {
+        return VCFFieldProjection.of(new LinkedHashSet<>(Arrays.asList(infoFields)), false);
+    }
+
+    @DataProvider(name = "projections")
+    public Object[][] projections() {
+        final String info = "AC=1;DB;DP=22;END=100";
+        return new Object[][] {
+                // keep everything but the genotypes
+                {VCFFieldProjection.of(null, false), SITES + "\t" + info + "\t" + GENOTYPES, SITES + "\t" + info},
+                {VCFFieldProjection.of(null, false), SITES + "\t" + info, SITES + "\t" + info},
+                // END is always kept
+                {infoOnly("DP"), SITES + "\t" + info + "\t" + GENOTYPES, SITES + "\tDP=22;END=100"},
+                {infoOnly("DB", "AC"), SITES + "\t" + info + "\t" + GENOTYPES, SITES + "\tAC=1;DB;END=100"},
+                // keys are matched in full, not by prefix
+                {infoOnly("D"), SITES + "\tDB;DP=22\t" + GENOTYPES, SITES + "\t."},
+                {infoOnly(), SITES + "\t" + info, SITES + "\tEND=100"},
+                {infoOnly(), SITES + "\t.\t" + GENOTYPES, SITES + "\t."},
+                // keep the genotypes
+                {VCFFieldProjection.of(Collections.singleton("DB"), true), SITES + "\t" + info + "\t" + GENOTYPES, SITES + "\tDB;END=100\t" + GENOTYPES},
+                // header lines are untouched
+                {infoOnly(), "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\ts1", "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\ts1"}
+        };
+    }
+
+    @Test(dataProvider = "projections")
+    public void testProject(final VCFFieldProjection projection, final String line, final String expected) {
+        Assert.assertEquals(codec(projection).project(line), expected);
+    }
+
+    @Test
+    public void testDecodeWithoutGenotypes() {
+        final ProjectedVCFCodec codec = codec(infoOnly("DP"));
+        final LineIterator lines = new LineIteratorImpl(new SynchronousLineReader(new StringReader(VCF_HEADER)));
+        final VCFHeader header = (VCFHeader) codec.readActualHeader(lines);
+        Assert.assertEquals(header.getGenotypeSamples(), Arrays.asList("s1", "s2"), "the header should keep the samples of the file");
+
+        final VariantContext vc = codec.decode(SITES + "\tAC=1;DB;DP=22;END=100\t" + GENOTYPES);
+        Assert.assertEquals(vc.getContig(), "1");
+        Assert.assertEquals(vc.getStart(), 100);
+        Assert.assertEquals(vc.getEnd(), 100);
+        Assert.assertEquals(vc.getID(), "rs1");
+        Assert.assertEquals(vc.getAttributeAsInt("DP", 0), 22);
+        Assert.assertFalse(vc.hasAttribute("AC"));
+        Assert.assertFalse(vc.hasAttribute("DB"));
+        Assert.assertFalse(vc.hasGenotypes());
+    }
+
+    @Test
+    public void testDecodeWithGenotypes() {
+        final ProjectedVCFCodec codec = codec(VCFFieldProjection.of(Collections.emptySet(), true));
+        codec.readActualHeader(new LineIteratorImpl(new SynchronousLineReader(new StringReader(VCF_HEADER))));
+
+        final VariantContext vc = codec.decode(SITES + "\tAC=1;DB;DP=22\t" + GENOTYPES);
+        Assert.assertTrue(vc.getAttributes().isEmpty());
+        Assert.assertEquals(vc.getNSamples(), 2);
+        Assert.assertEquals(vc.getGenotype("s2").getDP(), 12);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testInfoFieldsOfAllInfoFieldsProjection() {
+        VCFFieldProjection.of(null, false).getInfoFields();
+    }
+
+    @Test
+    public void testAllFields() {
+        Assert.assertSame(VCFFieldProjection.of(null, true), VCFFieldProjection.ALL_FIELDS);
+        Assert.assertTrue(VCFFieldProjection.ALL_FIELDS.includesAllFields());
+        Assert.assertFalse(infoOnly("DP").includesAllFields());
+        Assert.assertFalse(VCFFieldProjection.of(null, false).includesAllFields());
+    }
+}
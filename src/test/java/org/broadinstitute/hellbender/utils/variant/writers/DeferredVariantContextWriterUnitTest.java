@@ -0,0 +1,106 @@
+package org.broadinstitute.hellbender.utils.variant.writers;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.vcf.VCFHeader;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public final class DeferredVariantContextWriterUnitTest extends GATKBaseTest {
+
+    private static final String contigName = "1";
+
+    /**
+     * Writer that keeps the records added to it
+     */
+    private static final class CollectingWriter implements VariantContextWriter {
+        private final List<VariantContext> records = new ArrayList<>();
+
+        @Override
+        public void writeHeader(final VCFHeader header) { }
+
+        @Override
+        public void setHeader(final VCFHeader header) { }
+
+        @Override
+        public void add(final VariantContext vc) {
+            records.add(vc);
+        }
+
+        @Override
+        public boolean checkError() {
+            return false;
+        }
+
+        @Override
+        public void close() { }
+    }
+
+    private static VCFHeader createTestHeader() {
+        final VCFHeader header = new VCFHeader();
+        header.setSequenceDictionary(new SAMSequenceDictionary(Collections.singletonList(new SAMSequenceRecord(contigName, 100000))));
+        return header;
+    }
+
+    private static List<VariantContext> createTestVariants(final int numVariants) {
+        final List<VariantContext> variants = new ArrayList<>(numVariants);
+        for (int i = 0; i < numVariants; i++) {
+            variants.add(new VariantContextBuilder(null, contigName, 10 * i + 1, 10 * i + 1, Arrays.asList(Allele.REF_A, Allele.ALT_C))
+                    .id("var" + i).make());
+        }
+        return variants;
+    }
+
+    @DataProvider(name = "numVariantsAndMaxInMemory")
+    public Object[][] numVariantsAndMaxInMemory() {
+        return new Object[][] {
+                {0, 5}, {3, 5}, {5, 5}, {6, 5}, {20, 5}, {3, 0}, {100, DeferredVariantContextWriter.DEFAULT_MAX_RECORDS_IN_MEMORY}
+        };
+    }
+
+    @Test(dataProvider = "numVariantsAndMaxInMemory")
+    public void testReplayInOrder(final int numVariants, final int maxRecordsInMemory) {
+        final List<VariantContext> variants = createTestVariants(numVariants);
+        final DeferredVariantContextWriter writer = new DeferredVariantContextWriter(maxRecordsInMemory);
+        writer.writeHeader(createTestHeader());
+        variants.forEach(writer::add);
+        Assert.assertEquals(writer.hasSpilled(), numVariants > maxRecordsInMemory);
+
+        final CollectingWriter replayed = new CollectingWriter();
+        writer.replayTo(replayed);
+        Assert.assertFalse(writer.hasSpilled(), "the temporary file should have been deleted");
+        Assert.assertEquals(replayed.records.size(), numVariants);
+        for (int i = 0; i < numVariants; i++) {
+            final VariantContext expected = variants.get(i);
+            final VariantContext actual = replayed.records.get(i);
+            Assert.assertEquals(actual.getContig(), expected.getContig());
+            Assert.assertEquals(actual.getStart(), expected.getStart());
+            Assert.assertEquals(actual.getID(), expected.getID());
+            Assert.assertEquals(actual.getAlleles(), expected.getAlleles());
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testAddWithoutHeader() {
+        new DeferredVariantContextWriter().add(createTestVariants(1).get(0));
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testAddAfterReplay() {
+        final DeferredVariantContextWriter writer = new DeferredVariantContextWriter();
+        writer.setHeader(createTestHeader());
+        writer.replayTo(new CollectingWriter());
+        writer.add(createTestVariants(1).get(0));
+    }
+}